@@ -1,8 +1,12 @@
 package com.landrycarroll.leaflog;
 
+import com.landrycarroll.leaflog.admin.controllers.BackupControllerCLI;
+import com.landrycarroll.leaflog.admin.controllers.StorageControllerCLI;
 import com.landrycarroll.leaflog.infrastructure.ConsoleIO;
 import com.landrycarroll.leaflog.infrastructure.DynamicDbInitializer;
 import com.landrycarroll.leaflog.infrastructure.MenuBuilder;
+import com.landrycarroll.leaflog.infrastructure.SqliteBackupService;
+import com.landrycarroll.leaflog.infrastructure.SqliteMaintenanceService;
 import com.landrycarroll.leaflog.infrastructure.UserIO;
 import com.landrycarroll.leaflog.plantmanagement.controllers.PlantControllerCLI;
 import com.landrycarroll.leaflog.plantmanagement.services.PlantService;
@@ -17,7 +21,8 @@ import java.net.URI;
  * The entry point for the LeafLog application.
  * <p>
  * This Spring Boot CLI application allows users to manage a plant care log
- * with options to create, update, delete, view, water, and bulk import plant data.
+ * with options to create, update, delete, view, water, and bulk import plant data,
+ * and to back up and restore the database.
  * </p>
  * <p>
  * It initializes the SQLite database dynamically, starts the Spring context, opens
@@ -53,6 +58,8 @@ public class LeaflogApplication {
         UserIO io = new ConsoleIO();
         PlantService plantService = context.getBean(PlantService.class);
         PlantControllerCLI plantController = new PlantControllerCLI(io, plantService);
+        BackupControllerCLI backupController = new BackupControllerCLI(io, context.getBean(SqliteBackupService.class));
+        StorageControllerCLI storageController = new StorageControllerCLI(io, context.getBean(SqliteMaintenanceService.class));
 
         // Build CLI menu
         new MenuBuilder(io)
@@ -62,6 +69,9 @@ public class LeaflogApplication {
                 .addOption("Water a Plant", plantController::waterPlant)
                 .addOption("View Plant List", plantController::viewPlantList)
                 .addOption("Add Plant from File", plantController::addPlantsFromFile)
+                .addOption("Back Up Database", backupController::backUp)
+                .addOption("Restore Database from Backup", backupController::restore)
+                .addOption("View Storage Statistics", storageController::viewStorage)
                 .build();
     }
 
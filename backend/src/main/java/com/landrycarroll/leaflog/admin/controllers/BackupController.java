@@ -0,0 +1,98 @@
+package com.landrycarroll.leaflog.admin.controllers;
+
+import com.landrycarroll.leaflog.infrastructure.SqliteBackupService;
+import com.landrycarroll.leaflog.infrastructure.TenantContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
+
+/**
+ * {@code BackupController} is a REST controller for administering database backups.
+ * It exposes endpoints to start an online backup of every tenant, follow its progress, list a tenant's existing
+ * backups and restore one of them.
+ * <p>
+ * This controller delegates all work to {@link SqliteBackupService}.
+ * </p>
+ */
+@RestController
+@RequestMapping("/api/admin/backups")
+public class BackupController {
+
+    private final SqliteBackupService backupService;
+
+    /**
+     * Constructs a {@code BackupController} with the provided service.
+     *
+     * @param backupService the service taking and restoring backups
+     */
+    public BackupController(SqliteBackupService backupService) {
+        this.backupService = backupService;
+    }
+
+    /**
+     * Lists a tenant's existing backups, newest first, along with the status of the latest backup run.
+     *
+     * @param tenant the tenant whose backups to list; defaults to the default tenant
+     * @return a {@link ResponseEntity} containing the backups and the current status
+     */
+    @GetMapping
+    public ResponseEntity<?> backups(@RequestParam(defaultValue = TenantContext.DEFAULT_TENANT) String tenant) {
+        return ResponseEntity.ok(Map.of(
+                "backups", backupService.list(tenant),
+                "current", backupService.status() == null ? Map.of() : backupService.status()));
+    }
+
+    /**
+     * Starts a backup in the background. If a backup is already running, its status is returned instead.
+     *
+     * @return a {@link ResponseEntity} with status 202 and the progress of the running backup
+     */
+    @PostMapping
+    public ResponseEntity<?> start() {
+        return ResponseEntity.accepted()
+                .location(linkTo(methodOn(BackupController.class).status()).toUri())
+                .body(backupService.start());
+    }
+
+    /**
+     * Reports the progress of the latest backup run.
+     *
+     * @return a {@link ResponseEntity} with the backup status, or 404 if no backup has been started
+     */
+    @GetMapping("/status")
+    public ResponseEntity<?> status() {
+        SqliteBackupService.BackupStatus status = backupService.status();
+        return status == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(status);
+    }
+
+    /**
+     * Replaces a tenant's live database with one of its backups.
+     *
+     * @param name   the file name of the backup
+     * @param tenant the tenant whose database to restore; defaults to the default tenant
+     * @return a {@link ResponseEntity} with a confirmation message
+     */
+    @PostMapping("/{name}/restore")
+    public ResponseEntity<?> restore(@PathVariable String name,
+                                     @RequestParam(defaultValue = TenantContext.DEFAULT_TENANT) String tenant) {
+        backupService.restore(tenant, name);
+        return ResponseEntity.ok(Map.of("message", "Restored database of tenant " + tenant + " from " + name));
+    }
+
+    /**
+     * Handles requests for backups or tenants that don't exist.
+     *
+     * @param ex the exception thrown for an unknown backup name or an invalid tenant id
+     * @return a descriptive error message
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    ResponseEntity<?> unknownBackupHandler(IllegalArgumentException ex) {
+        return ResponseEntity
+                .status(HttpStatus.NOT_FOUND)
+                .body(Map.of("message", ex.getMessage()));
+    }
+}
@@ -0,0 +1,65 @@
+package com.landrycarroll.leaflog.admin.controllers;
+
+import com.landrycarroll.leaflog.infrastructure.SqliteBackupService;
+import com.landrycarroll.leaflog.infrastructure.UserIO;
+
+import java.util.List;
+
+/**
+ * {@code BackupControllerCLI} provides the command-line interface for database backups.
+ * It delegates all work to {@link SqliteBackupService} and interacts with the user via a {@link UserIO}.
+ *
+ * <p>Supports starting a backup and restoring the database from an existing backup.</p>
+ */
+public class BackupControllerCLI {
+    private final UserIO io;
+    private final SqliteBackupService service;
+
+    /**
+     * Constructs a new {@code BackupControllerCLI}.
+     *
+     * @param io            the I/O handler to interact with the user
+     * @param backupService the service taking and restoring backups
+     */
+    public BackupControllerCLI(UserIO io, SqliteBackupService backupService) {
+        this.io = io;
+        this.service = backupService;
+    }
+
+    /**
+     * Starts a backup in the background and tells the user where it will be written.
+     */
+    public void backUp() {
+        SqliteBackupService.BackupStatus status = service.start();
+        io.writeOutput("Backup " + status.name() + " started. It continues in the background.");
+        io.writeOutput("\n");
+    }
+
+    /**
+     * Lists the existing backups and restores the one the user picks.
+     */
+    public void restore() {
+        try {
+            List<SqliteBackupService.BackupFile> backups = service.list();
+            if (backups.isEmpty()) {
+                io.writeOutput("No backups found.\n");
+                return;
+            }
+
+            io.writeOutput("Backups:");
+            for (SqliteBackupService.BackupFile backup : backups) {
+                io.writeOutput(backup.name() + " (" + backup.bytes() / 1024 + " KB)");
+            }
+
+            String name = io.readInput("Enter the name of the backup to restore: ");
+            service.restore(name.trim());
+
+            io.writeOutput("Database restored from " + name.trim());
+            io.writeOutput("\n");
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            io.writeOutput("Error: " + e.getMessage());
+        } catch (Exception e) {
+            io.writeOutput("An unexpected error occurred! " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.landrycarroll.leaflog.admin.controllers;
+
+import com.landrycarroll.leaflog.infrastructure.SlowQueryLog;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * {@code QueryController} is a REST controller for finding the SQL statements that slow the application down.
+ * It exposes endpoints to list the slowest statement shapes with their query plans and to start measuring afresh.
+ * <p>
+ * This controller delegates all work to {@link SlowQueryLog}.
+ * </p>
+ */
+@RestController
+@RequestMapping("/api/admin/queries")
+public class QueryController {
+
+    private final SlowQueryLog slowQueryLog;
+
+    /**
+     * Constructs a {@code QueryController} with the provided log.
+     *
+     * @param slowQueryLog the log of slow statements
+     */
+    public QueryController(SlowQueryLog slowQueryLog) {
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    /**
+     * Lists the statement shapes that spent the most time in slow executions, with their execution counts, timing
+     * percentiles and query plans.
+     *
+     * @param limit the maximum number of shapes to list
+     * @return a {@link ResponseEntity} containing the slowest shapes and the number of untracked slow executions,
+     * or {@code 400 Bad Request} if the limit isn't positive
+     */
+    @GetMapping("/slow")
+    public ResponseEntity<?> slowQueries(@RequestParam(defaultValue = "10") int limit) {
+        if (limit <= 0) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Limit must be greater than 0"));
+        }
+        return ResponseEntity.ok(Map.of(
+                "queries", slowQueryLog.top(limit),
+                "untracked", slowQueryLog.untracked()));
+    }
+
+    /**
+     * Forgets every recorded slow statement, e.g. after adding an index.
+     *
+     * @return {@code 204 No Content}
+     */
+    @DeleteMapping("/slow")
+    public ResponseEntity<Void> reset() {
+        slowQueryLog.reset();
+        return ResponseEntity.noContent().build();
+    }
+}
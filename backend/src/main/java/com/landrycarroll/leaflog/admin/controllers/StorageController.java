@@ -0,0 +1,53 @@
+package com.landrycarroll.leaflog.admin.controllers;
+
+import com.landrycarroll.leaflog.infrastructure.SqliteMaintenanceService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * {@code StorageController} is a REST controller for inspecting and maintaining the database file.
+ * It exposes endpoints to read storage metrics and to run storage maintenance on demand.
+ * <p>
+ * This controller delegates all work to {@link SqliteMaintenanceService}.
+ * </p>
+ */
+@RestController
+@RequestMapping("/api/admin/storage")
+public class StorageController {
+
+    private final SqliteMaintenanceService maintenanceService;
+
+    /**
+     * Constructs a {@code StorageController} with the provided service.
+     *
+     * @param maintenanceService the service measuring and maintaining the database file
+     */
+    public StorageController(SqliteMaintenanceService maintenanceService) {
+        this.maintenanceService = maintenanceService;
+    }
+
+    /**
+     * Reports page counts, the free list and the size of every table and index, along with the latest
+     * maintenance run.
+     *
+     * @return a {@link ResponseEntity} containing the storage metrics and the last maintenance run
+     */
+    @GetMapping
+    public ResponseEntity<?> storage() {
+        return ResponseEntity.ok(Map.of(
+                "metrics", maintenanceService.metrics(),
+                "lastMaintenance", maintenanceService.lastRun() == null ? Map.of() : maintenanceService.lastRun()));
+    }
+
+    /**
+     * Runs storage maintenance immediately, even if the API is busy.
+     *
+     * @return a {@link ResponseEntity} with the outcome of the run
+     */
+    @PostMapping("/maintenance")
+    public ResponseEntity<?> maintain() {
+        return ResponseEntity.ok(maintenanceService.maintainNow());
+    }
+}
@@ -0,0 +1,45 @@
+package com.landrycarroll.leaflog.admin.controllers;
+
+import com.landrycarroll.leaflog.infrastructure.SqliteMaintenanceService;
+import com.landrycarroll.leaflog.infrastructure.UserIO;
+
+/**
+ * {@code StorageControllerCLI} provides the command-line interface for inspecting the database file.
+ * It delegates all work to {@link SqliteMaintenanceService} and interacts with the user via a {@link UserIO}.
+ *
+ * <p>Supports viewing storage metrics.</p>
+ */
+public class StorageControllerCLI {
+    private final UserIO io;
+    private final SqliteMaintenanceService service;
+
+    /**
+     * Constructs a new {@code StorageControllerCLI}.
+     *
+     * @param io                 the I/O handler to interact with the user
+     * @param maintenanceService the service measuring the database file
+     */
+    public StorageControllerCLI(UserIO io, SqliteMaintenanceService maintenanceService) {
+        this.io = io;
+        this.service = maintenanceService;
+    }
+
+    /**
+     * Displays the size of the database file, its free pages and the space used by each table and index.
+     */
+    public void viewStorage() {
+        try {
+            SqliteMaintenanceService.StorageMetrics metrics = service.metrics();
+
+            io.writeOutput("Database: " + metrics.pageCount() + " pages of " + metrics.pageSize() + " bytes ("
+                    + metrics.fileBytes() / 1024 + " KB), " + metrics.freePages() + " free");
+            for (SqliteMaintenanceService.ObjectUsage object : metrics.objects()) {
+                io.writeOutput(object.type() + " " + object.name() + ": " + object.pages() + " pages ("
+                        + object.bytes() / 1024 + " KB, " + object.unusedBytes() / 1024 + " KB unused)");
+            }
+            io.writeOutput("\n");
+        } catch (Exception e) {
+            io.writeOutput("An unexpected error occurred! " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.landrycarroll.leaflog.admin.controllers;
+
+import com.landrycarroll.leaflog.infrastructure.TenantDatabases;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * {@code TenantController} is a REST controller for monitoring tenant databases.
+ * It exposes an endpoint listing the open tenant databases with their throughput and connection counts.
+ * <p>
+ * This controller delegates all work to {@link TenantDatabases}.
+ * </p>
+ */
+@RestController
+@RequestMapping("/api/admin/tenants")
+public class TenantController {
+
+    private final TenantDatabases tenants;
+
+    /**
+     * Constructs a {@code TenantController} with the provided registry.
+     *
+     * @param tenants the registry of tenant databases
+     */
+    public TenantController(TenantDatabases tenants) {
+        this.tenants = tenants;
+    }
+
+    /**
+     * Lists the open tenant databases, the default tenant first, with their request rates, connection checkouts
+     * and open connections.
+     *
+     * @return a {@link ResponseEntity} containing the statistics of each open tenant
+     */
+    @GetMapping
+    public ResponseEntity<?> tenants() {
+        return ResponseEntity.ok(Map.of("tenants", tenants.stats()));
+    }
+}
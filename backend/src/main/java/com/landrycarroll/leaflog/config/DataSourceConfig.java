@@ -0,0 +1,135 @@
+package com.landrycarroll.leaflog.config;
+
+import com.landrycarroll.leaflog.infrastructure.CompactStorageMigrator;
+import com.landrycarroll.leaflog.infrastructure.SchemaMigrator;
+import com.landrycarroll.leaflog.infrastructure.SlowQueryLog;
+import com.landrycarroll.leaflog.infrastructure.TenantDatabase;
+import com.landrycarroll.leaflog.infrastructure.TenantDatabases;
+import com.landrycarroll.leaflog.infrastructure.TenantRoutingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Configuration class that splits SQLite access into separate read and write connection pools.
+ * <p>
+ * SQLite allows a single writer, so the write pool holds exactly one connection. With WAL enabled,
+ * readers don't block that writer, so read-only transactions get their own multi-connection pool
+ * of {@code leaflog.datasource.read-pool-size} connections opened in read-only mode.
+ * Both pools use the JDBC URL from {@code spring.datasource.url}.
+ * <p>
+ * The primary datasource routes each connection to the database of the current tenant, which is this pair of pools
+ * for the default tenant and a lazily opened pair of pools per tenant otherwise (see {@link TenantDatabases}).
+ * </p>
+ * <p>
+ * Statements run through the tenant-routed datasources are timed, and the slow ones recorded by the
+ * {@link SlowQueryLog}.
+ * </p>
+ */
+@Configuration
+public class DataSourceConfig {
+
+    /**
+     * SQLite {@code open_mode} flag for opening the database file read-only.
+     */
+    private static final String SQLITE_OPEN_READONLY = "1";
+
+    /**
+     * Creates the single-connection pool used for every read-write transaction.
+     *
+     * @param properties the standard {@code spring.datasource.*} properties
+     * @return the write pool
+     */
+    @Bean(defaultCandidate = false)
+    public HikariDataSource writeDataSource(DataSourceProperties properties) {
+        HikariConfig config = poolConfig(properties, "sqlite-write", 1);
+        return new HikariDataSource(config);
+    }
+
+    /**
+     * Creates the read-only pool used by transactions marked {@code readOnly = true}.
+     * <p>
+     * Depends on the write pool so that a new database file is created, and switched to WAL mode,
+     * before any read-only connection tries to open it.
+     * </p>
+     *
+     * @param properties   the standard {@code spring.datasource.*} properties
+     * @param readPoolSize the maximum number of concurrent read connections
+     * @return the read pool
+     */
+    @Bean(defaultCandidate = false)
+    @DependsOn("writeDataSource")
+    public HikariDataSource readDataSource(DataSourceProperties properties,
+                                           @Value("${leaflog.datasource.read-pool-size:4}") int readPoolSize) {
+        HikariConfig config = poolConfig(properties, "sqlite-read", readPoolSize);
+        config.setReadOnly(true);
+        config.addDataSourceProperty("open_mode", SQLITE_OPEN_READONLY);
+        return new HikariDataSource(config);
+    }
+
+    /**
+     * Creates the primary {@link DataSource}, which routes each transaction to the current tenant's database and,
+     * within it, to the read or write pool according to the transaction's read-only flag.
+     *
+     * @param tenants      the registry of tenant databases
+     * @param slowQueryLog the log slow statements are recorded in
+     * @return the routing datasource used by JPA and Spring Data
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(TenantDatabases tenants, SlowQueryLog slowQueryLog) {
+        return new LazyConnectionDataSourceProxy(
+                slowQueryLog.timed(new TenantRoutingDataSource(tenants, TenantDatabase::dataSource)));
+    }
+
+    /**
+     * Creates a datasource handing out connections from the current tenant's read-only pool, for reads that
+     * don't run inside a transaction.
+     *
+     * @param tenants      the registry of tenant databases
+     * @param slowQueryLog the log slow statements are recorded in
+     * @return the tenant-routed read-only datasource
+     */
+    @Bean(defaultCandidate = false)
+    public DataSource tenantReadDataSource(TenantDatabases tenants, SlowQueryLog slowQueryLog) {
+        return slowQueryLog.timed(new TenantRoutingDataSource(tenants, TenantDatabase::readDataSource));
+    }
+
+    /**
+     * Makes the JPA {@code EntityManagerFactory} wait for the schema migrations, so that Hibernate
+     * validates the schema only after every pending migration has been applied.
+     *
+     * @return the post-processor adding the dependency
+     */
+    @Bean
+    public static EntityManagerFactoryDependsOnPostProcessor schemaMigrationsBeforeJpa() {
+        return new EntityManagerFactoryDependsOnPostProcessor(SchemaMigrator.class, CompactStorageMigrator.class);
+    }
+
+    /**
+     * Builds the pool settings shared by both pools.
+     *
+     * @param properties the standard {@code spring.datasource.*} properties
+     * @param poolName   the name shown in Hikari logs and metrics
+     * @param poolSize   the fixed number of connections in the pool
+     * @return the pool configuration
+     */
+    private HikariConfig poolConfig(DataSourceProperties properties, String poolName, int poolSize) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(poolName);
+        config.setDriverClassName(properties.determineDriverClassName());
+        config.setJdbcUrl(properties.determineUrl());
+        config.setMaximumPoolSize(poolSize);
+        config.setMinimumIdle(poolSize);
+        return config;
+    }
+}
@@ -0,0 +1,13 @@
+package com.landrycarroll.leaflog.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Configuration class that enables Spring's {@code @Scheduled} background jobs,
+ * such as moving dormant plants to the archive.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,245 @@
+package com.landrycarroll.leaflog.infrastructure;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * {@code CompactStorageMigrator} converts the {@code plant} table to the compact storage layout
+ * when {@code leaflog.storage.compact=true}.
+ * <p>
+ * The compact layout declares the table {@code WITHOUT ROWID}, so rows are stored directly in the
+ * primary key B-tree instead of in a rowid table plus a separate index on {@code id}. Identifiers are
+ * 16-byte blobs and {@code last_watered_date} holds epoch milliseconds as an integer. Columns keep their
+ * declared types ({@code timestamp} has numeric affinity in SQLite), so Hibernate's schema validation
+ * still matches the entity mapping, and the table's indexes and triggers are recreated after the rebuild.
+ * Column constraints ({@code NOT NULL} and {@code DEFAULT}), unique constraints and foreign keys are carried
+ * over as well.
+ * </p>
+ * <p>
+ * Existing database files are migrated in place on startup, after {@link SchemaMigrator} and before Hibernate
+ * validates the schema: the table is rebuilt in the new layout in a single transaction,
+ * and the file is vacuumed afterwards to release the
+ * space held by the old table. Identifiers stored as text and dates stored as text are converted
+ * during the copy. Databases that already use the compact layout are left untouched.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = "leaflog.storage.compact", havingValue = "true")
+@DependsOn("schemaMigrator")
+public class CompactStorageMigrator implements InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(CompactStorageMigrator.class);
+
+    /**
+     * Copy expressions for columns that need converting; every other column is copied as-is.
+     */
+    private static final Map<String, String> COLUMN_CONVERSIONS = Map.of(
+            "id", "CASE typeof(id) WHEN 'text' THEN unhex(replace(id, '-', '')) ELSE id END",
+            "last_watered_date", "CASE typeof(last_watered_date) "
+                    + "WHEN 'text' THEN CAST(round((julianday(last_watered_date) - 2440587.5) * 86400000) AS INTEGER) "
+                    + "ELSE last_watered_date END"
+    );
+
+    /**
+     * Declared types for the converted columns; every other column keeps its existing declaration.
+     */
+    private static final Map<String, String> COLUMN_TYPES = Map.of(
+            "id", "blob not null",
+            "last_watered_date", "timestamp"
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Constructs a new {@code CompactStorageMigrator}.
+     *
+     * @param dataSource the datasource to migrate
+     */
+    public CompactStorageMigrator(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    /**
+     * Runs the migration once the versioned migrations have been applied and before the application
+     * starts serving requests.
+     */
+    @Override
+    public void afterPropertiesSet() {
+        migrate();
+    }
+
+    /**
+     * Rebuilds the {@code plant} table in the compact layout if it isn't already using it.
+     *
+     * @return {@code true} if the table was migrated; {@code false} if there was nothing to do
+     */
+    public boolean migrate() {
+        List<String> definitions = jdbcTemplate.queryForList(
+                "SELECT sql FROM sqlite_master WHERE type = 'table' AND name = 'plant'", String.class);
+
+        if (definitions.isEmpty() || isCompact(definitions.get(0))) {
+            return false;
+        }
+
+        List<Map<String, Object>> columns = jdbcTemplate.queryForList("PRAGMA table_info(plant)");
+        List<String> names = columns.stream().map(column -> (String) column.get("name")).toList();
+
+        // Indexes and triggers are dropped along with the old table, so they are recreated afterwards
+        List<String> dependents = jdbcTemplate.queryForList(
+                "SELECT sql FROM sqlite_master WHERE type IN ('index', 'trigger') AND tbl_name = 'plant' AND sql IS NOT NULL",
+                String.class);
+
+        long start = System.nanoTime();
+        Integer rows = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS plant_compact");
+            jdbcTemplate.execute(compactTableDefinition(columns, uniqueConstraints(), foreignKeys()));
+            int copied = jdbcTemplate.update("INSERT INTO plant_compact (" + String.join(", ", names) + ") SELECT "
+                    + names.stream().map(name -> COLUMN_CONVERSIONS.getOrDefault(name, name)).collect(Collectors.joining(", "))
+                    + " FROM plant");
+            jdbcTemplate.execute("DROP TABLE plant");
+            jdbcTemplate.execute("ALTER TABLE plant_compact RENAME TO plant");
+            dependents.forEach(jdbcTemplate::execute);
+            convertSearchKeys();
+            return copied;
+        });
+
+        // VACUUM can't run inside a transaction; it returns the old table's pages to the file system
+        jdbcTemplate.execute("VACUUM");
+
+        log.info("Migrated {} plants to compact storage in {} ms", rows, (System.nanoTime() - start) / 1_000_000);
+        return true;
+    }
+
+    /**
+     * Converts text identifiers in the full-text search key table the same way as in {@code plant},
+     * so the search triggers keep finding the documents of converted plants.
+     */
+    private void convertSearchKeys() {
+        Integer tables = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM sqlite_master WHERE type = 'table' AND name = 'plant_search_key'", Integer.class);
+
+        if (tables != null && tables > 0) {
+            jdbcTemplate.update("UPDATE plant_search_key SET id = " + COLUMN_CONVERSIONS.get("id")
+                    + " WHERE typeof(id) = 'text'");
+        }
+    }
+
+    /**
+     * Builds the {@code CREATE TABLE} statement for the compact copy of the table. Columns keep their
+     * declared types so Hibernate's schema validation still matches, except the converted columns,
+     * which get the declarations in {@link #COLUMN_TYPES}. Every column keeps its {@code NOT NULL} and
+     * {@code DEFAULT} constraints, and the table keeps its unique constraints and foreign keys.
+     *
+     * @param columns           the rows of {@code PRAGMA table_info(plant)}
+     * @param uniqueConstraints the table's unique constraints
+     * @param foreignKeys       the table's foreign key constraints
+     * @return the statement creating {@code plant_compact}
+     */
+    private String compactTableDefinition(List<Map<String, Object>> columns, List<String> uniqueConstraints,
+                                          List<String> foreignKeys) {
+        List<String> definitions = new ArrayList<>();
+        for (Map<String, Object> column : columns) {
+            String type = COLUMN_TYPES.getOrDefault((String) column.get("name"), (String) column.get("type"));
+            StringBuilder definition = new StringBuilder((String) column.get("name"));
+            if (!type.isEmpty()) {
+                definition.append(' ').append(type);
+            }
+            if (((Number) column.get("notnull")).intValue() != 0
+                    && !type.toLowerCase(Locale.ROOT).contains("not null")) {
+                definition.append(" not null");
+            }
+            if (column.get("dflt_value") != null) {
+                // The default is stored as written; parenthesized, any default expression is valid again
+                definition.append(" default (").append(column.get("dflt_value")).append(')');
+            }
+            definitions.add(definition.toString());
+        }
+        definitions.add("primary key (id)");
+        definitions.addAll(uniqueConstraints);
+        definitions.addAll(foreignKeys);
+        return "CREATE TABLE plant_compact (" + String.join(", ", definitions) + ") WITHOUT ROWID";
+    }
+
+    /**
+     * Reads the unique constraints of the {@code plant} table. They are backed by automatic indexes, which have no
+     * SQL of their own to recreate them from.
+     *
+     * @return a {@code unique (...)} table constraint for each
+     */
+    private List<String> uniqueConstraints() {
+        List<String> constraints = new ArrayList<>();
+        for (Map<String, Object> index : jdbcTemplate.queryForList("PRAGMA index_list(plant)")) {
+            if (!"u".equals(index.get("origin"))) continue;
+
+            List<String> indexColumns = jdbcTemplate.queryForList(
+                    "SELECT name FROM pragma_index_info(?) ORDER BY seqno", String.class, index.get("name"));
+            constraints.add("unique (" + String.join(", ", indexColumns) + ")");
+        }
+        return constraints;
+    }
+
+    /**
+     * Reads the foreign keys of the {@code plant} table, including those declared on a column.
+     *
+     * @return a {@code foreign key ... references ...} table constraint for each
+     */
+    private List<String> foreignKeys() {
+        // SQLite numbers foreign keys from the last declared one; recreate them in declaration order
+        Map<Integer, List<Map<String, Object>>> byId = new TreeMap<>(Comparator.reverseOrder());
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT * FROM pragma_foreign_key_list('plant') ORDER BY id, seq");
+        for (Map<String, Object> row : rows) {
+            byId.computeIfAbsent(((Number) row.get("id")).intValue(), id -> new ArrayList<>()).add(row);
+        }
+
+        List<String> constraints = new ArrayList<>();
+        for (List<Map<String, Object>> references : byId.values()) {
+            Map<String, Object> first = references.get(0);
+            StringBuilder constraint = new StringBuilder("foreign key (")
+                    .append(references.stream().map(row -> (String) row.get("from")).collect(Collectors.joining(", ")))
+                    .append(") references ").append(first.get("table"));
+            // Without target columns, the key references the parent table's primary key
+            if (first.get("to") != null) {
+                constraint.append(" (")
+                        .append(references.stream().map(row -> (String) row.get("to")).collect(Collectors.joining(", ")))
+                        .append(')');
+            }
+            if (!"NO ACTION".equals(first.get("on_update"))) {
+                constraint.append(" on update ").append(first.get("on_update"));
+            }
+            if (!"NO ACTION".equals(first.get("on_delete"))) {
+                constraint.append(" on delete ").append(first.get("on_delete"));
+            }
+            constraints.add(constraint.toString());
+        }
+        return constraints;
+    }
+
+    /**
+     * Checks whether a table definition already uses the compact layout.
+     *
+     * @param definition the {@code CREATE TABLE} statement stored in {@code sqlite_master}
+     * @return {@code true} if the table is declared {@code WITHOUT ROWID}
+     */
+    private boolean isCompact(String definition) {
+        return definition.toUpperCase(Locale.ROOT).replaceAll("\\s+", " ").contains("WITHOUT ROWID");
+    }
+}
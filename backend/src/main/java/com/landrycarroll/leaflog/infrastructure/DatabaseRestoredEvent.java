@@ -0,0 +1,44 @@
+package com.landrycarroll.leaflog.infrastructure;
+
+import org.springframework.context.ApplicationEvent;
+
+import java.nio.file.Path;
+
+/**
+ * Published by {@link SqliteBackupService} after a tenant's live database has been replaced with a backup.
+ * Components that cache database contents in memory listen for it to drop that tenant's caches. It is published on
+ * the {@link SqliteWriteQueue}'s writer thread, as the restored tenant, so writes made by listeners run inline before
+ * any other write.
+ */
+public class DatabaseRestoredEvent extends ApplicationEvent {
+
+    private final String tenant;
+    private final Path backup;
+
+    /**
+     * Constructs a new {@code DatabaseRestoredEvent}.
+     *
+     * @param source the component that restored the database
+     * @param tenant the tenant whose database was restored
+     * @param backup the backup file the database was restored from
+     */
+    public DatabaseRestoredEvent(Object source, String tenant, Path backup) {
+        super(source);
+        this.tenant = tenant;
+        this.backup = backup;
+    }
+
+    /**
+     * @return the tenant whose database was restored
+     */
+    public String getTenant() {
+        return tenant;
+    }
+
+    /**
+     * @return the backup file the database was restored from
+     */
+    public Path getBackup() {
+        return backup;
+    }
+}
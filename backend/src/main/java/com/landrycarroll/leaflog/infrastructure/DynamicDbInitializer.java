@@ -14,13 +14,24 @@ import java.util.Scanner;
  * and sets it as the {@code spring.datasource.url} system property, which Spring Boot uses
  * to configure the datasource.
  * </p>
+ * <p>
+ * The database is opened in WAL mode so readers never block the single writer, with a busy timeout
+ * so that a connection waits briefly for a lock instead of failing with {@code SQLITE_BUSY}.
+ * </p>
  * <p><strong>Usage:</strong> Register this initializer in {@code spring.factories} or in the application's main method.</p>
  */
 public class DynamicDbInitializer implements ApplicationContextInitializer<ConfigurableApplicationContext> {
 
+    /**
+     * SQLite pragmas and driver settings applied to every connection opened through the generated JDBC URL.
+     * {@code date_class=INTEGER} pins dates to epoch milliseconds rather than relying on the driver default.
+     */
+    private static final String CONNECTION_PRAGMAS = "journal_mode=WAL&busy_timeout=5000&date_class=INTEGER";
+
     /**
      * Prompts the user to enter the path to the SQLite database, ensures the path is absolute,
-     * and sets the {@code spring.datasource.url} system property with the corresponding JDBC URL.
+     * and sets the {@code spring.datasource.url} system property with the corresponding JDBC URL
+     * (including the WAL and busy-timeout pragmas).
      *
      * @param context the configurable application context that is being initialized
      */
@@ -40,6 +51,6 @@ public class DynamicDbInitializer implements ApplicationContextInitializer<Confi
         System.out.println("Using database: " + dbPath);
 
         // Inject into Spring Environment
-        System.setProperty("spring.datasource.url", "jdbc:sqlite:" + dbPath);
+        System.setProperty("spring.datasource.url", "jdbc:sqlite:" + dbPath + "?" + CONNECTION_PRAGMAS);
     }
 }
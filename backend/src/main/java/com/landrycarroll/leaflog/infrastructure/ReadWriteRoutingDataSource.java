@@ -0,0 +1,54 @@
+package com.landrycarroll.leaflog.infrastructure;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * {@code ReadWriteRoutingDataSource} picks between a read-only and a read-write SQLite connection pool
+ * based on the read-only flag of the current transaction.
+ * <p>
+ * With SQLite in WAL mode, any number of readers can run alongside the single writer. Transactions
+ * marked {@code readOnly = true} are routed to the multi-connection read pool, and everything else
+ * (including work done outside a transaction) goes to the write pool.
+ * </p>
+ * <p>
+ * The transaction's read-only flag is only known after the transaction has begun, so this datasource
+ * must be wrapped in a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy},
+ * which defers fetching the physical connection until the first statement runs.
+ * </p>
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    /**
+     * Lookup keys for the two target pools.
+     */
+    public enum Route {
+        READ,
+        WRITE
+    }
+
+    /**
+     * Constructs a new {@code ReadWriteRoutingDataSource} over the given pools.
+     *
+     * @param writeDataSource the pool used for read-write transactions
+     * @param readDataSource  the pool used for read-only transactions
+     */
+    public ReadWriteRoutingDataSource(DataSource writeDataSource, DataSource readDataSource) {
+        setTargetDataSources(Map.of(Route.WRITE, writeDataSource, Route.READ, readDataSource));
+        setDefaultTargetDataSource(writeDataSource);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Routes to the read pool when the current transaction is read-only, otherwise to the write pool.
+     *
+     * @return the {@link Route} for the connection being requested
+     */
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? Route.READ : Route.WRITE;
+    }
+}
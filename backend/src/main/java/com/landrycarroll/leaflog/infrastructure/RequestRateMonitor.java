@@ -0,0 +1,49 @@
+package com.landrycarroll.leaflog.infrastructure;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * {@code RequestRateMonitor} counts incoming HTTP requests so background work can wait for quiet periods.
+ * <p>
+ * Requests to every tenant are counted together in a {@link SlidingWindowCounter}, since they all share the
+ * same disk and CPU.
+ * </p>
+ */
+@Component
+public class RequestRateMonitor extends OncePerRequestFilter {
+
+    private final SlidingWindowCounter requests = new SlidingWindowCounter();
+
+    /**
+     * Counts the request and passes it on.
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        record();
+        chain.doFilter(request, response);
+    }
+
+    /**
+     * Counts one request at the current time.
+     */
+    public void record() {
+        requests.record();
+    }
+
+    /**
+     * Returns the number of requests received during the last minute.
+     *
+     * @return the request count
+     */
+    public long requestsPerMinute() {
+        return requests.lastMinute();
+    }
+}
@@ -0,0 +1,241 @@
+package com.landrycarroll.leaflog.infrastructure;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * {@code SchemaMigrator} applies versioned SQL migration scripts to the SQLite database on startup.
+ * <p>
+ * Scripts live in {@code leaflog.migrations.location} (by default {@code classpath:db/migration}) and are named
+ * {@code V<version>__<description>.sql}, for example {@code V2__index_plant_species.sql}. They run in version
+ * order, each in its own transaction, and every applied version is recorded in the {@code schema_version} table
+ * along with a checksum of its contents. On later startups only the scripts that haven't been applied yet are run.
+ * </p>
+ * <p>
+ * This replaces Hibernate's {@code ddl-auto=update}, which introspected and diffed the whole schema on every boot
+ * and couldn't create indexes. Hibernate now only validates the schema, after this migrator has finished.
+ * </p>
+ * <p>
+ * Statements are separated by a {@code ;} at the end of a line. {@code CREATE TRIGGER} statements run up to
+ * their closing {@code END;}, so trigger bodies can contain several statements.
+ * </p>
+ */
+@Component
+public class SchemaMigrator implements InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaMigrator.class);
+
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+    private static final Pattern TRIGGER_START = Pattern.compile("(?is)^CREATE\\s+(TEMP\\s+|TEMPORARY\\s+)?TRIGGER\\b.*");
+    private static final Pattern TRIGGER_END = Pattern.compile("(?is).*\\bEND\\s*;$");
+
+    private static final String CREATE_VERSION_TABLE = """
+            CREATE TABLE IF NOT EXISTS schema_version (
+                version INTEGER NOT NULL PRIMARY KEY,
+                description TEXT NOT NULL,
+                checksum INTEGER NOT NULL,
+                applied_at INTEGER NOT NULL,
+                execution_millis INTEGER NOT NULL
+            )""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final String location;
+
+    /**
+     * Constructs a new {@code SchemaMigrator}.
+     *
+     * @param dataSource the datasource to migrate
+     * @param location   the resource location containing the migration scripts
+     */
+    public SchemaMigrator(DataSource dataSource,
+                          @Value("${leaflog.migrations.location:classpath:db/migration}") String location) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.location = location;
+    }
+
+    /**
+     * Applies pending migrations before any other bean uses the database.
+     */
+    @Override
+    public void afterPropertiesSet() {
+        migrate();
+    }
+
+    /**
+     * Applies every migration script that hasn't been recorded in {@code schema_version} yet.
+     *
+     * @return the number of migrations applied
+     * @throws IllegalStateException if an applied script has been modified, or a script can't be read
+     */
+    public int migrate() {
+        jdbcTemplate.execute(CREATE_VERSION_TABLE);
+
+        Map<Integer, Long> applied = new HashMap<>();
+        for (Map<String, Object> row : jdbcTemplate.queryForList("SELECT version, checksum FROM schema_version")) {
+            applied.put(((Number) row.get("version")).intValue(), ((Number) row.get("checksum")).longValue());
+        }
+
+        int count = 0;
+        for (Migration migration : findMigrations()) {
+            Long checksum = applied.get(migration.version());
+
+            if (checksum == null) {
+                apply(migration);
+                count++;
+            } else if (checksum != migration.checksum()) {
+                throw new IllegalStateException("Migration V" + migration.version() + " ("
+                        + migration.description() + ") has changed since it was applied");
+            }
+        }
+
+        Integer current = jdbcTemplate.queryForObject("SELECT max(version) FROM schema_version", Integer.class);
+        log.info("Schema is at version {} ({} migrations applied)", current, count);
+        return count;
+    }
+
+    /**
+     * Runs a single migration script and records it, all in one transaction.
+     *
+     * @param migration the migration to apply
+     */
+    private void apply(Migration migration) {
+        long start = System.nanoTime();
+
+        List<String> statements = splitStatements(read(migration.script()));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            statements.forEach(jdbcTemplate::execute);
+
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            jdbcTemplate.update("INSERT INTO schema_version (version, description, checksum, applied_at, execution_millis) "
+                            + "VALUES (?, ?, ?, ?, ?)",
+                    migration.version(), migration.description(), migration.checksum(),
+                    System.currentTimeMillis(), elapsedMillis);
+        });
+
+        log.info("Applied migration V{} ({}) in {} ms",
+                migration.version(), migration.description(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Finds and parses all migration scripts, sorted by version.
+     *
+     * @return the migrations found in the configured location
+     * @throws IllegalStateException if two scripts share a version or a script can't be read
+     */
+    private List<Migration> findMigrations() {
+        try {
+            Resource[] resources = new PathMatchingResourcePatternResolver().getResources(location + "/V*__*.sql");
+            SortedMap<Integer, Migration> migrations = new TreeMap<>();
+
+            for (Resource resource : resources) {
+                Matcher matcher = SCRIPT_NAME.matcher(Objects.requireNonNull(resource.getFilename()));
+                if (!matcher.matches()) continue;
+
+                Migration migration = new Migration(
+                        Integer.parseInt(matcher.group(1)),
+                        matcher.group(2).replace('_', ' '),
+                        checksum(resource),
+                        resource);
+
+                if (migrations.put(migration.version(), migration) != null) {
+                    throw new IllegalStateException("Found more than one migration with version " + migration.version());
+                }
+            }
+            return new ArrayList<>(migrations.values());
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read migration scripts: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Splits a script into statements. A statement ends at a line ending in {@code ;}, except inside
+     * a {@code CREATE TRIGGER}, which ends at its {@code END;}. Blank lines and {@code --} comment lines are skipped.
+     *
+     * @param script the script contents
+     * @return the statements, without their trailing {@code ;}
+     */
+    private static List<String> splitStatements(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+
+        for (String line : script.split("\\R")) {
+            String trimmed = line.strip();
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) continue;
+
+            current.append(line).append('\n');
+            String statement = current.toString().strip();
+
+            if (trimmed.endsWith(";")
+                    && (!TRIGGER_START.matcher(statement).matches() || TRIGGER_END.matcher(statement).matches())) {
+                statements.add(statement.substring(0, statement.length() - 1).strip());
+                current.setLength(0);
+            }
+        }
+
+        if (!current.isEmpty()) {
+            statements.add(current.toString().strip());
+        }
+        return statements;
+    }
+
+    /**
+     * Reads a script as UTF-8 text.
+     *
+     * @param resource the script
+     * @return its contents
+     * @throws IllegalStateException if the script can't be read
+     */
+    private String read(Resource resource) {
+        try (InputStream in = resource.getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read migration " + resource.getFilename() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Computes the CRC32 checksum of a script, used to detect edits to already applied migrations.
+     *
+     * @param resource the script
+     * @return the checksum of its contents
+     * @throws IOException if the script can't be read
+     */
+    private long checksum(Resource resource) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream in = resource.getInputStream()) {
+            crc.update(in.readAllBytes());
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * A single versioned migration script.
+     *
+     * @param version     the version parsed from the file name
+     * @param description the description parsed from the file name
+     * @param checksum    the CRC32 checksum of the script
+     * @param script      the script resource
+     */
+    private record Migration(int version, String description, long checksum, Resource script) {
+    }
+}
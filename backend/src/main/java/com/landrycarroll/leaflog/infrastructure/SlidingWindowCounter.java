@@ -0,0 +1,61 @@
+package com.landrycarroll.leaflog.infrastructure;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@code SlidingWindowCounter} counts events over the last minute, and in total.
+ * <p>
+ * Events are counted in one-second buckets covering the last minute. Buckets are reused as time moves on,
+ * so recording an event costs a few atomic operations and no allocation.
+ * </p>
+ */
+public class SlidingWindowCounter {
+
+    private static final int WINDOW_SECONDS = 60;
+
+    private final AtomicLongArray counts = new AtomicLongArray(WINDOW_SECONDS);
+    private final AtomicLongArray seconds = new AtomicLongArray(WINDOW_SECONDS);
+    private final LongAdder total = new LongAdder();
+
+    /**
+     * Counts one event at the current time.
+     */
+    public void record() {
+        long now = System.currentTimeMillis() / 1000;
+        int bucket = (int) (now % WINDOW_SECONDS);
+        long stamp = seconds.get(bucket);
+
+        // The first event in a new second claims the bucket and clears what it counted a minute ago
+        if (stamp != now && seconds.compareAndSet(bucket, stamp, now)) {
+            counts.set(bucket, 0);
+        }
+        counts.incrementAndGet(bucket);
+        total.increment();
+    }
+
+    /**
+     * Returns the number of events recorded during the last minute.
+     *
+     * @return the event count
+     */
+    public long lastMinute() {
+        long now = System.currentTimeMillis() / 1000;
+        long sum = 0;
+        for (int bucket = 0; bucket < WINDOW_SECONDS; bucket++) {
+            if (now - seconds.get(bucket) < WINDOW_SECONDS) {
+                sum += counts.get(bucket);
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the number of events recorded since the counter was created.
+     *
+     * @return the event count
+     */
+    public long total() {
+        return total.sum();
+    }
+}
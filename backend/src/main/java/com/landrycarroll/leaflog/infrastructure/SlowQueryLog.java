@@ -0,0 +1,249 @@
+package com.landrycarroll.leaflog.infrastructure;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * {@code SlowQueryLog} collects the SQL statements that take longer than {@code leaflog.slow-queries.threshold}.
+ * <p>
+ * Statements are timed by a {@link StatementTimingDataSource} wrapped around the application's datasources, from
+ * the start of their execution until their last row has been read, leaving out the time the caller spends between
+ * rows. Slow statements are grouped by shape: their SQL with literals replaced by {@code ?}, {@code IN} lists
+ * collapsed and whitespace normalized. The first time a shape is slow, its {@code EXPLAIN QUERY PLAN} is captured on
+ * the connection that ran it, so that the report shows how SQLite executed it.
+ * </p>
+ * <p>
+ * At most {@code leaflog.slow-queries.max-shapes} shapes are tracked; slow statements of further shapes are only
+ * logged and counted. Percentiles are computed over the latest {@value #SAMPLES} durations of each shape.
+ * With {@code leaflog.slow-queries.enabled=false}, the datasources are not wrapped and nothing is recorded.
+ * </p>
+ */
+@Component
+public class SlowQueryLog {
+
+    private static final Logger log = LoggerFactory.getLogger(SlowQueryLog.class);
+
+    /**
+     * Number of durations kept per shape to compute percentiles from.
+     */
+    private static final int SAMPLES = 1024;
+
+    private static final Pattern HEX_LITERAL = Pattern.compile("\\b[xX]'[0-9a-fA-F]*'");
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern EXPLAINABLE = Pattern.compile("^\\s*(?:SELECT|INSERT|UPDATE|DELETE|REPLACE|WITH)\\b",
+            Pattern.CASE_INSENSITIVE);
+
+    private final boolean enabled;
+    private final long thresholdNanos;
+    private final int maxShapes;
+    private final Map<String, ShapeStats> shapes = new ConcurrentHashMap<>();
+    private final AtomicLong untracked = new AtomicLong();
+
+    /**
+     * Constructs a new {@code SlowQueryLog}.
+     *
+     * @param enabled   whether statements are timed at all
+     * @param threshold the duration above which a statement is recorded
+     * @param maxShapes the maximum number of distinct statement shapes tracked
+     */
+    public SlowQueryLog(@Value("${leaflog.slow-queries.enabled:true}") boolean enabled,
+                        @Value("${leaflog.slow-queries.threshold:PT0.05S}") Duration threshold,
+                        @Value("${leaflog.slow-queries.max-shapes:200}") int maxShapes) {
+        if (maxShapes <= 0) {
+            throw new IllegalArgumentException("Max shapes must be greater than 0");
+        }
+        this.enabled = enabled;
+        this.thresholdNanos = threshold.toNanos();
+        this.maxShapes = maxShapes;
+    }
+
+    /**
+     * Wraps a datasource so that its statements are timed and recorded here, unless slow queries are disabled.
+     *
+     * @param dataSource the datasource to wrap
+     * @return the timing datasource, or {@code dataSource} itself if slow queries are disabled
+     */
+    public DataSource timed(DataSource dataSource) {
+        return enabled ? new StatementTimingDataSource(dataSource, this) : dataSource;
+    }
+
+    /**
+     * Records a statement execution if it took longer than the threshold, capturing its query plan on
+     * {@code connection} if its shape hasn't been slow before.
+     *
+     * @param sql          the statement's SQL
+     * @param elapsedNanos how long the statement took
+     * @param connection   the connection the statement ran on, used to explain it
+     */
+    public void record(String sql, long elapsedNanos, Connection connection) {
+        if (sql == null || elapsedNanos < thresholdNanos) {
+            return;
+        }
+
+        String shape = shapeOf(sql);
+        log.info("Slow query ({} ms): {}", elapsedNanos / 1_000_000, shape);
+
+        ShapeStats stats = shapes.get(shape);
+        if (stats == null) {
+            if (shapes.size() >= maxShapes) {
+                untracked.incrementAndGet();
+                return;
+            }
+            stats = shapes.computeIfAbsent(shape, key -> new ShapeStats());
+        }
+        if (stats.add(elapsedNanos)) {
+            stats.plan = explain(sql, connection);
+            log.info("Query plan of {}: {}", shape, stats.plan);
+        }
+    }
+
+    /**
+     * Returns the slowest statement shapes, ordered by the total time spent in their slow executions.
+     *
+     * @param limit the maximum number of shapes to return
+     * @return the slowest shapes
+     */
+    public List<SlowQuery> top(int limit) {
+        return shapes.entrySet().stream()
+                .map(entry -> entry.getValue().summary(entry.getKey()))
+                .sorted(Comparator.comparingDouble(SlowQuery::totalMillis).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Returns the number of slow executions that weren't tracked because {@code leaflog.slow-queries.max-shapes}
+     * shapes were already tracked.
+     *
+     * @return the number of untracked slow executions
+     */
+    public long untracked() {
+        return untracked.get();
+    }
+
+    /**
+     * Forgets every recorded statement.
+     */
+    public void reset() {
+        shapes.clear();
+        untracked.set(0);
+    }
+
+    /**
+     * Normalizes a statement into its shape: literals replaced by {@code ?}, lists of parameters collapsed into a
+     * single one and whitespace collapsed, so that executions differing only in their values are grouped together.
+     *
+     * @param sql the statement's SQL
+     * @return the statement's shape
+     */
+    public static String shapeOf(String sql) {
+        String shape = HEX_LITERAL.matcher(sql).replaceAll("?");
+        shape = STRING_LITERAL.matcher(shape).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = WHITESPACE.matcher(shape).replaceAll(" ").trim();
+        return IN_LIST.matcher(shape).replaceAll("(?, ...)");
+    }
+
+    /**
+     * Runs {@code EXPLAIN QUERY PLAN} for a statement, with every parameter unbound, which SQLite treats as
+     * {@code NULL} without changing the plan.
+     *
+     * @param sql        the statement's SQL
+     * @param connection the connection to explain it on
+     * @return the plan's steps, indented by their depth, or a single line saying why it is unavailable
+     */
+    private static List<String> explain(String sql, Connection connection) {
+        if (!EXPLAINABLE.matcher(sql).find()) {
+            return List.of();
+        }
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN QUERY PLAN " + sql);
+             ResultSet rows = statement.executeQuery()) {
+            List<String> plan = new ArrayList<>();
+            Map<Integer, Integer> depths = new HashMap<>();
+            while (rows.next()) {
+                int depth = depths.getOrDefault(rows.getInt("parent"), -1) + 1;
+                depths.put(rows.getInt("id"), depth);
+                plan.add("  ".repeat(depth) + rows.getString("detail"));
+            }
+            return plan;
+        } catch (SQLException e) {
+            return List.of("unavailable: " + e.getMessage());
+        }
+    }
+
+    /**
+     * The slow executions of one statement shape.
+     */
+    private static final class ShapeStats {
+
+        private final long[] samples = new long[SAMPLES];
+        private long count;
+        private long totalNanos;
+        private long maxNanos;
+        private volatile List<String> plan = List.of();
+
+        /**
+         * Adds a slow execution.
+         *
+         * @return {@code true} if it is the first one, whose plan should be captured
+         */
+        synchronized boolean add(long elapsedNanos) {
+            samples[(int) (count % SAMPLES)] = elapsedNanos;
+            count++;
+            totalNanos += elapsedNanos;
+            maxNanos = Math.max(maxNanos, elapsedNanos);
+            return count == 1;
+        }
+
+        synchronized SlowQuery summary(String shape) {
+            long[] sorted = Arrays.copyOf(samples, (int) Math.min(count, SAMPLES));
+            Arrays.sort(sorted);
+            return new SlowQuery(shape, count, millis(totalNanos), millis(maxNanos), millis(percentile(sorted, 50)),
+                    millis(percentile(sorted, 95)), millis(percentile(sorted, 99)), plan);
+        }
+
+        private static long percentile(long[] sorted, int percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+            return sorted[Math.max(rank, 1) - 1];
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1_000_000.0;
+        }
+    }
+
+    /**
+     * The slow executions of one statement shape.
+     *
+     * @param statement   the statement's shape
+     * @param count       the number of slow executions
+     * @param totalMillis the time spent in those executions
+     * @param maxMillis   the slowest execution
+     * @param p50Millis   the median of the latest slow executions
+     * @param p95Millis   the 95th percentile of the latest slow executions
+     * @param p99Millis   the 99th percentile of the latest slow executions
+     * @param plan        the query plan captured on the first slow execution
+     */
+    public record SlowQuery(String statement, long count, double totalMillis, double maxMillis, double p50Millis,
+                            double p95Millis, double p99Millis, List<String> plan) {
+    }
+}
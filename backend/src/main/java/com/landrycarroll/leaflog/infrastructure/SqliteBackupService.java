@@ -0,0 +1,430 @@
+package com.landrycarroll.leaflog.infrastructure;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sqlite.SQLiteConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * {@code SqliteBackupService} takes online backups of the SQLite databases while the application keeps running.
+ * <p>
+ * Backups use SQLite's online backup API on a dedicated connection. Pages are copied {@code leaflog.backup.pages-per-step}
+ * at a time, pausing {@code leaflog.backup.step-pause} between steps so the copy doesn't saturate the disk that
+ * writers commit to. The backup connection holds a read transaction for the whole copy: in WAL mode this pins a
+ * consistent snapshot without blocking writers, and commits made meanwhile don't force the backup API to start over.
+ * The copy is written to a {@code .partial} file and renamed once complete, so a backup file is always usable.
+ * </p>
+ * <p>
+ * Backups run on {@code leaflog.backup.schedule} (a cron expression; {@code -} disables it) or on demand, one at a time,
+ * into {@code leaflog.backup.directory} (by default a {@code backups} directory next to the database). Each run copies
+ * the database of every tenant known to {@link TenantDatabases}, open or not, one after the other: the default
+ * tenant's into the backup directory itself, and every other tenant's into {@code tenants/<tenant>} below it. A
+ * tenant that fails doesn't stop the others from being backed up. Only the newest {@code leaflog.backup.retention}
+ * backups of each tenant are kept.
+ * </p>
+ * <p>
+ * Restoring copies a backup back into a tenant's live database through the {@link SqliteWriteQueue}, as that tenant,
+ * so no other write interleaves with it, and publishes a {@link DatabaseRestoredEvent} from the writer thread before
+ * the next write runs, so in-memory caches can be dropped and listeners can write to the restored database first.
+ * </p>
+ */
+@Component
+public class SqliteBackupService {
+
+    private static final Logger log = LoggerFactory.getLogger(SqliteBackupService.class);
+
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS").withZone(ZoneOffset.UTC);
+    private static final Pattern BACKUP_NAME = Pattern.compile("leaflog-\\d{8}-\\d{6}-\\d{3}\\.db");
+
+    private static final int BUSY_RETRY_MILLIS = 100;
+    private static final int BUSY_RETRIES = 50;
+
+    private final String url;
+    private final TenantDatabases tenants;
+    private final Path directory;
+    private final SqliteWriteQueue writeQueue;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int pagesPerStep;
+    private final Duration stepPause;
+    private final int retention;
+    private final ExecutorService executor;
+    private final AtomicReference<BackupStatus> current = new AtomicReference<>();
+
+    /**
+     * Constructs a new {@code SqliteBackupService}.
+     *
+     * @param properties     the datasource properties holding the database URL
+     * @param tenants        the tenant databases to back up
+     * @param writeQueue     the single-writer queue restores are run through
+     * @param eventPublisher the publisher notified after a restore
+     * @param directory      the directory backups are written to; empty for a {@code backups} directory next to the database
+     * @param pagesPerStep   the number of pages copied per backup step
+     * @param stepPause      the pause between backup steps
+     * @param retention      the number of backups to keep
+     */
+    public SqliteBackupService(DataSourceProperties properties,
+                               TenantDatabases tenants,
+                               SqliteWriteQueue writeQueue,
+                               ApplicationEventPublisher eventPublisher,
+                               @Value("${leaflog.backup.directory:}") String directory,
+                               @Value("${leaflog.backup.pages-per-step:1024}") int pagesPerStep,
+                               @Value("${leaflog.backup.step-pause:PT0.005S}") Duration stepPause,
+                               @Value("${leaflog.backup.retention:7}") int retention) {
+        if (pagesPerStep <= 0) {
+            throw new IllegalArgumentException("Backup pages per step must be greater than 0");
+        }
+        if (retention <= 0) {
+            throw new IllegalArgumentException("Backup retention must be greater than 0");
+        }
+        this.url = properties.getUrl();
+        this.tenants = tenants;
+        this.directory = directory.isBlank() ? SqliteUrls.databasePath(url).resolveSibling("backups") : Path.of(directory);
+        this.writeQueue = writeQueue;
+        this.eventPublisher = eventPublisher;
+        this.pagesPerStep = pagesPerStep;
+        this.stepPause = stepPause;
+        this.retention = retention;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sqlite-backup");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts a backup on the schedule configured by {@code leaflog.backup.schedule}.
+     */
+    @Scheduled(cron = "${leaflog.backup.schedule:0 0 3 * * *}")
+    public void scheduledBackup() {
+        start();
+    }
+
+    /**
+     * Starts a backup of every tenant in the background, unless one is already running.
+     *
+     * @return the status of the started backup, or of the backup that was already running
+     */
+    public synchronized BackupStatus start() {
+        BackupStatus running = current.get();
+        if (running != null && running.state() == BackupStatus.State.RUNNING) {
+            return running;
+        }
+
+        BackupStatus started = BackupStatus.started("leaflog-" + FILE_TIMESTAMP.format(Instant.now()) + ".db");
+        current.set(started);
+        executor.execute(() -> run(started.name()));
+        return started;
+    }
+
+    /**
+     * Returns the status of the most recent backup started since the application launched.
+     *
+     * @return the status, or {@code null} if no backup has been started
+     */
+    public BackupStatus status() {
+        return current.get();
+    }
+
+    /**
+     * Lists the backups of the default tenant, newest first.
+     *
+     * @return the backup files
+     */
+    public List<BackupFile> list() {
+        return list(TenantContext.DEFAULT_TENANT);
+    }
+
+    /**
+     * Lists the backups of a tenant, newest first.
+     *
+     * @param tenant the tenant id
+     * @return the backup files
+     * @throws IllegalArgumentException if the tenant id is invalid
+     * @throws IllegalStateException    if multi-tenancy is disabled and {@code tenant} isn't the default tenant
+     */
+    public List<BackupFile> list(String tenant) {
+        tenants.file(tenant);
+        Path backups = directory(tenant);
+        if (!Files.isDirectory(backups)) {
+            return List.of();
+        }
+
+        try (Stream<Path> files = Files.list(backups)) {
+            return files.filter(file -> BACKUP_NAME.matcher(file.getFileName().toString()).matches())
+                    .sorted(Comparator.comparing(Path::getFileName).reversed())
+                    .map(BackupFile::of)
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list backups in " + backups, e);
+        }
+    }
+
+    /**
+     * Replaces the contents of the default tenant's live database with one of its backups.
+     *
+     * @param name the file name of a backup in the backup directory
+     * @throws IllegalArgumentException if there is no backup with that name
+     * @throws IllegalStateException    if the backup couldn't be restored
+     */
+    public void restore(String name) {
+        restore(TenantContext.DEFAULT_TENANT, name);
+    }
+
+    /**
+     * Replaces the contents of a tenant's live database with one of its backups.
+     *
+     * @param tenant the tenant id
+     * @param name   the file name of one of the tenant's backups
+     * @throws IllegalArgumentException if the tenant id is invalid or the tenant has no backup with that name
+     * @throws IllegalStateException    if multi-tenancy is disabled and {@code tenant} isn't the default tenant, or
+     *                                  the backup couldn't be restored
+     */
+    public void restore(String tenant, String name) {
+        Path database = tenants.file(tenant);
+        Path file = directory(tenant).resolve(name);
+        if (!BACKUP_NAME.matcher(name).matches() || !Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("No backup named " + name);
+        }
+
+        long start = System.nanoTime();
+        TenantContext.runAs(tenant, () -> writeQueue.execute(() -> {
+            try (Connection connection = DriverManager.getConnection(SqliteUrls.withPath(url, database))) {
+                int rc = connection.unwrap(SQLiteConnection.class).getDatabase()
+                        .restore("main", file.toString(), null, BUSY_RETRY_MILLIS, BUSY_RETRIES, -1);
+                if (rc != 0) {
+                    throw new SQLException("SQLite restore failed with code " + rc);
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException("Failed to restore " + name + ": " + e.getMessage(), e);
+            }
+            // Still on the writer, so listeners can adjust the restored database before any other write sees it
+            eventPublisher.publishEvent(new DatabaseRestoredEvent(this, tenant, file));
+            return null;
+        }));
+
+        log.info("Restored database of tenant {} from {} in {} ms", tenant, file, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Stops the backup thread, abandoning a backup that is still running.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Copies the database of every tenant into a new backup file and prunes old backups. Runs on the backup thread.
+     *
+     * @param name the file name of the backups
+     */
+    private void run(String name) {
+        List<String> failed = new ArrayList<>();
+        String error = null;
+        try {
+            for (Map.Entry<String, Path> database : tenants.files().entrySet()) {
+                try {
+                    backUp(database.getKey(), database.getValue(), name);
+                } catch (Exception e) {
+                    failed.add(database.getKey());
+                    error = e.getMessage();
+                    log.error("Backup of tenant {} to {} failed: {}", database.getKey(),
+                            directory(database.getKey()).resolve(name), e.getMessage(), e);
+                }
+            }
+        } catch (RuntimeException e) {
+            current.updateAndGet(status -> status.failed(e.getMessage()));
+            log.error("Backup {} failed: {}", name, e.getMessage(), e);
+            return;
+        }
+
+        if (failed.isEmpty()) {
+            current.updateAndGet(BackupStatus::completed);
+        } else {
+            String message = "Failed to back up tenants " + String.join(", ", failed) + ": " + error;
+            current.updateAndGet(status -> status.failed(message));
+        }
+    }
+
+    /**
+     * Copies a tenant's database into a new backup file and prunes the tenant's old backups.
+     *
+     * @param tenant   the tenant id
+     * @param database the tenant's database file
+     * @param name     the file name of the backup
+     * @throws Exception if the backup couldn't be written
+     */
+    private void backUp(String tenant, Path database, String name) throws Exception {
+        Path backups = directory(tenant);
+        Path target = backups.resolve(name);
+        Path partial = backups.resolve(name + ".partial");
+        long start = System.nanoTime();
+        // Pages of the tenants copied before this one, so the run's progress keeps counting up
+        int copied = current.get().totalPages();
+
+        try (Connection connection = DriverManager.getConnection(SqliteUrls.withPath(url, database))) {
+            Files.createDirectories(backups);
+
+            // Open a read transaction so every step copies the same snapshot while writers carry on
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.executeQuery("SELECT count(*) FROM sqlite_master").close();
+            }
+
+            int rc = connection.unwrap(SQLiteConnection.class).getDatabase().backup("main", partial.toString(),
+                    (remaining, total) -> {
+                        current.updateAndGet(status -> status.progress(copied + total, remaining));
+                        pause();
+                    },
+                    BUSY_RETRY_MILLIS, BUSY_RETRIES, pagesPerStep);
+            connection.rollback();
+
+            if (rc != 0) {
+                throw new SQLException("SQLite backup failed with code " + rc);
+            }
+
+            Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Backed up tenant {} to {} in {} ms", tenant, target, (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            try {
+                Files.deleteIfExists(partial);
+            } catch (IOException ignored) {
+            }
+            throw e;
+        }
+        prune(tenant);
+    }
+
+    /**
+     * Returns the directory a tenant's backups are written to.
+     *
+     * @param tenant the tenant id
+     * @return the backup directory itself for the default tenant, or its {@code tenants/<tenant>} subdirectory
+     */
+    private Path directory(String tenant) {
+        return TenantContext.DEFAULT_TENANT.equals(tenant) ? directory : directory.resolve("tenants").resolve(tenant);
+    }
+
+    /**
+     * Yields between backup steps.
+     */
+    private void pause() {
+        try {
+            Thread.sleep(stepPause.toMillis(), stepPause.toNanosPart() % 1_000_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Deletes all but the newest {@code leaflog.backup.retention} backups of a tenant.
+     *
+     * @param tenant the tenant id
+     * @throws IOException if a backup couldn't be deleted
+     */
+    private void prune(String tenant) throws IOException {
+        List<BackupFile> backups = list(tenant);
+        for (BackupFile backup : backups.subList(Math.min(retention, backups.size()), backups.size())) {
+            Files.deleteIfExists(directory(tenant).resolve(backup.name()));
+            log.info("Deleted old backup {} of tenant {}", backup.name(), tenant);
+        }
+    }
+
+    /**
+     * A backup file in the backup directory.
+     *
+     * @param name      the file name
+     * @param bytes     the file size
+     * @param createdAt when the backup finished
+     */
+    public record BackupFile(String name, long bytes, Instant createdAt) {
+
+        static BackupFile of(Path file) {
+            try {
+                return new BackupFile(file.getFileName().toString(), Files.size(file), Files.getLastModifiedTime(file).toInstant());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * The progress of a single backup.
+     *
+     * @param name           the file name of the backup
+     * @param state          whether the backup is running, completed or failed
+     * @param totalPages     the number of pages in the databases copied so far and the one being copied, once known
+     * @param remainingPages the number of pages of the database being copied that are still to copy
+     * @param startedAt      when the backup started
+     * @param finishedAt     when the backup completed or failed
+     * @param error          why the backup failed
+     */
+    public record BackupStatus(String name, State state, int totalPages, int remainingPages,
+                               Instant startedAt, Instant finishedAt, String error) {
+
+        /**
+         * The lifecycle of a backup.
+         */
+        public enum State {RUNNING, COMPLETED, FAILED}
+
+        static BackupStatus started(String name) {
+            return new BackupStatus(name, State.RUNNING, 0, 0, Instant.now(), null, null);
+        }
+
+        BackupStatus progress(int totalPages, int remainingPages) {
+            return new BackupStatus(name, state, totalPages, remainingPages, startedAt, null, null);
+        }
+
+        BackupStatus completed() {
+            return new BackupStatus(name, State.COMPLETED, totalPages, 0, startedAt, Instant.now(), null);
+        }
+
+        BackupStatus failed(String error) {
+            return new BackupStatus(name, State.FAILED, totalPages, remainingPages, startedAt, Instant.now(), error);
+        }
+
+        /**
+         * @return the share of pages copied so far, from 0 to 100
+         */
+        @JsonProperty
+        public double percentComplete() {
+            if (state == State.COMPLETED) return 100;
+            return totalPages == 0 ? 0 : 100.0 * (totalPages - remainingPages) / totalPages;
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package com.landrycarroll.leaflog.infrastructure;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@code SqliteMaintenanceService} keeps the SQLite file compact and its query planner statistics current
+ * without a maintenance window.
+ * <p>
+ * The database uses incremental auto-vacuum: pages freed by deletes and updates stay on the free list until they
+ * are explicitly reclaimed. Files created with the default {@code auto_vacuum=NONE} are switched over with a
+ * single {@code VACUUM} on startup, before requests are served.
+ * </p>
+ * <p>
+ * Every {@code leaflog.maintenance.interval}, if the API received fewer than {@code leaflog.maintenance.quiet-threshold}
+ * requests during the last minute, a maintenance run:
+ * <ul>
+ *     <li>reclaims free pages once they exceed {@code leaflog.maintenance.free-page-ratio} of the file, at most
+ *     {@code leaflog.maintenance.vacuum-step} pages per write, and stops early if traffic picks up,</li>
+ *     <li>runs {@code ANALYZE}, sampling at most {@value #ANALYSIS_LIMIT} rows per index, if the statistics are
+ *     missing or older than {@code leaflog.maintenance.analyze-interval},</li>
+ *     <li>runs {@code PRAGMA optimize}.</li>
+ * </ul>
+ * Every step is a separate write on the {@link SqliteWriteQueue}, so interactive writes queue up behind a step
+ * for milliseconds rather than behind the whole run.
+ * </p>
+ * <p>
+ * Maintenance runs on every open tenant database in turn; on-demand runs and metrics apply to the current
+ * tenant's database. Storage metrics are read from the {@code dbstat} virtual table on the read-only pool. With
+ * {@code leaflog.maintenance.enabled=false}, the file is left in its current mode and nothing runs on a schedule,
+ * but metrics and on-demand runs remain available.
+ * </p>
+ */
+@Component
+@DependsOn("schemaMigrator")
+public class SqliteMaintenanceService implements InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(SqliteMaintenanceService.class);
+
+    /**
+     * {@code PRAGMA auto_vacuum} value for incremental mode.
+     */
+    private static final int INCREMENTAL = 2;
+
+    /**
+     * Number of rows {@code ANALYZE} samples per index; enough for the planner, and fast on large tables.
+     */
+    private static final int ANALYSIS_LIMIT = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate readJdbcTemplate;
+    private final SqliteWriteQueue writeQueue;
+    private final RequestRateMonitor requestRate;
+    private final TenantDatabases tenants;
+    private final boolean enabled;
+    private final long quietThreshold;
+    private final int vacuumStep;
+    private final double freePageRatio;
+    private final Duration analyzeInterval;
+    private final Map<String, MaintenanceRun> lastRuns = new ConcurrentHashMap<>();
+    private final Map<String, Instant> lastAnalyzed = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new {@code SqliteMaintenanceService}.
+     *
+     * @param dataSource      the datasource maintenance writes go through
+     * @param readDataSource  the read-only pools storage metrics are read from
+     * @param writeQueue      the single-writer queue every maintenance step is committed through
+     * @param requestRate     the monitor telling quiet periods apart from busy ones
+     * @param tenants         the registry of open tenant databases
+     * @param enabled         whether to switch to incremental auto-vacuum and run maintenance on a schedule
+     * @param quietThreshold  the number of requests per minute below which maintenance may run
+     * @param vacuumStep      the maximum number of free pages reclaimed per write
+     * @param freePageRatio   the share of free pages in the file above which they are reclaimed
+     * @param analyzeInterval how often the query planner statistics are refreshed
+     */
+    public SqliteMaintenanceService(DataSource dataSource,
+                                    @Qualifier("tenantReadDataSource") DataSource readDataSource,
+                                    SqliteWriteQueue writeQueue,
+                                    RequestRateMonitor requestRate,
+                                    TenantDatabases tenants,
+                                    @Value("${leaflog.maintenance.enabled:true}") boolean enabled,
+                                    @Value("${leaflog.maintenance.quiet-threshold:30}") long quietThreshold,
+                                    @Value("${leaflog.maintenance.vacuum-step:1000}") int vacuumStep,
+                                    @Value("${leaflog.maintenance.free-page-ratio:0.02}") double freePageRatio,
+                                    @Value("${leaflog.maintenance.analyze-interval:P1D}") Duration analyzeInterval) {
+        if (vacuumStep <= 0) {
+            throw new IllegalArgumentException("Vacuum step must be greater than 0");
+        }
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.readJdbcTemplate = new JdbcTemplate(readDataSource);
+        this.writeQueue = writeQueue;
+        this.requestRate = requestRate;
+        this.tenants = tenants;
+        this.enabled = enabled;
+        this.quietThreshold = quietThreshold;
+        this.vacuumStep = vacuumStep;
+        this.freePageRatio = freePageRatio;
+        this.analyzeInterval = analyzeInterval;
+    }
+
+    /**
+     * Switches the database to incremental auto-vacuum once the versioned migrations have been applied.
+     */
+    @Override
+    public void afterPropertiesSet() {
+        if (enabled) {
+            enableIncrementalVacuum();
+        }
+    }
+
+    /**
+     * Switches the database to incremental auto-vacuum if it isn't using it yet.
+     *
+     * @return {@code true} if the database was switched; {@code false} if it already used incremental auto-vacuum
+     */
+    public boolean enableIncrementalVacuum() {
+        Integer mode = jdbcTemplate.queryForObject("PRAGMA auto_vacuum", Integer.class);
+        if (mode != null && mode == INCREMENTAL) {
+            return false;
+        }
+
+        long start = System.nanoTime();
+        // The new mode is only written to the file by VACUUM, which must run on the same connection
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("PRAGMA auto_vacuum = INCREMENTAL");
+                statement.execute("VACUUM");
+            }
+            return null;
+        });
+
+        log.info("Switched database to incremental auto-vacuum in {} ms", (System.nanoTime() - start) / 1_000_000);
+        return true;
+    }
+
+    /**
+     * Runs maintenance on the schedule configured by {@code leaflog.maintenance.interval}, unless it is disabled
+     * or the API is busy.
+     */
+    @Scheduled(initialDelayString = "${leaflog.maintenance.interval:PT5M}", fixedDelayString = "${leaflog.maintenance.interval:PT5M}")
+    public void maintainWhenQuiet() {
+        if (!enabled) {
+            return;
+        }
+        if (!isQuiet()) {
+            log.debug("Skipping storage maintenance: {} requests in the last minute", requestRate.requestsPerMinute());
+            return;
+        }
+        for (String tenant : tenants.openTenants()) {
+            TenantContext.runAs(tenant, () -> maintain(false));
+        }
+    }
+
+    /**
+     * Runs maintenance on the current tenant's database now, regardless of the request rate.
+     *
+     * @return a summary of the run
+     */
+    public MaintenanceRun maintainNow() {
+        return maintain(true);
+    }
+
+    /**
+     * Returns the summary of the most recent maintenance run on the current tenant's database since the
+     * application launched.
+     *
+     * @return the summary, or {@code null} if maintenance hasn't run yet
+     */
+    public MaintenanceRun lastRun() {
+        return lastRuns.get(TenantContext.current());
+    }
+
+    /**
+     * Measures how the current tenant's database file is used: its page counts, its free list, and the pages and bytes held by each
+     * table and index.
+     *
+     * @return the storage metrics
+     */
+    public StorageMetrics metrics() {
+        long pageSize = readLong("PRAGMA page_size");
+        long pageCount = readLong("PRAGMA page_count");
+        long freePages = readLong("PRAGMA freelist_count");
+
+        List<ObjectUsage> objects = readJdbcTemplate.query(
+                "SELECT s.name, coalesce(m.type, 'table') AS type, coalesce(m.tbl_name, s.name) AS tbl_name, "
+                        + "s.pageno AS pages, s.pgsize AS bytes, s.unused FROM "
+                        + "(SELECT name, pageno, pgsize, unused FROM dbstat WHERE aggregate = TRUE) s "
+                        + "LEFT JOIN sqlite_master m ON m.name = s.name ORDER BY s.pgsize DESC, s.name",
+                (rs, rowNum) -> new ObjectUsage(rs.getString("name"), rs.getString("type"), rs.getString("tbl_name"),
+                        rs.getLong("pages"), rs.getLong("bytes"), rs.getLong("unused")));
+
+        return new StorageMetrics(pageSize, pageCount, freePages, pageCount * pageSize, freePages * pageSize,
+                readLong("PRAGMA auto_vacuum") == INCREMENTAL, objects, Instant.now());
+    }
+
+    /**
+     * Forgets the maintenance history of a tenant whose database has been closed.
+     *
+     * @param event the event naming the tenant
+     */
+    @EventListener
+    public void tenantClosed(TenantClosedEvent event) {
+        lastRuns.remove(event.getTenant());
+        lastAnalyzed.remove(event.getTenant());
+    }
+
+    /**
+     * Reclaims free pages of the current tenant's database, refreshes its statistics if they are due and lets
+     * SQLite optimize its query plans.
+     *
+     * @param forced whether to keep reclaiming pages even if traffic picks up
+     * @return a summary of the run
+     */
+    private synchronized MaintenanceRun maintain(boolean forced) {
+        Instant startedAt = Instant.now();
+        long start = System.nanoTime();
+
+        long reclaimed = 0;
+        long freePages = readLong("PRAGMA freelist_count");
+        if (freePages > 0 && freePages >= freePageRatio * readLong("PRAGMA page_count")) {
+            while (freePages > 0 && (forced || isQuiet())) {
+                writeQueue.execute(() -> jdbcTemplate.update("PRAGMA incremental_vacuum(" + vacuumStep + ")"));
+                long remaining = readLong("PRAGMA freelist_count");
+                if (remaining >= freePages) break;
+                reclaimed += freePages - remaining;
+                freePages = remaining;
+            }
+        }
+
+        boolean analyze = analyzeDue();
+        writeQueue.execute(() -> {
+            if (analyze) {
+                jdbcTemplate.execute("PRAGMA analysis_limit = " + ANALYSIS_LIMIT);
+                jdbcTemplate.execute("ANALYZE");
+            }
+            jdbcTemplate.execute("PRAGMA optimize");
+            return null;
+        });
+        if (analyze) {
+            lastAnalyzed.put(TenantContext.current(), Instant.now());
+        }
+
+        MaintenanceRun run = new MaintenanceRun(startedAt, Instant.now(), reclaimed, freePages, analyze);
+        lastRuns.put(TenantContext.current(), run);
+        log.info("Storage maintenance of tenant {} reclaimed {} pages ({} still free){} in {} ms", TenantContext.current(),
+                reclaimed, freePages, analyze ? " and refreshed statistics" : "", (System.nanoTime() - start) / 1_000_000);
+        return run;
+    }
+
+    /**
+     * Checks whether the query planner statistics should be refreshed.
+     *
+     * @return {@code true} if the database has never been analyzed or was last analyzed too long ago
+     */
+    private boolean analyzeDue() {
+        Instant analyzed = lastAnalyzed.get(TenantContext.current());
+        if (analyzed != null) {
+            return analyzed.plus(analyzeInterval).isBefore(Instant.now());
+        }
+        Integer statistics = readJdbcTemplate.queryForObject(
+                "SELECT count(*) FROM sqlite_master WHERE type = 'table' AND name = 'sqlite_stat1'", Integer.class);
+        // Statistics from a previous run of the application are trusted until the first interval has passed
+        if (statistics != null && statistics > 0) {
+            lastAnalyzed.put(TenantContext.current(), Instant.now());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether the API is quiet enough for maintenance.
+     *
+     * @return {@code true} if fewer requests than the threshold arrived during the last minute
+     */
+    private boolean isQuiet() {
+        return requestRate.requestsPerMinute() < quietThreshold;
+    }
+
+    /**
+     * Reads a single number, such as a pragma value, from the read-only pool.
+     *
+     * @param sql the query
+     * @return the value
+     */
+    private long readLong(String sql) {
+        Long value = readJdbcTemplate.queryForObject(sql, Long.class);
+        return value == null ? 0 : value;
+    }
+
+    /**
+     * How the database file is used.
+     *
+     * @param pageSize          the size of a page in bytes
+     * @param pageCount         the number of pages in the file
+     * @param freePages         the number of pages on the free list
+     * @param fileBytes         the size of the file in bytes
+     * @param freeBytes         the bytes held by free pages
+     * @param incrementalVacuum whether the file uses incremental auto-vacuum
+     * @param objects           the pages and bytes used by each table and index, largest first
+     * @param measuredAt        when the metrics were read
+     */
+    public record StorageMetrics(long pageSize, long pageCount, long freePages, long fileBytes, long freeBytes,
+                                 boolean incrementalVacuum, List<ObjectUsage> objects, Instant measuredAt) {
+    }
+
+    /**
+     * The storage used by a single table or index.
+     *
+     * @param name        the name of the table or index
+     * @param type        {@code table} or {@code index}
+     * @param table       the table the object belongs to
+     * @param pages       the number of pages the object uses
+     * @param bytes       the bytes held by those pages
+     * @param unusedBytes the bytes in those pages that hold no data
+     */
+    public record ObjectUsage(String name, String type, String table, long pages, long bytes, long unusedBytes) {
+    }
+
+    /**
+     * The outcome of a single maintenance run.
+     *
+     * @param startedAt      when the run started
+     * @param finishedAt     when the run finished
+     * @param pagesReclaimed the number of free pages returned to the file system
+     * @param freePages      the number of pages still on the free list
+     * @param analyzed       whether the query planner statistics were refreshed
+     */
+    public record MaintenanceRun(Instant startedAt, Instant finishedAt, long pagesReclaimed, long freePages,
+                                 boolean analyzed) {
+    }
+}
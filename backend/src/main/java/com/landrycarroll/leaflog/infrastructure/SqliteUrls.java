@@ -0,0 +1,38 @@
+package com.landrycarroll.leaflog.infrastructure;
+
+import java.nio.file.Path;
+
+/**
+ * Helpers for SQLite JDBC URLs of the form {@code jdbc:sqlite:<path>?<parameters>}.
+ */
+final class SqliteUrls {
+
+    private static final String PREFIX = "jdbc:sqlite:";
+
+    private SqliteUrls() {
+    }
+
+    /**
+     * Extracts the database file path from a SQLite JDBC URL.
+     *
+     * @param url the URL
+     * @return the absolute path of the database file
+     */
+    static Path databasePath(String url) {
+        String path = url.substring(PREFIX.length());
+        int parameters = path.indexOf('?');
+        return Path.of(parameters < 0 ? path : path.substring(0, parameters)).toAbsolutePath();
+    }
+
+    /**
+     * Builds a URL for another database file, keeping the pragmas and driver settings of an existing URL.
+     *
+     * @param url  the URL whose parameters to keep
+     * @param file the database file
+     * @return the URL for {@code file}
+     */
+    static String withPath(String url, Path file) {
+        int parameters = url.indexOf('?');
+        return PREFIX + file.toAbsolutePath() + (parameters < 0 ? "" : url.substring(parameters));
+    }
+}
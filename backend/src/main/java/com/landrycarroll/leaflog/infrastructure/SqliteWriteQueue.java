@@ -0,0 +1,363 @@
+package com.landrycarroll.leaflog.infrastructure;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * {@code SqliteWriteQueue} funnels every database mutation through a single dedicated writer thread.
+ * <p>
+ * SQLite only allows one writer at a time, so letting request threads race for the write lock leads to
+ * {@code SQLITE_BUSY} errors and unpredictable stalls. Instead, callers submit their mutation to this queue.
+ * The writer thread takes every mutation that is waiting at that moment (up to
+ * {@code leaflog.write-queue.max-batch-size}), runs them together in one transaction, commits once,
+ * and then completes each caller's future.
+ * </p>
+ * <p>
+ * Each mutation of a group runs behind its own savepoint and is flushed before the next one starts. If a mutation
+ * fails, the group's transaction is rolled back to that savepoint and the persistence context is cleared, only that
+ * mutation's caller is failed, and the rest of the group still commits. Mutations are never run a second time, since
+ * they aren't safe to repeat: an entity persisted by a rolled back attempt keeps the id it was given, for example.
+ * Transaction synchronizations registered by a rolled back mutation are completed as rolled back right away, rather
+ * than told about the group's commit, so caches that only keep what a transaction commits stay correct.
+ * </p>
+ * <p>
+ * Hibernate marks the whole transaction rollback-only when a flush or query fails, and no savepoint undoes that. If
+ * a failure leaves the group unable to commit, the callers of the mutations that already ran in it are failed as well,
+ * and the mutations that hadn't run yet are committed as a new group.
+ * </p>
+ * <p>
+ * Each mutation runs as the tenant that submitted it (see {@link TenantContext}). Tenants have separate database
+ * files, so a group only ever holds consecutive mutations of the same tenant. The number of transactions committed
+ * for each tenant is counted, so values read from a tenant's database can be cached until the count moves on.
+ * </p>
+ *
+ * <p><strong>Example usage:</strong></p>
+ * <pre>{@code
+ * Plant saved = writeQueue.execute(() -> repository.save(plant));
+ * }</pre>
+ */
+@Component
+public class SqliteWriteQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(SqliteWriteQueue.class);
+
+    private final BlockingQueue<PendingWrite<?>> queue = new LinkedBlockingQueue<>();
+    private final Map<String, AtomicLong> commits = new ConcurrentHashMap<>();
+    private final PlatformTransactionManager transactionManager;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxBatchSize;
+    private final Thread writer;
+
+    private volatile boolean running = true;
+
+    /**
+     * Constructs a new {@code SqliteWriteQueue} and starts its writer thread.
+     *
+     * @param transactionManager the transaction manager used to wrap each group of writes
+     * @param maxBatchSize       the maximum number of mutations committed together in one transaction
+     */
+    public SqliteWriteQueue(PlatformTransactionManager transactionManager,
+                            @Value("${leaflog.write-queue.max-batch-size:256}") int maxBatchSize) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Write queue batch size must be greater than 0");
+        }
+        this.transactionManager = transactionManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxBatchSize = maxBatchSize;
+        this.writer = new Thread(this::runWriter, "sqlite-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queues a mutation for the writer thread.
+     *
+     * @param mutation the work to run inside the writer's transaction
+     * @param <T>      the result type of the mutation
+     * @return a future completed with the mutation's result once its transaction has committed
+     * @throws IllegalStateException if the queue has been shut down
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> mutation) {
+        if (!running) {
+            throw new IllegalStateException("Write queue has been shut down");
+        }
+
+        PendingWrite<T> pending = new PendingWrite<>(TenantContext.current(), mutation, new CompletableFuture<>());
+        queue.add(pending);
+        return pending.future();
+    }
+
+    /**
+     * Queues a mutation and blocks until it has been committed.
+     * <p>
+     * Calls made from the writer thread itself (for example, a mutation that triggers another write)
+     * run inline within the current transaction instead of being queued.
+     * </p>
+     *
+     * @param mutation the work to run inside the writer's transaction
+     * @param <T>      the result type of the mutation
+     * @return the result of the mutation
+     * @throws RuntimeException the exception thrown by the mutation, if it failed
+     */
+    public <T> T execute(Supplier<T> mutation) {
+        if (Thread.currentThread() == writer) {
+            return mutation.get();
+        }
+
+        try {
+            return submit(mutation).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the number of transactions committed for a tenant since startup. The count is raised after a commit
+     * and before the callers of the committed mutations are released, so a caller that sees an unchanged count
+     * after its own write can't have missed that write.
+     *
+     * @param tenant the tenant id
+     * @return the commit count
+     */
+    public long commits(String tenant) {
+        AtomicLong count = commits.get(tenant);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * Stops accepting new mutations, lets the writer drain everything already queued, and waits for it to exit.
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Main loop of the writer thread: waits for the first pending mutation, then drains
+     * everything else that is already queued and commits the group.
+     */
+    private void runWriter() {
+        List<PendingWrite<?>> batch = new ArrayList<>(maxBatchSize);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingWrite<?> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                commitByTenant(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Splits the drained mutations into runs of consecutive mutations of the same tenant, and commits each run
+     * as one group in that tenant's database.
+     *
+     * @param batch the mutations drained from the queue, in submission order
+     */
+    private void commitByTenant(List<PendingWrite<?>> batch) {
+        int from = 0;
+        while (from < batch.size()) {
+            String tenant = batch.get(from).tenant();
+            int to = from + 1;
+            while (to < batch.size() && batch.get(to).tenant().equals(tenant)) to++;
+
+            List<PendingWrite<?>> group = batch.subList(from, to);
+            TenantContext.runAs(tenant, () -> commitGroup(group));
+            from = to;
+        }
+    }
+
+    /**
+     * Runs every mutation of the group in one transaction, each behind its own savepoint, and completes the callers'
+     * futures once the transaction has committed. A failed mutation is rolled back to its savepoint and reported only
+     * to its own caller. If every mutation fails, the transaction is rolled back instead and not counted.
+     *
+     * @param batch the mutations to commit together
+     */
+    private void commitGroup(List<PendingWrite<?>> batch) {
+        Object[] results = new Object[batch.size()];
+        RuntimeException[] failures = new RuntimeException[batch.size()];
+        int[] ran = {0};
+        boolean committed;
+
+        try {
+            committed = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                Session session = currentSession();
+                boolean succeeded = false;
+                while (ran[0] < batch.size()) {
+                    int i = ran[0]++;
+                    Savepoint savepoint = session == null ? null : session.doReturningWork(Connection::setSavepoint);
+                    List<TransactionSynchronization> registered = synchronizations();
+                    try {
+                        results[i] = batch.get(i).mutation().get();
+                        if (session != null) {
+                            session.flush();
+                            session.doWork(connection -> connection.releaseSavepoint(savepoint));
+                        }
+                        succeeded = true;
+                    } catch (RuntimeException e) {
+                        failures[i] = e;
+                        if (session != null) {
+                            session.doWork(connection -> connection.rollback(savepoint));
+                            session.clear();
+                        }
+                        completeRolledBack(registered);
+                        // A rollback-only transaction can't commit anything else; leave the rest for a new group
+                        if (status.isRollbackOnly()) break;
+                    }
+                }
+                if (!succeeded) {
+                    status.setRollbackOnly();
+                }
+                return succeeded;
+            }));
+        } catch (RuntimeException e) {
+            log.debug("Group of {} writes failed to commit: {}", ran[0], e.getMessage());
+            for (int i = 0; i < ran[0]; i++) {
+                batch.get(i).future().completeExceptionally(failures[i] != null ? failures[i] : e);
+            }
+            commitRest(batch, ran[0]);
+            return;
+        }
+
+        if (committed) {
+            countCommit();
+        }
+        for (int i = 0; i < ran[0]; i++) {
+            if (failures[i] != null) {
+                batch.get(i).future().completeExceptionally(failures[i]);
+            } else {
+                batch.get(i).complete(results[i]);
+            }
+        }
+        commitRest(batch, ran[0]);
+    }
+
+    /**
+     * Commits the mutations of a group that didn't run before its transaction ended as a new group.
+     *
+     * @param batch the group
+     * @param ran   the number of mutations of the group that ran
+     */
+    private void commitRest(List<PendingWrite<?>> batch, int ran) {
+        if (ran < batch.size()) {
+            commitGroup(batch.subList(ran, batch.size()));
+        }
+    }
+
+    /**
+     * Returns the transaction synchronizations registered so far.
+     *
+     * @return the synchronizations, or none if synchronization isn't active
+     */
+    private static List<TransactionSynchronization> synchronizations() {
+        return TransactionSynchronizationManager.isSynchronizationActive()
+                ? TransactionSynchronizationManager.getSynchronizations() : List.of();
+    }
+
+    /**
+     * Unregisters the synchronizations a mutation registered before it was rolled back to its savepoint, and
+     * completes them as rolled back, since what they were registered for won't be committed with the group.
+     *
+     * @param before the synchronizations registered before the mutation ran
+     */
+    private static void completeRolledBack(List<TransactionSynchronization> before) {
+        List<TransactionSynchronization> added = new ArrayList<>(synchronizations());
+        added.removeAll(before);
+        if (added.isEmpty()) return;
+
+        // Synchronizations can't be unregistered one by one, so the ones registered before are registered again
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.initSynchronization();
+        before.forEach(TransactionSynchronizationManager::registerSynchronization);
+
+        for (TransactionSynchronization synchronization : added) {
+            try {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            } catch (RuntimeException e) {
+                log.error("Transaction synchronization of a rolled back write failed", e);
+            }
+        }
+    }
+
+    /**
+     * Returns the Hibernate session of the current transaction, whose connection the savepoints are set on and whose
+     * persistence context is cleared when a mutation is rolled back, so that nothing the mutation left there is
+     * flushed along with the rest of the group.
+     *
+     * @return the session, or {@code null} if writes aren't wrapped in JPA transactions
+     */
+    private Session currentSession() {
+        if (transactionManager instanceof JpaTransactionManager jpaTransactionManager
+                && jpaTransactionManager.getEntityManagerFactory() != null) {
+            EntityManager entityManager = EntityManagerFactoryUtils.getTransactionalEntityManager(
+                    jpaTransactionManager.getEntityManagerFactory());
+            return entityManager == null ? null : entityManager.unwrap(Session.class);
+        }
+        return null;
+    }
+
+    /**
+     * Counts a committed transaction of the current tenant.
+     */
+    private void countCommit() {
+        commits.computeIfAbsent(TenantContext.current(), tenant -> new AtomicLong()).incrementAndGet();
+    }
+
+    /**
+     * A mutation waiting for the writer thread, paired with the future its caller is waiting on.
+     *
+     * @param tenant   the tenant the mutation runs as
+     * @param mutation the work to run
+     * @param future   the future to complete with the result
+     * @param <T>      the result type of the mutation
+     */
+    private record PendingWrite<T>(String tenant, Supplier<T> mutation, CompletableFuture<T> future) {
+
+        @SuppressWarnings("unchecked")
+        void complete(Object result) {
+            future.complete((T) result);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.landrycarroll.leaflog.infrastructure;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * {@code StatementTimingDataSource} times every statement run on the connections of the datasource it wraps and
+ * reports it to a {@link SlowQueryLog}.
+ * <p>
+ * Connections, statements and result sets are wrapped in dynamic proxies. A statement's time is the time spent in
+ * its {@code execute} call plus the time spent in {@link ResultSet#next()}, since SQLite runs a query step by step
+ * as its rows are read; it is reported once the last row has been read, or when the result set or statement is
+ * closed. {@code unwrap} still reaches the driver's objects, e.g. for the online backup API.
+ * </p>
+ */
+public class StatementTimingDataSource extends DelegatingDataSource {
+
+    private final SlowQueryLog slowQueryLog;
+
+    /**
+     * Constructs a new {@code StatementTimingDataSource}.
+     *
+     * @param targetDataSource the datasource whose statements are timed
+     * @param slowQueryLog     the log the timings are reported to
+     */
+    public StatementTimingDataSource(DataSource targetDataSource, SlowQueryLog slowQueryLog) {
+        super(targetDataSource);
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return timed(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return timed(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection timed(Connection connection) {
+        return proxy(Connection.class, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return objectMethod(proxy, method, args, connection);
+            }
+            Object result = invoke(connection, method, args);
+            if (result instanceof Statement statement) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+                return proxy(method.getReturnType(), new TimedStatement(statement, sql, connection));
+            }
+            return result;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(StatementTimingDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    /**
+     * Implements {@code equals} and {@code hashCode} by identity, so that a proxy is only ever equal to itself, and
+     * {@code toString} by the proxied object.
+     */
+    private static Object objectMethod(Object proxy, Method method, Object[] args, Object target) {
+        return switch (method.getName()) {
+            case "equals" -> proxy == args[0];
+            case "hashCode" -> System.identityHashCode(proxy);
+            default -> target.toString();
+        };
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Times the executions of one statement, prepared with {@code preparedSql} or given its SQL on each execution.
+     */
+    private final class TimedStatement implements InvocationHandler {
+
+        private final Statement statement;
+        private final String preparedSql;
+        private final Connection connection;
+        private String pendingSql;
+        private long elapsedNanos;
+
+        TimedStatement(Statement statement, String preparedSql, Connection connection) {
+            this.statement = statement;
+            this.preparedSql = preparedSql;
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                return objectMethod(proxy, method, args, statement);
+            }
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                return execute(method, args);
+            }
+            if (name.equals("close")) {
+                finish();
+            }
+            Object result = StatementTimingDataSource.invoke(statement, method, args);
+            return result instanceof ResultSet rows && pendingSql != null ? timed(rows) : result;
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            finish();
+            String sql = preparedSql != null ? preparedSql
+                    : args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+            long start = System.nanoTime();
+            Object result = StatementTimingDataSource.invoke(statement, method, args);
+            elapsedNanos = System.nanoTime() - start;
+            pendingSql = sql;
+
+            if (result instanceof ResultSet rows) {
+                return timed(rows);
+            }
+            if (!Boolean.TRUE.equals(result)) {
+                finish();
+            }
+            return result;
+        }
+
+        private ResultSet timed(ResultSet rows) {
+            return proxy(ResultSet.class, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "next" -> {
+                        long start = System.nanoTime();
+                        Object hasRow = StatementTimingDataSource.invoke(rows, method, args);
+                        elapsedNanos += System.nanoTime() - start;
+                        if (!Boolean.TRUE.equals(hasRow)) {
+                            finish();
+                        }
+                        return hasRow;
+                    }
+                    case "close" -> finish();
+                    case "equals", "hashCode", "toString" -> {
+                        return objectMethod(proxy, method, args, rows);
+                    }
+                }
+                return StatementTimingDataSource.invoke(rows, method, args);
+            });
+        }
+
+        /**
+         * Reports the pending execution, if any.
+         */
+        private void finish() {
+            if (pendingSql != null) {
+                String sql = pendingSql;
+                pendingSql = null;
+                slowQueryLog.record(sql, elapsedNanos, connection);
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.landrycarroll.leaflog.infrastructure;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published by {@link TenantDatabases} after an idle tenant's database has been closed.
+ * Components that cache database contents per tenant listen for it to drop that tenant's entries.
+ */
+public class TenantClosedEvent extends ApplicationEvent {
+
+    private final String tenant;
+
+    /**
+     * Constructs a new {@code TenantClosedEvent}.
+     *
+     * @param source the component that closed the database
+     * @param tenant the tenant id
+     */
+    public TenantClosedEvent(Object source, String tenant) {
+        super(source);
+        this.tenant = tenant;
+    }
+
+    /**
+     * @return the id of the tenant whose database was closed
+     */
+    public String getTenant() {
+        return tenant;
+    }
+}
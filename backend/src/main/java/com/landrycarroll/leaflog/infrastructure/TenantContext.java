@@ -0,0 +1,89 @@
+package com.landrycarroll.leaflog.infrastructure;
+
+import java.util.function.Supplier;
+
+/**
+ * {@code TenantContext} holds the tenant whose database the current thread works with.
+ * <p>
+ * The tenant is set by {@link TenantFilter} for the duration of a request, and by background work such as the
+ * {@link SqliteWriteQueue} writer while it runs work on a tenant's behalf. Threads without a tenant use the
+ * {@link #DEFAULT_TENANT}, the database chosen at startup.
+ * </p>
+ */
+public final class TenantContext {
+
+    /**
+     * The tenant owning the database chosen at startup.
+     */
+    public static final String DEFAULT_TENANT = "default";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private TenantContext() {
+    }
+
+    /**
+     * Returns the tenant of the current thread.
+     *
+     * @return the tenant id, or {@link #DEFAULT_TENANT} if none has been set
+     */
+    public static String current() {
+        String tenant = CURRENT.get();
+        return tenant == null ? DEFAULT_TENANT : tenant;
+    }
+
+    /**
+     * Runs work as a tenant, restoring the previous tenant afterwards.
+     *
+     * @param tenant the tenant id
+     * @param work   the work to run
+     * @param <T>    the result type of the work
+     * @return the result of the work
+     */
+    public static <T> T callAs(String tenant, Supplier<T> work) {
+        String previous = set(tenant);
+        try {
+            return work.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Runs work as a tenant, restoring the previous tenant afterwards.
+     *
+     * @param tenant the tenant id
+     * @param work   the work to run
+     */
+    public static void runAs(String tenant, Runnable work) {
+        callAs(tenant, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Sets the tenant of the current thread.
+     *
+     * @param tenant the tenant id
+     * @return the tenant that was set before, or {@code null} if there was none
+     */
+    static String set(String tenant) {
+        String previous = CURRENT.get();
+        CURRENT.set(tenant);
+        return previous;
+    }
+
+    /**
+     * Restores the tenant returned by {@link #set(String)}.
+     *
+     * @param previous the tenant to restore, or {@code null} to clear it
+     */
+    static void restore(String previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.landrycarroll.leaflog.infrastructure;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@code TenantDatabase} is one tenant's open SQLite database: its write and read pools, and usage counters.
+ * <p>
+ * Like the database chosen at startup, each tenant has a single-connection write pool and a read-only pool, and
+ * connections are routed between them by a {@link ReadWriteRoutingDataSource}.
+ * </p>
+ */
+public class TenantDatabase {
+
+    private final String tenant;
+    private final Path file;
+    private final HikariDataSource writeDataSource;
+    private final HikariDataSource readDataSource;
+    private final DataSource dataSource;
+    private final boolean closeable;
+    private final Instant openedAt = Instant.now();
+    private final SlidingWindowCounter requests = new SlidingWindowCounter();
+    private final LongAdder checkouts = new LongAdder();
+
+    private volatile long lastUsedMillis = System.currentTimeMillis();
+
+    /**
+     * Constructs a new {@code TenantDatabase}.
+     *
+     * @param tenant          the tenant id
+     * @param file            the database file
+     * @param writeDataSource the single-connection write pool
+     * @param readDataSource  the read-only pool
+     * @param closeable       whether {@link #close()} shuts the pools down; {@code false} for pools managed elsewhere
+     */
+    TenantDatabase(String tenant, Path file, HikariDataSource writeDataSource, HikariDataSource readDataSource,
+                   boolean closeable) {
+        this.tenant = tenant;
+        this.file = file;
+        this.writeDataSource = writeDataSource;
+        this.readDataSource = readDataSource;
+        this.dataSource = new ReadWriteRoutingDataSource(writeDataSource, readDataSource);
+        this.closeable = closeable;
+    }
+
+    /**
+     * @return the tenant id
+     */
+    public String tenant() {
+        return tenant;
+    }
+
+    /**
+     * @return the database file
+     */
+    public Path file() {
+        return file;
+    }
+
+    /**
+     * @return the datasource routing between the tenant's write and read pools
+     */
+    public DataSource dataSource() {
+        return dataSource;
+    }
+
+    /**
+     * @return the tenant's read-only pool
+     */
+    public DataSource readDataSource() {
+        return readDataSource;
+    }
+
+    /**
+     * Counts a request made on behalf of the tenant.
+     */
+    void recordRequest() {
+        requests.record();
+        lastUsedMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Counts a connection handed out for the tenant.
+     */
+    void recordCheckout() {
+        checkouts.increment();
+    }
+
+    /**
+     * @return when the tenant last made a request, in epoch milliseconds
+     */
+    long lastUsedMillis() {
+        return lastUsedMillis;
+    }
+
+    /**
+     * Checks whether none of the tenant's connections are in use, so its pools can be shut down.
+     *
+     * @return {@code true} if no connection is checked out
+     */
+    boolean isIdle() {
+        return active(writeDataSource) + active(readDataSource) == 0;
+    }
+
+    /**
+     * @return {@code true} if the tenant's pools have been shut down
+     */
+    boolean isClosed() {
+        return writeDataSource.isClosed() || readDataSource.isClosed();
+    }
+
+    /**
+     * Shuts down the tenant's pools, closing its database file.
+     */
+    void close() {
+        if (closeable) {
+            readDataSource.close();
+            writeDataSource.close();
+        }
+    }
+
+    /**
+     * Reports the tenant's usage.
+     *
+     * @return the tenant's statistics
+     */
+    public TenantStats stats() {
+        return new TenantStats(tenant, file.toString(), openedAt, Instant.ofEpochMilli(lastUsedMillis),
+                requests.lastMinute(), requests.total(), checkouts.sum(),
+                active(writeDataSource) + active(readDataSource), total(writeDataSource) + total(readDataSource));
+    }
+
+    private static int active(HikariDataSource pool) {
+        HikariPoolMXBean bean = pool.getHikariPoolMXBean();
+        return bean == null ? 0 : bean.getActiveConnections();
+    }
+
+    private static int total(HikariDataSource pool) {
+        HikariPoolMXBean bean = pool.getHikariPoolMXBean();
+        return bean == null ? 0 : bean.getTotalConnections();
+    }
+
+    /**
+     * The usage of one tenant's database.
+     *
+     * @param tenant              the tenant id
+     * @param file                the database file
+     * @param openedAt            when the database was opened
+     * @param lastUsedAt          when the tenant last made a request
+     * @param requestsPerMinute   the number of requests during the last minute
+     * @param requests            the number of requests since the database was opened
+     * @param connectionCheckouts the number of connections handed out since the database was opened
+     * @param activeConnections   the number of connections currently in use
+     * @param openConnections     the number of open connections, in use or idle
+     */
+    public record TenantStats(String tenant, String file, Instant openedAt, Instant lastUsedAt,
+                              long requestsPerMinute, long requests, long connectionCheckouts,
+                              int activeConnections, int openConnections) {
+    }
+}
@@ -0,0 +1,378 @@
+package com.landrycarroll.leaflog.infrastructure;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * {@code TenantDatabases} keeps track of the SQLite database of every tenant, opening and closing them on demand.
+ * <p>
+ * The database chosen at startup belongs to the {@link TenantContext#DEFAULT_TENANT} and is always open. With
+ * {@code leaflog.tenants.enabled=true}, every other tenant gets its own file, {@code <tenant>.db} in
+ * {@code leaflog.tenants.directory} (by default a {@code tenants} directory next to the startup database), opened
+ * with the same pragmas as the startup database. A tenant's file is created and migrated to the current schema the
+ * first time it is used, and gets a single-connection write pool and a read-only pool of
+ * {@code leaflog.tenants.read-pool-size} connections.
+ * </p>
+ * <p>
+ * At most {@code leaflog.tenants.max-open} tenants are kept open besides the default one. Opening another closes
+ * the least recently used tenant that has no connection in use, and tenants without requests for
+ * {@code leaflog.tenants.idle-timeout} are closed in the background. Closing a tenant shuts down its pools, which
+ * releases the file handles and page caches of its connections, and publishes a {@link TenantClosedEvent}.
+ * </p>
+ */
+@Component
+public class TenantDatabases {
+
+    private static final Logger log = LoggerFactory.getLogger(TenantDatabases.class);
+
+    private static final Pattern TENANT_ID = Pattern.compile("[A-Za-z0-9][A-Za-z0-9_-]{0,63}");
+
+    /**
+     * SQLite {@code open_mode} flag for opening the database file read-only.
+     */
+    private static final String SQLITE_OPEN_READONLY = "1";
+
+    private final TenantDatabase defaultDatabase;
+    private final Map<String, TenantDatabase> open = new ConcurrentHashMap<>();
+    private final ApplicationEventPublisher eventPublisher;
+    private final String url;
+    private final boolean enabled;
+    private final Path directory;
+    private final int readPoolSize;
+    private final int maxOpen;
+    private final Duration idleTimeout;
+    private final String migrationsLocation;
+
+    /**
+     * Constructs a new {@code TenantDatabases}.
+     *
+     * @param writeDataSource    the write pool of the startup database
+     * @param readDataSource     the read pool of the startup database
+     * @param properties         the datasource properties holding the startup database URL
+     * @param eventPublisher     the publisher notified when a tenant is closed
+     * @param enabled            whether tenants other than the default one may be opened
+     * @param directory          the directory holding tenant databases; empty for a {@code tenants} directory next to
+     *                           the startup database
+     * @param readPoolSize       the maximum number of concurrent read connections per tenant
+     * @param maxOpen            the maximum number of tenants kept open besides the default one
+     * @param idleTimeout        how long a tenant may go without requests before it is closed
+     * @param migrationsLocation the resource location containing the migration scripts
+     */
+    public TenantDatabases(@Qualifier("writeDataSource") HikariDataSource writeDataSource,
+                           @Qualifier("readDataSource") HikariDataSource readDataSource,
+                           DataSourceProperties properties,
+                           ApplicationEventPublisher eventPublisher,
+                           @Value("${leaflog.tenants.enabled:false}") boolean enabled,
+                           @Value("${leaflog.tenants.directory:}") String directory,
+                           @Value("${leaflog.tenants.read-pool-size:2}") int readPoolSize,
+                           @Value("${leaflog.tenants.max-open:64}") int maxOpen,
+                           @Value("${leaflog.tenants.idle-timeout:PT10M}") Duration idleTimeout,
+                           @Value("${leaflog.migrations.location:classpath:db/migration}") String migrationsLocation) {
+        if (readPoolSize <= 0) {
+            throw new IllegalArgumentException("Tenant read pool size must be greater than 0");
+        }
+        if (maxOpen <= 0) {
+            throw new IllegalArgumentException("Maximum number of open tenants must be greater than 0");
+        }
+        this.url = properties.determineUrl();
+        Path startupDatabase = SqliteUrls.databasePath(url);
+        this.defaultDatabase = new TenantDatabase(TenantContext.DEFAULT_TENANT, startupDatabase,
+                writeDataSource, readDataSource, false);
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.directory = directory.isBlank() ? startupDatabase.resolveSibling("tenants") : Path.of(directory);
+        this.readPoolSize = readPoolSize;
+        this.maxOpen = maxOpen;
+        this.idleTimeout = idleTimeout;
+        this.migrationsLocation = migrationsLocation;
+    }
+
+    /**
+     * Returns a tenant's database, opening it first if needed.
+     *
+     * @param tenant the tenant id
+     * @return the tenant's database
+     * @throws IllegalArgumentException if the tenant id is invalid
+     * @throws IllegalStateException    if multi-tenancy is disabled and {@code tenant} isn't the default tenant
+     */
+    public TenantDatabase get(String tenant) {
+        if (TenantContext.DEFAULT_TENANT.equals(tenant)) {
+            return defaultDatabase;
+        }
+
+        TenantDatabase database = open.get(tenant);
+        return database != null && !database.isClosed() ? database : openTenant(tenant);
+    }
+
+    /**
+     * Lists the tenants whose databases are currently open, the default tenant first.
+     *
+     * @return the tenant ids
+     */
+    public List<String> openTenants() {
+        List<String> tenants = new ArrayList<>();
+        tenants.add(TenantContext.DEFAULT_TENANT);
+        open.keySet().stream().sorted().forEach(tenants::add);
+        return tenants;
+    }
+
+    /**
+     * Lists the database file of every tenant, whether or not it is open: the default tenant's first, then those
+     * in {@code leaflog.tenants.directory} by tenant id.
+     *
+     * @return the database file of each tenant, by tenant id
+     * @throws UncheckedIOException if the tenant directory couldn't be listed
+     */
+    public Map<String, Path> files() {
+        Map<String, Path> files = new LinkedHashMap<>();
+        files.put(TenantContext.DEFAULT_TENANT, defaultDatabase.file());
+        if (!enabled || !Files.isDirectory(directory)) {
+            return files;
+        }
+
+        try (Stream<Path> paths = Files.list(directory)) {
+            paths.filter(Files::isRegularFile)
+                    .map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(".db"))
+                    .map(name -> name.substring(0, name.length() - ".db".length()))
+                    .filter(tenant -> TENANT_ID.matcher(tenant).matches())
+                    .sorted()
+                    .forEach(tenant -> files.put(tenant, directory.resolve(tenant + ".db")));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list tenant databases in " + directory, e);
+        }
+        return files;
+    }
+
+    /**
+     * Returns the database file of a tenant, whether or not it is open or exists yet.
+     *
+     * @param tenant the tenant id
+     * @return the tenant's database file
+     * @throws IllegalArgumentException if the tenant id is invalid
+     * @throws IllegalStateException    if multi-tenancy is disabled and {@code tenant} isn't the default tenant
+     */
+    public Path file(String tenant) {
+        if (TenantContext.DEFAULT_TENANT.equals(tenant)) {
+            return defaultDatabase.file();
+        }
+        if (!enabled) {
+            throw new IllegalStateException("Multi-tenancy is disabled");
+        }
+        if (!TENANT_ID.matcher(tenant).matches()) {
+            throw new IllegalArgumentException("Invalid tenant id: " + tenant);
+        }
+        return directory.resolve(tenant + ".db");
+    }
+
+    /**
+     * Reports the usage of every open tenant database, the default tenant first.
+     *
+     * @return the statistics of each tenant
+     */
+    public List<TenantDatabase.TenantStats> stats() {
+        List<TenantDatabase.TenantStats> stats = new ArrayList<>();
+        stats.add(defaultDatabase.stats());
+        open.values().stream().map(TenantDatabase::stats)
+                .sorted(Comparator.comparing(TenantDatabase.TenantStats::tenant))
+                .forEach(stats::add);
+        return stats;
+    }
+
+    /**
+     * Hands out a connection from one of the current tenant's pools.
+     * <p>
+     * If the tenant was closed between looking it up and asking its pool for a connection, it is opened again.
+     * </p>
+     *
+     * @param pool picks the pool to take the connection from
+     * @return the connection
+     * @throws SQLException if no connection could be obtained
+     */
+    Connection connection(Function<TenantDatabase, DataSource> pool) throws SQLException {
+        String tenant = TenantContext.current();
+        TenantDatabase database = get(tenant);
+        try {
+            Connection connection = pool.apply(database).getConnection();
+            database.recordCheckout();
+            return connection;
+        } catch (SQLException e) {
+            if (!database.isClosed()) throw e;
+
+            TenantDatabase reopened = get(tenant);
+            Connection connection = pool.apply(reopened).getConnection();
+            reopened.recordCheckout();
+            return connection;
+        }
+    }
+
+    /**
+     * Closes the tenants that haven't made a request for longer than {@code leaflog.tenants.idle-timeout}.
+     */
+    @Scheduled(initialDelayString = "${leaflog.tenants.idle-check:PT1M}", fixedDelayString = "${leaflog.tenants.idle-check:PT1M}")
+    public synchronized void closeIdleTenants() {
+        long cutoff = System.currentTimeMillis() - idleTimeout.toMillis();
+        for (TenantDatabase database : List.copyOf(open.values())) {
+            if (database.lastUsedMillis() < cutoff && database.isIdle()) {
+                close(database, "idle for " + idleTimeout);
+            }
+        }
+    }
+
+    /**
+     * Closes every tenant database except the default one, which is closed along with its pools.
+     */
+    @PreDestroy
+    public synchronized void shutdown() {
+        List.copyOf(open.values()).forEach(TenantDatabase::close);
+        open.clear();
+    }
+
+    /**
+     * Opens a tenant's database, creating and migrating its file if needed, and closes the least recently used
+     * tenants beyond {@code leaflog.tenants.max-open}.
+     *
+     * @param tenant the tenant id
+     * @return the tenant's database
+     */
+    private synchronized TenantDatabase openTenant(String tenant) {
+        if (!enabled) {
+            throw new IllegalStateException("Multi-tenancy is disabled");
+        }
+        if (!TENANT_ID.matcher(tenant).matches()) {
+            throw new IllegalArgumentException("Invalid tenant id: " + tenant);
+        }
+
+        TenantDatabase existing = open.get(tenant);
+        if (existing != null && !existing.isClosed()) {
+            return existing;
+        }
+
+        closeLeastRecentlyUsed(maxOpen - 1);
+
+        long start = System.nanoTime();
+        Path file = directory.resolve(tenant + ".db");
+        String tenantUrl = SqliteUrls.withPath(url, file);
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create tenant directory " + directory, e);
+        }
+        boolean created = !Files.exists(file);
+
+        // The write pool creates the file, which must exist and be migrated before read-only connections open it
+        HikariDataSource writeDataSource = pool(tenantUrl, "sqlite-write-" + tenant, 1, false);
+        HikariDataSource readDataSource = null;
+        try {
+            if (created) {
+                // Opening the file in WAL mode already wrote its header, so the mode is applied by VACUUM,
+                // which is instant while the file is still empty
+                new JdbcTemplate(writeDataSource).execute((ConnectionCallback<Void>) connection -> {
+                    try (Statement statement = connection.createStatement()) {
+                        statement.execute("PRAGMA auto_vacuum = INCREMENTAL");
+                        statement.execute("VACUUM");
+                    }
+                    return null;
+                });
+            }
+            new SchemaMigrator(writeDataSource, migrationsLocation).migrate();
+            readDataSource = pool(tenantUrl, "sqlite-read-" + tenant, readPoolSize, true);
+        } catch (RuntimeException e) {
+            writeDataSource.close();
+            throw e;
+        }
+
+        TenantDatabase database = new TenantDatabase(tenant, file, writeDataSource, readDataSource, true);
+        open.put(tenant, database);
+        log.info("Opened {} database for tenant {} in {} ms ({} tenants open)", created ? "new" : "existing",
+                tenant, (System.nanoTime() - start) / 1_000_000, open.size());
+        return database;
+    }
+
+    /**
+     * Closes least recently used tenants until at most {@code keep} remain open. Tenants with connections in use
+     * are skipped, so more than {@code keep} may stay open while they are busy.
+     *
+     * @param keep the number of tenants to leave open
+     */
+    private void closeLeastRecentlyUsed(int keep) {
+        List<TenantDatabase> candidates = open.values().stream()
+                .sorted(Comparator.comparingLong(TenantDatabase::lastUsedMillis))
+                .toList();
+
+        int excess = open.size() - keep;
+        for (TenantDatabase database : candidates) {
+            if (excess <= 0) break;
+            if (database.isIdle()) {
+                close(database, "least recently used");
+                excess--;
+            }
+        }
+    }
+
+    /**
+     * Closes a tenant's database and tells listeners about it.
+     *
+     * @param database the tenant's database
+     * @param reason   why it is closed, for the log
+     */
+    private void close(TenantDatabase database, String reason) {
+        open.remove(database.tenant(), database);
+        database.close();
+        log.info("Closed database for tenant {} ({})", database.tenant(), reason);
+        eventPublisher.publishEvent(new TenantClosedEvent(this, database.tenant()));
+    }
+
+    /**
+     * Creates a connection pool for a tenant database.
+     *
+     * @param url      the tenant database URL
+     * @param poolName the name shown in Hikari logs
+     * @param poolSize the maximum number of connections
+     * @param readOnly whether to open connections read-only
+     * @return the pool
+     */
+    private static HikariDataSource pool(String url, String poolName, int poolSize, boolean readOnly) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(poolName);
+        config.setJdbcUrl(url);
+        config.setMaximumPoolSize(poolSize);
+        // Connections are opened when the tenant makes requests rather than held for every open tenant
+        config.setMinimumIdle(0);
+        if (readOnly) {
+            config.setReadOnly(true);
+            config.addDataSourceProperty("open_mode", SQLITE_OPEN_READONLY);
+        }
+        return new HikariDataSource(config);
+    }
+}
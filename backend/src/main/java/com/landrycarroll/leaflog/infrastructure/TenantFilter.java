@@ -0,0 +1,110 @@
+package com.landrycarroll.leaflog.infrastructure;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * {@code TenantFilter} works out which tenant a request belongs to and runs the request as that tenant.
+ * <p>
+ * The tenant is taken from a {@code /t/<tenant>} path prefix, such as {@code /t/greenhouse-2/api/plants}, or else
+ * from the {@code leaflog.tenants.header} request header. Requests with neither use the default tenant. A path
+ * prefix is treated as part of the context path, so controllers keep their mappings and the links they build
+ * point back into the same tenant.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = "leaflog.tenants.enabled", havingValue = "true")
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class TenantFilter extends OncePerRequestFilter {
+
+    private static final String PATH_PREFIX = "/t/";
+
+    private final TenantDatabases tenants;
+    private final String header;
+
+    /**
+     * Constructs a new {@code TenantFilter}.
+     *
+     * @param tenants the registry of tenant databases
+     * @param header  the name of the request header carrying the tenant id
+     */
+    public TenantFilter(TenantDatabases tenants,
+                        @Value("${leaflog.tenants.header:X-Tenant}") String header) {
+        this.tenants = tenants;
+        this.header = header;
+    }
+
+    /**
+     * Resolves the request's tenant, opening its database if needed, and passes the request on as that tenant.
+     * Requests naming an invalid tenant id are rejected with status 400.
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        HttpServletRequest routed = request;
+        String tenant = request.getHeader(header);
+
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.startsWith(PATH_PREFIX)) {
+            int end = path.indexOf('/', PATH_PREFIX.length());
+            tenant = end < 0 ? path.substring(PATH_PREFIX.length()) : path.substring(PATH_PREFIX.length(), end);
+            routed = new TenantPrefixedRequest(request, PATH_PREFIX + tenant);
+        }
+        if (tenant == null || tenant.isBlank()) {
+            tenant = TenantContext.DEFAULT_TENANT;
+        }
+
+        try {
+            tenants.get(tenant).recordRequest();
+        } catch (IllegalArgumentException e) {
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"message\":\"Invalid tenant id\"}");
+            return;
+        }
+
+        String previous = TenantContext.set(tenant);
+        try {
+            chain.doFilter(routed, response);
+        } finally {
+            TenantContext.restore(previous);
+        }
+    }
+
+    /**
+     * A request whose tenant path prefix is moved from the servlet path into the context path.
+     */
+    private static class TenantPrefixedRequest extends HttpServletRequestWrapper {
+
+        private final String prefix;
+
+        TenantPrefixedRequest(HttpServletRequest request, String prefix) {
+            super(request);
+            this.prefix = prefix;
+        }
+
+        @Override
+        public String getContextPath() {
+            return super.getContextPath() + prefix;
+        }
+
+        @Override
+        public String getServletPath() {
+            String servletPath = super.getServletPath();
+            return servletPath.startsWith(prefix) ? servletPath.substring(prefix.length()) : servletPath;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.landrycarroll.leaflog.infrastructure;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.function.Function;
+
+/**
+ * {@code TenantRoutingDataSource} hands out connections to the database of the tenant in the {@link TenantContext}.
+ * <p>
+ * Tenant databases are opened lazily by {@link TenantDatabases}, so the set of targets isn't known up front as an
+ * {@link org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource} would need. Like the read/write
+ * routing below it, this datasource must be wrapped in a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}.
+ * </p>
+ */
+public class TenantRoutingDataSource extends AbstractDataSource {
+
+    private final TenantDatabases tenants;
+    private final Function<TenantDatabase, DataSource> pool;
+
+    /**
+     * Constructs a new {@code TenantRoutingDataSource}.
+     *
+     * @param tenants the registry of tenant databases
+     * @param pool    picks the datasource of a tenant's database to take connections from
+     */
+    public TenantRoutingDataSource(TenantDatabases tenants, Function<TenantDatabase, DataSource> pool) {
+        this.tenants = tenants;
+        this.pool = pool;
+    }
+
+    /**
+     * Returns a connection to the current tenant's database.
+     *
+     * @return the connection
+     * @throws SQLException if no connection could be obtained
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        return tenants.connection(pool);
+    }
+
+    /**
+     * Not supported: tenant databases are SQLite files without credentials.
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Tenant databases don't use credentials");
+    }
+}
@@ -3,10 +3,21 @@ package com.landrycarroll.leaflog.plantmanagement.assemblers;
 
 import com.landrycarroll.leaflog.plantmanagement.controllers.PlantController;
 import com.landrycarroll.leaflog.plantmanagement.domain.entities.Plant;
+import com.landrycarroll.leaflog.plantmanagement.repositories.PlantListing;
+import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.hateoas.RepresentationModel;
+import org.springframework.hateoas.mediatype.hal.HalModelBuilder;
 import org.springframework.hateoas.server.RepresentationModelAssembler;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
 
 /**
@@ -14,6 +25,12 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
  *
  * <p>This allows the API to include hypermedia links with each plant resource, enabling better discoverability
  * and navigability for clients following HATEOAS principles.</p>
+ *
+ * <p>Links are built from templates rather than with {@code methodOn}, which creates a proxy of the controller and
+ * resolves the current request's URI for every link. The URI of the plant collection is resolved once per request
+ * by {@link #links()}, and a plant's URI is that of the collection followed by its id, as mapped by
+ * {@link PlantController#plant}. Collections are assembled with a single {@link PlantLinks}, so that each plant
+ * only costs a string concatenation.</p>
  */
 @Component
 public class PlantModelAssembler implements RepresentationModelAssembler<Plant, EntityModel<Plant>> {
@@ -33,8 +50,116 @@ public class PlantModelAssembler implements RepresentationModelAssembler<Plant,
      */
     @Override
     public EntityModel<Plant> toModel(Plant plant) {
-        return EntityModel.of(plant,
-                linkTo(methodOn(PlantController.class).plant(plant.getId())).withSelfRel(),
-                linkTo(methodOn(PlantController.class).all()).withRel("plants"));
+        return links().toModel(plant);
+    }
+
+    /**
+     * Converts plants into a {@link CollectionModel} of their {@link EntityModel}s, resolving the links' base URI
+     * only once.
+     *
+     * @param plants the plants to convert
+     * @return a {@link CollectionModel} of the plants' models
+     */
+    @Override
+    public CollectionModel<EntityModel<Plant>> toCollectionModel(Iterable<? extends Plant> plants) {
+        return links().toCollectionModel(plants);
+    }
+
+    /**
+     * Converts some fields of a plant into an {@link EntityModel} with only a {@code self} link, keeping sparse
+     * representations small.
+     *
+     * @param plant the fields of a plant
+     * @return an {@link EntityModel} containing the fields and the plant's {@code self} link
+     */
+    public EntityModel<Map<String, Object>> toModel(PlantListing.PlantFields plant) {
+        return links().toModel(plant);
+    }
+
+    /**
+     * Converts the fields of several plants into a model embedding them under the same relation as whole plants,
+     * {@code plantList}, so that clients find them in the same place.
+     *
+     * @param plants the fields of the plants
+     * @return a model embedding the plants' {@link EntityModel}s
+     */
+    public RepresentationModel<?> toFieldsCollectionModel(List<PlantListing.PlantFields> plants) {
+        PlantLinks links = links();
+        return HalModelBuilder.halModel()
+                .embed(plants.stream().map(links::toModel).toList(), LinkRelation.of("plantList"))
+                .build();
+    }
+
+    /**
+     * Resolves the plant links of the current request, to assemble any number of models with.
+     *
+     * @return the links, relative to the current request's base URI
+     */
+    public PlantLinks links() {
+        return new PlantLinks(linkTo(PlantController.class).toUri().toString());
+    }
+
+    /**
+     * The plant links of one request: the collection's URI, resolved once, and the plant URIs expanded from it.
+     * Can also be passed wherever an assembler of plants is expected, e.g. to a sliced resources assembler.
+     */
+    public static final class PlantLinks implements RepresentationModelAssembler<Plant, EntityModel<Plant>> {
+
+        private final String collectionHref;
+        private final Link collectionLink;
+
+        /**
+         * Constructs links relative to the plant collection's URI.
+         *
+         * @param collectionHref the absolute URI of the plant collection, without a trailing slash
+         */
+        PlantLinks(String collectionHref) {
+            this.collectionHref = collectionHref;
+            this.collectionLink = Link.of(collectionHref).withRel("plants");
+        }
+
+        /**
+         * Returns the URI of a plant.
+         *
+         * @param id the UUID of the plant
+         * @return the plant's URI
+         */
+        public String plantHref(UUID id) {
+            return collectionHref + '/' + id;
+        }
+
+        /**
+         * Returns a link to a plant.
+         *
+         * @param id       the UUID of the plant
+         * @param relation the link's relation
+         * @return the link
+         */
+        public Link plantLink(UUID id, LinkRelation relation) {
+            return Link.of(plantHref(id), relation);
+        }
+
+        /**
+         * Converts a plant into an {@link EntityModel} with self and collection links, like
+         * {@link PlantModelAssembler#toModel(Plant)}.
+         *
+         * @param plant the plant
+         * @return the plant's model
+         */
+        @Override
+        public EntityModel<Plant> toModel(Plant plant) {
+            return EntityModel.of(plant, plantLink(plant.getId(), IanaLinkRelations.SELF), collectionLink);
+        }
+
+        /**
+         * Converts some fields of a plant into an {@link EntityModel} with only a {@code self} link, like
+         * {@link PlantModelAssembler#toModel(PlantListing.PlantFields)}.
+         *
+         * @param plant the fields of a plant
+         * @return the fields' model
+         */
+        public EntityModel<Map<String, Object>> toModel(PlantListing.PlantFields plant) {
+            return EntityModel.of(plant.fields(), plantLink(plant.position().id(), IanaLinkRelations.SELF));
+        }
     }
 }
@@ -1,15 +1,37 @@
 package com.landrycarroll.leaflog.plantmanagement.controllers;
 
+import com.landrycarroll.leaflog.infrastructure.TenantContext;
 import com.landrycarroll.leaflog.plantmanagement.assemblers.PlantModelAssembler;
 import com.landrycarroll.leaflog.plantmanagement.domain.entities.Plant;
 import com.landrycarroll.leaflog.plantmanagement.dtos.PlantDto;
+import com.landrycarroll.leaflog.plantmanagement.exceptions.PlantException;
+import com.landrycarroll.leaflog.plantmanagement.repositories.PlantListing;
+import com.landrycarroll.leaflog.plantmanagement.repositories.PlantVersions;
+import com.landrycarroll.leaflog.plantmanagement.serialization.PlantBinary;
 import com.landrycarroll.leaflog.plantmanagement.services.PlantService;
+import org.springframework.data.web.SlicedResourcesAssembler;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.hateoas.RepresentationModel;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
-
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.*;
 
 /**
@@ -20,68 +42,391 @@ import java.util.*;
  * This controller delegates the business logic to {@link PlantService}
  * and maps domain entities to HATEOAS-enriched models using {@link PlantModelAssembler}.
  * </p>
+ * <p>
+ * The plant collection and single plants carry strong entity tags. A conditional {@code GET} whose
+ * {@code If-None-Match} still matches is answered with {@code 304 Not Modified} before any plant is loaded,
+ * and an update or patch sent with {@code If-Match} only applies to the version of the plant its tag names.
+ * </p>
+ * <p>
+ * A single plant, pages of plants and the export are also available in the {@link PlantBinary} format, for clients
+ * that send it in {@code Accept}. Its schema is fixed, so it can't be narrowed to a sparse fieldset, and errors are
+ * still reported as JSON, so clients should accept {@code application/json} at a lower quality too. Responses that
+ * come in either format vary by {@code Accept}, and each format has its own entity tag for a version of the data, so
+ * a cached JSON body is never revalidated for a binary request or the other way round.
+ * </p>
  */
 @RestController
 @RequestMapping("/api/plants")
 public class PlantController {
 
+    /**
+     * The media type of JSON Merge Patch documents, as defined by RFC 7396.
+     */
+    static final String MERGE_PATCH_JSON_VALUE = "application/merge-patch+json";
+
+    /**
+     * The relation of links to a plant from a resource about it.
+     */
+    private static final LinkRelation PLANT = LinkRelation.of("plant");
+
     private final PlantService plantService;
     private final PlantModelAssembler assembler;
+    private final SlicedResourcesAssembler<Plant> slicedAssembler;
+    private final SlicedResourcesAssembler<PlantDto.SearchResult> slicedSearchAssembler;
 
     /**
      * Constructs a {@code PlantController} with the provided service.
      *
-     * @param plantService the service layer handling plant operations
+     * @param plantService    the service layer handling plant operations
+     * @param slicedAssembler       the assembler turning slices of plants into sliced HATEOAS models
+     * @param slicedSearchAssembler the assembler turning slices of search results into sliced HATEOAS models
      */
-    public PlantController(PlantService plantService) {
+    public PlantController(PlantService plantService,
+                           SlicedResourcesAssembler<Plant> slicedAssembler,
+                           SlicedResourcesAssembler<PlantDto.SearchResult> slicedSearchAssembler) {
         this.plantService = plantService;
         this.assembler = new PlantModelAssembler();
+        this.slicedAssembler = slicedAssembler;
+        this.slicedSearchAssembler = slicedSearchAssembler;
     }
 
     /**
-     * Retrieves all plants in the system.
+     * Retrieves one page of the plants matching a query, in the order it asks for.
+     * The page links to the next one until the last page is reached; the links keep the query's parameters.
+     * With a sparse fieldset, only the listed fields of each plant are read and returned, along with its
+     * {@code self} link.
      *
-     * @return a {@link ResponseEntity} containing the list of all plants
+     * @param query   the filters and sort order, taken from the query string; see {@link PlantService#findPage}
+     *                for the supported combinations
+     * @param fields  the sparse fieldset, e.g. {@code summary} or {@code plantName,nextDue}; see
+     *                {@link PlantService#fieldsOf}; omitted for whole plants
+     * @param cursor  the page to retrieve, taken from the previous page's {@code next} link; omitted for the
+     *                first page
+     * @param size    the page size
+     * @param request the current request, checked for {@code If-None-Match}
+     * @return a {@link ResponseEntity} containing the page of plants and the collection's entity tag, or
+     * {@code null} once a {@code 304 Not Modified} response has been prepared
      */
     @GetMapping
-    public ResponseEntity<?> all() {
-        return ResponseEntity.ok(plantService.findAll());
+    public ResponseEntity<?> all(PlantDto.PlantQuery query,
+                                 @RequestParam(required = false) String fields,
+                                 @RequestParam(required = false) String cursor,
+                                 @RequestParam(defaultValue = "20") int size,
+                                 WebRequest request) {
+        Set<PlantListing.Field> selected = fields == null ? null : plantService.fieldsOf(fields);
+
+        // Every page is derived from the collection, so the collection's tag validates each of them
+        String tag = plantService.collectionTag();
+        if (request.checkNotModified(tag)) {
+            return null;
+        }
+
+        RepresentationModel<?> model;
+        String nextCursor;
+        if (selected == null) {
+            PlantDto.PlantPage<Plant> page = plantService.findPage(query, cursor, size);
+            model = assembler.toCollectionModel(page.plants());
+            nextCursor = page.nextCursor();
+        } else {
+            PlantDto.PlantPage<PlantListing.PlantFields> page = plantService.findPage(query, selected, cursor, size);
+            model = assembler.toFieldsCollectionModel(page.plants());
+            nextCursor = page.nextCursor();
+        }
+        model.add(Link.of(ServletUriComponentsBuilder.fromCurrentRequest().toUriString()).withSelfRel());
+        if (nextCursor != null) {
+            model.add(nextLink(nextCursor));
+        }
+        return ResponseEntity.ok().eTag(tag).cacheControl(CacheControl.noCache()).varyBy(HttpHeaders.ACCEPT)
+                .body(model);
+    }
+
+    /**
+     * Retrieves one page of the plants matching a query in the {@link PlantBinary} format, like
+     * {@link #all}. The {@code next} page is linked in a {@code Link} header instead of the body.
+     *
+     * @param query   the filters and sort order, taken from the query string
+     * @param fields  must be omitted, since the format's schema is fixed
+     * @param cursor  the page to retrieve, taken from the previous page's {@code next} link; omitted for the
+     *                first page
+     * @param size    the page size
+     * @param request the current request, checked for {@code If-None-Match}
+     * @return a {@link ResponseEntity} containing the encoded page and the collection's binary entity tag, or
+     * {@code null} once a {@code 304 Not Modified} response has been prepared
+     * @throws PlantException.InvalidInput if a sparse fieldset is asked for
+     */
+    @GetMapping(produces = PlantBinary.MEDIA_TYPE_VALUE)
+    public ResponseEntity<byte[]> allBinary(PlantDto.PlantQuery query,
+                                            @RequestParam(required = false) String fields,
+                                            @RequestParam(required = false) String cursor,
+                                            @RequestParam(defaultValue = "20") int size,
+                                            WebRequest request) {
+        requireAllFields(fields);
+        String tag = PlantVersions.binaryTag(plantService.collectionTag());
+        if (request.checkNotModified(tag)) {
+            return null;
+        }
+
+        PlantDto.PlantPage<Plant> page = plantService.findPage(query, cursor, size);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(tag).cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT).contentType(PlantBinary.MEDIA_TYPE);
+        if (page.nextCursor() != null) {
+            response.header(HttpHeaders.LINK, nextLink(page.nextCursor()).toString());
+        }
+        return response.body(PlantBinary.encode(page.plants()));
+    }
+
+    /**
+     * Exports all active plants in the system, and optionally the archived ones, as a single JSON array.
+     * The plants are streamed from the database as they are read, without being loaded as entities.
+     *
+     * @param includeArchived whether to include plants that have been moved to the archive; defaults to {@code false}
+     * @param fields          the sparse fieldset, e.g. {@code summary}; see {@link PlantService#fieldsOf}; omitted
+     *                        for whole plants
+     * @param request         the current request, checked for {@code If-None-Match}
+     * @return a {@link ResponseEntity} containing the list of plants and the collection's entity tag, or
+     * {@code null} once a {@code 304 Not Modified} response has been prepared
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(required = false) Boolean includeArchived,
+                                                        @RequestParam(required = false) String fields,
+                                                        WebRequest request) {
+        Set<PlantListing.Field> selected = fields == null ? PlantListing.Field.ALL : plantService.fieldsOf(fields);
+
+        // Taken before the plants are read, so a concurrent write can only make the tag older than the body
+        String tag = plantService.collectionTag();
+        if (request.checkNotModified(tag)) {
+            return null;
+        }
+
+        // Streamed on another thread, which has to act for the same tenant
+        String tenant = TenantContext.current();
+        StreamingResponseBody body = out -> TenantContext.runAs(tenant, () -> {
+            try {
+                plantService.writeAll(Boolean.TRUE.equals(includeArchived), selected, out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().eTag(tag).cacheControl(CacheControl.noCache()).varyBy(HttpHeaders.ACCEPT)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    /**
+     * Exports all active plants, and optionally the archived ones, in the {@link PlantBinary} format, like
+     * {@link #export}.
+     *
+     * @param includeArchived whether to include plants that have been moved to the archive; defaults to {@code false}
+     * @param fields          must be omitted, since the format's schema is fixed
+     * @param request         the current request, checked for {@code If-None-Match}
+     * @return a {@link ResponseEntity} streaming the encoded plants, with the collection's binary entity tag, or
+     * {@code null} once a {@code 304 Not Modified} response has been prepared
+     * @throws PlantException.InvalidInput if a sparse fieldset is asked for
+     */
+    @GetMapping(value = "/export", produces = PlantBinary.MEDIA_TYPE_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportBinary(@RequestParam(required = false) Boolean includeArchived,
+                                                              @RequestParam(required = false) String fields,
+                                                              WebRequest request) {
+        requireAllFields(fields);
+        String tag = PlantVersions.binaryTag(plantService.collectionTag());
+        if (request.checkNotModified(tag)) {
+            return null;
+        }
+
+        String tenant = TenantContext.current();
+        StreamingResponseBody body = out -> TenantContext.runAs(tenant, () -> {
+            try {
+                plantService.writeAllBinary(Boolean.TRUE.equals(includeArchived), out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().eTag(tag).cacheControl(CacheControl.noCache()).varyBy(HttpHeaders.ACCEPT)
+                .contentType(PlantBinary.MEDIA_TYPE)
+                .body(body);
     }
 
     /**
      * Retrieves a specific plant by its ID.
      *
-     * @param id the UUID of the plant to retrieve
-     * @return a {@link ResponseEntity} containing the plant model
+     * @param id      the UUID of the plant to retrieve
+     * @param request the current request, checked for {@code If-None-Match}
+     * @return a {@link ResponseEntity} containing the plant model and its entity tag, or {@code null} once a
+     * {@code 304 Not Modified} response has been prepared
      */
     @GetMapping("/{id}")
-    public ResponseEntity<?> plant(@PathVariable UUID id) {
-        return ResponseEntity.ok(assembler.toModel(plantService.findById(id)));
+    public ResponseEntity<?> plant(@PathVariable UUID id, WebRequest request) {
+        Optional<String> tag = plantService.findTag(id);
+        if (tag.isPresent() && request.checkNotModified(tag.get())) {
+            return null;
+        }
+
+        Plant plant = plantService.findById(id);
+        return ResponseEntity.ok().eTag(plantService.tagOf(plant)).cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT).body(assembler.toModel(plant));
+    }
+
+    /**
+     * Retrieves a specific plant by its ID in the {@link PlantBinary} format, as a stream of one record.
+     *
+     * @param id      the UUID of the plant to retrieve
+     * @param request the current request, checked for {@code If-None-Match}
+     * @return a {@link ResponseEntity} containing the encoded plant and its binary entity tag, or {@code null} once a
+     * {@code 304 Not Modified} response has been prepared
+     */
+    @GetMapping(value = "/{id}", produces = PlantBinary.MEDIA_TYPE_VALUE)
+    public ResponseEntity<byte[]> plantBinary(@PathVariable UUID id, WebRequest request) {
+        Optional<String> tag = plantService.findTag(id).map(PlantVersions::binaryTag);
+        if (tag.isPresent() && request.checkNotModified(tag.get())) {
+            return null;
+        }
+
+        Plant plant = plantService.findById(id);
+        return ResponseEntity.ok().eTag(PlantVersions.binaryTag(plantService.tagOf(plant))).cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT).contentType(PlantBinary.MEDIA_TYPE)
+                .body(PlantBinary.encode(List.of(plant)));
+    }
+
+    /**
+     * Retrieves the plants due for watering before the given time, most overdue first.
+     *
+     * @param before the exclusive upper bound for the next due date (ISO-8601); defaults to now
+     * @param page   the zero-based page number
+     * @param size   the page size
+     * @return a {@link ResponseEntity} containing a sliced model of due plants, with a {@code next} link when more exist
+     */
+    @GetMapping("/due")
+    public ResponseEntity<?> due(@RequestParam(required = false) Instant before,
+                                 @RequestParam(defaultValue = "0") int page,
+                                 @RequestParam(defaultValue = "20") int size) {
+        Date dueBefore = Date.from(before != null ? before : Instant.now());
+        return ResponseEntity.ok(slicedAssembler.toModel(plantService.findDue(dueBefore, page, size), assembler.links()));
+    }
+
+    /**
+     * Retrieves how many times a plant was watered on each day of a range.
+     *
+     * @param id   the UUID of the plant
+     * @param from the first day (ISO-8601 date, UTC), inclusive; defaults to 29 days before {@code to}
+     * @param to   the last day (ISO-8601 date, UTC), inclusive; defaults to today
+     * @return a {@link ResponseEntity} containing the plant's watering history and a link to the plant
+     */
+    @GetMapping("/{id}/waterings")
+    public ResponseEntity<?> waterings(@PathVariable UUID id,
+                                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate last = to != null ? to : LocalDate.now(ZoneOffset.UTC);
+        return ResponseEntity.ok(EntityModel.of(plantService.findWaterings(id, from != null ? from : last.minusDays(29), last),
+                assembler.links().plantLink(id, PLANT)));
+    }
+
+    /**
+     * Retrieves how many plants were watered on each day of a range.
+     *
+     * @param from the first day (ISO-8601 date, UTC), inclusive; defaults to 29 days before {@code to}
+     * @param to   the last day (ISO-8601 date, UTC), inclusive; defaults to today
+     * @return a {@link ResponseEntity} containing the collection's watering history
+     */
+    @GetMapping("/waterings")
+    public ResponseEntity<?> dailyWaterings(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate last = to != null ? to : LocalDate.now(ZoneOffset.UTC);
+        return ResponseEntity.ok(plantService.findDailyWaterings(from != null ? from : last.minusDays(29), last));
+    }
+
+    /**
+     * Retrieves every species in use along with its number of plants.
+     *
+     * @return a {@link ResponseEntity} containing the species and their plant counts, in species name order
+     */
+    @GetMapping("/species")
+    public ResponseEntity<?> species() {
+        return ResponseEntity.ok(plantService.countBySpecies());
+    }
+
+    /**
+     * Retrieves the plants of one species.
+     *
+     * @param species the species name
+     * @param page    the zero-based page number
+     * @param size    the page size
+     * @return a {@link ResponseEntity} containing a sliced model of the species' plants
+     */
+    @GetMapping("/species/{species}")
+    public ResponseEntity<?> bySpecies(@PathVariable String species,
+                                       @RequestParam(defaultValue = "0") int page,
+                                       @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(slicedAssembler.toModel(plantService.findBySpecies(species, page, size), assembler.links()));
+    }
+
+    /**
+     * Searches plant names, species and notes using the full-text index, best matches first.
+     *
+     * @param q    the search text; the last word also matches as a prefix
+     * @param page the zero-based page number
+     * @param size the page size
+     * @return a {@link ResponseEntity} containing a sliced model of search results, each with a highlighted
+     * snippet and a link to the plant
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> search(@RequestParam String q,
+                                    @RequestParam(defaultValue = "0") int page,
+                                    @RequestParam(defaultValue = "20") int size) {
+        PlantModelAssembler.PlantLinks links = assembler.links();
+        return ResponseEntity.ok(slicedSearchAssembler.toModel(plantService.search(q, page, size),
+                result -> EntityModel.of(result, links.plantLink(result.plant().getId(), PLANT))));
     }
 
     /**
      * Creates a new plant entry using the provided request data.
      *
      * @param request the plant data sent by the client
-     * @return a {@link ResponseEntity} with the created plant model and location header
+     * @return a {@link ResponseEntity} with the created plant model, its entity tag and location header
      */
     @PostMapping
     public ResponseEntity<?> create(@RequestBody PlantDto.Request request) {
         Plant saved = plantService.createPlant(request);
-        return ResponseEntity.created(linkTo(methodOn(PlantController.class).plant(saved.getId())).toUri())
-                .body(assembler.toModel(saved));
+        PlantModelAssembler.PlantLinks links = assembler.links();
+        return ResponseEntity.created(URI.create(links.plantHref(saved.getId())))
+                .eTag(plantService.tagOf(saved))
+                .body(links.toModel(saved));
     }
 
     /**
      * Updates an existing plant identified by ID with new data.
+     * With an {@code If-Match} header, the plant is only updated if it still matches the given entity tag,
+     * and {@code 412 Precondition Failed} is returned otherwise.
      *
      * @param id      the UUID of the plant to update
      * @param request the updated plant data
-     * @return a {@link ResponseEntity} with the updated plant model
+     * @param ifMatch the entity tag the plant must still match, if any
+     * @return a {@link ResponseEntity} with the updated plant model and its entity tag
      */
     @PutMapping("/{id}")
-    public ResponseEntity<?> update(@PathVariable UUID id, @RequestBody PlantDto.Request request) {
-        return ResponseEntity.ok(assembler.toModel(plantService.updatePlant(id, request)));
+    public ResponseEntity<?> update(@PathVariable UUID id,
+                                    @RequestBody PlantDto.Request request,
+                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Plant updated = plantService.updatePlant(id, request, ifMatch);
+        return ResponseEntity.ok().eTag(plantService.tagOf(updated)).body(assembler.toModel(updated));
+    }
+
+    /**
+     * Partially updates a plant with a JSON Merge Patch: members that are present replace the plant's values,
+     * a {@code null} member clears an optional value, and absent members are left as they are.
+     * With an {@code If-Match} header, the plant is only patched if it still matches the given entity tag,
+     * and {@code 412 Precondition Failed} is returned otherwise.
+     *
+     * @param id      the UUID of the plant to patch
+     * @param patch   the merge patch document
+     * @param ifMatch the entity tag the plant must still match, if any
+     * @return a {@link ResponseEntity} with the patched plant model and its entity tag
+     */
+    @PatchMapping(value = "/{id}", consumes = {MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<?> patch(@PathVariable UUID id,
+                                   @RequestBody PlantDto.Patch patch,
+                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Plant patched = plantService.patchPlant(id, patch, ifMatch);
+        return ResponseEntity.ok().eTag(plantService.tagOf(patched)).body(assembler.toModel(patched));
     }
 
     /**
@@ -100,11 +445,12 @@ public class PlantController {
      * Marks a plant as watered by updating its last watered timestamp.
      *
      * @param id the UUID string of the plant to mark as watered
-     * @return a {@link ResponseEntity} with the updated plant model
+     * @return a {@link ResponseEntity} with the updated plant model and its entity tag
      */
     @PutMapping("/water/{id}")
     public ResponseEntity<?> water(@PathVariable String id) {
-        return ResponseEntity.ok(assembler.toModel(plantService.markAsWatered(UUID.fromString(id))));
+        Plant watered = plantService.markAsWatered(UUID.fromString(id));
+        return ResponseEntity.ok().eTag(plantService.tagOf(watered)).body(assembler.toModel(watered));
     }
 
     /**
@@ -124,4 +470,21 @@ public class PlantController {
 
         return ResponseEntity.ok(result.get("plants"));
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the link to the page after the current one, with the current request's other parameters.
+     */
+    private static Link nextLink(String cursor) {
+        return Link.of(ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("cursor", cursor).toUriString(), IanaLinkRelations.NEXT);
+    }
+
+    /**
+     * Rejects a sparse fieldset for a representation that always has every field.
+     */
+    private static void requireAllFields(String fields) {
+        if (fields != null) {
+            throw new PlantException.InvalidInput("Sparse fieldsets aren't supported by " + PlantBinary.MEDIA_TYPE_VALUE);
+        }
+    }
+}
@@ -74,6 +74,20 @@ public class PlantControllerAdvice {
                 .body(Map.of("message", ex.getMessage()));
     }
 
+    /**
+     * Handles {@link PlantException.VersionMismatch} exceptions.
+     *
+     * @param ex the exception thrown when a conditional update doesn't match the plant's current version
+     * @return a descriptive error message
+     */
+    @ExceptionHandler(PlantException.VersionMismatch.class)
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    ResponseEntity<?> plantNotFoundHandler(PlantException.VersionMismatch ex) {
+        return ResponseEntity
+                .status(HttpStatus.PRECONDITION_FAILED)
+                .body(Map.of("message", ex.getMessage()));
+    }
+
     /**
      * Handles {@link PlantException.RepositoryError} exceptions.
      *
@@ -1,38 +1,51 @@
 package com.landrycarroll.leaflog.plantmanagement.domain.converters;
 
 import com.landrycarroll.leaflog.plantmanagement.domain.valueobjects.PlantSpecies;
+import com.landrycarroll.leaflog.plantmanagement.repositories.SpeciesDictionary;
 import jakarta.persistence.AttributeConverter;
 import jakarta.persistence.Converter;
 
 /**
  * JPA attribute converter for mapping {@link PlantSpecies} value objects
- * to {@link String} columns in the database and vice versa.
+ * to {@link Integer} keys of the {@code species} lookup table and vice versa.
  *
- * <p>This converter enables strong typing in the domain model while persisting
- * plant species as simple strings in the database.</p>
+ * <p>This converter enables strong typing in the domain model while storing each species name
+ * only once. Names are translated through the cached {@link SpeciesDictionary}, and species
+ * that don't exist yet are added to the lookup table on first use.</p>
  */
 @Converter
-public class PlantSpeciesConverter implements AttributeConverter<PlantSpecies, String> {
+public class PlantSpeciesConverter implements AttributeConverter<PlantSpecies, Integer> {
+
+    private final SpeciesDictionary dictionary;
+
+    /**
+     * Constructs a new {@code PlantSpeciesConverter}. Instances are created by Spring, through Hibernate's bean container.
+     *
+     * @param dictionary the dictionary translating species names to ids
+     */
+    public PlantSpeciesConverter(SpeciesDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
 
     /**
-     * Converts a {@link PlantSpecies} value object into a {@link String} for database storage.
+     * Converts a {@link PlantSpecies} value object into its species id for database storage.
      *
      * @param attribute the {@code PlantSpecies} object to convert
-     * @return the {@code String} representation to store in the database
+     * @return the id of the species in the lookup table
      */
     @Override
-    public String convertToDatabaseColumn(PlantSpecies attribute) {
-        return attribute.value();
+    public Integer convertToDatabaseColumn(PlantSpecies attribute) {
+        return attribute == null ? null : dictionary.resolve(attribute.value());
     }
 
     /**
-     * Converts a {@link String} from the database into a {@link PlantSpecies} value object.
+     * Converts a species id from the database into a {@link PlantSpecies} value object.
      *
-     * @param dbData the {@code String} retrieved from the database
-     * @return a new {@code PlantSpecies} object wrapping the provided string
+     * @param dbData the species id retrieved from the database
+     * @return a new {@code PlantSpecies} object wrapping the species name
      */
     @Override
-    public PlantSpecies convertToEntityAttribute(String dbData) {
-        return new PlantSpecies(dbData);
+    public PlantSpecies convertToEntityAttribute(Integer dbData) {
+        return dbData == null ? null : new PlantSpecies(dictionary.nameOf(dbData));
     }
-}
\ No newline at end of file
+}
@@ -1,12 +1,18 @@
 package com.landrycarroll.leaflog.plantmanagement.domain.entities;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.landrycarroll.leaflog.plantmanagement.domain.converters.*;
+import com.landrycarroll.leaflog.plantmanagement.domain.generators.TimeOrderedUuid;
 import com.landrycarroll.leaflog.plantmanagement.domain.valueobjects.*;
+import com.landrycarroll.leaflog.plantmanagement.serialization.PlantJson;
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.util.Date;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 /**
  * JPA entity representing a plant in the system.
@@ -14,15 +20,24 @@ import java.util.UUID;
  * <p>Encapsulates plant-specific attributes such as name, species, watering frequency, last watered date,
  * and optional notes. This entity uses value objects to enforce domain constraints and converters to
  * persist them as simple types in the database.</p>
+ *
+ * <p>Updates only write the columns that changed, so that e.g. editing the notes doesn't rewrite the
+ * other columns, and the search index is only maintained when a column it covers has changed.</p>
+ *
+ * <p>Plants are written to and read from JSON flat, by the hand-written {@link PlantJson} serializers.</p>
  */
 @Entity
+@JsonSerialize(using = PlantJson.PlantSerializer.class)
+@JsonDeserialize(using = PlantJson.PlantDeserializer.class)
+@DynamicUpdate
 public class Plant {
 
     /**
-     * Unique identifier for the plant, generated automatically.
+     * Unique identifier for the plant, generated automatically as a time-ordered {@link UUID}
+     * so that new rows are appended to the end of the primary key index.
      */
     @Id
-    @GeneratedValue
+    @TimeOrderedUuid
     private UUID id;
 
     /**
@@ -33,9 +48,10 @@ public class Plant {
     private PlantName plantName;
 
     /**
-     * Species of the plant, stored as a {@link PlantSpecies} value object.
+     * Species of the plant, stored as a {@link PlantSpecies} value object and persisted as the
+     * integer key of its entry in the {@code species} lookup table.
      */
-    @Column(name = "species")
+    @Column(name = "species_id")
     @Convert(converter = PlantSpeciesConverter.class)
     private PlantSpecies species;
 
@@ -60,6 +76,21 @@ public class Plant {
     @Convert(converter = NotesConverter.class)
     private Notes notes;
 
+    /**
+     * Date when the plant is next due for watering: {@code lastWatered + wateringFrequency} days.
+     * Derived from the other fields and persisted so that due plants can be found with an index range scan.
+     */
+    @Column(name = "next_due")
+    private Date nextDue;
+
+    /**
+     * Optimistic locking version, raised by Hibernate whenever the plant is updated.
+     * Also identifies the plant's current state in HTTP entity tags.
+     */
+    @Version
+    @Column(name = "version")
+    private int version;
+
     /**
      * Factory method to create a new {@link Plant} instance.
      *
@@ -77,6 +108,27 @@ public class Plant {
         plant.lastWatered = lastWatered;
         plant.wateringFrequency = wateringFrequency;
         plant.notes = notes;
+        plant.recalculateNextDue();
+        return plant;
+    }
+
+    /**
+     * Factory method to recreate a {@link Plant} that already has an id and a version, e.g. one read from the
+     * database without Hibernate, or a changed copy of a plant that must not be modified in place.
+     *
+     * @param id                the plant's id
+     * @param plantName         the name of the plant
+     * @param species           the species of the plant
+     * @param lastWatered       the date the plant was last watered
+     * @param wateringFrequency how often the plant should be watered
+     * @param notes             any additional notes
+     * @param version           the plant's version
+     * @return a new {@link Plant} instance
+     */
+    public static Plant existingPlant(UUID id, PlantName plantName, PlantSpecies species, LastWateredDate lastWatered, WateringFrequencyInDays wateringFrequency, Notes notes, int version) {
+        Plant plant = newPlant(plantName, species, lastWatered, wateringFrequency, notes);
+        plant.id = id;
+        plant.version = version;
         return plant;
     }
 
@@ -114,6 +166,14 @@ public class Plant {
         return notes;
     }
 
+    public Date getNextDue() {
+        return nextDue;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
     // === Setters ===
 
     public void setPlantName(PlantName plantName) {
@@ -126,16 +186,32 @@ public class Plant {
 
     public void setLastWatered(LastWateredDate lastWatered) {
         this.lastWatered = lastWatered;
+        recalculateNextDue();
     }
 
     public void setWateringFrequency(WateringFrequencyInDays wateringFrequency) {
         this.wateringFrequency = wateringFrequency;
+        recalculateNextDue();
     }
 
     public void setNotes(Notes notes) {
         this.notes = notes;
     }
 
+    /**
+     * Keeps {@code nextDue} in sync with {@code lastWatered} and {@code wateringFrequency}.
+     * It is cleared when either of them is missing.
+     */
+    private void recalculateNextDue() {
+        if (lastWatered == null || lastWatered.value() == null || wateringFrequency == null) {
+            this.nextDue = null;
+            return;
+        }
+
+        long frequencyMillis = TimeUnit.DAYS.toMillis(wateringFrequency.value());
+        this.nextDue = new Date(lastWatered.value().getTime() + frequencyMillis);
+    }
+
     // === Object Overrides ===
 
     @Override
@@ -147,6 +223,8 @@ public class Plant {
                 ", lastWatered=" + lastWatered +
                 ", wateringFrequency=" + wateringFrequency +
                 ", notes=" + notes +
+                ", nextDue=" + nextDue +
+                ", version=" + version +
                 '}';
     }
 
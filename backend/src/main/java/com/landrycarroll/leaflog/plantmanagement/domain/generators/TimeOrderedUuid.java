@@ -0,0 +1,22 @@
+package com.landrycarroll.leaflog.plantmanagement.domain.generators;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Marks a {@link java.util.UUID} identifier as generated by {@link TimeOrderedUuidGenerator}.
+ *
+ * <p>Identifiers generated this way sort by creation time, so new rows are appended to the end of the
+ * primary key B-tree instead of being scattered across it.</p>
+ */
+@IdGeneratorType(TimeOrderedUuidGenerator.class)
+@Retention(RUNTIME)
+@Target({FIELD, METHOD})
+public @interface TimeOrderedUuid {
+}
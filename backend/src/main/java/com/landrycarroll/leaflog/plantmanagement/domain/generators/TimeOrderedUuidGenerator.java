@@ -0,0 +1,82 @@
+package com.landrycarroll.leaflog.plantmanagement.domain.generators;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+
+import java.security.SecureRandom;
+import java.util.EnumSet;
+import java.util.UUID;
+
+import static org.hibernate.generator.EventTypeSets.INSERT_ONLY;
+
+/**
+ * Hibernate identifier generator producing time-ordered, version 7 style {@link UUID}s.
+ *
+ * <p>The layout follows RFC 9562: a 48-bit Unix epoch millisecond timestamp, the version and variant bits,
+ * a 12-bit counter that keeps identifiers generated within the same millisecond strictly increasing,
+ * and 62 random bits.</p>
+ *
+ * <p>Because the most significant bytes are the timestamp, identifiers stored as 16-byte blobs sort in
+ * insertion order, which keeps inserts at the right-hand edge of the primary key index.</p>
+ */
+public class TimeOrderedUuidGenerator implements BeforeExecutionGenerator {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final int MAXIMUM_COUNTER = 0xFFF;
+
+    private static long lastMillis = -1;
+    private static int counter;
+
+    /**
+     * Generates the identifier for a new entity.
+     *
+     * @param session      the current session
+     * @param owner        the entity being inserted
+     * @param currentValue the current identifier value, if any
+     * @param eventType    the event triggering generation
+     * @return a new time-ordered {@link UUID}
+     */
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue, EventType eventType) {
+        return nextUuid();
+    }
+
+    /**
+     * Identifiers are only generated when an entity is first inserted.
+     *
+     * @return the insert event type
+     */
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return INSERT_ONLY;
+    }
+
+    /**
+     * Creates a new time-ordered {@link UUID}. Successive calls always return increasing values.
+     *
+     * @return a new version 7 {@link UUID}
+     */
+    public static UUID nextUuid() {
+        long millis;
+        int sequence;
+
+        synchronized (TimeOrderedUuidGenerator.class) {
+            long now = System.currentTimeMillis();
+            if (now > lastMillis) {
+                lastMillis = now;
+                counter = 0;
+            } else if (++counter > MAXIMUM_COUNTER) {
+                // Counter exhausted within this millisecond: borrow the next one
+                lastMillis++;
+                counter = 0;
+            }
+            millis = lastMillis;
+            sequence = counter;
+        }
+
+        long mostSignificant = (millis << 16) | 0x7000L | sequence;
+        long leastSignificant = (RANDOM.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSignificant, leastSignificant);
+    }
+}
@@ -1,10 +1,20 @@
 package com.landrycarroll.leaflog.plantmanagement.dtos;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.landrycarroll.leaflog.plantmanagement.domain.entities.Plant;
 import com.landrycarroll.leaflog.plantmanagement.domain.valueobjects.*;
 import com.landrycarroll.leaflog.plantmanagement.exceptions.DomainValidationException;
+import com.landrycarroll.leaflog.plantmanagement.exceptions.PlantException;
+import com.landrycarroll.leaflog.plantmanagement.repositories.WateringLog;
+import com.landrycarroll.leaflog.plantmanagement.serialization.PlantJson;
 
+import java.time.Instant;
+import java.time.LocalDate;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * Data Transfer Object (DTO) for creating and handling {@link Plant} resources.
@@ -18,7 +28,8 @@ public class PlantDto {
      * Record representing the request body for creating or updating a plant.
      *
      * <p>This record holds raw data received from clients, which will be validated
-     * and converted into value objects before entering the domain layer.</p>
+     * and converted into value objects before entering the domain layer. It is read from JSON by
+     * {@link PlantJson.RequestDeserializer}, which takes dates as epoch milliseconds or ISO-8601 strings.</p>
      *
      * @param name                    the name of the plant
      * @param species                 the species of the plant
@@ -26,6 +37,7 @@ public class PlantDto {
      * @param wateringFrequencyInDays how often the plant should be watered (in days)
      * @param notes                   additional notes about the plant
      */
+    @JsonDeserialize(using = PlantJson.RequestDeserializer.class)
     public record Request(
             String name,
             String species,
@@ -35,6 +47,233 @@ public class PlantDto {
     ) {
     }
 
+    /**
+     * A JSON Merge Patch (RFC 7396) of a plant, holding only the members present in the patch document.
+     *
+     * <p>Jackson calls a setter only for members that appear in the document, so a member that is absent
+     * leaves its field unchanged, while a member set to {@code null} clears it. Only present values are
+     * validated, when the patch is applied.</p>
+     */
+    public static final class Patch {
+
+        private final Map<String, Object> values = new HashMap<>();
+
+        public void setName(String name) {
+            values.put("name", name);
+        }
+
+        public void setSpecies(String species) {
+            values.put("species", species);
+        }
+
+        public void setLastWatered(Date lastWatered) {
+            values.put("lastWatered", lastWatered);
+        }
+
+        public void setWateringFrequencyInDays(Integer wateringFrequencyInDays) {
+            values.put("wateringFrequencyInDays", wateringFrequencyInDays);
+        }
+
+        public void setNotes(String notes) {
+            values.put("notes", notes);
+        }
+
+        /**
+         * @return {@code true} if the patch doesn't contain any member
+         */
+        public boolean isEmpty() {
+            return values.isEmpty();
+        }
+
+        /**
+         * Checks whether applying the patch would change any field of a plant, without changing it.
+         *
+         * @param plant the plant to compare with
+         * @return {@code true} if any present value differs from the plant's
+         * @throws DomainValidationException       if a present value violates domain constraints
+         * @throws PlantException.InvalidFrequency if the watering frequency is set to {@code null}
+         */
+        public boolean changes(Plant plant) {
+            return apply(plant, false);
+        }
+
+        /**
+         * Applies the patch to a plant, setting only the fields whose value differs from the plant's,
+         * so that an unchanged plant isn't dirty and isn't written at all.
+         *
+         * <p>Every present value is validated before the plant is touched, so an invalid patch leaves the plant
+         * as it was.</p>
+         *
+         * @param plant the plant to change
+         * @return {@code true} if any field of the plant was changed
+         * @throws DomainValidationException       if a present value violates domain constraints
+         * @throws PlantException.InvalidFrequency if the watering frequency is set to {@code null}
+         */
+        public boolean applyTo(Plant plant) {
+            return apply(plant, true);
+        }
+
+        private boolean apply(Plant plant, boolean write) {
+            PlantName name = values.containsKey("name") ? new PlantName((String) values.get("name")) : null;
+            PlantSpecies species = values.containsKey("species") ? new PlantSpecies((String) values.get("species")) : null;
+            LastWateredDate lastWatered = values.containsKey("lastWatered")
+                    ? new LastWateredDate((Date) values.get("lastWatered")) : null;
+            WateringFrequencyInDays wateringFrequency = values.containsKey("wateringFrequencyInDays")
+                    ? wateringFrequency((Integer) values.get("wateringFrequencyInDays")) : null;
+            Notes notes = values.containsKey("notes") ? new Notes((String) values.get("notes")) : null;
+
+            boolean changed = false;
+            if (name != null && !name.equals(plant.getPlantName())) {
+                if (write) plant.setPlantName(name);
+                changed = true;
+            }
+            if (species != null && !species.equals(plant.getSpecies())) {
+                if (write) plant.setSpecies(species);
+                changed = true;
+            }
+            // Dates read back from the database are Timestamps, which never equal a Date, so compare the instants
+            if (lastWatered != null && !Objects.equals(epochMillis(lastWatered), epochMillis(plant.getLastWatered()))) {
+                if (write) plant.setLastWatered(lastWatered);
+                changed = true;
+            }
+            if (wateringFrequency != null && !wateringFrequency.equals(plant.getWateringFrequency())) {
+                if (write) plant.setWateringFrequency(wateringFrequency);
+                changed = true;
+            }
+            if (notes != null && !notes.equals(plant.getNotes())) {
+                if (write) plant.setNotes(notes);
+                changed = true;
+            }
+            return changed;
+        }
+
+        private static WateringFrequencyInDays wateringFrequency(Integer value) {
+            if (value == null) {
+                throw new PlantException.InvalidFrequency("null");
+            }
+            return new WateringFrequencyInDays(value);
+        }
+
+        private static Long epochMillis(LastWateredDate lastWatered) {
+            return lastWatered == null || lastWatered.value() == null ? null : lastWatered.value().getTime();
+        }
+    }
+
+    /**
+     * Record representing a single full-text search result.
+     *
+     * @param plant   the matching plant
+     * @param snippet an excerpt of the best matching field, with matched terms wrapped in {@code <mark>} tags
+     * @param rank    the BM25 score of the match; lower is better
+     */
+    public record SearchResult(
+            Plant plant,
+            String snippet,
+            double rank
+    ) {
+    }
+
+    /**
+     * Record representing the filters and sort order of a plant listing, as given in the query string.
+     * Every field is optional.
+     *
+     * @param species         the species plants must be of
+     * @param namePrefix      the prefix plant names must start with, ignoring case
+     * @param minFrequency    the lowest watering frequency in days, inclusive
+     * @param maxFrequency    the highest watering frequency in days, inclusive
+     * @param wateredFrom     the earliest last-watered time, inclusive
+     * @param wateredBefore   the latest last-watered time, exclusive
+     * @param sort            the sort key: {@code id}, {@code name}, {@code lastWatered} or {@code wateringFrequency},
+     *                        prefixed with {@code -} for descending order
+     * @param includeArchived whether to include plants that have been moved to the archive
+     */
+    public record PlantQuery(
+            String species,
+            String namePrefix,
+            Integer minFrequency,
+            Integer maxFrequency,
+            Instant wateredFrom,
+            Instant wateredBefore,
+            String sort,
+            Boolean includeArchived
+    ) {
+
+        /**
+         * A query for every active plant, in id order.
+         */
+        public static final PlantQuery ALL = new PlantQuery(null, null, null, null, null, null, null, null);
+    }
+
+    /**
+     * Record representing one page of the plant collection.
+     *
+     * @param plants     the plants of the page, in the listing's order: entities, or some of their fields
+     * @param nextCursor the cursor of the next page, or {@code null} if this is the last page
+     * @param <T>        the type the plants are read as
+     */
+    public record PlantPage<T>(
+            List<T> plants,
+            String nextCursor
+    ) {
+    }
+
+    /**
+     * Record describing how long a single chunk of a bulk import took to write.
+     *
+     * @param chunk         the 1-based position of the chunk within the import
+     * @param rows          the number of plants written in the chunk
+     * @param millis        the time spent writing the chunk, in milliseconds
+     * @param rowsPerSecond the write throughput of the chunk
+     */
+    public record ChunkReport(
+            int chunk,
+            int rows,
+            long millis,
+            double rowsPerSecond
+    ) {
+
+        /**
+         * Creates a {@code ChunkReport} from the elapsed time of a chunk write.
+         *
+         * @param chunk        the 1-based position of the chunk
+         * @param rows         the number of plants written
+         * @param elapsedNanos the elapsed write time in nanoseconds
+         * @return the resulting report
+         */
+        public static ChunkReport of(int chunk, int rows, long elapsedNanos) {
+            double seconds = Math.max(elapsedNanos, 1) / 1_000_000_000.0;
+            return new ChunkReport(chunk, rows, elapsedNanos / 1_000_000, rows / seconds);
+        }
+    }
+
+    /**
+     * Record describing how many waterings happened on each day of a range.
+     *
+     * @param from      the first day of the range, inclusive
+     * @param to        the last day of the range, inclusive
+     * @param waterings the total number of waterings in the range
+     * @param days      the days with at least one watering, in order
+     */
+    public record WateringHistory(
+            LocalDate from,
+            LocalDate to,
+            long waterings,
+            List<WateringLog.DailyCount> days
+    ) {
+
+        /**
+         * Creates a {@code WateringHistory} from the daily counts of a range.
+         *
+         * @param from the first day, inclusive
+         * @param to   the last day, inclusive
+         * @param days the daily counts
+         * @return the resulting history
+         */
+        public static WateringHistory of(LocalDate from, LocalDate to, List<WateringLog.DailyCount> days) {
+            return new WateringHistory(from, to, days.stream().mapToLong(WateringLog.DailyCount::waterings).sum(), days);
+        }
+    }
+
     /**
      * Creates a {@link Plant} domain object from a {@link Request} DTO.
      *
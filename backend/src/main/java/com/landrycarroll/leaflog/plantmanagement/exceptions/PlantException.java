@@ -14,6 +14,7 @@ public sealed class PlantException extends RuntimeException permits
         PlantException.PlantNotFound,
         PlantException.InvalidFrequency,
         PlantException.PlantAlreadyExists,
+        PlantException.VersionMismatch,
         PlantException.RepositoryError {
 
     /**
@@ -85,6 +86,21 @@ public sealed class PlantException extends RuntimeException permits
         }
     }
 
+    /**
+     * Thrown when a conditional update names a version of the plant other than its current one.
+     */
+    public static final class VersionMismatch extends PlantException {
+
+        /**
+         * Constructs a {@code VersionMismatch} exception using the plant's ID.
+         *
+         * @param id the UUID of the plant that has been changed
+         */
+        public VersionMismatch(UUID id) {
+            super("Plant with id " + id + " has been changed since the given version");
+        }
+    }
+
     /**
      * Thrown when an unexpected error occurs during repository interaction.
      */
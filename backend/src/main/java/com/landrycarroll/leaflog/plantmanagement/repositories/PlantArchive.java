@@ -0,0 +1,94 @@
+package com.landrycarroll.leaflog.plantmanagement.repositories;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.nio.ByteBuffer;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * {@code PlantArchive} moves plants between the {@code plant} table and the {@code plant_archive} cold storage table.
+ * <p>
+ * Plants that haven't been watered in a long time are moved out of {@code plant}, so the table every listing,
+ * watering and update touches only holds the active collection. Archived rows keep all their columns and can be
+ * moved back unchanged. Both moves are plain {@code INSERT ... SELECT} and {@code DELETE} statements, and must run
+ * inside a write transaction so that a plant is never in both tables, or neither, at once.
+ * </p>
+ */
+@Repository
+public class PlantArchive {
+
+    private static final String COLUMNS = "id, last_watered_date, notes, name, watering_frequency, next_due, species_id, version";
+
+    private static final String DORMANT = "SELECT id FROM plant WHERE last_watered_date < ? ORDER BY last_watered_date, id LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Constructs a new {@code PlantArchive}.
+     *
+     * @param dataSource the datasource holding both tables
+     */
+    public PlantArchive(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * Moves up to {@code limit} plants last watered before {@code cutoff} to the archive, longest dormant first.
+     *
+     * @param cutoff the date before which a plant counts as dormant
+     * @param limit  the maximum number of plants to move
+     * @return the number of plants archived
+     */
+    public int archiveDormant(Date cutoff, int limit) {
+        int archived = jdbcTemplate.update("INSERT INTO plant_archive (" + COLUMNS + ", archived_at) SELECT "
+                + COLUMNS + ", ? FROM plant WHERE id IN (" + DORMANT + ")", System.currentTimeMillis(), cutoff.getTime(), limit);
+        jdbcTemplate.update("DELETE FROM plant WHERE id IN (" + DORMANT + ")", cutoff.getTime(), limit);
+        return archived;
+    }
+
+    /**
+     * Checks whether a plant is in the archive.
+     *
+     * @param id the plant's id
+     * @return {@code true} if the plant is archived
+     */
+    public boolean contains(UUID id) {
+        return !jdbcTemplate.queryForList("SELECT 1 FROM plant_archive WHERE id = ?", Integer.class, toBytes(id)).isEmpty();
+    }
+
+    /**
+     * Moves an archived plant back into the {@code plant} table.
+     *
+     * @param id the plant's id
+     * @return {@code true} if the plant was archived and has been restored; {@code false} if it wasn't archived
+     */
+    public boolean restore(UUID id) {
+        byte[] key = toBytes(id);
+        int restored = jdbcTemplate.update("INSERT INTO plant (" + COLUMNS + ") SELECT " + COLUMNS
+                + " FROM plant_archive WHERE id = ?", key);
+        jdbcTemplate.update("DELETE FROM plant_archive WHERE id = ?", key);
+        return restored > 0;
+    }
+
+    /**
+     * Permanently removes a plant from the archive.
+     *
+     * @param id the plant's id
+     */
+    public void delete(UUID id) {
+        jdbcTemplate.update("DELETE FROM plant_archive WHERE id = ?", toBytes(id));
+    }
+
+    /**
+     * Converts a {@link UUID} into the 16-byte big-endian form its id column is stored in.
+     *
+     * @param id the id
+     * @return the id's bytes
+     */
+    private static byte[] toBytes(UUID id) {
+        return ByteBuffer.allocate(16).putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).array();
+    }
+}
@@ -0,0 +1,741 @@
+package com.landrycarroll.leaflog.plantmanagement.repositories;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.landrycarroll.leaflog.plantmanagement.domain.entities.Plant;
+import com.landrycarroll.leaflog.plantmanagement.domain.valueobjects.*;
+import com.landrycarroll.leaflog.plantmanagement.serialization.PlantBinary;
+import com.landrycarroll.leaflog.plantmanagement.serialization.PlantJson;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * {@code PlantListing} streams plant listings straight from the database into a JSON response, without loading
+ * {@link Plant} entities.
+ * <p>
+ * Rows are read with a single query on the read-only connection pool, outside any persistence context, so no
+ * entity, value object or dirty-checking snapshot is created per row, and each row is written as soon as it is
+ * read instead of the whole listing being held in memory. The JSON is byte for byte what {@link PlantJson} writes
+ * for the entities, flat with dates as epoch milliseconds, so clients can't tell the two apart.
+ * </p>
+ * <p>
+ * Pages of plants are read with keyset pagination: each page starts after the last plant of the previous one, so it is
+ * a range scan on an index and a deep page costs the same as the first. Pages can be filtered and sorted in the
+ * {@link Order}s that have an index ending with {@code id}, which breaks ties between equal keys. Plants whose sort
+ * key is {@code NULL} come before all others in ascending order and after them in descending order.
+ * </p>
+ * <p>
+ * Listings can be narrowed to some of a plant's {@link Field}s, in which case only their columns are read, e.g. a
+ * summary never reads the notes from disk. Narrowed pages are read as {@link PlantFields} rather than entities.
+ * </p>
+ * <p>
+ * Whole listings can also be streamed in the {@link PlantBinary} format, straight from the rows in the same way.
+ * </p>
+ */
+@Repository
+public class PlantListing {
+
+    private static final String COLUMNS =
+            "id, name, species_id, last_watered_date, watering_frequency, notes, next_due, version";
+
+    /**
+     * A blob sorting before every id, to start the first page from.
+     */
+    private static final byte[] FIRST_ID = new byte[0];
+
+    /**
+     * The largest code point, appended to a name prefix to bound the range of names starting with it.
+     */
+    private static final String LAST_CHARACTER = Character.toString(Character.MAX_CODE_POINT);
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final JdbcTemplate readJdbcTemplate;
+    private final SpeciesDictionary speciesDictionary;
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    /**
+     * Constructs a new {@code PlantListing}.
+     *
+     * @param readDataSource    the read-only datasource plants are listed from
+     * @param speciesDictionary the cached lookup species names are taken from
+     */
+    public PlantListing(@Qualifier("tenantReadDataSource") DataSource readDataSource,
+                        SpeciesDictionary speciesDictionary) {
+        this.readJdbcTemplate = new JdbcTemplate(readDataSource);
+        this.speciesDictionary = speciesDictionary;
+    }
+
+    /**
+     * Writes every active plant, and optionally every archived one after them, as a JSON array.
+     *
+     * @param includeArchived whether to also list the archive
+     * @param out             the stream to write to; not closed
+     * @throws IOException if writing fails
+     */
+    public void writeAll(boolean includeArchived, OutputStream out) throws IOException {
+        writeAll(includeArchived, Field.ALL, out);
+    }
+
+    /**
+     * Writes some fields of every active plant, and optionally of every archived one after them, as a JSON array.
+     * Only the columns of those fields are read.
+     *
+     * @param includeArchived whether to also list the archive
+     * @param fields          the fields to write, in {@link Field} order
+     * @param out             the stream to write to; not closed
+     * @throws IOException if writing fails
+     */
+    public void writeAll(boolean includeArchived, Set<Field> fields, OutputStream out) throws IOException {
+        List<Field> columns = List.copyOf(EnumSet.copyOf(fields));
+        String projection = columnsOf(columns);
+        String sql = "SELECT " + projection + " FROM plant";
+        if (includeArchived) {
+            sql += " UNION ALL SELECT " + projection + " FROM plant_archive";
+        }
+
+        char[] buffer = new char[36];
+        try (JsonGenerator json = jsonFactory.createGenerator(out, JsonEncoding.UTF8)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.writeStartArray();
+            readJdbcTemplate.query(sql, rs -> {
+                try {
+                    writePlant(rs, columns, json, buffer);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            json.writeEndArray();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Writes every active plant, and optionally every archived one after them, as a {@link PlantBinary} stream.
+     *
+     * @param includeArchived whether to also list the archive
+     * @param out             the stream to write to; flushed but not closed
+     * @throws IOException if writing fails
+     */
+    public void writeAllBinary(boolean includeArchived, OutputStream out) throws IOException {
+        String projection = "id, name, species_id, last_watered_date, watering_frequency, notes, version";
+        String sql = "SELECT " + projection + " FROM plant";
+        if (includeArchived) {
+            sql += " UNION ALL SELECT " + projection + " FROM plant_archive";
+        }
+
+        BufferedOutputStream buffered = new BufferedOutputStream(out, 8192);
+        PlantBinary.Encoder encoder = new PlantBinary.Encoder(buffered);
+        Map<Integer, byte[]> speciesNames = new HashMap<>();
+        try {
+            readJdbcTemplate.query(sql, rs -> {
+                int species = rs.getInt(3);
+                byte[] speciesName = rs.wasNull() ? null : speciesNames.computeIfAbsent(species,
+                        key -> speciesDictionary.nameOf(key).getBytes(StandardCharsets.UTF_8));
+                long lastWatered = rs.getLong(4);
+                Long lastWateredMillis = rs.wasNull() ? null : lastWatered;
+                int wateringFrequency = rs.getInt(5);
+                Integer frequency = rs.wasNull() ? null : wateringFrequency;
+                try {
+                    encoder.write(rs.getBytes(1), rs.getInt(7), rs.getBytes(2), speciesName, lastWateredMillis,
+                            frequency, rs.getBytes(6));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        buffered.flush();
+    }
+
+    /**
+     * Reads a page of plants in id order, starting after the given id. With {@code includeArchived}, active and
+     * archived plants are merged into a single id order; at most {@code limit} rows are read from either table.
+     *
+     * @param after           the id the page starts after, or {@code null} for the first page
+     * @param limit           the maximum number of plants to read
+     * @param includeArchived whether to also page through the archive
+     * @return the plants, in id order
+     */
+    public List<Plant> page(UUID after, int limit, boolean includeArchived) {
+        return page(after, limit, includeArchived, COLUMNS, (rs, row) -> toPlant(rs));
+    }
+
+    /**
+     * Reads some fields of a page of plants in id order, like {@link #page(UUID, int, boolean)}, reading only the
+     * columns of those fields.
+     *
+     * @param after           the id the page starts after, or {@code null} for the first page
+     * @param limit           the maximum number of plants to read
+     * @param includeArchived whether to also page through the archive
+     * @param fields          the fields to read
+     * @return the plants' fields, in id order
+     */
+    public List<PlantFields> page(UUID after, int limit, boolean includeArchived, Set<Field> fields) {
+        Projection projection = new Projection(fields, Order.ID);
+        return page(after, limit, includeArchived, projection.columns(), projection);
+    }
+
+    private <T> List<T> page(UUID after, int limit, boolean includeArchived, String columns, RowMapper<T> mapper) {
+        byte[] start = after == null ? FIRST_ID : toBytes(after);
+        if (!includeArchived) {
+            return readJdbcTemplate.query("SELECT " + columns + " FROM plant WHERE id > ? ORDER BY id LIMIT ?",
+                    mapper, start, limit);
+        }
+        return readJdbcTemplate.query("SELECT * FROM (SELECT " + columns + " FROM plant WHERE id > ? ORDER BY id LIMIT ?) "
+                        + "UNION ALL SELECT * FROM (SELECT " + columns + " FROM plant_archive WHERE id > ? ORDER BY id LIMIT ?) "
+                        + "ORDER BY id LIMIT ?",
+                mapper, start, limit, start, limit, limit);
+    }
+
+    /**
+     * Reads a page of active plants matching a filter, in the given order, starting after the given position.
+     * <p>
+     * The filter and order must be backed by a single index: a species can be combined with the {@link Order#ID}
+     * and {@link Order#NAME} orders, and a range of names, watering frequencies or last-watered dates only with the
+     * order by that column. Checking this is up to the caller.
+     * </p>
+     *
+     * @param filter     the filter plants must match
+     * @param order      the order to list plants in
+     * @param descending whether to list plants in descending order
+     * @param after      the position of the last plant of the previous page, or {@code null} for the first page
+     * @param limit      the maximum number of plants to read
+     * @return the plants, in the given order
+     */
+    public List<Plant> page(Filter filter, Order order, boolean descending, Position after, int limit) {
+        return page(filter, order, descending, after, limit, COLUMNS, (rs, row) -> toPlant(rs));
+    }
+
+    /**
+     * Reads some fields of a page of active plants, like {@link #page(Filter, Order, boolean, Position, int)},
+     * reading only the columns of those fields and of the order's sort key.
+     *
+     * @param filter     the filter plants must match
+     * @param order      the order to list plants in
+     * @param descending whether to list plants in descending order
+     * @param after      the position of the last plant of the previous page, or {@code null} for the first page
+     * @param limit      the maximum number of plants to read
+     * @param fields     the fields to read
+     * @return the plants' fields, in the given order
+     */
+    public List<PlantFields> page(Filter filter, Order order, boolean descending, Position after, int limit,
+                                  Set<Field> fields) {
+        Projection projection = new Projection(fields, order);
+        return page(filter, order, descending, after, limit, projection.columns(), projection);
+    }
+
+    private <T> List<T> page(Filter filter, Order order, boolean descending, Position after, int limit,
+                             String columns, RowMapper<T> mapper) {
+        List<String> conditions = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+        filter.appendTo(conditions, args);
+        String direction = descending ? " DESC" : "";
+
+        if (order == Order.ID) {
+            if (after != null) {
+                conditions.add(descending ? "id < ?" : "id > ?");
+                args.add(toBytes(after.id()));
+            }
+            return query(columns, mapper, conditions, args, "id" + direction, limit);
+        }
+
+        // A range filter on the sort key excludes NULL keys, which are otherwise listed in id order on their own
+        String key = order.key();
+        boolean nullKeys = !filter.restricts(order);
+        boolean afterNullKey = after != null && after.key() == null;
+        List<T> plants = new ArrayList<>();
+
+        if (!descending && nullKeys && (after == null || afterNullKey)) {
+            plants.addAll(nullKeyPage(columns, mapper, conditions, args, key, after, false, limit));
+        }
+        if (plants.size() < limit && !(descending && afterNullKey)) {
+            List<String> keyConditions = new ArrayList<>(conditions);
+            List<Object> keyArgs = new ArrayList<>(args);
+            if (after == null || afterNullKey) {
+                keyConditions.add(key + " IS NOT NULL");
+            } else {
+                // The first condition alone bounds the index range; the second skips the rows before the position
+                keyConditions.add(descending
+                        ? key + " <= ? AND (" + key + " < ? OR id < ?)"
+                        : key + " >= ? AND (" + key + " > ? OR id > ?)");
+                keyArgs.addAll(List.of(after.key(), after.key(), toBytes(after.id())));
+            }
+            plants.addAll(query(columns, mapper, keyConditions, keyArgs, key + direction + ", id" + direction,
+                    limit - plants.size()));
+        }
+        if (descending && nullKeys && plants.size() < limit) {
+            plants.addAll(nullKeyPage(columns, mapper, conditions, args, key, afterNullKey ? after : null, true,
+                    limit - plants.size()));
+        }
+        return plants;
+    }
+
+    /**
+     * Returns the position of a plant in the given order, for the next page to start after it.
+     *
+     * @param plant the plant
+     * @param order the order plants are listed in
+     * @return the plant's position
+     */
+    public static Position positionOf(Plant plant, Order order) {
+        Object value = switch (order) {
+            case ID -> null;
+            case NAME -> plant.getPlantName() == null ? null : plant.getPlantName().value();
+            case LAST_WATERED -> plant.getLastWatered() == null || plant.getLastWatered().value() == null
+                    ? null : plant.getLastWatered().value().getTime();
+            case WATERING_FREQUENCY -> plant.getWateringFrequency() == null
+                    ? null : plant.getWateringFrequency().value();
+        };
+        return new Position(plant.getId(), keyOf(value));
+    }
+
+    /**
+     * Returns a plant's sort key from the flat value of the sort order's field, as read by {@link #valueOf};
+     * {@code null} in id order.
+     */
+    private static Object keyOf(Object value) {
+        if (value instanceof String name) {
+            return collationKey(name);
+        }
+        if (value instanceof Long millis) {
+            return millis;
+        }
+        if (value instanceof Integer frequency) {
+            return (long) frequency;
+        }
+        return null;
+    }
+
+    /**
+     * Reads plants whose sort key is {@code NULL}, in id order.
+     */
+    private <T> List<T> nullKeyPage(String columns, RowMapper<T> mapper, List<String> conditions, List<Object> args,
+                                    String key, Position after, boolean descending, int limit) {
+        List<String> nullConditions = new ArrayList<>(conditions);
+        List<Object> nullArgs = new ArrayList<>(args);
+        nullConditions.add(key + " IS NULL");
+        if (after != null) {
+            nullConditions.add(descending ? "id < ?" : "id > ?");
+            nullArgs.add(toBytes(after.id()));
+        }
+        return query(columns, mapper, nullConditions, nullArgs, descending ? "id DESC" : "id", limit);
+    }
+
+    private <T> List<T> query(String columns, RowMapper<T> mapper, List<String> conditions, List<Object> args,
+                              String orderBy, int limit) {
+        String where = conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+        List<Object> queryArgs = new ArrayList<>(args);
+        queryArgs.add(limit);
+        return readJdbcTemplate.query("SELECT " + columns + " FROM plant" + where + " ORDER BY " + orderBy + " LIMIT ?",
+                mapper, queryArgs.toArray());
+    }
+
+    private static String columnsOf(Collection<Field> fields) {
+        return fields.stream().map(Field::column).collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Computes the case-insensitive collation key of a name the way SQLite's {@code lower()} does, which only folds
+     * ASCII letters, so that it compares equal to the keys in {@code idx_plant_name_key}.
+     *
+     * @param name the name
+     * @return the collation key
+     */
+    private static String collationKey(String name) {
+        char[] key = name.toCharArray();
+        for (int i = 0; i < key.length; i++) {
+            if (key[i] >= 'A' && key[i] <= 'Z') {
+                key[i] += 'a' - 'A';
+            }
+        }
+        return new String(key);
+    }
+
+    /**
+     * Maps the current row to a plant, the way the entity's converters would.
+     *
+     * @param rs the result set, positioned on a row of {@link #COLUMNS}
+     * @return the plant
+     */
+    private Plant toPlant(ResultSet rs) throws SQLException {
+        ByteBuffer id = ByteBuffer.wrap(rs.getBytes(1));
+        int species = rs.getInt(3);
+        PlantSpecies plantSpecies = rs.wasNull() ? null : new PlantSpecies(speciesDictionary.nameOf(species));
+        long lastWatered = rs.getLong(4);
+        Date lastWateredDate = rs.wasNull() ? null : new Date(lastWatered);
+        int wateringFrequency = rs.getInt(5);
+        WateringFrequencyInDays frequency = rs.wasNull() ? null : new WateringFrequencyInDays(wateringFrequency);
+
+        return Plant.existingPlant(
+                new UUID(id.getLong(), id.getLong()),
+                new PlantName(rs.getString(2)),
+                plantSpecies,
+                new LastWateredDate(lastWateredDate),
+                frequency,
+                new Notes(rs.getString(6)),
+                rs.getInt(8));
+    }
+
+    /**
+     * Reads a column as the flat value {@link PlantJson} writes for a field: a {@link UUID}, a {@link String}, an
+     * {@link Integer}, or epoch milliseconds as a {@link Long} for dates.
+     *
+     * @param field  the field
+     * @param rs     the result set, positioned on a row
+     * @param column the field's column
+     * @return the field's value, or {@code null}
+     */
+    private Object valueOf(Field field, ResultSet rs, int column) throws SQLException {
+        return switch (field) {
+            case ID -> {
+                ByteBuffer id = ByteBuffer.wrap(rs.getBytes(column));
+                yield new UUID(id.getLong(), id.getLong());
+            }
+            case PLANT_NAME, NOTES -> rs.getString(column);
+            case SPECIES -> {
+                int species = rs.getInt(column);
+                yield rs.wasNull() ? null : speciesDictionary.nameOf(species);
+            }
+            case LAST_WATERED, NEXT_DUE -> {
+                long millis = rs.getLong(column);
+                yield rs.wasNull() ? null : millis;
+            }
+            case WATERING_FREQUENCY -> {
+                int wateringFrequency = rs.getInt(column);
+                yield rs.wasNull() ? null : wateringFrequency;
+            }
+            case VERSION -> rs.getInt(column);
+        };
+    }
+
+    /**
+     * Writes the current row as a plant object. Text columns are copied as UTF-8 bytes, and ids are formatted into a
+     * reused buffer, so next to nothing is allocated per row.
+     *
+     * @param rs     the result set, positioned on a row
+     * @param fields the fields to write, one per column
+     * @param json   the generator to write to
+     * @param buffer a scratch buffer of at least 36 characters
+     */
+    private void writePlant(ResultSet rs, List<Field> fields, JsonGenerator json, char[] buffer)
+            throws SQLException, IOException {
+        json.writeStartObject();
+        for (int i = 0; i < fields.size(); i++) {
+            writeField(rs, i + 1, fields.get(i), json, buffer);
+        }
+        json.writeEndObject();
+    }
+
+    /**
+     * Writes a column as a field of the plant object, the way {@link PlantJson.PlantSerializer} writes it.
+     */
+    private void writeField(ResultSet rs, int column, Field field, JsonGenerator json, char[] buffer)
+            throws SQLException, IOException {
+        json.writeFieldName(field.name);
+        switch (field) {
+            case ID -> json.writeString(buffer, 0, formatUuid(rs.getBytes(column), buffer));
+            case PLANT_NAME, NOTES -> {
+                byte[] utf8 = rs.getBytes(column);
+                if (utf8 == null) {
+                    json.writeNull();
+                } else {
+                    json.writeUTF8String(utf8, 0, utf8.length);
+                }
+            }
+            case SPECIES -> {
+                int species = rs.getInt(column);
+                json.writeString(rs.wasNull() ? null : speciesDictionary.nameOf(species));
+            }
+            case LAST_WATERED, NEXT_DUE -> {
+                long millis = rs.getLong(column);
+                if (rs.wasNull()) {
+                    json.writeNull();
+                } else {
+                    json.writeNumber(millis);
+                }
+            }
+            case WATERING_FREQUENCY -> {
+                int wateringFrequency = rs.getInt(column);
+                if (rs.wasNull()) {
+                    json.writeNull();
+                } else {
+                    json.writeNumber(wateringFrequency);
+                }
+            }
+            case VERSION -> json.writeNumber(rs.getInt(column));
+        }
+    }
+
+    /**
+     * Formats a 16-byte big-endian id blob the way {@link java.util.UUID#toString()} does, without creating the
+     * {@code UUID}.
+     *
+     * @param id     the id's bytes
+     * @param buffer a scratch buffer of at least 36 characters
+     * @return the number of characters written
+     */
+    private static int formatUuid(byte[] id, char[] buffer) {
+        int position = 0;
+        for (int i = 0; i < 16; i++) {
+            if (i == 4 || i == 6 || i == 8 || i == 10) {
+                buffer[position++] = '-';
+            }
+            buffer[position++] = HEX_DIGITS[(id[i] >> 4) & 0xf];
+            buffer[position++] = HEX_DIGITS[id[i] & 0xf];
+        }
+        return position;
+    }
+
+    /**
+     * Converts a {@link UUID} into the 16-byte big-endian form its id column is stored in.
+     *
+     * @param id the id
+     * @return the id's bytes
+     */
+    private static byte[] toBytes(UUID id) {
+        return ByteBuffer.allocate(16).putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).array();
+    }
+
+    /**
+     * The orders plants can be listed in, each backed by an index that ends with {@code id}.
+     */
+    public enum Order {
+
+        /**
+         * By id, i.e. by creation time.
+         */
+        ID(null, Field.ID),
+
+        /**
+         * By name, ignoring the case of ASCII letters.
+         */
+        NAME("lower(name)", Field.PLANT_NAME),
+
+        /**
+         * By last-watered date.
+         */
+        LAST_WATERED("last_watered_date", Field.LAST_WATERED),
+
+        /**
+         * By watering frequency.
+         */
+        WATERING_FREQUENCY("watering_frequency", Field.WATERING_FREQUENCY);
+
+        private final String key;
+        private final Field field;
+
+        Order(String key, Field field) {
+            this.key = key;
+            this.field = field;
+        }
+
+        /**
+         * @return the SQL expression plants are sorted by before their id, as spelled in the index
+         */
+        String key() {
+            return key;
+        }
+
+        /**
+         * @return the field the sort key is computed from
+         */
+        Field field() {
+            return field;
+        }
+    }
+
+    /**
+     * The fields of a plant a listing can be narrowed to, each read from a single column. Fields are always listed
+     * in this order, which is the order {@link PlantJson} writes them in.
+     */
+    public enum Field {
+
+        ID(PlantJson.ID, "id"),
+        PLANT_NAME(PlantJson.PLANT_NAME, "name"),
+        SPECIES(PlantJson.SPECIES, "species_id"),
+        LAST_WATERED(PlantJson.LAST_WATERED, "last_watered_date"),
+        WATERING_FREQUENCY(PlantJson.WATERING_FREQUENCY, "watering_frequency"),
+        NOTES(PlantJson.NOTES, "notes"),
+        NEXT_DUE(PlantJson.NEXT_DUE, "next_due"),
+        VERSION(PlantJson.VERSION, "version");
+
+        /**
+         * Every field, as in the serialized entity.
+         */
+        public static final Set<Field> ALL = Collections.unmodifiableSet(EnumSet.allOf(Field.class));
+
+        /**
+         * The fields a list view needs: which plant it is and when it is next due for watering.
+         */
+        public static final Set<Field> SUMMARY =
+                Collections.unmodifiableSet(EnumSet.of(ID, PLANT_NAME, SPECIES, NEXT_DUE));
+
+        private final SerializedString name;
+        private final String column;
+
+        Field(SerializedString name, String column) {
+            this.name = name;
+            this.column = column;
+        }
+
+        /**
+         * @return the field's name in the serialized entity
+         */
+        public String property() {
+            return name.getValue();
+        }
+
+        /**
+         * @return the column the field is read from
+         */
+        String column() {
+            return column;
+        }
+    }
+
+    /**
+     * The filters a listing can apply; {@code null} fields don't filter.
+     *
+     * @param speciesId     the key of the species plants must be of
+     * @param namePrefix    the prefix names must start with, ignoring the case of ASCII letters
+     * @param minFrequency  the lowest watering frequency, inclusive
+     * @param maxFrequency  the highest watering frequency, inclusive
+     * @param wateredFrom   the earliest last-watered date, inclusive
+     * @param wateredBefore the latest last-watered date, exclusive
+     */
+    public record Filter(Integer speciesId, String namePrefix, Integer minFrequency, Integer maxFrequency,
+                         Date wateredFrom, Date wateredBefore) {
+
+        /**
+         * A filter letting every plant through.
+         */
+        public static final Filter NONE = new Filter(null, null, null, null, null, null);
+
+        /**
+         * Returns whether this filter restricts the sort key of an order to a range, which excludes {@code NULL} keys.
+         *
+         * @param order the order
+         * @return {@code true} if this filter has a range on the order's sort key
+         */
+        public boolean restricts(Order order) {
+            return switch (order) {
+                case ID -> false;
+                case NAME -> namePrefix != null;
+                case LAST_WATERED -> wateredFrom != null || wateredBefore != null;
+                case WATERING_FREQUENCY -> minFrequency != null || maxFrequency != null;
+            };
+        }
+
+        private void appendTo(List<String> conditions, List<Object> args) {
+            if (speciesId != null) {
+                conditions.add("species_id = ?");
+                args.add(speciesId);
+            }
+            if (namePrefix != null) {
+                String key = collationKey(namePrefix);
+                conditions.add("lower(name) >= ? AND lower(name) < ?");
+                args.addAll(List.of(key, key + LAST_CHARACTER));
+            }
+            if (minFrequency != null) {
+                conditions.add("watering_frequency >= ?");
+                args.add(minFrequency);
+            }
+            if (maxFrequency != null) {
+                conditions.add("watering_frequency <= ?");
+                args.add(maxFrequency);
+            }
+            if (wateredFrom != null) {
+                conditions.add("last_watered_date >= ?");
+                args.add(wateredFrom.getTime());
+            }
+            if (wateredBefore != null) {
+                conditions.add("last_watered_date < ?");
+                args.add(wateredBefore.getTime());
+            }
+        }
+    }
+
+    /**
+     * The position of a plant in a listing, which the next page starts after.
+     *
+     * @param id  the plant's id
+     * @param key the plant's sort key: a {@link String} for {@link Order#NAME}, a {@link Long} for the other keyed
+     *            orders, and {@code null} for {@link Order#ID} or if the plant's key is {@code NULL}
+     */
+    public record Position(UUID id, Object key) {
+    }
+
+    /**
+     * Some fields of a plant, read without loading the plant.
+     *
+     * @param position the plant's position in the listing it was read in
+     * @param fields   the fields' values keyed by {@link Field#property()}, in {@link Field} order; each value is
+     *                 the flat value {@link PlantJson} writes, with dates as epoch milliseconds, so the map
+     *                 serializes like the entity narrowed to the fields
+     */
+    public record PlantFields(Position position, Map<String, Object> fields) {
+    }
+
+    /**
+     * Reads the columns of some fields into {@link PlantFields}, along with the id and sort key that a plant's
+     * position needs whether they are among the fields or not.
+     */
+    private final class Projection implements RowMapper<PlantFields> {
+
+        private final Set<Field> fields;
+        private final Order order;
+        private final List<Field> columns;
+
+        Projection(Set<Field> fields, Order order) {
+            this.fields = fields;
+            this.order = order;
+            Set<Field> columns = EnumSet.of(Field.ID, order.field());
+            columns.addAll(fields);
+            this.columns = List.copyOf(columns);
+        }
+
+        String columns() {
+            return columnsOf(columns);
+        }
+
+        @Override
+        public PlantFields mapRow(ResultSet rs, int row) throws SQLException {
+            Map<String, Object> values = new LinkedHashMap<>();
+            UUID id = null;
+            Object key = null;
+            for (int i = 0; i < columns.size(); i++) {
+                Field field = columns.get(i);
+                Object value = valueOf(field, rs, i + 1);
+                if (field == Field.ID) {
+                    id = (UUID) value;
+                }
+                if (field == order.field()) {
+                    key = keyOf(value);
+                }
+                if (fields.contains(field)) {
+                    values.put(field.property(), value);
+                }
+            }
+            return new PlantFields(new Position(id, key), values);
+        }
+    }
+}
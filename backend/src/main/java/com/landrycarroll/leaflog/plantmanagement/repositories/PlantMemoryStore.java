@@ -0,0 +1,569 @@
+package com.landrycarroll.leaflog.plantmanagement.repositories;
+
+import com.landrycarroll.leaflog.infrastructure.DatabaseRestoredEvent;
+import com.landrycarroll.leaflog.infrastructure.SqliteWriteQueue;
+import com.landrycarroll.leaflog.infrastructure.TenantClosedEvent;
+import com.landrycarroll.leaflog.infrastructure.TenantContext;
+import com.landrycarroll.leaflog.plantmanagement.domain.entities.Plant;
+import com.landrycarroll.leaflog.plantmanagement.domain.valueobjects.*;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.nio.ByteBuffer;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * {@code PlantMemoryStore} keeps every active plant in memory and writes changes to SQLite behind the requests that
+ * made them. It is only created when {@code leaflog.memory-store.enabled} is set, for read-heavy deployments.
+ * <p>
+ * A tenant's plants are loaded with a single scan of the {@code plant} table when the tenant is first used, or at
+ * startup for the default tenant. From then on, plants are looked up in a {@link ConcurrentHashMap}, whose reads
+ * never lock. Plants in the map are never changed in place: a write replaces a plant with a changed copy that has
+ * the next version, so a reader always sees a complete plant. Plants that aren't in memory, such as archived ones,
+ * are read from the database on the writer thread, restoring them from the archive if needed, and kept from then on.
+ * </p>
+ * <p>
+ * A write only marks the plant as dirty and queues a write-behind on the {@link SqliteWriteQueue}, which writes the
+ * plant's state at that moment, so several changes to one plant before the writer gets to it are written once.
+ * A plant stays dirty until a write of its latest state has committed: a change made while the plant is being
+ * written is written again afterwards, and a write-behind that fails is queued again after
+ * {@value #RETRY_DELAY_MILLIS} ms, for as long as it keeps failing.
+ * At most {@code leaflog.memory-store.max-pending-writes} plants can be waiting; a write made while that many
+ * are waiting blocks until one has been committed, so the database never falls further behind than that.
+ * Pending writes are flushed before the application shuts down.
+ * </p>
+ * <p>
+ * A tenant's plants are only dropped from memory, when its database is closed, once none of them is dirty, and a
+ * tenant's snapshot is only loaded after the writes queued before have been committed, so a snapshot is never older
+ * than the writes still to come.
+ * </p>
+ * <p>
+ * <strong>Durability window:</strong> a write is acknowledged before it is committed, usually a few milliseconds
+ * earlier. If the process dies, writes that were still pending, at most {@code max-pending-writes} plants and
+ * waterings, are lost. Everything that isn't read through this store, such as listings, search and watering
+ * history, is read from the database and may lag behind by the same window.
+ * </p>
+ */
+@Repository
+@ConditionalOnProperty(name = "leaflog.memory-store.enabled", havingValue = "true")
+public class PlantMemoryStore {
+
+    private static final Logger log = LoggerFactory.getLogger(PlantMemoryStore.class);
+
+    private static final String COLUMNS =
+            "id, name, species_id, last_watered_date, watering_frequency, notes, next_due, version";
+
+    private static final long FLUSH_TIMEOUT_SECONDS = 10;
+
+    private static final long RETRY_DELAY_MILLIS = 1_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate readJdbcTemplate;
+    private final SpeciesDictionary speciesDictionary;
+    private final PlantArchive archive;
+    private final WateringLog wateringLog;
+    private final SqliteWriteQueue writeQueue;
+    private final int maxPendingWrites;
+    private final Semaphore pendingWrites;
+    private final Map<String, TenantPlants> tenants = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new {@code PlantMemoryStore}.
+     *
+     * @param dataSource        the datasource plants are written to
+     * @param readDataSource    the read-only datasource plants are loaded from
+     * @param speciesDictionary the lookup species are resolved with
+     * @param archive           the archive plants that aren't in memory are restored from
+     * @param wateringLog       the log waterings are appended to
+     * @param writeQueue        the single-writer queue every write-behind is committed through
+     * @param maxPendingWrites  the maximum number of writes waiting to be committed
+     */
+    public PlantMemoryStore(DataSource dataSource,
+                            @Qualifier("tenantReadDataSource") DataSource readDataSource,
+                            SpeciesDictionary speciesDictionary,
+                            PlantArchive archive,
+                            WateringLog wateringLog,
+                            SqliteWriteQueue writeQueue,
+                            @Value("${leaflog.memory-store.max-pending-writes:1024}") int maxPendingWrites) {
+        if (maxPendingWrites <= 0) {
+            throw new IllegalArgumentException("Maximum number of pending writes must be greater than 0");
+        }
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.readJdbcTemplate = new JdbcTemplate(readDataSource);
+        this.speciesDictionary = speciesDictionary;
+        this.archive = archive;
+        this.wateringLog = wateringLog;
+        this.writeQueue = writeQueue;
+        this.maxPendingWrites = maxPendingWrites;
+        this.pendingWrites = new Semaphore(maxPendingWrites);
+    }
+
+    /**
+     * Loads the default tenant's plants as soon as the application is ready, so the first request doesn't wait.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadDefaultTenant() {
+        TenantContext.runAs(TenantContext.DEFAULT_TENANT, this::plants);
+    }
+
+    /**
+     * Finds an active plant. Plants in memory are returned without any locking or database access.
+     * Any other plant is read from the database, restoring it from the archive if that's where it is.
+     *
+     * @param id the plant's id
+     * @return the plant, or empty if it is neither active nor archived
+     */
+    public Optional<Plant> findById(UUID id) {
+        TenantPlants plants = plants();
+        Plant plant = plants.byId().get(id);
+        return plant != null ? Optional.of(plant) : load(plants, id);
+    }
+
+    /**
+     * Adds a new plant, which must already have its id.
+     *
+     * @param plant the plant
+     * @return the plant
+     */
+    public Plant insert(Plant plant) {
+        TenantPlants plants = plants();
+        plants.byId().put(plant.getId(), plant);
+        writeBehind(plants, plant.getId());
+        return plant;
+    }
+
+    /**
+     * Keeps plants that have already been written to the database, e.g. by a bulk import.
+     *
+     * @param saved the saved plants
+     */
+    public void putAll(Collection<Plant> saved) {
+        TenantPlants plants = plants();
+        saved.forEach(plant -> plants.byId().put(plant.getId(), plant));
+    }
+
+    /**
+     * Replaces a plant with a changed copy. The change is applied atomically with respect to other changes of the
+     * same plant, and is only written if it returns a different plant.
+     *
+     * @param id     the plant's id
+     * @param change a function returning the changed copy of the current plant, or the current plant itself to
+     *               leave it as it is; it may throw to reject the change
+     * @return the plant after the change, or empty if it is neither active nor archived
+     */
+    public Optional<Plant> update(UUID id, UnaryOperator<Plant> change) {
+        TenantPlants plants = plants();
+        if (findById(id).isEmpty()) {
+            return Optional.empty();
+        }
+
+        Plant[] previous = new Plant[1];
+        Plant changed = plants.byId().computeIfPresent(id, (key, current) -> {
+            previous[0] = current;
+            return change.apply(current);
+        });
+        if (changed == null) {
+            return Optional.empty();
+        }
+
+        if (changed != previous[0]) {
+            writeBehind(plants, id);
+        }
+        return Optional.of(changed);
+    }
+
+    /**
+     * Removes a plant, whether it is active or archived.
+     *
+     * @param id the plant's id
+     */
+    public void delete(UUID id) {
+        TenantPlants plants = plants();
+        plants.byId().remove(id);
+        writeBehind(plants, id);
+    }
+
+    /**
+     * Logs a watering behind the request, like plant changes.
+     *
+     * @param id        the plant's id
+     * @param wateredAt the time of watering
+     */
+    public void appendWatering(UUID id, Date wateredAt) {
+        submit(() -> {
+            wateringLog.append(id, wateredAt);
+            return null;
+        }, result -> true);
+    }
+
+    /**
+     * Forgets the plants that the archiver has just moved to the archive: those last watered before the cutoff,
+     * unless they have been changed since. A plant that is forgotten while it is still active is simply read from the
+     * database again on its next use.
+     *
+     * @param cutoff the date before which the archiver counted plants as dormant
+     * @return the number of plants forgotten
+     */
+    public int evictDormant(Date cutoff) {
+        TenantPlants plants = tenants.get(TenantContext.current());
+        if (plants == null) {
+            return 0;
+        }
+
+        int size = plants.byId().size();
+        plants.byId().values().removeIf(plant -> plant.getLastWatered() != null
+                && plant.getLastWatered().value() != null
+                && plant.getLastWatered().value().before(cutoff)
+                && !plants.dirty().containsKey(plant.getId()));
+        return size - plants.byId().size();
+    }
+
+    /**
+     * Waits until every write queued so far has been committed.
+     *
+     * @return {@code true} if every write was committed in time
+     */
+    @PreDestroy
+    public boolean flush() {
+        try {
+            if (!pendingWrites.tryAcquire(maxPendingWrites, FLUSH_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("{} plant writes were still pending after {} s", maxPendingWrites - pendingWrites.availablePermits(),
+                        FLUSH_TIMEOUT_SECONDS);
+                return false;
+            }
+            pendingWrites.release(maxPendingWrites);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Drops the plants held for a tenant once its database has been restored from a backup, and discards its
+     * pending writes. Runs on the writer thread, so no pending write can run in between.
+     *
+     * @param event the event naming the tenant
+     */
+    @EventListener
+    public void databaseRestored(DatabaseRestoredEvent event) {
+        TenantPlants discarded = tenants.remove(event.getTenant());
+        if (discarded != null) {
+            discarded.dirty().clear();
+        }
+    }
+
+    /**
+     * Drops the plants held for a tenant whose database has been closed, once their pending writes have been
+     * committed. Until then they are kept, and still served if the tenant is used again in the meantime.
+     *
+     * @param event the event naming the tenant
+     */
+    @EventListener
+    public void tenantClosed(TenantClosedEvent event) {
+        TenantPlants plants = tenants.get(event.getTenant());
+        if (plants != null) {
+            plants.closed().set(true);
+            dropIfClosed(plants);
+        }
+    }
+
+    /**
+     * Returns the plants of the current tenant, loading them on first use.
+     * <p>
+     * Before a snapshot is loaded, the writes queued so far are waited for, since some may be writes of plants that
+     * were dropped from memory only just now.
+     * </p>
+     *
+     * @return the current tenant's plants
+     */
+    private TenantPlants plants() {
+        String tenant = TenantContext.current();
+        TenantPlants plants = tenants.get(tenant);
+        if (plants != null) {
+            return plants;
+        }
+
+        writeQueue.execute(() -> null);
+        return tenants.computeIfAbsent(tenant, this::loadSnapshot);
+    }
+
+    /**
+     * Drops a tenant's plants from memory if its database has been closed and none of them is dirty any more.
+     *
+     * @param plants the tenant's plants
+     */
+    private void dropIfClosed(TenantPlants plants) {
+        if (plants.closed().get() && plants.dirty().isEmpty()) {
+            tenants.remove(plants.tenant(), plants);
+        }
+    }
+
+    /**
+     * Loads every active plant of a tenant with a single scan.
+     *
+     * @param tenant the tenant, which is also the current one
+     * @return the tenant's plants
+     */
+    private TenantPlants loadSnapshot(String tenant) {
+        long start = System.nanoTime();
+        Map<UUID, Plant> byId = new ConcurrentHashMap<>();
+        readJdbcTemplate.query("SELECT " + COLUMNS + " FROM plant", rs -> {
+            Plant plant = toPlant(rs);
+            byId.put(plant.getId(), plant);
+        });
+
+        log.info("Loaded {} plants of tenant {} into memory in {} ms", byId.size(), tenant,
+                (System.nanoTime() - start) / 1_000_000);
+        return new TenantPlants(tenant, byId, new ConcurrentHashMap<>(), new AtomicBoolean());
+    }
+
+    /**
+     * Reads a plant that isn't in memory from the database and keeps it.
+     * <p>
+     * Unless a write of the plant is pending, a plant that is in neither table is reported missing straight from
+     * the read pool. Otherwise the plant is read on the writer thread, after every write queued before, restoring
+     * it from the archive if that's where it is.
+     * </p>
+     *
+     * @param plants the tenant's plants
+     * @param id     the plant's id
+     * @return the plant, or empty if it is neither active nor archived
+     */
+    private Optional<Plant> load(TenantPlants plants, UUID id) {
+        byte[] key = toBytes(id);
+        if (!plants.dirty().containsKey(id) && readJdbcTemplate.queryForList(
+                "SELECT 1 FROM plant WHERE id = ? UNION ALL SELECT 1 FROM plant_archive WHERE id = ?",
+                Integer.class, key, key).isEmpty()) {
+            return Optional.empty();
+        }
+
+        return writeQueue.execute(() -> {
+            Optional<Plant> row = readRow(key);
+            if (row.isEmpty() && archive.restore(id)) {
+                row = readRow(key);
+            }
+            return row.map(plant -> {
+                Plant kept = plants.byId().putIfAbsent(id, plant);
+                return kept != null ? kept : plant;
+            });
+        });
+    }
+
+    /**
+     * Reads a plant from the {@code plant} table on the writer's connection.
+     *
+     * @param key the plant's id bytes
+     * @return the plant, or empty if it isn't active
+     */
+    private Optional<Plant> readRow(byte[] key) {
+        List<Plant> found = jdbcTemplate.query("SELECT " + COLUMNS + " FROM plant WHERE id = ?",
+                (rs, row) -> toPlant(rs), (Object) key);
+        return found.stream().findFirst();
+    }
+
+    /**
+     * Marks a plant as dirty and, unless a write of it is already pending, queues one.
+     *
+     * @param plants the tenant's plants
+     * @param id     the plant's id
+     */
+    private void writeBehind(TenantPlants plants, UUID id) {
+        if (plants.dirty().merge(id, 1L, Long::sum) == 1L) {
+            submit(() -> write(plants, id), changes -> written(plants, id, changes));
+        }
+    }
+
+    /**
+     * Queues a write on the write queue, waiting first while the maximum number of writes is pending.
+     *
+     * @param write the write
+     * @param done  called on the writer thread once the write has committed; returns whether the write is done, or
+     *              has to be queued again
+     * @param <T>   the result type of the write
+     */
+    private <T> void submit(Supplier<T> write, Predicate<T> done) {
+        pendingWrites.acquireUninterruptibly();
+        try {
+            queue(TenantContext.current(), write, done);
+        } catch (RuntimeException e) {
+            pendingWrites.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Queues a write that holds one of the pending write permits, and keeps it queued until it is done. A write that
+     * fails is queued again after {@value #RETRY_DELAY_MILLIS} ms. The permit is released once the write is done, or
+     * if the write queue has been shut down.
+     *
+     * @param tenant the tenant the write runs as
+     * @param write  the write
+     * @param done   called once the write has committed; returns whether the write is done
+     * @param <T>    the result type of the write
+     */
+    private <T> void queue(String tenant, Supplier<T> write, Predicate<T> done) {
+        TenantContext.callAs(tenant, () -> writeQueue.submit(write)).whenComplete((result, error) -> {
+            if (error == null) {
+                if (done.test(result)) {
+                    pendingWrites.release();
+                } else {
+                    requeue(tenant, write, done);
+                }
+                return;
+            }
+
+            log.error("Write-behind of tenant {} failed, retrying in {} ms", tenant, RETRY_DELAY_MILLIS, error);
+            CompletableFuture.delayedExecutor(RETRY_DELAY_MILLIS, TimeUnit.MILLISECONDS)
+                    .execute(() -> requeue(tenant, write, done));
+        });
+    }
+
+    /**
+     * Queues a write again, or gives up its permit if the write queue has been shut down.
+     *
+     * @param tenant the tenant the write runs as
+     * @param write  the write
+     * @param done   called once the write has committed; returns whether the write is done
+     * @param <T>    the result type of the write
+     */
+    private <T> void requeue(String tenant, Supplier<T> write, Predicate<T> done) {
+        try {
+            queue(tenant, write, done);
+        } catch (RuntimeException e) {
+            pendingWrites.release();
+            log.error("Write-behind of tenant {} was dropped", tenant, e);
+        }
+    }
+
+    /**
+     * Writes the current state of a dirty plant: inserts or overwrites its row, or deletes it if the plant has been
+     * removed. Runs on the writer thread. The plant stays dirty until the write has committed; the number of changes
+     * it has had is returned, so that {@link #written} can tell whether it was changed again in the meantime.
+     * <p>
+     * The plant is also removed from the archive, in case the archiver moved it before the write caught up; a change
+     * to an archived plant restores it, as it would have without this store.
+     * </p>
+     *
+     * @param plants the tenant's plants
+     * @param id     the plant's id
+     * @return the number of changes written, or {@code null} if the plant isn't dirty any more
+     */
+    private Long write(TenantPlants plants, UUID id) {
+        Long changes = plants.dirty().get(id);
+        if (changes == null) {
+            return null;
+        }
+
+        byte[] key = toBytes(id);
+        Plant plant = plants.byId().get(id);
+        if (plant == null) {
+            jdbcTemplate.update("DELETE FROM plant WHERE id = ?", (Object) key);
+        } else {
+            jdbcTemplate.update("INSERT INTO plant (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?) "
+                            + "ON CONFLICT (id) DO UPDATE SET name = excluded.name, species_id = excluded.species_id, "
+                            + "last_watered_date = excluded.last_watered_date, watering_frequency = excluded.watering_frequency, "
+                            + "notes = excluded.notes, next_due = excluded.next_due, version = excluded.version",
+                    key,
+                    plant.getPlantName().value(),
+                    plant.getSpecies() == null ? null : speciesDictionary.resolve(plant.getSpecies().value()),
+                    millis(plant.getLastWatered() == null ? null : plant.getLastWatered().value()),
+                    plant.getWateringFrequency() == null ? null : plant.getWateringFrequency().value(),
+                    plant.getNotes() == null ? null : plant.getNotes().value(),
+                    millis(plant.getNextDue()),
+                    plant.getVersion());
+        }
+        archive.delete(id);
+        return changes;
+    }
+
+    /**
+     * Marks a plant clean once a write of it has committed, unless it was changed again after its state was read.
+     *
+     * @param plants  the tenant's plants
+     * @param id      the plant's id
+     * @param changes the number of changes the committed write covered, or {@code null} if nothing was written
+     * @return {@code true} if the plant is clean, or {@code false} if it has to be written again
+     */
+    private boolean written(TenantPlants plants, UUID id, Long changes) {
+        if (changes != null && !plants.dirty().remove(id, changes) && plants.dirty().containsKey(id)) {
+            return false;
+        }
+        dropIfClosed(plants);
+        return true;
+    }
+
+    /**
+     * Maps the current row to a plant, the way the entity's converters would.
+     *
+     * @param rs the result set, positioned on a row of {@link #COLUMNS}
+     * @return the plant
+     */
+    private Plant toPlant(ResultSet rs) throws SQLException {
+        ByteBuffer id = ByteBuffer.wrap(rs.getBytes(1));
+        int species = rs.getInt(3);
+        PlantSpecies plantSpecies = rs.wasNull() ? null : new PlantSpecies(speciesDictionary.nameOf(species));
+        long lastWatered = rs.getLong(4);
+        Date lastWateredDate = rs.wasNull() ? null : new Date(lastWatered);
+        int wateringFrequency = rs.getInt(5);
+        WateringFrequencyInDays frequency = rs.wasNull() ? null : new WateringFrequencyInDays(wateringFrequency);
+
+        return Plant.existingPlant(
+                new UUID(id.getLong(), id.getLong()),
+                new PlantName(rs.getString(2)),
+                plantSpecies,
+                new LastWateredDate(lastWateredDate),
+                frequency,
+                new Notes(rs.getString(6)),
+                rs.getInt(8));
+    }
+
+    private static Long millis(Date date) {
+        return date == null ? null : date.getTime();
+    }
+
+    /**
+     * Converts a {@link UUID} into the 16-byte big-endian form its id column is stored in.
+     *
+     * @param id the id
+     * @return the id's bytes
+     */
+    private static byte[] toBytes(UUID id) {
+        return ByteBuffer.allocate(16).putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).array();
+    }
+
+    /**
+     * The plants of one tenant.
+     *
+     * @param tenant the tenant id
+     * @param byId   the tenant's plants in memory, by id
+     * @param dirty  the number of changes of each plant with a pending write, by id
+     * @param closed whether the tenant's database has been closed, so its plants are dropped once none is dirty
+     */
+    private record TenantPlants(String tenant, Map<UUID, Plant> byId, Map<UUID, Long> dirty, AtomicBoolean closed) {
+    }
+}
@@ -1,9 +1,17 @@
 package com.landrycarroll.leaflog.plantmanagement.repositories;
 
 import com.landrycarroll.leaflog.plantmanagement.domain.entities.Plant;
+import com.landrycarroll.leaflog.plantmanagement.domain.valueobjects.PlantSpecies;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Date;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -16,4 +24,162 @@ import java.util.UUID;
  */
 @Repository
 public interface PlantRepository extends JpaRepository<Plant, UUID> {
+
+    /**
+     * Finds plants due for watering before the given date, most overdue first.
+     *
+     * <p>Backed by the index on {@code (next_due, id)}, so this is a range scan rather than a full table scan.
+     * Plants due at the same time are ordered by id, so that consecutive pages neither repeat nor skip any of them.
+     * A {@link Slice} is returned rather than a page so that no {@code count} over every due plant is needed.</p>
+     *
+     * @param before   the exclusive upper bound for the next due date
+     * @param pageable the page to return
+     * @return a slice of due plants ordered by next due date, then id
+     */
+    @Query("select p from Plant p where p.nextDue < :before order by p.nextDue, p.id")
+    Slice<Plant> findDueBefore(@Param("before") Date before, Pageable pageable);
+
+    /**
+     * Marks an active plant as watered in a single statement, without loading it.
+     *
+     * <p>The next due date is derived from the row's own watering frequency and the version is raised in the
+     * same statement, so concurrent waterings can't overwrite each other and each one raises the version.
+     * Pending changes are flushed first and the persistence context is cleared afterwards, so no stale copy of
+     * the plant outlives the update.</p>
+     *
+     * @param id        the plant's id
+     * @param wateredAt the time of watering, in epoch milliseconds
+     * @return the number of updated rows; {@code 0} if the plant isn't in the active table
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = """
+            UPDATE plant
+            SET last_watered_date = :wateredAt,
+                next_due = :wateredAt + watering_frequency * 86400000,
+                version = version + 1
+            WHERE id = :id""", nativeQuery = true)
+    int markAsWatered(@Param("id") UUID id, @Param("wateredAt") long wateredAt);
+
+    /**
+     * Overwrites the fields of an active plant with those of another plant in a single statement, without loading it.
+     *
+     * <p>When an expected version is given, the update only applies if the plant is still at that version, so a
+     * change made since the client read the plant is never silently overwritten. Like
+     * {@link #markAsWatered(UUID, long)}, the version is raised in the same statement and the persistence
+     * context is cleared afterwards.</p>
+     *
+     * @param id              the plant's id
+     * @param plant           the plant holding the new field values
+     * @param expectedVersion the version the plant must be at, or {@code null} to update any version
+     * @return the number of updated rows; {@code 0} if the plant isn't in the active table or is at another version
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update Plant p
+            set p.plantName = :#{#plant.plantName},
+                p.species = :#{#plant.species},
+                p.lastWatered = :#{#plant.lastWatered},
+                p.wateringFrequency = :#{#plant.wateringFrequency},
+                p.notes = :#{#plant.notes},
+                p.nextDue = :#{#plant.nextDue},
+                p.version = p.version + 1
+            where p.id = :id and (:expectedVersion is null or p.version = :expectedVersion)""")
+    int update(@Param("id") UUID id, @Param("plant") Plant plant, @Param("expectedVersion") Integer expectedVersion);
+
+    /**
+     * Loads every plant in the {@code plant_archive} cold storage table.
+     *
+     * <p>Archived rows have the same columns as {@code plant}, so they map onto the {@link Plant} entity directly.
+     * They are only read this way; archived plants are moved back with {@link PlantArchive#restore} before
+     * they are changed.</p>
+     *
+     * @return the archived plants
+     */
+    @Query(value = "SELECT id, last_watered_date, notes, name, watering_frequency, next_due, species_id, version FROM plant_archive",
+            nativeQuery = true)
+    List<Plant> findAllArchived();
+
+    /**
+     * Finds the plants of one species, in id order.
+     *
+     * <p>The species is bound as its integer key, so this is a lookup on the {@code species_id} index.</p>
+     *
+     * @param species  the species
+     * @param pageable the page to return
+     * @return a slice of plants of the species
+     */
+    @Query("select p from Plant p where p.species = :species order by p.id")
+    Slice<Plant> findBySpecies(@Param("species") PlantSpecies species, Pageable pageable);
+
+    /**
+     * Counts the plants of every species in use, in species name order.
+     *
+     * <p>Grouping by the integer key only reads the {@code species_id} index; names are joined in afterwards.</p>
+     *
+     * @return the number of plants per species
+     */
+    @Query(value = """
+            SELECT s.name AS species, c.plants AS plants
+            FROM (SELECT species_id, count(*) AS plants FROM plant GROUP BY species_id) c
+            JOIN species s ON s.id = c.species_id
+            ORDER BY s.name""", nativeQuery = true)
+    List<SpeciesCount> countBySpecies();
+
+    /**
+     * Runs a full-text query against the {@code plant_search} FTS5 index, best matches first.
+     *
+     * <p>Matches are ranked with BM25, weighting name over species over notes. Only the matching
+     * plant ids are returned, along with a snippet of the best matching column with each matched
+     * term wrapped in {@code <mark>} tags; the plants themselves are loaded separately.</p>
+     *
+     * @param query    an FTS5 match expression
+     * @param pageable the page to return
+     * @return a slice of search hits ordered by rank
+     */
+    @Query(value = """
+            SELECT hex(k.id) AS id,
+                   snippet(plant_search, -1, '<mark>', '</mark>', '…', 12) AS snippet,
+                   bm25(plant_search, 10.0, 5.0, 1.0) AS rank
+            FROM plant_search
+            JOIN plant_search_key k ON k.docid = plant_search.rowid
+            WHERE plant_search MATCH :query
+            ORDER BY rank""", nativeQuery = true)
+    Slice<SearchHit> search(@Param("query") String query, Pageable pageable);
+
+    /**
+     * The number of plants of a single species.
+     */
+    interface SpeciesCount {
+
+        /**
+         * @return the species name
+         */
+        String getSpecies();
+
+        /**
+         * @return the number of plants of this species
+         */
+        long getPlants();
+    }
+
+    /**
+     * A single full-text search match.
+     */
+    interface SearchHit {
+
+        /**
+         * @return the matching plant's id as 32 hexadecimal digits
+         */
+        String getId();
+
+        /**
+         * @return an excerpt of the best matching column with the matched terms highlighted
+         */
+        String getSnippet();
+
+        /**
+         * @return the BM25 score of the match; lower is better
+         */
+        double getRank();
+    }
 }
@@ -0,0 +1,193 @@
+package com.landrycarroll.leaflog.plantmanagement.repositories;
+
+import com.landrycarroll.leaflog.infrastructure.DatabaseRestoredEvent;
+import com.landrycarroll.leaflog.infrastructure.SqliteWriteQueue;
+import com.landrycarroll.leaflog.infrastructure.TenantClosedEvent;
+import com.landrycarroll.leaflog.infrastructure.TenantContext;
+import com.landrycarroll.leaflog.plantmanagement.domain.entities.Plant;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.nio.ByteBuffer;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@code PlantVersions} produces entity tags for single plants and for the plant collection, without loading plants.
+ * <p>
+ * A plant's tag is its {@link Plant#getVersion() version}, and the collection's tag is the counter in
+ * {@code plant_collection_version}, which triggers raise on every change to {@code plant} or {@code plant_archive}.
+ * Both are prefixed with the database's epoch, which is replaced when a backup is restored, so a tag is never
+ * reused for different contents. The collection tag is cached per tenant until the {@link SqliteWriteQueue}
+ * commits again, so polling an unchanged collection doesn't touch the database at all.
+ * </p>
+ * <p>
+ * Strong tags name one representation, so the tags of the binary representation are told apart from the JSON
+ * ones by {@link #binaryTag}. Either names the same plant version in a conditional update.
+ * </p>
+ */
+@Repository
+public class PlantVersions {
+
+    private static final String BINARY_SUFFIX = "-b";
+
+    private final JdbcTemplate readJdbcTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final SqliteWriteQueue writeQueue;
+    private final Map<String, CollectionVersion> collectionVersions = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new {@code PlantVersions}.
+     *
+     * @param dataSource     the datasource used to replace the epoch after a restore
+     * @param readDataSource the read-only datasource versions are read from
+     * @param writeQueue     the single-writer queue whose commits invalidate cached collection versions
+     */
+    public PlantVersions(DataSource dataSource,
+                         @Qualifier("tenantReadDataSource") DataSource readDataSource,
+                         SqliteWriteQueue writeQueue) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.readJdbcTemplate = new JdbcTemplate(readDataSource);
+        this.writeQueue = writeQueue;
+    }
+
+    /**
+     * Returns the tag of the current tenant's plant collection, reading it only if something was written since the
+     * last read.
+     *
+     * @return the collection's entity tag, without quotes
+     */
+    public String collectionTag() {
+        return collectionVersion().tag();
+    }
+
+    /**
+     * Returns the tag of an active plant, read from its row without loading the plant.
+     *
+     * @param id the plant's id
+     * @return the plant's entity tag, without quotes; empty if the plant isn't in the active table
+     */
+    public Optional<String> plantTag(UUID id) {
+        List<Long> versions = readJdbcTemplate.queryForList("SELECT version FROM plant WHERE id = ?", Long.class, toBytes(id));
+        return versions.stream().findFirst().map(version -> collectionVersion().epoch() + "-" + version);
+    }
+
+    /**
+     * Returns the tag of a loaded plant.
+     *
+     * @param plant the plant
+     * @return the plant's entity tag, without quotes
+     */
+    public String plantTag(Plant plant) {
+        return collectionVersion().epoch() + "-" + plant.getVersion();
+    }
+
+    /**
+     * Returns the tag of the binary representation of whatever another tag names.
+     *
+     * @param tag the tag of the JSON representation, without quotes
+     * @return the binary representation's entity tag, without quotes
+     */
+    public static String binaryTag(String tag) {
+        return tag + BINARY_SUFFIX;
+    }
+
+    /**
+     * Returns the plant version named by a tag handed out by {@link #plantTag(Plant)}, or by {@link #binaryTag} for
+     * one, for use as the expected version of a conditional update.
+     *
+     * @param tag the entity tag, with or without quotes
+     * @return the plant version; empty if the tag is malformed, weak or from another epoch, so it can't match
+     */
+    public OptionalInt versionOf(String tag) {
+        String value = tag.strip();
+        if (value.length() > 1 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1);
+        }
+        if (value.endsWith(BINARY_SUFFIX)) {
+            value = value.substring(0, value.length() - BINARY_SUFFIX.length());
+        }
+
+        int separator = value.indexOf('-');
+        if (separator < 0 || !value.substring(0, separator).equals(collectionVersion().epoch())) {
+            return OptionalInt.empty();
+        }
+
+        try {
+            return OptionalInt.of(Integer.parseInt(value.substring(separator + 1)));
+        } catch (NumberFormatException e) {
+            return OptionalInt.empty();
+        }
+    }
+
+    /**
+     * Gives the restored database a new epoch. Runs on the writer thread, inline in the restore's transaction,
+     * before any other write can hand out a version.
+     *
+     * @param event the event naming the tenant whose database was restored
+     */
+    @EventListener
+    public void databaseRestored(DatabaseRestoredEvent event) {
+        TenantContext.runAs(event.getTenant(), () -> writeQueue.execute(() ->
+                jdbcTemplate.update("UPDATE plant_collection_version SET epoch = randomblob(8)")));
+        collectionVersions.remove(event.getTenant());
+    }
+
+    /**
+     * Drops the cached collection version of a tenant whose database has been closed.
+     *
+     * @param event the event naming the tenant
+     */
+    @EventListener
+    public void tenantClosed(TenantClosedEvent event) {
+        collectionVersions.remove(event.getTenant());
+    }
+
+    private CollectionVersion collectionVersion() {
+        String tenant = TenantContext.current();
+        long commits = writeQueue.commits(tenant);
+        CollectionVersion cached = collectionVersions.get(tenant);
+        if (cached != null && cached.commits() == commits) {
+            return cached;
+        }
+
+        // The commit count is taken first, so a write committed during the read only causes one more read later
+        CollectionVersion current = readJdbcTemplate.queryForObject(
+                "SELECT epoch, version FROM plant_collection_version",
+                (rs, row) -> new CollectionVersion(commits, HexFormat.of().formatHex(rs.getBytes(1)), rs.getLong(2)));
+        collectionVersions.put(tenant, current);
+        return current;
+    }
+
+    /**
+     * Converts a {@link UUID} into the 16-byte big-endian form its id column is stored in.
+     *
+     * @param id the id
+     * @return the id's bytes
+     */
+    private static byte[] toBytes(UUID id) {
+        return ByteBuffer.allocate(16).putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).array();
+    }
+
+    /**
+     * The collection version of one tenant, as read after a number of commits.
+     *
+     * @param commits the tenant's commit count when the version was read
+     * @param epoch   the database's epoch, in hexadecimal
+     * @param version the collection version
+     */
+    private record CollectionVersion(long commits, String epoch, long version) {
+
+        String tag() {
+            return epoch + "-" + version;
+        }
+    }
+}
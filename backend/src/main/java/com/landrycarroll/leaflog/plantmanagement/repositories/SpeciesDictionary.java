@@ -0,0 +1,197 @@
+package com.landrycarroll.leaflog.plantmanagement.repositories;
+
+import com.landrycarroll.leaflog.infrastructure.DatabaseRestoredEvent;
+import com.landrycarroll.leaflog.infrastructure.TenantClosedEvent;
+import com.landrycarroll.leaflog.infrastructure.TenantContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@code SpeciesDictionary} maps species names to the integer keys of the {@code species} lookup table.
+ * <p>
+ * Plants reference their species by id instead of repeating the name on every row. Most collections share a few
+ * hundred species, so recently used names and ids are kept in two bounded, least-recently-used caches of
+ * {@code leaflog.species.cache-size} entries each, and only a miss goes to the database.
+ * </p>
+ * <p>
+ * Unknown names are inserted on first use. A species inserted by a transaction that rolls back is evicted
+ * again, so its id is never handed out after SQLite reuses it.
+ * </p>
+ * <p>
+ * Every tenant has its own database and therefore its own ids, so each tenant gets its own pair of caches,
+ * dropped when the tenant's database is closed.
+ * </p>
+ */
+@Repository
+public class SpeciesDictionary {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int cacheSize;
+    private final Map<String, Caches> caches = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new {@code SpeciesDictionary}.
+     *
+     * @param dataSource the datasource holding the {@code species} table
+     * @param cacheSize  the maximum number of entries kept in each cache
+     */
+    public SpeciesDictionary(DataSource dataSource,
+                             @Value("${leaflog.species.cache-size:1024}") int cacheSize) {
+        if (cacheSize <= 0) {
+            throw new IllegalArgumentException("Species cache size must be greater than 0");
+        }
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * Returns the id of a species, inserting it into the lookup table if it doesn't exist yet.
+     *
+     * @param name the species name
+     * @return the species id
+     */
+    public int resolve(String name) {
+        Optional<Integer> existing = find(name);
+        if (existing.isPresent()) return existing.get();
+
+        int inserted = jdbcTemplate.update("INSERT OR IGNORE INTO species (name) VALUES (?)", name);
+        int id = find(name).orElseThrow();
+
+        if (inserted > 0 && TransactionSynchronizationManager.isSynchronizationActive()) {
+            Caches tenantCaches = caches();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) tenantCaches.evict(name, id);
+                }
+            });
+        }
+        return id;
+    }
+
+    /**
+     * Looks up the id of a species without inserting it.
+     *
+     * @param name the species name
+     * @return the species id, or empty if no plant has ever used this species
+     */
+    public Optional<Integer> find(String name) {
+        Integer cached = caches().ids().get(name);
+        if (cached != null) return Optional.of(cached);
+
+        List<Integer> found = jdbcTemplate.queryForList("SELECT id FROM species WHERE name = ?", Integer.class, name);
+        found.forEach(id -> caches().remember(name, id));
+        return found.stream().findFirst();
+    }
+
+    /**
+     * Returns the name of a species.
+     *
+     * @param id the species id
+     * @return the species name
+     * @throws IllegalStateException if no species has this id
+     */
+    public String nameOf(int id) {
+        String cached = caches().names().get(id);
+        if (cached != null) return cached;
+
+        List<String> found = jdbcTemplate.queryForList("SELECT name FROM species WHERE id = ?", String.class, id);
+        if (found.isEmpty()) {
+            throw new IllegalStateException("No species with id " + id);
+        }
+
+        caches().remember(found.get(0), id);
+        return found.get(0);
+    }
+
+    /**
+     * Forgets the species cached for a tenant once its database has been restored from a backup, since ids may have
+     * changed.
+     *
+     * @param event the event naming the tenant
+     */
+    @EventListener
+    public void databaseRestored(DatabaseRestoredEvent event) {
+        caches.remove(event.getTenant());
+    }
+
+    /**
+     * Forgets the species cached for a tenant whose database has been closed.
+     *
+     * @param event the event naming the tenant
+     */
+    @EventListener
+    public void tenantClosed(TenantClosedEvent event) {
+        caches.remove(event.getTenant());
+    }
+
+    /**
+     * Returns the caches of the current tenant, creating them on first use.
+     *
+     * @return the current tenant's caches
+     */
+    private Caches caches() {
+        return caches.computeIfAbsent(TenantContext.current(), tenant -> new Caches(lruCache(cacheSize), lruCache(cacheSize)));
+    }
+
+    /**
+     * Creates a thread-safe map that discards its least recently used entry once it holds more than
+     * {@code capacity} entries.
+     *
+     * @param capacity the maximum number of entries
+     * @param <K>      the key type
+     * @param <V>      the value type
+     * @return the cache
+     */
+    private static <K, V> Map<K, V> lruCache(int capacity) {
+        return Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > capacity;
+            }
+        });
+    }
+
+    /**
+     * The name-to-id and id-to-name caches of one tenant.
+     *
+     * @param ids   species ids by name
+     * @param names species names by id
+     */
+    private record Caches(Map<String, Integer> ids, Map<Integer, String> names) {
+
+        /**
+         * Caches a name/id pair in both directions.
+         *
+         * @param name the species name
+         * @param id   the species id
+         */
+        void remember(String name, int id) {
+            ids.put(name, id);
+            names.put(id, name);
+        }
+
+        /**
+         * Removes a name/id pair from both caches.
+         *
+         * @param name the species name
+         * @param id   the species id
+         */
+        void evict(String name, int id) {
+            ids.remove(name);
+            names.remove(id);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.landrycarroll.leaflog.plantmanagement.repositories;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * {@code WateringLog} records every watering as an append-only event and keeps per-day rollups of them.
+ * <p>
+ * Events go to {@code watering_event}, one small row each, in the order they are written. {@link #rollUp(int)}
+ * folds new events into {@code watering_day} (waterings per day) and {@code watering_plant_day} (waterings per
+ * plant and day), and moves the {@code watering_rollup} mark past them. History is read from the rollups, plus the
+ * few events after the mark that haven't been folded in yet, so a query reads at most one row per day in range
+ * however many events have been logged. Appending and rolling up must run on the write queue.
+ * </p>
+ */
+@Repository
+public class WateringLog {
+
+    private static final long DAY = 86_400_000L;
+
+    private static final String PENDING = "id > (SELECT last_event_id FROM watering_rollup)";
+
+    private static final RowMapper<DailyCount> DAILY_COUNT =
+            (rs, row) -> new DailyCount(LocalDate.ofEpochDay(rs.getLong(1)), rs.getLong(2));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Constructs a new {@code WateringLog}.
+     *
+     * @param dataSource the datasource holding the log and its rollups
+     */
+    public WateringLog(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * Appends a watering event.
+     *
+     * @param plantId   the id of the watered plant
+     * @param wateredAt when the plant was watered
+     */
+    public void append(UUID plantId, Date wateredAt) {
+        jdbcTemplate.update("INSERT INTO watering_event (plant_id, watered_at) VALUES (?, ?)",
+                toBytes(plantId), wateredAt.getTime());
+    }
+
+    /**
+     * Folds up to {@code limit} of the oldest events that aren't in the rollups yet into them.
+     *
+     * @param limit the maximum number of events to fold in
+     * @return the number of events rolled up
+     */
+    public int rollUp(int limit) {
+        long lastEventId = jdbcTemplate.queryForObject("SELECT last_event_id FROM watering_rollup", Long.class);
+        long[] batch = jdbcTemplate.queryForObject("SELECT count(*), max(id) FROM (SELECT id FROM watering_event "
+                + "WHERE id > ? ORDER BY id LIMIT ?)", (rs, row) -> new long[]{rs.getLong(1), rs.getLong(2)},
+                lastEventId, limit);
+        int events = (int) batch[0];
+        long upTo = batch[1];
+        if (events == 0) {
+            return 0;
+        }
+
+        jdbcTemplate.update("INSERT INTO watering_day (day, waterings) SELECT watered_at / " + DAY + ", count(*) "
+                + "FROM watering_event WHERE id > ? AND id <= ? GROUP BY 1 "
+                + "ON CONFLICT (day) DO UPDATE SET waterings = waterings + excluded.waterings", lastEventId, upTo);
+        jdbcTemplate.update("INSERT INTO watering_plant_day (plant_id, day, waterings) "
+                + "SELECT plant_id, watered_at / " + DAY + ", count(*) FROM watering_event WHERE id > ? AND id <= ? "
+                + "GROUP BY 1, 2 ON CONFLICT (plant_id, day) DO UPDATE SET waterings = waterings + excluded.waterings",
+                lastEventId, upTo);
+        jdbcTemplate.update("UPDATE watering_rollup SET last_event_id = ?", upTo);
+        return events;
+    }
+
+    /**
+     * Counts the waterings of one plant on each day of a range.
+     *
+     * @param plantId the plant's id
+     * @param from    the first day, inclusive
+     * @param to      the last day, inclusive
+     * @return the days on which the plant was watered, in order, with the number of waterings on each
+     */
+    public List<DailyCount> plantHistory(UUID plantId, LocalDate from, LocalDate to) {
+        byte[] key = toBytes(plantId);
+        return jdbcTemplate.query("SELECT day, sum(waterings) FROM ("
+                        + "SELECT day, waterings FROM watering_plant_day WHERE plant_id = ? AND day BETWEEN ? AND ? "
+                        + "UNION ALL SELECT watered_at / " + DAY + ", 1 FROM watering_event WHERE " + PENDING
+                        + " AND plant_id = ? AND watered_at >= ? AND watered_at < ?) GROUP BY day ORDER BY day",
+                DAILY_COUNT, key, from.toEpochDay(), to.toEpochDay(),
+                key, from.toEpochDay() * DAY, (to.toEpochDay() + 1) * DAY);
+    }
+
+    /**
+     * Counts the waterings of all plants on each day of a range.
+     *
+     * @param from the first day, inclusive
+     * @param to   the last day, inclusive
+     * @return the days on which any plant was watered, in order, with the number of waterings on each
+     */
+    public List<DailyCount> dailyTotals(LocalDate from, LocalDate to) {
+        return jdbcTemplate.query("SELECT day, sum(waterings) FROM ("
+                        + "SELECT day, waterings FROM watering_day WHERE day BETWEEN ? AND ? "
+                        + "UNION ALL SELECT watered_at / " + DAY + ", 1 FROM watering_event WHERE " + PENDING
+                        + " AND watered_at >= ? AND watered_at < ?) GROUP BY day ORDER BY day",
+                DAILY_COUNT, from.toEpochDay(), to.toEpochDay(), from.toEpochDay() * DAY, (to.toEpochDay() + 1) * DAY);
+    }
+
+    /**
+     * Converts a {@link UUID} into the 16-byte big-endian form its id column is stored in.
+     *
+     * @param id the id
+     * @return the id's bytes
+     */
+    private static byte[] toBytes(UUID id) {
+        return ByteBuffer.allocate(16).putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).array();
+    }
+
+    /**
+     * The number of waterings on one day.
+     *
+     * @param day       the day, in UTC
+     * @param waterings the number of waterings
+     */
+    public record DailyCount(LocalDate day, long waterings) {
+    }
+}
@@ -0,0 +1,342 @@
+package com.landrycarroll.leaflog.plantmanagement.serialization;
+
+import com.landrycarroll.leaflog.plantmanagement.domain.entities.Plant;
+import com.landrycarroll.leaflog.plantmanagement.domain.valueobjects.*;
+import org.springframework.http.MediaType;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * {@code PlantBinary} encodes plants in a compact binary format, for clients that transfer many plants and would
+ * rather not parse JSON, and decodes it for Java clients.
+ * <p>
+ * A stream starts with the four bytes {@code LLP1} and is followed by one record per plant until it ends. Each record
+ * is prefixed with its length in bytes, so a reader can skip fields appended by later versions of the format.
+ * Integers are unsigned LEB128 varints unless stated otherwise, and text is a varint byte count followed by UTF-8:
+ * </p>
+ * <pre>
+ * record      = length:varint body
+ * body        = id:16 bytes, big-endian
+ *               version:varint
+ *               present:1 byte, one bit per value object below, from the lowest
+ *               [plantName:text] [species:text] [lastWatered:8 bytes, big-endian epoch milliseconds]
+ *               [wateringFrequency:varint] [notes:text]
+ * </pre>
+ * <p>
+ * The next due date is left out, since it is derived from the last watered date and the watering frequency.
+ * </p>
+ */
+public final class PlantBinary {
+
+    /**
+     * The media type of the format, which clients ask for with {@code Accept}.
+     */
+    public static final String MEDIA_TYPE_VALUE = "application/vnd.leaflog.plants";
+
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(MEDIA_TYPE_VALUE);
+
+    private static final byte[] MAGIC = {'L', 'L', 'P', '1'};
+
+    private static final int PLANT_NAME = 1;
+    private static final int SPECIES = 1 << 1;
+    private static final int LAST_WATERED = 1 << 2;
+    private static final int WATERING_FREQUENCY = 1 << 3;
+    private static final int NOTES = 1 << 4;
+
+    /**
+     * The largest encoding of a 32-bit varint, reserved in front of each record for its length.
+     */
+    private static final int MAX_VARINT_LENGTH = 5;
+
+    private PlantBinary() {
+    }
+
+    /**
+     * Encodes plants as a complete stream.
+     *
+     * @param plants the plants
+     * @return the encoded stream
+     */
+    public static byte[] encode(List<Plant> plants) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(4 + 64 * plants.size());
+        try {
+            Encoder encoder = new Encoder(out);
+            for (Plant plant : plants) {
+                encoder.write(plant);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes a complete stream.
+     *
+     * @param in the stream; read to its end, but not closed
+     * @return the decoded plants
+     * @throws IOException if the stream can't be read or isn't in the format
+     */
+    public static List<Plant> decode(InputStream in) throws IOException {
+        Decoder decoder = new Decoder(in);
+        List<Plant> plants = new ArrayList<>();
+        for (Plant plant = decoder.read(); plant != null; plant = decoder.read()) {
+            plants.add(plant);
+        }
+        return plants;
+    }
+
+    /**
+     * Writes plants to a stream one record at a time. Each record is assembled in a reused buffer and written with a
+     * single call, so the stream should be buffered if records are to be batched.
+     */
+    public static final class Encoder {
+
+        private final OutputStream out;
+        private byte[] buffer = new byte[256];
+        private int position;
+
+        /**
+         * Constructs an encoder, writing the start of the stream.
+         *
+         * @param out the stream to write to; not closed
+         * @throws IOException if writing fails
+         */
+        public Encoder(OutputStream out) throws IOException {
+            this.out = out;
+            out.write(MAGIC);
+        }
+
+        /**
+         * Writes a plant.
+         *
+         * @param plant the plant
+         * @throws IOException if writing fails
+         */
+        public void write(Plant plant) throws IOException {
+            byte[] id = ByteBuffer.allocate(16).putLong(plant.getId().getMostSignificantBits())
+                    .putLong(plant.getId().getLeastSignificantBits()).array();
+            Date lastWatered = plant.getLastWatered() == null ? null : plant.getLastWatered().value();
+            write(id, plant.getVersion(),
+                    utf8(plant.getPlantName() == null ? null : plant.getPlantName().value()),
+                    utf8(plant.getSpecies() == null ? null : plant.getSpecies().value()),
+                    lastWatered == null ? null : lastWatered.getTime(),
+                    plant.getWateringFrequency() == null ? null : plant.getWateringFrequency().value(),
+                    utf8(plant.getNotes() == null ? null : plant.getNotes().value()));
+        }
+
+        /**
+         * Writes a plant from the values its columns are stored as, without creating the entity.
+         *
+         * @param id                the id's 16 big-endian bytes
+         * @param version           the version
+         * @param plantName         the name as UTF-8, or {@code null}
+         * @param species           the species name as UTF-8, or {@code null}
+         * @param lastWatered       the last watered date in epoch milliseconds, or {@code null}
+         * @param wateringFrequency the watering frequency in days, or {@code null}
+         * @param notes             the notes as UTF-8, or {@code null}
+         * @throws IOException if writing fails
+         */
+        public void write(byte[] id, int version, byte[] plantName, byte[] species, Long lastWatered,
+                          Integer wateringFrequency, byte[] notes) throws IOException {
+            position = MAX_VARINT_LENGTH;
+            bytes(id, 16);
+            varint(version);
+            int present = (plantName != null ? PLANT_NAME : 0) | (species != null ? SPECIES : 0)
+                    | (lastWatered != null ? LAST_WATERED : 0) | (wateringFrequency != null ? WATERING_FREQUENCY : 0)
+                    | (notes != null ? NOTES : 0);
+            ensureCapacity(1);
+            buffer[position++] = (byte) present;
+            if (plantName != null) {
+                text(plantName);
+            }
+            if (species != null) {
+                text(species);
+            }
+            if (lastWatered != null) {
+                ensureCapacity(8);
+                long millis = lastWatered;
+                for (int shift = 56; shift >= 0; shift -= 8) {
+                    buffer[position++] = (byte) (millis >>> shift);
+                }
+            }
+            if (wateringFrequency != null) {
+                varint(wateringFrequency);
+            }
+            if (notes != null) {
+                text(notes);
+            }
+
+            // Write the length in front of the body, in the space reserved for it
+            int end = position;
+            int length = end - MAX_VARINT_LENGTH;
+            int start = MAX_VARINT_LENGTH - varintLength(length);
+            position = start;
+            varint(length);
+            out.write(buffer, start, end - start);
+        }
+
+        private void text(byte[] utf8) {
+            varint(utf8.length);
+            bytes(utf8, utf8.length);
+        }
+
+        private void bytes(byte[] bytes, int length) {
+            ensureCapacity(length);
+            System.arraycopy(bytes, 0, buffer, position, length);
+            position += length;
+        }
+
+        private void varint(int value) {
+            ensureCapacity(MAX_VARINT_LENGTH);
+            while ((value & ~0x7f) != 0) {
+                buffer[position++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        private void ensureCapacity(int length) {
+            if (position + length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + length));
+            }
+        }
+
+        private static int varintLength(int value) {
+            int length = 1;
+            while ((value & ~0x7f) != 0) {
+                value >>>= 7;
+                length++;
+            }
+            return length;
+        }
+
+        private static byte[] utf8(String value) {
+            return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Reads plants from a stream one record at a time, through the same validating value objects as the rest of the
+     * domain. Fields a record has beyond those known here are skipped.
+     */
+    public static final class Decoder {
+
+        private final InputStream in;
+        private byte[] buffer = new byte[256];
+        private int position;
+        private int limit;
+
+        /**
+         * Constructs a decoder, reading and checking the start of the stream.
+         *
+         * @param in the stream to read from, buffered unless it already is; not closed
+         * @throws IOException if the stream can't be read or doesn't start like the format
+         */
+        public Decoder(InputStream in) throws IOException {
+            this.in = in instanceof BufferedInputStream || in instanceof ByteArrayInputStream
+                    ? in : new BufferedInputStream(in);
+            if (!Arrays.equals(this.in.readNBytes(MAGIC.length), MAGIC)) {
+                throw new IOException("Not a " + MEDIA_TYPE_VALUE + " stream");
+            }
+        }
+
+        /**
+         * Reads the next plant.
+         *
+         * @return the plant, or {@code null} at the end of the stream
+         * @throws IOException if the stream can't be read, or ends or is malformed within a record
+         */
+        public Plant read() throws IOException {
+            int first = in.read();
+            if (first < 0) {
+                return null;
+            }
+            int length = readLength(first);
+            if (length < 0) {
+                throw new StreamCorruptedException("Malformed plant record length");
+            }
+            if (length > buffer.length) {
+                buffer = new byte[Math.max(length, buffer.length * 2)];
+            }
+            if (in.readNBytes(buffer, 0, length) < length) {
+                throw new EOFException("Plant record ends after fewer than " + length + " bytes");
+            }
+            position = 0;
+            limit = length;
+
+            long mostSignificantBits = fixed64();
+            long leastSignificantBits = fixed64();
+            int version = varint();
+            int present = next();
+            String plantName = (present & PLANT_NAME) != 0 ? text() : null;
+            String species = (present & SPECIES) != 0 ? text() : null;
+            Date lastWatered = (present & LAST_WATERED) != 0 ? new Date(fixed64()) : null;
+            Integer wateringFrequency = (present & WATERING_FREQUENCY) != 0 ? varint() : null;
+            String notes = (present & NOTES) != 0 ? text() : null;
+
+            return Plant.existingPlant(new UUID(mostSignificantBits, leastSignificantBits), new PlantName(plantName),
+                    species == null ? null : new PlantSpecies(species), new LastWateredDate(lastWatered),
+                    wateringFrequency == null ? null : new WateringFrequencyInDays(wateringFrequency),
+                    new Notes(notes), version);
+        }
+
+        /**
+         * Reads a record's length, whose first byte has already been read, from the stream.
+         */
+        private int readLength(int first) throws IOException {
+            int value = first & 0x7f;
+            for (int shift = 7, b = first; (b & 0x80) != 0; shift += 7) {
+                if (shift > 28 || (b = in.read()) < 0) {
+                    throw new StreamCorruptedException("Malformed plant record length");
+                }
+                value |= (b & 0x7f) << shift;
+            }
+            return value;
+        }
+
+        private int next() throws IOException {
+            if (position >= limit) {
+                throw new StreamCorruptedException("Plant record is shorter than its fields");
+            }
+            return buffer[position++] & 0xff;
+        }
+
+        private long fixed64() throws IOException {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = value << 8 | next();
+            }
+            return value;
+        }
+
+        private int varint() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift <= 28; shift += 7) {
+                int b = next();
+                value |= (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new StreamCorruptedException("Malformed varint in plant record");
+        }
+
+        private String text() throws IOException {
+            int length = varint();
+            if (length > limit - position) {
+                throw new StreamCorruptedException("Plant record is shorter than its fields");
+            }
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
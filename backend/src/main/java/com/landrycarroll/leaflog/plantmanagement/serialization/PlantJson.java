@@ -0,0 +1,260 @@
+package com.landrycarroll.leaflog.plantmanagement.serialization;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.databind.util.NameTransformer;
+import com.landrycarroll.leaflog.plantmanagement.domain.entities.Plant;
+import com.landrycarroll.leaflog.plantmanagement.domain.valueobjects.*;
+import com.landrycarroll.leaflog.plantmanagement.dtos.PlantDto;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * {@code PlantJson} holds the hand-written Jackson serializers and deserializers of plants and plant requests.
+ * <p>
+ * Plants are written flat: each value object as the primitive it wraps, and dates as epoch milliseconds, e.g.
+ * {@code {"id":"…","plantName":"Fern","species":null,"lastWatered":1772443800123,"wateringFrequency":3,
+ * "notes":null,"nextDue":1772703000123,"version":4}}. Fields are written in that order with pre-encoded names, and
+ * read by name, without going through Jackson's reflective bean handling. Optional values are written as
+ * {@code null} rather than left out.
+ * </p>
+ * <p>
+ * {@link com.landrycarroll.leaflog.plantmanagement.repositories.PlantListing} writes the same JSON straight from
+ * database rows; the two must be kept in step.
+ * </p>
+ */
+public final class PlantJson {
+
+    public static final SerializedString ID = new SerializedString("id");
+    public static final SerializedString PLANT_NAME = new SerializedString("plantName");
+    public static final SerializedString SPECIES = new SerializedString("species");
+    public static final SerializedString LAST_WATERED = new SerializedString("lastWatered");
+    public static final SerializedString WATERING_FREQUENCY = new SerializedString("wateringFrequency");
+    public static final SerializedString NOTES = new SerializedString("notes");
+    public static final SerializedString NEXT_DUE = new SerializedString("nextDue");
+    public static final SerializedString VERSION = new SerializedString("version");
+
+    private PlantJson() {
+    }
+
+    /**
+     * Writes a plant as a flat object. Also writes the plant's fields alone when it is unwrapped into another
+     * object, e.g. the {@code EntityModel} of a HAL response.
+     */
+    public static final class PlantSerializer extends StdSerializer<Plant> {
+
+        private final boolean unwrapping;
+
+        public PlantSerializer() {
+            this(false);
+        }
+
+        private PlantSerializer(boolean unwrapping) {
+            super(Plant.class);
+            this.unwrapping = unwrapping;
+        }
+
+        @Override
+        public void serialize(Plant plant, JsonGenerator json, SerializerProvider provider) throws IOException {
+            if (!unwrapping) {
+                json.writeStartObject(plant);
+            }
+
+            json.writeFieldName(ID);
+            if (plant.getId() == null) {
+                json.writeNull();
+            } else {
+                json.writeString(plant.getId().toString());
+            }
+            json.writeFieldName(PLANT_NAME);
+            json.writeString(plant.getPlantName() == null ? null : plant.getPlantName().value());
+            json.writeFieldName(SPECIES);
+            json.writeString(plant.getSpecies() == null ? null : plant.getSpecies().value());
+            json.writeFieldName(LAST_WATERED);
+            writeMillis(json, plant.getLastWatered() == null ? null : plant.getLastWatered().value());
+            json.writeFieldName(WATERING_FREQUENCY);
+            if (plant.getWateringFrequency() == null) {
+                json.writeNull();
+            } else {
+                json.writeNumber(plant.getWateringFrequency().value());
+            }
+            json.writeFieldName(NOTES);
+            json.writeString(plant.getNotes() == null ? null : plant.getNotes().value());
+            json.writeFieldName(NEXT_DUE);
+            writeMillis(json, plant.getNextDue());
+            json.writeFieldName(VERSION);
+            json.writeNumber(plant.getVersion());
+
+            if (!unwrapping) {
+                json.writeEndObject();
+            }
+        }
+
+        @Override
+        public boolean isUnwrappingSerializer() {
+            return unwrapping;
+        }
+
+        @Override
+        public JsonSerializer<Plant> unwrappingSerializer(NameTransformer unwrapper) {
+            return new PlantSerializer(true);
+        }
+
+        private static void writeMillis(JsonGenerator json, Date date) throws IOException {
+            if (date == null) {
+                json.writeNull();
+            } else {
+                json.writeNumber(date.getTime());
+            }
+        }
+    }
+
+    /**
+     * Reads a plant written by {@link PlantSerializer}, through the same validating value objects as the rest of
+     * the domain. The next due date is derived from the other fields rather than read, and unknown members, such as
+     * links, are skipped.
+     */
+    public static final class PlantDeserializer extends StdDeserializer<Plant> {
+
+        public PlantDeserializer() {
+            super(Plant.class);
+        }
+
+        @Override
+        public Plant deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            UUID id = null;
+            String name = null;
+            String species = null;
+            Date lastWatered = null;
+            Integer wateringFrequency = null;
+            String notes = null;
+            int version = 0;
+
+            for (String field = firstField(parser, context, Plant.class); field != null;
+                 field = parser.nextFieldName()) {
+                JsonToken token = parser.nextToken();
+                switch (field) {
+                    case "id" -> id = token == JsonToken.VALUE_NULL ? null : readUuid(parser, context);
+                    case "plantName" -> name = readString(parser, context);
+                    case "species" -> species = readString(parser, context);
+                    case "lastWatered" -> lastWatered = readDate(parser, context);
+                    case "wateringFrequency" ->
+                            wateringFrequency = token == JsonToken.VALUE_NULL ? null : readInt(parser, context);
+                    case "notes" -> notes = readString(parser, context);
+                    case "version" -> version = readInt(parser, context);
+                    default -> parser.skipChildren();
+                }
+            }
+
+            return Plant.existingPlant(id, new PlantName(name), species == null ? null : new PlantSpecies(species),
+                    new LastWateredDate(lastWatered),
+                    wateringFrequency == null ? null : new WateringFrequencyInDays(wateringFrequency),
+                    new Notes(notes), version);
+        }
+    }
+
+    /**
+     * Reads the body of a create or update request. Dates can be given as epoch milliseconds or as ISO-8601
+     * strings, which browsers send, and unknown members are skipped.
+     */
+    public static final class RequestDeserializer extends StdDeserializer<PlantDto.Request> {
+
+        public RequestDeserializer() {
+            super(PlantDto.Request.class);
+        }
+
+        @Override
+        public PlantDto.Request deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            String name = null;
+            String species = null;
+            Date lastWatered = null;
+            int wateringFrequencyInDays = 0;
+            String notes = null;
+
+            for (String field = firstField(parser, context, PlantDto.Request.class); field != null;
+                 field = parser.nextFieldName()) {
+                parser.nextToken();
+                switch (field) {
+                    case "name" -> name = readString(parser, context);
+                    case "species" -> species = readString(parser, context);
+                    case "lastWatered" -> lastWatered = readDate(parser, context);
+                    case "wateringFrequencyInDays" -> wateringFrequencyInDays = readInt(parser, context);
+                    case "notes" -> notes = readString(parser, context);
+                    default -> parser.skipChildren();
+                }
+            }
+            return new PlantDto.Request(name, species, lastWatered, wateringFrequencyInDays, notes);
+        }
+    }
+
+    /**
+     * Returns the name of an object's first field, moving the parser to it, or {@code null} if the object is empty.
+     * The parser is either at the start of the object or, when Jackson has buffered it, already at its first field.
+     */
+    private static String firstField(JsonParser parser, DeserializationContext context, Class<?> type)
+            throws IOException {
+        if (parser.isExpectedStartObjectToken()) {
+            return parser.nextFieldName();
+        }
+        return switch (parser.currentToken()) {
+            case FIELD_NAME -> parser.currentName();
+            case END_OBJECT -> null;
+            default -> (String) context.handleUnexpectedToken(type, parser);
+        };
+    }
+
+    /**
+     * Reads a string, or {@code null}. Other scalars are read as their text, like Jackson's own string
+     * deserializer does, but objects and arrays are rejected rather than read as {@code null}.
+     */
+    private static String readString(JsonParser parser, DeserializationContext context) throws IOException {
+        if (!parser.currentToken().isScalarValue()) {
+            return (String) context.handleUnexpectedToken(String.class, parser);
+        }
+        return parser.getValueAsString();
+    }
+
+    /**
+     * Reads an integer given as a number or a numeric string, with {@code null} read as {@code 0}. Objects and
+     * arrays are rejected rather than read as {@code 0}.
+     */
+    private static int readInt(JsonParser parser, DeserializationContext context) throws IOException {
+        if (!parser.currentToken().isScalarValue()) {
+            return (Integer) context.handleUnexpectedToken(Integer.class, parser);
+        }
+        return parser.getValueAsInt();
+    }
+
+    /**
+     * Reads a UUID given as a string.
+     */
+    private static UUID readUuid(JsonParser parser, DeserializationContext context) throws IOException {
+        String text = parser.getText();
+        try {
+            return UUID.fromString(text);
+        } catch (IllegalArgumentException e) {
+            throw context.weirdStringException(text, UUID.class, "not a valid UUID");
+        }
+    }
+
+    /**
+     * Reads a date given as epoch milliseconds or as a string in the context's date format.
+     */
+    private static Date readDate(JsonParser parser, DeserializationContext context) throws IOException {
+        return switch (parser.currentToken()) {
+            case VALUE_NULL -> null;
+            case VALUE_NUMBER_INT -> new Date(parser.getLongValue());
+            case VALUE_STRING -> context.parseDate(parser.getText());
+            default -> (Date) context.handleUnexpectedToken(Date.class, parser);
+        };
+    }
+}
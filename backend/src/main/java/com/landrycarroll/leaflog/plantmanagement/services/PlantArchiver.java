@@ -0,0 +1,110 @@
+package com.landrycarroll.leaflog.plantmanagement.services;
+
+import com.landrycarroll.leaflog.infrastructure.SqliteWriteQueue;
+import com.landrycarroll.leaflog.infrastructure.TenantContext;
+import com.landrycarroll.leaflog.infrastructure.TenantDatabases;
+import com.landrycarroll.leaflog.plantmanagement.repositories.PlantArchive;
+import com.landrycarroll.leaflog.plantmanagement.repositories.PlantMemoryStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Optional;
+
+/**
+ * {@code PlantArchiver} periodically moves dormant plants to the {@link PlantArchive}.
+ * <p>
+ * A plant is dormant once it hasn't been watered for {@code leaflog.archive.inactive-after}. Every
+ * {@code leaflog.archive.interval}, dormant plants are moved in batches of {@code leaflog.archive.batch-size},
+ * each batch as its own write on the {@link SqliteWriteQueue}, so interactive writes are queued between
+ * batches instead of waiting for the whole run. Every open tenant database is archived in turn. When the
+ * {@link PlantMemoryStore} is enabled, it forgets the archived plants afterwards.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = "leaflog.archive.enabled", havingValue = "true", matchIfMissing = true)
+public class PlantArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(PlantArchiver.class);
+
+    private final PlantArchive archive;
+    private final SqliteWriteQueue writeQueue;
+    private final PlantMemoryStore memoryStore;
+    private final TenantDatabases tenants;
+    private final Duration inactiveAfter;
+    private final int batchSize;
+
+    /**
+     * Constructs a new {@code PlantArchiver}.
+     *
+     * @param archive       the archive dormant plants are moved to
+     * @param writeQueue    the single-writer queue each batch is committed through
+     * @param memoryStore   the in-memory plant store, if enabled
+     * @param tenants       the registry of open tenant databases
+     * @param inactiveAfter how long a plant must go without watering before it is archived
+     * @param batchSize     the number of plants moved per transaction
+     */
+    public PlantArchiver(PlantArchive archive,
+                         SqliteWriteQueue writeQueue,
+                         Optional<PlantMemoryStore> memoryStore,
+                         TenantDatabases tenants,
+                         @Value("${leaflog.archive.inactive-after:P180D}") Duration inactiveAfter,
+                         @Value("${leaflog.archive.batch-size:500}") int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Archive batch size must be greater than 0");
+        }
+        this.archive = archive;
+        this.writeQueue = writeQueue;
+        this.memoryStore = memoryStore.orElse(null);
+        this.tenants = tenants;
+        this.inactiveAfter = inactiveAfter;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Moves every plant that has been dormant for longer than the inactivity threshold to the archive, in every
+     * open tenant database.
+     *
+     * @return the number of plants archived
+     */
+    @Scheduled(initialDelayString = "${leaflog.archive.interval:PT1H}", fixedDelayString = "${leaflog.archive.interval:PT1H}")
+    public int archiveDormantPlants() {
+        int total = 0;
+        for (String tenant : tenants.openTenants()) {
+            total += TenantContext.callAs(tenant, this::archiveDormantPlantsOfTenant);
+        }
+        return total;
+    }
+
+    /**
+     * Moves every dormant plant of the current tenant to the archive.
+     *
+     * @return the number of plants archived
+     */
+    private int archiveDormantPlantsOfTenant() {
+        Date cutoff = new Date(System.currentTimeMillis() - inactiveAfter.toMillis());
+        long start = System.nanoTime();
+        int total = 0;
+        int moved;
+
+        do {
+            moved = writeQueue.execute(() -> archive.archiveDormant(cutoff, batchSize));
+            total += moved;
+        } while (moved == batchSize);
+
+        if (total > 0 && memoryStore != null) {
+            memoryStore.evictDormant(cutoff);
+        }
+
+        if (total > 0) {
+            log.info("Archived {} plants of tenant {} not watered since {} in {} ms", total, TenantContext.current(),
+                    cutoff, (System.nanoTime() - start) / 1_000_000);
+        }
+        return total;
+    }
+}
@@ -1,59 +1,508 @@
 package com.landrycarroll.leaflog.plantmanagement.services;
 
+import com.landrycarroll.leaflog.infrastructure.SqliteWriteQueue;
 import com.landrycarroll.leaflog.plantmanagement.domain.entities.Plant;
+import com.landrycarroll.leaflog.plantmanagement.domain.generators.TimeOrderedUuidGenerator;
 import com.landrycarroll.leaflog.plantmanagement.domain.valueobjects.*;
 import com.landrycarroll.leaflog.plantmanagement.dtos.PlantDto;
 import com.landrycarroll.leaflog.plantmanagement.exceptions.PlantException;
+import com.landrycarroll.leaflog.plantmanagement.repositories.PlantArchive;
+import com.landrycarroll.leaflog.plantmanagement.repositories.PlantListing;
+import com.landrycarroll.leaflog.plantmanagement.repositories.PlantMemoryStore;
 import com.landrycarroll.leaflog.plantmanagement.repositories.PlantRepository;
+import com.landrycarroll.leaflog.plantmanagement.repositories.PlantVersions;
+import com.landrycarroll.leaflog.plantmanagement.repositories.SpeciesDictionary;
+import com.landrycarroll.leaflog.plantmanagement.repositories.WateringLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.function.BiFunction;
 
 /**
  * {@code PlantService} contains the core business logic for managing plants in the system.
  * It provides operations to create, read, update, delete, and bulk import {@link Plant} entities.
  * <p>
  * This service acts as an intermediary between controllers and the {@link PlantRepository}.
+ * All mutations are routed through the {@link SqliteWriteQueue} so that SQLite only ever sees a single writer.
+ * </p>
+ * <p>
+ * Listings only cover active plants unless archived plants are asked for explicitly. A plant that has been moved
+ * to the {@link PlantArchive} is restored as soon as it is fetched by id, watered or updated.
+ * </p>
+ * <p>
+ * Every watering is also appended to the {@link WateringLog}, which watering history is read from.
+ * </p>
+ * <p>
+ * When the optional {@link PlantMemoryStore} is enabled, plants are read by id from memory, and single-plant writes
+ * change the plant in memory and are written to the database behind the request.
  * </p>
  */
 @Service
 public class PlantService {
 
+    private static final Logger log = LoggerFactory.getLogger(PlantService.class);
+    private static final int MAXIMUM_PAGE_SIZE = 200;
+    private static final int MAXIMUM_HISTORY_DAYS = 366;
+
+    /**
+     * The values of the {@code sort} parameter, and the orders they select.
+     */
+    private static final Map<String, PlantListing.Order> SORT_KEYS = Map.of(
+            "id", PlantListing.Order.ID,
+            "name", PlantListing.Order.NAME,
+            "lastWatered", PlantListing.Order.LAST_WATERED,
+            "wateringFrequency", PlantListing.Order.WATERING_FREQUENCY);
+
+    /**
+     * The query parameters restricting each order's sort key to a range.
+     */
+    private static final Map<PlantListing.Order, String> RANGE_PARAMETERS = Map.of(
+            PlantListing.Order.NAME, "namePrefix",
+            PlantListing.Order.LAST_WATERED, "wateredFrom/wateredBefore",
+            PlantListing.Order.WATERING_FREQUENCY, "minFrequency/maxFrequency");
+
+    /**
+     * Flag set in the first byte of cursors for descending orders.
+     */
+    private static final int DESCENDING = 0x80;
+
+    /**
+     * The names of the fields a sparse fieldset can list, as in the serialized plant.
+     */
+    private static final Map<String, PlantListing.Field> FIELDS = new LinkedHashMap<>();
+
+    /**
+     * The name standing for {@link PlantListing.Field#SUMMARY} in a sparse fieldset.
+     */
+    private static final String SUMMARY = "summary";
+
+    static {
+        for (PlantListing.Field field : PlantListing.Field.values()) {
+            FIELDS.put(field.property(), field);
+        }
+    }
+
     private final PlantRepository repository;
+    private final PlantArchive archive;
+    private final PlantListing listing;
+    private final PlantMemoryStore memoryStore;
+    private final SpeciesDictionary speciesDictionary;
+    private final WateringLog wateringLog;
+    private final PlantVersions versions;
+    private final SqliteWriteQueue writeQueue;
+    private final int bulkChunkSize;
 
     /**
      * Constructs a new {@code PlantService} with the given repository.
      *
-     * @param repository the data access layer for plant entities
+     * @param repository        the data access layer for plant entities
+     * @param archive           the cold storage table dormant plants are moved to
+     * @param listing           the entity-free read path plant listings are streamed from
+     * @param memoryStore       the in-memory store single plants are read and written through, if enabled
+     * @param speciesDictionary the cached lookup of species names to ids
+     * @param wateringLog       the append-only log of waterings
+     * @param versions          the source of entity tags for plants and the collection
+     * @param writeQueue        the single-writer queue every mutation is committed through
+     * @param bulkChunkSize     the number of plants written per transaction during a bulk import
      */
-    public PlantService(PlantRepository repository) {
+    public PlantService(PlantRepository repository,
+                        PlantArchive archive,
+                        PlantListing listing,
+                        Optional<PlantMemoryStore> memoryStore,
+                        SpeciesDictionary speciesDictionary,
+                        WateringLog wateringLog,
+                        PlantVersions versions,
+                        SqliteWriteQueue writeQueue,
+                        @Value("${leaflog.bulk-import.chunk-size:500}") int bulkChunkSize) {
+        if (bulkChunkSize <= 0) {
+            throw new IllegalArgumentException("Bulk import chunk size must be greater than 0");
+        }
         this.repository = repository;
+        this.archive = archive;
+        this.listing = listing;
+        this.memoryStore = memoryStore.orElse(null);
+        this.speciesDictionary = speciesDictionary;
+        this.wateringLog = wateringLog;
+        this.versions = versions;
+        this.writeQueue = writeQueue;
+        this.bulkChunkSize = bulkChunkSize;
     }
 
     /**
-     * Retrieves a list of all plants in the system.
+     * Retrieves a list of all active plants in the system.
+     * Runs in a read-only transaction so it is served from the read connection pool.
      *
      * @return a list of {@link Plant} objects
      */
+    @Transactional(readOnly = true)
     public List<Plant> findAll() {
-        return repository.findAll();
+        return findAll(false);
+    }
+
+    /**
+     * Retrieves a list of all plants in the system, optionally including archived ones.
+     * Runs in a read-only transaction so it is served from the read connection pool.
+     *
+     * @param includeArchived whether to also read the archive
+     * @return a list of {@link Plant} objects, active plants first
+     */
+    @Transactional(readOnly = true)
+    public List<Plant> findAll(boolean includeArchived) {
+        if (!includeArchived) {
+            return repository.findAll();
+        }
+
+        List<Plant> plants = new ArrayList<>(repository.findAll());
+        plants.addAll(repository.findAllArchived());
+        return plants;
+    }
+
+    /**
+     * Lists plants one page at a time, filtered and sorted as the query asks.
+     * <p>
+     * Pages are read with keyset pagination, so every page costs the same however deep it is, and plants added or
+     * removed while a client pages through the collection don't shift the pages after them. The cursor is opaque
+     * to clients; it names the last plant of the previous page and the order it was listed in.
+     * </p>
+     * <p>
+     * Only queries that a single index can answer are accepted, so that no query turns into a full table scan:
+     * <ul>
+     *     <li>a species can be combined with the {@code id} and {@code name} sort keys,</li>
+     *     <li>a name prefix, a watering frequency range or a last-watered range can only be sorted by that column,
+     *     which is the default sort key when such a range is given, and only one range can be given at a time,</li>
+     *     <li>archived plants can only be included without filters, in ascending id order.</li>
+     * </ul>
+     * </p>
+     *
+     * @param query  the filters and sort order
+     * @param cursor the cursor of the page, as returned with the previous page, or {@code null} for the first page
+     * @param size   the page size
+     * @return the page of plants, with the cursor of the next page if there is one
+     * @throws PlantException.InvalidInput if the query isn't supported, the cursor is malformed or belongs to another
+     *                                     sort order, or the size is out of range
+     */
+    public PlantDto.PlantPage<Plant> findPage(PlantDto.PlantQuery query, String cursor, int size) {
+        return findPage(query, cursor, size, (request, limit) -> request.includeArchived()
+                        ? listing.page(request.afterId(), limit, true)
+                        : listing.page(request.filter(), request.order(), request.descending(), request.after(), limit),
+                PlantListing::positionOf);
+    }
+
+    /**
+     * Lists some fields of plants one page at a time, like {@link #findPage(PlantDto.PlantQuery, String, int)}.
+     * Only the columns of those fields are read, and no entities are loaded.
+     *
+     * @param query  the filters and sort order
+     * @param fields the fields to list, as returned by {@link #fieldsOf(String)}
+     * @param cursor the cursor of the page, as returned with the previous page, or {@code null} for the first page
+     * @param size   the page size
+     * @return the page of plant fields, with the cursor of the next page if there is one
+     * @throws PlantException.InvalidInput if the query isn't supported, the cursor is malformed or belongs to another
+     *                                     sort order, or the size is out of range
+     */
+    public PlantDto.PlantPage<PlantListing.PlantFields> findPage(PlantDto.PlantQuery query,
+                                                                 Set<PlantListing.Field> fields,
+                                                                 String cursor, int size) {
+        return findPage(query, cursor, size, (request, limit) -> request.includeArchived()
+                        ? listing.page(request.afterId(), limit, true, fields)
+                        : listing.page(request.filter(), request.order(), request.descending(), request.after(), limit,
+                        fields),
+                (plant, order) -> plant.position());
+    }
+
+    /**
+     * Parses a sparse fieldset: a comma-separated list of the names of plant fields, where {@code summary} stands
+     * for the fields a list view needs. The id is always included, since it identifies the plant.
+     *
+     * @param fields the fieldset, e.g. {@code summary,wateringFrequency}
+     * @return the fields, in the order they are serialized in
+     * @throws PlantException.InvalidInput if a name isn't a field's
+     */
+    public Set<PlantListing.Field> fieldsOf(String fields) {
+        Set<PlantListing.Field> selected = EnumSet.of(PlantListing.Field.ID);
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.equals(SUMMARY)) {
+                selected.addAll(PlantListing.Field.SUMMARY);
+            } else if (FIELDS.containsKey(trimmed)) {
+                selected.add(FIELDS.get(trimmed));
+            } else if (!trimmed.isEmpty()) {
+                throw new PlantException.InvalidInput("Unknown field: " + trimmed + "; expected " + SUMMARY
+                        + " or any of " + String.join(", ", FIELDS.keySet()));
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Validates a listing query and reads the page it asks for.
+     *
+     * @param read       reads up to the given number of plants as the request asks
+     * @param positionOf returns the position of a plant read in the given order
+     */
+    private <T> PlantDto.PlantPage<T> findPage(PlantDto.PlantQuery query, String cursor, int size,
+                                               BiFunction<ListingRequest, Integer, List<T>> read,
+                                               BiFunction<T, PlantListing.Order, PlantListing.Position> positionOf) {
+        checkPageSize(size);
+        String namePrefix = query.namePrefix() == null || query.namePrefix().isEmpty() ? null : query.namePrefix();
+        PlantListing.Filter filter = new PlantListing.Filter(null, namePrefix, query.minFrequency(), query.maxFrequency(),
+                query.wateredFrom() == null ? null : Date.from(query.wateredFrom()),
+                query.wateredBefore() == null ? null : Date.from(query.wateredBefore()));
+
+        List<PlantListing.Order> ranged = Arrays.stream(PlantListing.Order.values()).filter(filter::restricts).toList();
+        if (ranged.size() > 1) {
+            throw new PlantException.InvalidInput(
+                    "Only one of namePrefix, minFrequency/maxFrequency and wateredFrom/wateredBefore can be used at a time");
+        }
+
+        String sort = query.sort() == null || query.sort().isEmpty() ? null : query.sort();
+        boolean descending = sort != null && sort.startsWith("-");
+        PlantListing.Order order = sort == null
+                ? ranged.stream().findFirst().orElse(PlantListing.Order.ID)
+                : SORT_KEYS.get(descending ? sort.substring(1) : sort);
+        if (order == null) {
+            throw new PlantException.InvalidInput("Unsupported sort key: " + sort
+                    + "; expected one of id, name, lastWatered, wateringFrequency");
+        }
+        if (!ranged.isEmpty() && ranged.get(0) != order) {
+            throw new PlantException.InvalidInput("Filtering by " + RANGE_PARAMETERS.get(ranged.get(0))
+                    + " requires sorting by " + sortKeyOf(ranged.get(0)));
+        }
+        if (query.species() != null && order != PlantListing.Order.ID && order != PlantListing.Order.NAME) {
+            throw new PlantException.InvalidInput("Plants of a species can only be sorted by id or name");
+        }
+
+        boolean includeArchived = Boolean.TRUE.equals(query.includeArchived());
+        if (includeArchived && (query.species() != null || !ranged.isEmpty() || order != PlantListing.Order.ID || descending)) {
+            throw new PlantException.InvalidInput("Archived plants can only be included without filters, in ascending id order");
+        }
+
+        if (query.species() != null) {
+            // Unknown species have no plants, and no id to filter by
+            Optional<Integer> speciesId = speciesDictionary.find(new PlantSpecies(query.species()).value());
+            if (speciesId.isEmpty()) {
+                return new PlantDto.PlantPage<>(List.of(), null);
+            }
+            filter = new PlantListing.Filter(speciesId.get(), filter.namePrefix(), filter.minFrequency(),
+                    filter.maxFrequency(), filter.wateredFrom(), filter.wateredBefore());
+        }
+
+        PlantListing.Position after = cursor == null ? null : fromCursor(cursor, order, descending);
+
+        // One plant more than asked for tells whether there is a next page
+        List<T> plants = read.apply(new ListingRequest(filter, order, descending, after, includeArchived), size + 1);
+        if (plants.size() <= size) {
+            return new PlantDto.PlantPage<>(plants, null);
+        }
+        List<T> page = plants.subList(0, size);
+        PlantListing.Position last = positionOf.apply(page.get(size - 1), order);
+        return new PlantDto.PlantPage<>(List.copyOf(page), toCursor(last, order, descending));
     }
 
     /**
-     * Finds a plant by its unique ID.
+     * Writes some fields of all active plants, and optionally of the archived ones, to a stream as a JSON array.
+     * <p>
+     * Unlike {@link #findAll(boolean)}, no entities are loaded: rows are written as they are read, so memory use
+     * doesn't grow with the number of plants, and only the columns of the given fields are read. With every field,
+     * the JSON is the same as that of the serialized list of entities.
+     * </p>
+     *
+     * @param includeArchived whether to also write the archive
+     * @param fields          the fields to write, e.g. {@link PlantListing.Field#ALL}
+     * @param out             the stream to write to; not closed
+     * @throws IOException if writing fails
+     */
+    public void writeAll(boolean includeArchived, Set<PlantListing.Field> fields, OutputStream out) throws IOException {
+        listing.writeAll(includeArchived, fields, out);
+    }
+
+    /**
+     * Writes all active plants, and optionally the archived ones, to a stream in the
+     * {@link com.landrycarroll.leaflog.plantmanagement.serialization.PlantBinary} format. Like
+     * {@link #writeAll(boolean, Set, OutputStream)}, rows are written as they are read, without loading entities.
+     *
+     * @param includeArchived whether to also write the archive
+     * @param out             the stream to write to; not closed
+     * @throws IOException if writing fails
+     */
+    public void writeAllBinary(boolean includeArchived, OutputStream out) throws IOException {
+        listing.writeAllBinary(includeArchived, out);
+    }
+
+    /**
+     * Finds a plant by its unique ID, restoring it from the archive if it has been archived.
+     * Runs in a read-only transaction so it is served from the read connection pool; only a restore is written.
      *
      * @param id the UUID of the plant
      * @return the corresponding {@link Plant} entity
      * @throws PlantException.PlantNotFound if no plant is found with the given ID
      */
+    @Transactional(readOnly = true)
     public Plant findById(UUID id) {
+        if (memoryStore != null) {
+            return memoryStore.findById(id).orElseThrow(() -> new PlantException.PlantNotFound(id));
+        }
         return repository.findById(id)
+                .or(() -> archive.contains(id) ? writeQueue.execute(() -> findOrRestore(id)) : Optional.empty())
                 .orElseThrow(() -> new PlantException.PlantNotFound(id));
     }
 
+    /**
+     * Returns the entity tag of the plant collection, which changes whenever any plant, active or archived, does.
+     * Doesn't load any plants, and usually doesn't read the database either.
+     *
+     * @return the collection's entity tag, without quotes
+     */
+    public String collectionTag() {
+        return versions.collectionTag();
+    }
+
+    /**
+     * Returns the entity tag of an active plant without loading it.
+     *
+     * @param id the UUID of the plant
+     * @return the plant's entity tag, without quotes; empty if the plant isn't active
+     */
+    public Optional<String> findTag(UUID id) {
+        if (memoryStore != null) {
+            return memoryStore.findById(id).map(versions::plantTag);
+        }
+        return versions.plantTag(id);
+    }
+
+    /**
+     * Returns the entity tag of a loaded plant.
+     *
+     * @param plant the plant
+     * @return the plant's entity tag, without quotes
+     */
+    public String tagOf(Plant plant) {
+        return versions.plantTag(plant);
+    }
+
+    /**
+     * Finds plants that are due for watering before the given date, ordered from most to least overdue.
+     *
+     * @param before the exclusive upper bound for the next due date
+     * @param page   the zero-based page number
+     * @param size   the page size
+     * @return a slice of due {@link Plant} entities
+     * @throws PlantException.InvalidInput if the page or size is out of range
+     */
+    @Transactional(readOnly = true)
+    public Slice<Plant> findDue(Date before, int page, int size) {
+        return repository.findDueBefore(before, pageRequest(page, size));
+    }
+
+    /**
+     * Finds the plants of one species.
+     *
+     * @param species the species name
+     * @param page    the zero-based page number
+     * @param size    the page size
+     * @return a slice of {@link Plant} entities of the species; empty if the species has never been used
+     * @throws PlantException.InvalidInput if the page or size is out of range
+     * @throws com.landrycarroll.leaflog.plantmanagement.exceptions.DomainValidationException if the species is empty
+     */
+    @Transactional(readOnly = true)
+    public Slice<Plant> findBySpecies(String species, int page, int size) {
+        PlantSpecies plantSpecies = new PlantSpecies(species);
+        PageRequest pageRequest = pageRequest(page, size);
+
+        // Unknown species have no id yet; querying for them would insert one
+        if (speciesDictionary.find(plantSpecies.value()).isEmpty()) {
+            return new SliceImpl<>(List.of(), pageRequest, false);
+        }
+        return repository.findBySpecies(plantSpecies, pageRequest);
+    }
+
+    /**
+     * Counts the plants of every species in use.
+     *
+     * @return the species and their plant counts, in species name order
+     */
+    @Transactional(readOnly = true)
+    public List<PlantRepository.SpeciesCount> countBySpecies() {
+        return repository.countBySpecies();
+    }
+
+    /**
+     * Counts the waterings of one plant, active or archived, on each day of a range.
+     *
+     * @param id   the UUID of the plant
+     * @param from the first day, inclusive, in UTC
+     * @param to   the last day, inclusive, in UTC
+     * @return the plant's watering history
+     * @throws PlantException.PlantNotFound if the plant does not exist
+     * @throws PlantException.InvalidInput  if the range is reversed or too long
+     */
+    @Transactional(readOnly = true)
+    public PlantDto.WateringHistory findWaterings(UUID id, LocalDate from, LocalDate to) {
+        checkHistoryRange(from, to);
+        if (!repository.existsById(id) && !archive.contains(id)) {
+            throw new PlantException.PlantNotFound(id);
+        }
+        return PlantDto.WateringHistory.of(from, to, wateringLog.plantHistory(id, from, to));
+    }
+
+    /**
+     * Counts the waterings of all plants on each day of a range.
+     *
+     * @param from the first day, inclusive, in UTC
+     * @param to   the last day, inclusive, in UTC
+     * @return the collection's watering history
+     * @throws PlantException.InvalidInput if the range is reversed or too long
+     */
+    @Transactional(readOnly = true)
+    public PlantDto.WateringHistory findDailyWaterings(LocalDate from, LocalDate to) {
+        checkHistoryRange(from, to);
+        return PlantDto.WateringHistory.of(from, to, wateringLog.dailyTotals(from, to));
+    }
+
+    /**
+     * Searches plant names, species and notes, best matches first.
+     * <p>
+     * Every word of the query must match. Words are matched as whole tokens, case- and accent-insensitively,
+     * except the last one, which also matches as a prefix so results can be shown while the user is typing.
+     * </p>
+     *
+     * @param query the user's search text
+     * @param page  the zero-based page number
+     * @param size  the page size
+     * @return a slice of {@link PlantDto.SearchResult}s ordered by rank
+     * @throws PlantException.InvalidInput if the query is blank or the page or size is out of range
+     */
+    @Transactional(readOnly = true)
+    public Slice<PlantDto.SearchResult> search(String query, int page, int size) {
+        if (query == null || query.isBlank()) {
+            throw new PlantException.InvalidInput("Search query must not be blank");
+        }
+
+        Slice<PlantRepository.SearchHit> hits = repository.search(toMatchExpression(query), pageRequest(page, size));
+        List<UUID> ids = hits.map(hit -> fromHex(hit.getId())).getContent();
+
+        Map<UUID, Plant> plants = new HashMap<>();
+        repository.findAllById(ids).forEach(plant -> plants.put(plant.getId(), plant));
+
+        return hits.map(hit -> new PlantDto.SearchResult(plants.get(fromHex(hit.getId())), hit.getSnippet(), hit.getRank()));
+    }
+
     /**
      * Creates a new {@link Plant} from the provided DTO request.
      *
@@ -62,7 +511,10 @@ public class PlantService {
      */
     public Plant createPlant(PlantDto.Request request) {
         Plant plant = PlantDto.createPlantFromDto(request);
-        return repository.save(plant);
+        if (memoryStore != null) {
+            return memoryStore.insert(copyOf(plant, TimeOrderedUuidGenerator.nextUuid(), 0));
+        }
+        return writeQueue.execute(() -> repository.save(plant));
     }
 
     /**
@@ -74,42 +526,147 @@ public class PlantService {
      * @return the updated (or newly created) {@link Plant} entity
      */
     public Plant updatePlant(UUID id, PlantDto.Request request) {
+        return updatePlant(id, request, null);
+    }
+
+    /**
+     * Updates an existing plant with the given ID using new data, provided it still has the version named by an
+     * {@code If-Match} entity tag. Without a tag, or with {@code *}, any version is updated, and if no existing
+     * plant is found, a new one is created and saved.
+     * <p>
+     * The plant is overwritten with a single {@code UPDATE} guarded by its version, so the check and the write
+     * can't be separated by another request.
+     * </p>
+     *
+     * @param id      the ID of the plant to update
+     * @param request the updated plant data
+     * @param ifMatch the entity tag the plant must still match, or {@code null}
+     * @return the updated (or newly created) {@link Plant} entity
+     * @throws PlantException.VersionMismatch if the plant doesn't exist at the version named by the tag
+     */
+    public Plant updatePlant(UUID id, PlantDto.Request request, String ifMatch) {
         Plant newPlant = PlantDto.createPlantFromDto(request);
-        return repository.findById(id)
-                .map(existing -> {
-                    existing.setPlantName(newPlant.getPlantName());
-                    existing.setSpecies(newPlant.getSpecies());
-                    existing.setLastWatered(newPlant.getLastWatered());
-                    existing.setWateringFrequency(newPlant.getWateringFrequency());
-                    existing.setNotes(newPlant.getNotes());
-                    return repository.save(existing);
-                })
-                .orElseGet(() -> repository.save(newPlant));
+        Integer expectedVersion = expectedVersion(id, ifMatch);
+
+        if (memoryStore != null) {
+            Optional<Plant> updated = memoryStore.update(id, current -> {
+                checkVersion(current, expectedVersion);
+                return copyOf(newPlant, id, current.getVersion() + 1);
+            });
+            if (updated.isPresent()) {
+                return updated.get();
+            }
+            if (ifMatch != null) {
+                throw new PlantException.VersionMismatch(id);
+            }
+            return memoryStore.insert(copyOf(newPlant, TimeOrderedUuidGenerator.nextUuid(), 0));
+        }
+
+        return writeQueue.execute(() -> {
+            if (repository.update(id, newPlant, expectedVersion) == 0
+                    && !(archive.restore(id) && repository.update(id, newPlant, expectedVersion) == 1)) {
+                if (ifMatch != null) {
+                    throw new PlantException.VersionMismatch(id);
+                }
+                return repository.save(newPlant);
+            }
+            return repository.findById(id).orElseThrow(() -> new PlantException.PlantNotFound(id));
+        });
     }
 
     /**
-     * Deletes the plant with the given ID.
+     * Applies a JSON Merge Patch to an existing plant, provided it still has the version named by an
+     * {@code If-Match} entity tag, if one is given. An archived plant is restored first.
+     * <p>
+     * Only the values present in the patch are validated, and only the columns they change are written.
+     * A patch that doesn't change anything is answered from the read connection pool without going through
+     * the write queue at all.
+     * </p>
+     *
+     * @param id      the ID of the plant to patch
+     * @param patch   the members to change
+     * @param ifMatch the entity tag the plant must still match, or {@code null}
+     * @return the patched {@link Plant} entity
+     * @throws PlantException.PlantNotFound   if the plant does not exist
+     * @throws PlantException.VersionMismatch if the plant isn't at the version named by the tag
+     * @throws com.landrycarroll.leaflog.plantmanagement.exceptions.DomainValidationException if a value is invalid
+     */
+    public Plant patchPlant(UUID id, PlantDto.Patch patch, String ifMatch) {
+        Integer expectedVersion = expectedVersion(id, ifMatch);
+        if (memoryStore != null) {
+            return memoryStore.update(id, current -> {
+                checkVersion(current, expectedVersion);
+                Plant patched = copyOf(current, id, current.getVersion() + 1);
+                return patch.applyTo(patched) ? patched : current;
+            }).orElseThrow(() -> new PlantException.PlantNotFound(id));
+        }
+
+        Optional<Plant> current = repository.findById(id);
+        if (current.isPresent() && !patch.changes(current.get())) {
+            checkVersion(current.get(), expectedVersion);
+            return current.get();
+        }
+
+        return writeQueue.execute(() -> {
+            Plant plant = findOrRestore(id).orElseThrow(() -> new PlantException.PlantNotFound(id));
+            checkVersion(plant, expectedVersion);
+            patch.applyTo(plant);
+            return repository.save(plant);
+        });
+    }
+
+    /**
+     * Deletes the plant with the given ID, whether it is active or archived.
      *
      * @param id the UUID of the plant to delete
      * @return {@code true} if the operation completes without exception
      */
     public boolean deletePlant(UUID id) {
-        repository.deleteById(id);
+        if (memoryStore != null) {
+            memoryStore.delete(id);
+            return true;
+        }
+
+        writeQueue.execute(() -> {
+            repository.deleteById(id);
+            archive.delete(id);
+            return null;
+        });
         return true;
     }
 
     /**
-     * Marks the specified plant as watered by updating its last watered timestamp.
+     * Marks the specified plant as watered by updating its last watered timestamp and logging the watering.
+     * An archived plant is restored first.
+     * <p>
+     * The plant is watered with a single {@code UPDATE} that doesn't read it first, so concurrent waterings are
+     * never lost and each one raises the plant's version. It is only read back by id, for the response.
+     * </p>
      *
      * @param id the UUID of the plant to mark as watered
      * @return the updated {@link Plant} entity
      * @throws PlantException.PlantNotFound if the plant does not exist
      */
     public Plant markAsWatered(UUID id) {
-        Plant plant = repository.findById(id)
-                .orElseThrow(() -> new PlantException.PlantNotFound(id));
-        plant.markAsWatered();
-        return repository.save(plant);
+        Date wateredAt = new Date();
+        if (memoryStore != null) {
+            Plant watered = memoryStore.update(id, current -> {
+                Plant next = copyOf(current, id, current.getVersion() + 1);
+                next.setLastWatered(new LastWateredDate(wateredAt));
+                return next;
+            }).orElseThrow(() -> new PlantException.PlantNotFound(id));
+            memoryStore.appendWatering(id, wateredAt);
+            return watered;
+        }
+
+        return writeQueue.execute(() -> {
+            if (repository.markAsWatered(id, wateredAt.getTime()) == 0
+                    && !(archive.restore(id) && repository.markAsWatered(id, wateredAt.getTime()) == 1)) {
+                throw new PlantException.PlantNotFound(id);
+            }
+            wateringLog.append(id, wateredAt);
+            return repository.findById(id).orElseThrow(() -> new PlantException.PlantNotFound(id));
+        });
     }
 
     /**
@@ -117,13 +674,19 @@ public class PlantService {
      * <pre>
      * name - species - wateringFrequency - notes
      * </pre>
+     * <p>
+     * Every line is first validated into a {@link Plant}. The valid plants are then written in chunks of
+     * {@code leaflog.bulk-import.chunk-size}, each chunk in a single transaction using JDBC batch inserts,
+     * instead of committing once per plant.
+     * </p>
      *
      * @param file a {@link MultipartFile} containing plant data
-     * @return a {@code Map} with keys {@code "plants"} (List&lt;Plant&gt;) and {@code "errors"} (List&lt;String&gt;)
+     * @return a {@code Map} with keys {@code "plants"} (List&lt;Plant&gt;), {@code "errors"} (List&lt;String&gt;)
+     * and {@code "report"} (List&lt;{@link PlantDto.ChunkReport}&gt;)
      * @throws RuntimeException if file processing fails
      */
     public Map<String, Object> bulkCreate(MultipartFile file) {
-        List<Plant> addedPlants = new ArrayList<>();
+        List<Plant> validPlants = new ArrayList<>();
         List<String> errors = new ArrayList<>();
 
         try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream()))) {
@@ -133,27 +696,275 @@ public class PlantService {
                 if (entry.isEmpty()) continue;
 
                 try {
-                    String[] fields = entry.split("-", 5);
-                    String name = fields.length > 0 ? fields[0].trim() : "";
-                    String species = fields.length > 1 ? fields[1].trim() : "";
-                    String wateringFrequency = fields.length > 2 ? fields[2].trim() : "";
-                    String notes = fields.length > 3 ? fields[3].trim() : "";
-
-                    Plant newPlant = new Plant();
-                    newPlant.setPlantName(new PlantName(name));
-                    newPlant.setSpecies(new PlantSpecies(species));
-                    newPlant.setLastWatered(new LastWateredDate(new Date()));
-                    newPlant.setWateringFrequency(new WateringFrequencyInDays(Integer.parseInt(wateringFrequency)));
-                    newPlant.setNotes(new Notes(notes));
-
-                    addedPlants.add(repository.save(newPlant));
+                    validPlants.add(parseBulkLine(entry));
                 } catch (Exception e) {
                     errors.add("Error in line: \"" + line + "\" — " + e.getMessage());
                 }
             }
-            return Map.of("plants", addedPlants, "errors", errors);
         } catch (Exception e) {
             throw new RuntimeException("Failed to process bulk file: " + e.getMessage(), e);
         }
+
+        List<Plant> addedPlants = new ArrayList<>(validPlants.size());
+        List<PlantDto.ChunkReport> report = new ArrayList<>();
+
+        for (int from = 0; from < validPlants.size(); from += bulkChunkSize) {
+            List<Plant> chunk = validPlants.subList(from, Math.min(from + bulkChunkSize, validPlants.size()));
+
+            long start = System.nanoTime();
+            addedPlants.addAll(writeQueue.execute(() -> repository.saveAll(chunk)));
+            PlantDto.ChunkReport chunkReport = PlantDto.ChunkReport.of(report.size() + 1, chunk.size(), System.nanoTime() - start);
+
+            report.add(chunkReport);
+            log.info("Bulk import chunk {}: {} plants in {} ms ({} rows/sec)",
+                    chunkReport.chunk(), chunkReport.rows(), chunkReport.millis(), Math.round(chunkReport.rowsPerSecond()));
+        }
+
+        if (memoryStore != null) {
+            memoryStore.putAll(addedPlants);
+        }
+
+        return Map.of("plants", addedPlants, "errors", errors, "report", report);
+    }
+
+    /**
+     * Finds an active plant, moving it back from the archive first if that's where it is.
+     * Must run on the write queue.
+     *
+     * @param id the UUID of the plant
+     * @return the plant, or empty if it is neither active nor archived
+     */
+    private Optional<Plant> findOrRestore(UUID id) {
+        return repository.findById(id)
+                .or(() -> archive.restore(id) ? repository.findById(id) : Optional.empty());
+    }
+
+    /**
+     * Copies the fields of a plant into a new plant with the given id and version, so that a plant held by the
+     * {@link PlantMemoryStore} is never changed in place.
+     *
+     * @param plant   the plant to copy
+     * @param id      the id of the copy
+     * @param version the version of the copy
+     * @return the copy
+     */
+    private static Plant copyOf(Plant plant, UUID id, int version) {
+        return Plant.existingPlant(id, plant.getPlantName(), plant.getSpecies(), plant.getLastWatered(),
+                plant.getWateringFrequency(), plant.getNotes(), version);
+    }
+
+    /**
+     * Reads the plant version named by an {@code If-Match} entity tag.
+     *
+     * @param id      the UUID of the plant the tag is for
+     * @param ifMatch the entity tag, {@code *} or {@code null}
+     * @return the version the plant must be at, or {@code null} if any version will do
+     * @throws PlantException.VersionMismatch if the tag can't name a current version of the plant
+     */
+    private Integer expectedVersion(UUID id, String ifMatch) {
+        if (ifMatch == null || ifMatch.strip().equals("*")) {
+            return null;
+        }
+        return versions.versionOf(ifMatch).orElseThrow(() -> new PlantException.VersionMismatch(id));
+    }
+
+    /**
+     * Checks that a plant is at the expected version.
+     *
+     * @param plant           the plant
+     * @param expectedVersion the version it must be at, or {@code null} if any version will do
+     * @throws PlantException.VersionMismatch if the plant is at another version
+     */
+    private static void checkVersion(Plant plant, Integer expectedVersion) {
+        if (expectedVersion != null && plant.getVersion() != expectedVersion) {
+            throw new PlantException.VersionMismatch(plant.getId());
+        }
+    }
+
+    /**
+     * Validates paging parameters.
+     *
+     * @param page the zero-based page number
+     * @param size the page size
+     * @return the corresponding {@link PageRequest}
+     * @throws PlantException.InvalidInput if the page or size is out of range
+     */
+    private PageRequest pageRequest(int page, int size) {
+        if (page < 0) {
+            throw new PlantException.InvalidInput("Page must be greater than or equal to 0");
+        }
+
+        checkPageSize(size);
+        return PageRequest.of(page, size);
+    }
+
+    /**
+     * Validates a page size.
+     *
+     * @param size the page size
+     * @throws PlantException.InvalidInput if the size is out of range
+     */
+    private static void checkPageSize(int size) {
+        if (size < 1 || size > MAXIMUM_PAGE_SIZE) {
+            throw new PlantException.InvalidInput("Page size must be between 1 and " + MAXIMUM_PAGE_SIZE);
+        }
+    }
+
+    /**
+     * Validates a watering history range.
+     *
+     * @param from the first day, inclusive
+     * @param to   the last day, inclusive
+     * @throws PlantException.InvalidInput if {@code from} is after {@code to} or the range is too long
+     */
+    private static void checkHistoryRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new PlantException.InvalidInput("History start must not be after its end");
+        }
+
+        if (ChronoUnit.DAYS.between(from, to) >= MAXIMUM_HISTORY_DAYS) {
+            throw new PlantException.InvalidInput("History can span at most " + MAXIMUM_HISTORY_DAYS + " days");
+        }
+    }
+
+    /**
+     * Turns user input into an FTS5 match expression. Each word is quoted so that characters with a meaning
+     * in the FTS5 query syntax are searched for literally, and the last word becomes a prefix query.
+     *
+     * @param query the user's search text
+     * @return the match expression
+     */
+    private static String toMatchExpression(String query) {
+        String[] words = query.strip().split("\\s+");
+        StringJoiner expression = new StringJoiner(" ");
+
+        for (String word : words) {
+            expression.add('"' + word.replace("\"", "\"\"") + '"');
+        }
+        return expression + "*";
+    }
+
+    /**
+     * Converts the hexadecimal form of a 16-byte id blob back into a {@link UUID}.
+     *
+     * @param hex 32 hexadecimal digits
+     * @return the id
+     */
+    private static UUID fromHex(String hex) {
+        return new UUID(Long.parseUnsignedLong(hex.substring(0, 16), 16), Long.parseUnsignedLong(hex.substring(16), 16));
+    }
+
+    /**
+     * Returns the {@code sort} parameter value selecting an order.
+     */
+    private static String sortKeyOf(PlantListing.Order order) {
+        return SORT_KEYS.entrySet().stream().filter(entry -> entry.getValue() == order).findFirst().orElseThrow().getKey();
+    }
+
+    /**
+     * Encodes the position a page ends with as the cursor of the next page, in unpadded URL-safe Base64. The first
+     * byte holds the order and direction, followed by the plant's id and, for keyed orders, a flag telling whether
+     * the key is {@code NULL} and the key itself.
+     *
+     * @param position   the position of the last plant of a page
+     * @param order      the order plants are listed in
+     * @param descending whether plants are listed in descending order
+     * @return the cursor
+     */
+    private static String toCursor(PlantListing.Position position, PlantListing.Order order, boolean descending) {
+        byte[] key = new byte[0];
+        if (position.key() instanceof String name) {
+            key = name.getBytes(StandardCharsets.UTF_8);
+        } else if (position.key() instanceof Long value) {
+            key = ByteBuffer.allocate(8).putLong(value).array();
+        }
+        boolean keyed = order != PlantListing.Order.ID;
+        ByteBuffer bytes = ByteBuffer.allocate(17 + (keyed ? 1 + key.length : 0))
+                .put((byte) (order.ordinal() | (descending ? DESCENDING : 0)))
+                .putLong(position.id().getMostSignificantBits())
+                .putLong(position.id().getLeastSignificantBits());
+        if (keyed) {
+            bytes.put((byte) (position.key() == null ? 0 : 1)).put(key);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.array());
+    }
+
+    /**
+     * Decodes a cursor created by {@link #toCursor}.
+     *
+     * @param cursor     the cursor
+     * @param order      the order the cursor must have been created for
+     * @param descending the direction the cursor must have been created for
+     * @return the position the page starts after
+     * @throws PlantException.InvalidInput if the cursor is malformed or was created for another order
+     */
+    private static PlantListing.Position fromCursor(String cursor, PlantListing.Order order, boolean descending) {
+        ByteBuffer bytes;
+        try {
+            bytes = ByteBuffer.wrap(Base64.getUrlDecoder().decode(cursor));
+        } catch (IllegalArgumentException e) {
+            throw new PlantException.InvalidInput("Invalid cursor: " + cursor);
+        }
+        boolean keyed = order != PlantListing.Order.ID;
+        int length = bytes.remaining();
+        if (keyed ? length < 18 : length != 17) {
+            throw new PlantException.InvalidInput("Invalid cursor: " + cursor);
+        }
+        if (bytes.get() != (byte) (order.ordinal() | (descending ? DESCENDING : 0))) {
+            throw new PlantException.InvalidInput("Cursor doesn't belong to this sort order: " + cursor);
+        }
+
+        UUID id = new UUID(bytes.getLong(), bytes.getLong());
+        if (!keyed || bytes.get() == 0) {
+            return new PlantListing.Position(id, null);
+        }
+        if (order == PlantListing.Order.NAME) {
+            return new PlantListing.Position(id, StandardCharsets.UTF_8.decode(bytes).toString());
+        }
+        if (bytes.remaining() != 8) {
+            throw new PlantException.InvalidInput("Invalid cursor: " + cursor);
+        }
+        return new PlantListing.Position(id, bytes.getLong());
+    }
+
+    /**
+     * Parses and validates a single bulk import line into a new, unsaved {@link Plant}.
+     *
+     * @param entry the trimmed, non-empty line to parse
+     * @return the validated {@link Plant}
+     * @throws NumberFormatException if the watering frequency is not a number
+     * @throws com.landrycarroll.leaflog.plantmanagement.exceptions.DomainValidationException if a field is invalid
+     */
+    private Plant parseBulkLine(String entry) {
+        String[] fields = entry.split("-", 5);
+        String name = fields.length > 0 ? fields[0].trim() : "";
+        String species = fields.length > 1 ? fields[1].trim() : "";
+        String wateringFrequency = fields.length > 2 ? fields[2].trim() : "";
+        String notes = fields.length > 3 ? fields[3].trim() : "";
+
+        return Plant.newPlant(
+                new PlantName(name),
+                new PlantSpecies(species),
+                new LastWateredDate(new Date()),
+                new WateringFrequencyInDays(Integer.parseInt(wateringFrequency)),
+                new Notes(notes)
+        );
+    }
+
+    /**
+     * A validated listing query, as the listing reads it.
+     *
+     * @param filter          the filter plants must match
+     * @param order           the order plants are listed in
+     * @param descending      whether plants are listed in descending order
+     * @param after           the position the page starts after, or {@code null} for the first page
+     * @param includeArchived whether archived plants are merged into the listing, in ascending id order
+     */
+    private record ListingRequest(PlantListing.Filter filter, PlantListing.Order order, boolean descending,
+                                  PlantListing.Position after, boolean includeArchived) {
+
+        UUID afterId() {
+            return after == null ? null : after.id();
+        }
     }
 }
@@ -0,0 +1,89 @@
+package com.landrycarroll.leaflog.plantmanagement.services;
+
+import com.landrycarroll.leaflog.infrastructure.SqliteWriteQueue;
+import com.landrycarroll.leaflog.infrastructure.TenantContext;
+import com.landrycarroll.leaflog.infrastructure.TenantDatabases;
+import com.landrycarroll.leaflog.plantmanagement.repositories.WateringLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code WateringRollup} periodically folds new watering events into the {@link WateringLog}'s daily rollups.
+ * <p>
+ * Every {@code leaflog.waterings.rollup-interval}, events logged since the last run are rolled up in batches of
+ * {@code leaflog.waterings.rollup-batch-size}, each batch as its own write on the {@link SqliteWriteQueue}, so
+ * waterings are queued between batches instead of waiting for the whole run. Every open tenant database is
+ * rolled up in turn.
+ * </p>
+ */
+@Component
+public class WateringRollup {
+
+    private static final Logger log = LoggerFactory.getLogger(WateringRollup.class);
+
+    private final WateringLog wateringLog;
+    private final SqliteWriteQueue writeQueue;
+    private final TenantDatabases tenants;
+    private final int batchSize;
+
+    /**
+     * Constructs a new {@code WateringRollup}.
+     *
+     * @param wateringLog the log whose events are rolled up
+     * @param writeQueue  the single-writer queue each batch is committed through
+     * @param tenants     the registry of open tenant databases
+     * @param batchSize   the number of events rolled up per transaction
+     */
+    public WateringRollup(WateringLog wateringLog,
+                          SqliteWriteQueue writeQueue,
+                          TenantDatabases tenants,
+                          @Value("${leaflog.waterings.rollup-batch-size:1000}") int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Rollup batch size must be greater than 0");
+        }
+        this.wateringLog = wateringLog;
+        this.writeQueue = writeQueue;
+        this.tenants = tenants;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Rolls up every event logged since the last run, in every open tenant database.
+     *
+     * @return the number of events rolled up
+     */
+    @Scheduled(initialDelayString = "${leaflog.waterings.rollup-interval:PT1M}",
+            fixedDelayString = "${leaflog.waterings.rollup-interval:PT1M}")
+    public int rollUpWaterings() {
+        int total = 0;
+        for (String tenant : tenants.openTenants()) {
+            total += TenantContext.callAs(tenant, this::rollUpWateringsOfTenant);
+        }
+        return total;
+    }
+
+    /**
+     * Rolls up every pending event of the current tenant.
+     *
+     * @return the number of events rolled up
+     */
+    private int rollUpWateringsOfTenant() {
+        long start = System.nanoTime();
+        int total = 0;
+        int rolledUp;
+
+        do {
+            rolledUp = writeQueue.execute(() -> wateringLog.rollUp(batchSize));
+            total += rolledUp;
+        } while (rolledUp == batchSize);
+
+        if (total > 0) {
+            log.info("Rolled up {} watering events of tenant {} in {} ms", total, TenantContext.current(),
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,11 @@
+-- Baseline plant table, matching the layout previously generated by Hibernate's ddl-auto=update.
+-- IF NOT EXISTS lets databases created before versioned migrations adopt this version as-is.
+CREATE TABLE IF NOT EXISTS plant (
+    id blob not null,
+    last_watered_date timestamp,
+    notes varchar(255),
+    name varchar(255),
+    species varchar(255),
+    watering_frequency integer,
+    primary key (id)
+);
@@ -0,0 +1,8 @@
+-- Materialized "next due for watering" date, kept in sync by Plant and backfilled here for existing rows.
+ALTER TABLE plant ADD COLUMN next_due timestamp;
+
+UPDATE plant
+SET next_due = last_watered_date + watering_frequency * 86400000
+WHERE last_watered_date IS NOT NULL AND watering_frequency IS NOT NULL;
+
+CREATE INDEX idx_plant_next_due ON plant (next_due);
@@ -0,0 +1,40 @@
+-- Full-text index over plant name, species and notes.
+-- plant may be a WITHOUT ROWID table (leaflog.storage.compact), so the FTS rowid can't be the plant's rowid.
+-- plant_search_key assigns each plant a stable integer document id instead.
+CREATE TABLE plant_search_key (
+    docid INTEGER PRIMARY KEY,
+    id blob NOT NULL UNIQUE
+);
+
+CREATE VIRTUAL TABLE plant_search USING fts5(
+    name, species, notes,
+    tokenize = 'unicode61 remove_diacritics 2',
+    prefix = '2 3'
+);
+
+INSERT INTO plant_search_key (id) SELECT id FROM plant;
+
+INSERT INTO plant_search (rowid, name, species, notes)
+SELECT k.docid, p.name, p.species, p.notes
+FROM plant p JOIN plant_search_key k ON k.id = p.id;
+
+CREATE TRIGGER plant_search_insert AFTER INSERT ON plant
+BEGIN
+    INSERT INTO plant_search_key (id) VALUES (new.id);
+    INSERT INTO plant_search (rowid, name, species, notes)
+    VALUES ((SELECT docid FROM plant_search_key WHERE id = new.id), new.name, new.species, new.notes);
+END;
+
+-- Watering rewrites every column, so only touch the index when the searchable text actually changed.
+CREATE TRIGGER plant_search_update AFTER UPDATE OF name, species, notes ON plant
+WHEN old.name IS NOT new.name OR old.species IS NOT new.species OR old.notes IS NOT new.notes
+BEGIN
+    UPDATE plant_search SET name = new.name, species = new.species, notes = new.notes
+    WHERE rowid = (SELECT docid FROM plant_search_key WHERE id = new.id);
+END;
+
+CREATE TRIGGER plant_search_delete AFTER DELETE ON plant
+BEGIN
+    DELETE FROM plant_search WHERE rowid = (SELECT docid FROM plant_search_key WHERE id = old.id);
+    DELETE FROM plant_search_key WHERE id = old.id;
+END;
@@ -0,0 +1,35 @@
+-- Species are shared by many plants, so they are stored once in a lookup table and referenced by an integer key.
+CREATE TABLE species (
+    id INTEGER PRIMARY KEY,
+    name TEXT NOT NULL UNIQUE
+);
+
+INSERT INTO species (name) SELECT DISTINCT species FROM plant WHERE species IS NOT NULL ORDER BY species;
+
+ALTER TABLE plant ADD COLUMN species_id integer REFERENCES species (id);
+
+UPDATE plant SET species_id = (SELECT id FROM species WHERE name = plant.species);
+
+-- A column can't be dropped while triggers refer to it; the search triggers are recreated below
+DROP TRIGGER plant_search_insert;
+DROP TRIGGER plant_search_update;
+
+ALTER TABLE plant DROP COLUMN species;
+
+CREATE INDEX idx_plant_species_id ON plant (species_id);
+
+CREATE TRIGGER plant_search_insert AFTER INSERT ON plant
+BEGIN
+    INSERT INTO plant_search_key (id) VALUES (new.id);
+    INSERT INTO plant_search (rowid, name, species, notes)
+    VALUES ((SELECT docid FROM plant_search_key WHERE id = new.id), new.name,
+            (SELECT name FROM species WHERE id = new.species_id), new.notes);
+END;
+
+CREATE TRIGGER plant_search_update AFTER UPDATE OF name, species_id, notes ON plant
+WHEN old.name IS NOT new.name OR old.species_id IS NOT new.species_id OR old.notes IS NOT new.notes
+BEGIN
+    UPDATE plant_search
+    SET name = new.name, species = (SELECT name FROM species WHERE id = new.species_id), notes = new.notes
+    WHERE rowid = (SELECT docid FROM plant_search_key WHERE id = new.id);
+END;
@@ -0,0 +1,15 @@
+-- Cold storage for plants that haven't been watered in a long time. Same columns as plant, plus when the row moved.
+CREATE TABLE plant_archive (
+    id blob not null,
+    last_watered_date timestamp,
+    notes varchar(255),
+    name varchar(255),
+    watering_frequency integer,
+    next_due timestamp,
+    species_id integer REFERENCES species (id),
+    archived_at integer not null,
+    primary key (id)
+) WITHOUT ROWID;
+
+-- Lets the archiver take the longest-dormant plants in a stable order without scanning the table
+CREATE INDEX idx_plant_last_watered ON plant (last_watered_date, id);
@@ -0,0 +1,29 @@
+-- Append-only log of watering events. Rows are never updated or deleted, so rowids only grow and mark how far the
+-- rollups below have got. Per-plant history is read from the rollups, so the log needs no secondary index.
+CREATE TABLE watering_event (
+    id integer primary key,
+    plant_id blob not null,
+    watered_at integer not null
+);
+
+-- Waterings per day (days since the epoch, UTC) across the whole collection
+CREATE TABLE watering_day (
+    day integer not null primary key,
+    waterings integer not null
+);
+
+-- Waterings per plant and day
+CREATE TABLE watering_plant_day (
+    plant_id blob not null,
+    day integer not null,
+    waterings integer not null,
+    primary key (plant_id, day)
+) WITHOUT ROWID;
+
+-- The id of the last event folded into the rollups
+CREATE TABLE watering_rollup (
+    id integer not null primary key check (id = 0),
+    last_event_id integer not null
+);
+
+INSERT INTO watering_rollup (id, last_event_id) VALUES (0, 0);
@@ -0,0 +1,38 @@
+-- Optimistic locking version of each plant; archived plants keep theirs so it carries on after a restore
+ALTER TABLE plant ADD COLUMN version integer not null default 0;
+ALTER TABLE plant_archive ADD COLUMN version integer not null default 0;
+
+-- Version of the plant collection as a whole, raised by the triggers below whenever either table changes.
+-- The epoch is replaced when the database is restored from a backup, so versions are never handed out twice.
+CREATE TABLE plant_collection_version (
+    id integer not null primary key check (id = 0),
+    epoch blob not null,
+    version integer not null
+);
+
+INSERT INTO plant_collection_version (id, epoch, version) VALUES (0, randomblob(8), 0);
+
+CREATE TRIGGER plant_collection_version_insert AFTER INSERT ON plant
+BEGIN
+    UPDATE plant_collection_version SET version = version + 1;
+END;
+
+CREATE TRIGGER plant_collection_version_update AFTER UPDATE ON plant
+BEGIN
+    UPDATE plant_collection_version SET version = version + 1;
+END;
+
+CREATE TRIGGER plant_collection_version_delete AFTER DELETE ON plant
+BEGIN
+    UPDATE plant_collection_version SET version = version + 1;
+END;
+
+CREATE TRIGGER plant_collection_version_archive AFTER INSERT ON plant_archive
+BEGIN
+    UPDATE plant_collection_version SET version = version + 1;
+END;
+
+CREATE TRIGGER plant_collection_version_unarchive AFTER DELETE ON plant_archive
+BEGIN
+    UPDATE plant_collection_version SET version = version + 1;
+END;
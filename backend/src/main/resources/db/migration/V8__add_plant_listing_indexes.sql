@@ -0,0 +1,14 @@
+-- Indexes behind the filters and sort orders of the plant listing. Each one ends with id, which breaks ties between
+-- equal keys, so every page of a listing is a range scan continuing where the previous page stopped.
+
+-- Plants of one species in id order; replaces the index on species_id alone, which also served species counts
+DROP INDEX idx_plant_species_id;
+CREATE INDEX idx_plant_species_id ON plant (species_id, id);
+
+-- Case-insensitive name order, alone or within a species. lower(name) is the collation key: it is computed once
+-- per write and kept in the index, and queries must spell it the same way for SQLite to use these indexes.
+CREATE INDEX idx_plant_name_key ON plant (lower(name), id);
+CREATE INDEX idx_plant_species_name_key ON plant (species_id, lower(name), id);
+
+-- Watering frequency ranges and order; last-watered ranges and order use idx_plant_last_watered
+CREATE INDEX idx_plant_watering_frequency ON plant (watering_frequency, id);
@@ -0,0 +1,4 @@
+-- Due plants are paged in next due date order; ending the index with id breaks ties between plants due at the same
+-- time, so pages neither repeat nor skip plants and are still read straight from the index.
+DROP INDEX idx_plant_next_due;
+CREATE INDEX idx_plant_next_due ON plant (next_due, id);
@@ -0,0 +1,113 @@
+package com.landrycarroll.leaflog.plants.infrastructure;
+
+import com.landrycarroll.leaflog.infrastructure.CompactStorageMigrator;
+import com.landrycarroll.leaflog.infrastructure.SchemaMigrator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CompactStorageMigratorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private CompactStorageMigrator migrator;
+
+    @BeforeEach
+    void setup() {
+        dataSource = new SingleConnectionDataSource("jdbc:sqlite:" + tempDir.resolve("plants.db"), true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        migrator = new CompactStorageMigrator(dataSource);
+    }
+
+    @AfterEach
+    void teardown() {
+        dataSource.destroy();
+    }
+
+    @Test
+    void migrate_shouldRebuildLegacyTableWithoutRowid() {
+        jdbcTemplate.execute("CREATE TABLE plant (id blob not null, last_watered_date timestamp, notes varchar(255), "
+                + "name varchar(255), species varchar(255), watering_frequency integer, primary key (id))");
+        jdbcTemplate.execute("CREATE INDEX idx_plant_name ON plant (name)");
+        jdbcTemplate.update("INSERT INTO plant VALUES (x'0123456789abcdef0123456789abcdef', 1735725600000, 'Sunny', 'Aloe', 'Succulent', 7)");
+
+        assertThat(migrator.migrate()).isTrue();
+
+        String definition = jdbcTemplate.queryForObject("SELECT sql FROM sqlite_master WHERE name = 'plant'", String.class);
+        assertThat(definition).contains("WITHOUT ROWID");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM sqlite_master WHERE type = 'index' AND name = 'idx_plant_name'", Integer.class))
+                .isEqualTo(1);
+
+        Map<String, Object> row = jdbcTemplate.queryForMap("SELECT hex(id) AS id, name, last_watered_date FROM plant");
+        assertThat(row.get("id")).isEqualTo("0123456789ABCDEF0123456789ABCDEF");
+        assertThat(row.get("name")).isEqualTo("Aloe");
+        assertThat(((Number) row.get("last_watered_date")).longValue()).isEqualTo(1735725600000L);
+    }
+
+    @Test
+    void migrate_shouldConvertTextIdentifiersAndDates() {
+        jdbcTemplate.execute("CREATE TABLE plant (id varchar(36), last_watered_date varchar(32), notes text, "
+                + "name text, species text, watering_frequency integer)");
+        jdbcTemplate.update("INSERT INTO plant VALUES ('01234567-89ab-cdef-0123-456789abcdef', '2025-01-01 10:00:00', '', 'Fern', 'Fern', 3)");
+
+        migrator.migrate();
+
+        Map<String, Object> row = jdbcTemplate.queryForMap("SELECT typeof(id) AS type, length(id) AS size, last_watered_date FROM plant");
+        assertThat(row.get("type")).isEqualTo("blob");
+        assertThat(((Number) row.get("size")).intValue()).isEqualTo(16);
+        assertThat(((Number) row.get("last_watered_date")).longValue()).isEqualTo(1735725600000L);
+    }
+
+    @Test
+    void migrate_shouldKeepColumnConstraintsAndForeignKeysOfTheMigratedSchema() {
+        new SchemaMigrator(dataSource, "classpath:db/migration").migrate();
+        jdbcTemplate.execute("CREATE TABLE habitat (id INTEGER PRIMARY KEY)");
+        jdbcTemplate.execute("ALTER TABLE plant ADD COLUMN habitat_id integer DEFAULT (1 + 1) "
+                + "REFERENCES habitat (id) ON DELETE SET NULL");
+        List<Map<String, Object>> columns = jdbcTemplate.queryForList("PRAGMA table_info(plant)");
+        List<Map<String, Object>> foreignKeys = jdbcTemplate.queryForList("PRAGMA foreign_key_list(plant)");
+
+        assertThat(migrator.migrate()).isTrue();
+
+        assertThat(jdbcTemplate.queryForList("PRAGMA table_info(plant)")).isEqualTo(columns);
+        assertThat(jdbcTemplate.queryForList("PRAGMA foreign_key_list(plant)")).isEqualTo(foreignKeys);
+        assertThat(foreignKeys).extracting(row -> row.get("table")).containsExactlyInAnyOrder("species", "habitat");
+        assertThat(columns).filteredOn(column -> "version".equals(column.get("name")))
+                .singleElement().satisfies(column -> {
+                    assertThat(column.get("notnull")).isEqualTo(1);
+                    assertThat(column.get("dflt_value")).isEqualTo("0");
+                });
+    }
+
+    @Test
+    void migrate_shouldKeepUniqueConstraints() {
+        jdbcTemplate.execute("CREATE TABLE plant (id blob not null, name varchar(255), notes text, "
+                + "primary key (id), unique (name, notes))");
+
+        assertThat(migrator.migrate()).isTrue();
+
+        jdbcTemplate.update("INSERT INTO plant (id, name, notes) VALUES (x'01', 'Fern', 'Shade')");
+        assertThatThrownBy(() -> jdbcTemplate.update("INSERT INTO plant (id, name, notes) VALUES (x'02', 'Fern', 'Shade')"))
+                .hasMessageContaining("UNIQUE constraint failed");
+    }
+
+    @Test
+    void migrate_whenAlreadyCompact_shouldDoNothing() {
+        jdbcTemplate.execute("CREATE TABLE plant (id BLOB NOT NULL PRIMARY KEY, name TEXT) WITHOUT ROWID");
+
+        assertThat(migrator.migrate()).isFalse();
+    }
+}
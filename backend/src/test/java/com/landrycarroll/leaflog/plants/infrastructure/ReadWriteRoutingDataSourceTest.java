@@ -0,0 +1,49 @@
+package com.landrycarroll.leaflog.plants.infrastructure;
+
+import com.landrycarroll.leaflog.infrastructure.ReadWriteRoutingDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReadWriteRoutingDataSourceTest {
+
+    private Connection writeConnection;
+    private Connection readConnection;
+    private ReadWriteRoutingDataSource dataSource;
+
+    @BeforeEach
+    void setup() throws Exception {
+        DataSource writeDataSource = mock(DataSource.class);
+        DataSource readDataSource = mock(DataSource.class);
+        writeConnection = mock(Connection.class);
+        readConnection = mock(Connection.class);
+        when(writeDataSource.getConnection()).thenReturn(writeConnection);
+        when(readDataSource.getConnection()).thenReturn(readConnection);
+
+        dataSource = new ReadWriteRoutingDataSource(writeDataSource, readDataSource);
+    }
+
+    @AfterEach
+    void teardown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void getConnection_outsideReadOnlyTransaction_shouldUseWritePool() throws Exception {
+        assertThat(dataSource.getConnection()).isSameAs(writeConnection);
+    }
+
+    @Test
+    void getConnection_insideReadOnlyTransaction_shouldUseReadPool() throws Exception {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(dataSource.getConnection()).isSameAs(readConnection);
+    }
+}
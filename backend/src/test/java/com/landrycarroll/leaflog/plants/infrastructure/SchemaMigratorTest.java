@@ -0,0 +1,104 @@
+package com.landrycarroll.leaflog.plants.infrastructure;
+
+import com.landrycarroll.leaflog.infrastructure.SchemaMigrator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.*;
+
+class SchemaMigratorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path scripts;
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private SchemaMigrator migrator;
+
+    @BeforeEach
+    void setup() throws Exception {
+        scripts = Files.createDirectory(tempDir.resolve("migrations"));
+        Files.writeString(scripts.resolve("V1__create_things.sql"), "CREATE TABLE things (id INTEGER PRIMARY KEY, name TEXT);");
+        Files.writeString(scripts.resolve("V2__index_things_name.sql"), "CREATE INDEX idx_things_name ON things (name);");
+
+        dataSource = new SingleConnectionDataSource("jdbc:sqlite:" + tempDir.resolve("plants.db"), true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        migrator = new SchemaMigrator(dataSource, scripts.toUri().toString());
+    }
+
+    @AfterEach
+    void teardown() {
+        dataSource.destroy();
+    }
+
+    @Test
+    void migrate_shouldApplyScriptsInVersionOrderAndRecordThem() {
+        int applied = migrator.migrate();
+
+        assertThat(applied).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForList("SELECT description FROM schema_version ORDER BY version", String.class))
+                .containsExactly("create things", "index things name");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM sqlite_master WHERE type = 'index' AND name = 'idx_things_name'", Integer.class))
+                .isEqualTo(1);
+    }
+
+    @Test
+    void migrate_shouldOnlyApplyPendingScripts() throws Exception {
+        migrator.migrate();
+        Files.writeString(scripts.resolve("V3__add_things_notes.sql"), "ALTER TABLE things ADD COLUMN notes TEXT;");
+
+        int applied = migrator.migrate();
+
+        assertThat(applied).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT max(version) FROM schema_version", Integer.class)).isEqualTo(3);
+    }
+
+    @Test
+    void migrate_shouldRunTriggerBodiesAsOneStatement() throws Exception {
+        Files.writeString(scripts.resolve("V3__add_things_audit.sql"), """
+                -- Audit every renamed thing
+                CREATE TABLE things_audit (id INTEGER, name TEXT);
+
+                CREATE TRIGGER things_renamed AFTER UPDATE OF name ON things
+                BEGIN
+                    INSERT INTO things_audit (id, name) VALUES (old.id, old.name);
+                    INSERT INTO things_audit (id, name) VALUES (new.id, new.name);
+                END;
+                """);
+
+        migrator.migrate();
+        jdbcTemplate.update("INSERT INTO things (id, name) VALUES (1, 'before')");
+        jdbcTemplate.update("UPDATE things SET name = 'after' WHERE id = 1");
+
+        assertThat(jdbcTemplate.queryForList("SELECT name FROM things_audit ORDER BY rowid", String.class))
+                .containsExactly("before", "after");
+    }
+
+    @Test
+    void migrate_whenAppliedScriptChanged_shouldFail() throws Exception {
+        migrator.migrate();
+        Files.writeString(scripts.resolve("V1__create_things.sql"), "CREATE TABLE things (id INTEGER PRIMARY KEY);");
+
+        assertThatThrownBy(() -> migrator.migrate())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("V1");
+    }
+
+    @Test
+    void migrate_whenScriptFails_shouldNotRecordIt() throws Exception {
+        Files.writeString(scripts.resolve("V3__broken.sql"), "CREATE TABLE things (id INTEGER);");
+
+        assertThatThrownBy(() -> migrator.migrate());
+
+        assertThat(jdbcTemplate.queryForList("SELECT version FROM schema_version", Integer.class)).containsExactly(1, 2);
+    }
+}
@@ -0,0 +1,106 @@
+package com.landrycarroll.leaflog.plants.infrastructure;
+
+import com.landrycarroll.leaflog.infrastructure.SchemaMigrator;
+import com.landrycarroll.leaflog.infrastructure.SlowQueryLog;
+import com.landrycarroll.leaflog.infrastructure.SlowQueryLog.SlowQuery;
+import com.landrycarroll.leaflog.infrastructure.StatementTimingDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sqlite.SQLiteConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class SlowQueryLogTest {
+
+    @TempDir
+    Path tempDir;
+
+    private SingleConnectionDataSource dataSource;
+    private SlowQueryLog slowQueryLog;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setup() {
+        dataSource = new SingleConnectionDataSource("jdbc:sqlite:" + tempDir.resolve("plants.db"), true);
+        new SchemaMigrator(dataSource, "classpath:db/migration").migrate();
+        slowQueryLog = new SlowQueryLog(true, Duration.ZERO, 2);
+        jdbcTemplate = new JdbcTemplate(slowQueryLog.timed(dataSource));
+    }
+
+    @AfterEach
+    void teardown() {
+        dataSource.destroy();
+    }
+
+    @Test
+    void shapeOf_shouldReplaceLiteralsAndCollapseListsAndWhitespace() {
+        assertThat(SlowQueryLog.shapeOf("""
+                SELECT p1_0.id FROM plant p1_0
+                WHERE p1_0.name = 'O''Brien' AND p1_0.id IN (?, ?,?) AND version > 12 AND id = x'0A1b'
+                LIMIT 2.5"""))
+                .isEqualTo("SELECT p1_0.id FROM plant p1_0 WHERE p1_0.name = ? AND p1_0.id IN (?, ...) "
+                        + "AND version > ? AND id = ? LIMIT ?");
+    }
+
+    @Test
+    void record_shouldGroupExecutionsByShapeAndCaptureTheirPlanOnce() {
+        jdbcTemplate.update("INSERT INTO plant (id, name, watering_frequency, next_due) VALUES (randomblob(16), 'Fern', 3, 5)");
+        for (int i = 0; i < 3; i++) {
+            jdbcTemplate.queryForList("SELECT name FROM plant WHERE next_due < " + i, String.class);
+        }
+        jdbcTemplate.queryForList("SELECT name FROM plant WHERE notes IS NULL", String.class);
+
+        List<SlowQuery> queries = slowQueryLog.top(10);
+
+        assertThat(queries).extracting(SlowQuery::statement).containsExactlyInAnyOrder(
+                "INSERT INTO plant (id, name, watering_frequency, next_due) VALUES (randomblob(?), ?, ?, ?)",
+                "SELECT name FROM plant WHERE next_due < ?");
+        assertThat(slowQueryLog.untracked()).isEqualTo(1);
+
+        SlowQuery search = queries.stream().filter(query -> query.statement().startsWith("SELECT")).findFirst().orElseThrow();
+        assertThat(search.count()).isEqualTo(3);
+        assertThat(search.maxMillis()).isGreaterThanOrEqualTo(search.p50Millis());
+        assertThat(search.totalMillis()).isGreaterThanOrEqualTo(search.maxMillis());
+        assertThat(search.plan()).singleElement().asString().startsWith("SEARCH plant USING INDEX");
+    }
+
+    @Test
+    void record_whenFasterThanThreshold_shouldIgnoreTheStatement() {
+        SlowQueryLog strictLog = new SlowQueryLog(true, Duration.ofMinutes(1), 2);
+
+        new JdbcTemplate(strictLog.timed(dataSource)).queryForList("SELECT name FROM plant", String.class);
+
+        assertThat(strictLog.top(10)).isEmpty();
+    }
+
+    @Test
+    void record_whenTableIsScanned_shouldCaptureTheScan() {
+        jdbcTemplate.queryForList("SELECT name FROM plant WHERE notes = 'Shade'", String.class);
+
+        assertThat(slowQueryLog.top(1)).singleElement()
+                .satisfies(query -> assertThat(query.plan()).containsExactly("SCAN plant"));
+    }
+
+    @Test
+    void timed_whenDisabled_shouldReturnTheDataSourceItself() {
+        assertThat(new SlowQueryLog(false, Duration.ZERO, 2).timed(dataSource)).isSameAs(dataSource);
+        assertThat(slowQueryLog.timed(dataSource)).isInstanceOf(StatementTimingDataSource.class);
+    }
+
+    @Test
+    void connections_shouldUnwrapToTheDriverConnection() throws Exception {
+        try (Connection connection = slowQueryLog.timed(dataSource).getConnection()) {
+            assertThat(connection.unwrap(SQLiteConnection.class)).isNotNull();
+            assertThat(connection).isEqualTo(connection).isNotEqualTo(dataSource.getConnection());
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.landrycarroll.leaflog.plants.infrastructure;
+
+import com.landrycarroll.leaflog.infrastructure.DatabaseRestoredEvent;
+import com.landrycarroll.leaflog.infrastructure.SqliteBackupService;
+import com.landrycarroll.leaflog.infrastructure.SqliteBackupService.BackupStatus;
+import com.landrycarroll.leaflog.infrastructure.SqliteWriteQueue;
+import com.landrycarroll.leaflog.infrastructure.TenantContext;
+import com.landrycarroll.leaflog.infrastructure.TenantDatabases;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SqliteBackupServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private SqliteWriteQueue writeQueue;
+    private ApplicationEventPublisher eventPublisher;
+    private Map<String, Path> files;
+    private TenantDatabases tenants;
+
+    @BeforeEach
+    void setup() {
+        String url = "jdbc:sqlite:" + tempDir.resolve("plants.db");
+        dataSource = new SingleConnectionDataSource(url, true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("PRAGMA journal_mode=WAL");
+        jdbcTemplate.execute("CREATE TABLE plant (name TEXT)");
+        jdbcTemplate.update("INSERT INTO plant (name) VALUES ('Fern')");
+
+        writeQueue = new SqliteWriteQueue(mock(PlatformTransactionManager.class), 64);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+
+        files = new LinkedHashMap<>();
+        files.put(TenantContext.DEFAULT_TENANT, tempDir.resolve("plants.db"));
+        tenants = mock(TenantDatabases.class);
+        when(tenants.files()).thenAnswer(invocation -> Map.copyOf(files));
+        when(tenants.file(anyString())).thenAnswer(invocation -> {
+            Path file = files.get(invocation.<String>getArgument(0));
+            if (file == null) throw new IllegalArgumentException("Invalid tenant id");
+            return file;
+        });
+    }
+
+    @AfterEach
+    void teardown() {
+        writeQueue.shutdown();
+        dataSource.destroy();
+    }
+
+    @Test
+    void constructor_shouldRejectNonPositiveRetention() {
+        assertThatThrownBy(() -> service(0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Backup retention must be greater than 0");
+    }
+
+    @Test
+    void start_shouldWriteCompleteBackupFile() throws Exception {
+        SqliteBackupService backups = service(7);
+
+        BackupStatus status = awaitBackup(backups);
+
+        assertThat(status.state()).isEqualTo(BackupStatus.State.COMPLETED);
+        assertThat(status.percentComplete()).isEqualTo(100);
+        assertThat(backups.list()).extracting(SqliteBackupService.BackupFile::name).containsExactly(status.name());
+
+        Path file = tempDir.resolve("backups").resolve(status.name());
+        SingleConnectionDataSource copy = new SingleConnectionDataSource("jdbc:sqlite:" + file, true);
+        try {
+            assertThat(new JdbcTemplate(copy).queryForList("SELECT name FROM plant", String.class)).containsExactly("Fern");
+        } finally {
+            copy.destroy();
+        }
+        try (var files = Files.list(file.getParent())) {
+            assertThat(files.map(path -> path.getFileName().toString())).noneMatch(name -> name.endsWith(".partial"));
+        }
+    }
+
+    @Test
+    void start_shouldKeepOnlyNewestBackups() throws Exception {
+        SqliteBackupService backups = service(2);
+
+        awaitBackup(backups);
+        awaitBackup(backups);
+        String newest = awaitBackup(backups).name();
+
+        assertThat(backups.list()).hasSize(2);
+        assertThat(backups.list().get(0).name()).isEqualTo(newest);
+    }
+
+    @Test
+    void restore_shouldReplaceDatabaseContentsAndPublishEvent() throws Exception {
+        SqliteBackupService backups = service(7);
+        String name = awaitBackup(backups).name();
+        jdbcTemplate.update("DELETE FROM plant");
+
+        backups.restore(name);
+
+        assertThat(jdbcTemplate.queryForList("SELECT name FROM plant", String.class)).containsExactly("Fern");
+        verify(eventPublisher).publishEvent(any(DatabaseRestoredEvent.class));
+    }
+
+    @Test
+    void start_shouldBackUpEveryTenantToItsOwnDirectory() throws Exception {
+        Path greenhouse = tenant("greenhouse", "Cactus");
+        SqliteBackupService backups = service(7);
+
+        BackupStatus status = awaitBackup(backups);
+
+        assertThat(status.state()).isEqualTo(BackupStatus.State.COMPLETED);
+        assertThat(backups.list()).extracting(SqliteBackupService.BackupFile::name).containsExactly(status.name());
+        assertThat(backups.list("greenhouse")).extracting(SqliteBackupService.BackupFile::name).containsExactly(status.name());
+        assertThat(names(tempDir.resolve("backups").resolve(status.name()))).containsExactly("Fern");
+        assertThat(names(tempDir.resolve("backups").resolve("tenants").resolve("greenhouse").resolve(status.name())))
+                .containsExactly("Cactus");
+        assertThat(names(greenhouse)).containsExactly("Cactus");
+    }
+
+    @Test
+    void start_whenATenantFails_shouldStillBackUpTheOthers() throws Exception {
+        files.put("broken", tempDir.resolve("missing").resolve("broken.db"));
+        SqliteBackupService backups = service(7);
+
+        BackupStatus status = awaitBackup(backups);
+
+        assertThat(status.state()).isEqualTo(BackupStatus.State.FAILED);
+        assertThat(status.error()).contains("broken");
+        assertThat(backups.list()).extracting(SqliteBackupService.BackupFile::name).containsExactly(status.name());
+        assertThat(backups.list("broken")).isEmpty();
+    }
+
+    @Test
+    void restore_whenATenantIsGiven_shouldOnlyRestoreThatTenant() throws Exception {
+        Path greenhouse = tenant("greenhouse", "Cactus");
+        SqliteBackupService backups = service(7);
+        String name = awaitBackup(backups).name();
+        jdbcTemplate.update("DELETE FROM plant");
+        update(greenhouse, "DELETE FROM plant");
+
+        backups.restore("greenhouse", name);
+
+        assertThat(names(greenhouse)).containsExactly("Cactus");
+        assertThat(jdbcTemplate.queryForList("SELECT name FROM plant", String.class)).isEmpty();
+        ArgumentCaptor<DatabaseRestoredEvent> event = ArgumentCaptor.forClass(DatabaseRestoredEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().getTenant()).isEqualTo("greenhouse");
+    }
+
+    @Test
+    void restore_shouldRejectUnknownBackup() {
+        SqliteBackupService backups = service(7);
+
+        assertThatThrownBy(() -> backups.restore("leaflog-20200101-000000-000.db"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> backups.restore("../plants.db"))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(eventPublisher);
+    }
+
+    private SqliteBackupService service(int retention) {
+        DataSourceProperties properties = new DataSourceProperties();
+        properties.setUrl(dataSource.getUrl());
+        return new SqliteBackupService(properties, tenants, writeQueue, eventPublisher, "", 1, Duration.ZERO, retention);
+    }
+
+    /**
+     * Creates another tenant's database holding a single plant.
+     */
+    private Path tenant(String tenant, String plant) throws Exception {
+        Path file = tempDir.resolve("tenants").resolve(tenant + ".db");
+        Files.createDirectories(file.getParent());
+        update(file, "CREATE TABLE plant (name TEXT)");
+        update(file, "INSERT INTO plant (name) VALUES ('" + plant + "')");
+        files.put(tenant, file);
+        return file;
+    }
+
+    private static void update(Path file, String sql) {
+        SingleConnectionDataSource database = new SingleConnectionDataSource("jdbc:sqlite:" + file, true);
+        try {
+            new JdbcTemplate(database).update(sql);
+        } finally {
+            database.destroy();
+        }
+    }
+
+    private static List<String> names(Path file) {
+        SingleConnectionDataSource database = new SingleConnectionDataSource("jdbc:sqlite:" + file, true);
+        try {
+            return new JdbcTemplate(database).queryForList("SELECT name FROM plant", String.class);
+        } finally {
+            database.destroy();
+        }
+    }
+
+    private static BackupStatus awaitBackup(SqliteBackupService backups) throws InterruptedException {
+        // Backup names have millisecond resolution, so keep consecutive backups apart
+        Thread.sleep(5);
+        BackupStatus started = backups.start();
+        for (int i = 0; i < 500 && backups.status().state() == BackupStatus.State.RUNNING; i++) {
+            Thread.sleep(10);
+        }
+        assertThat(backups.status().name()).isEqualTo(started.name());
+        return backups.status();
+    }
+}
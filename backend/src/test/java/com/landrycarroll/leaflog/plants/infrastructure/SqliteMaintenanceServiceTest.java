@@ -0,0 +1,147 @@
+package com.landrycarroll.leaflog.plants.infrastructure;
+
+import com.landrycarroll.leaflog.infrastructure.RequestRateMonitor;
+import com.landrycarroll.leaflog.infrastructure.SqliteMaintenanceService;
+import com.landrycarroll.leaflog.infrastructure.SqliteWriteQueue;
+import com.landrycarroll.leaflog.infrastructure.TenantContext;
+import com.landrycarroll.leaflog.infrastructure.TenantDatabases;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SqliteMaintenanceServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private SingleConnectionDataSource dataSource;
+    private SingleConnectionDataSource readDataSource;
+    private JdbcTemplate jdbcTemplate;
+    private SqliteWriteQueue writeQueue;
+    private RequestRateMonitor requestRate;
+    private TenantDatabases tenants;
+
+    @BeforeEach
+    void setup() {
+        String url = "jdbc:sqlite:" + tempDir.resolve("plants.db");
+        dataSource = new SingleConnectionDataSource(url, true);
+        readDataSource = new SingleConnectionDataSource(url, true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("PRAGMA journal_mode=WAL");
+        jdbcTemplate.execute("CREATE TABLE plant (id INTEGER PRIMARY KEY, name TEXT, notes TEXT)");
+        jdbcTemplate.execute("CREATE INDEX idx_plant_name ON plant (name)");
+
+        writeQueue = new SqliteWriteQueue(mock(PlatformTransactionManager.class), 64);
+        requestRate = new RequestRateMonitor();
+        tenants = mock(TenantDatabases.class);
+        when(tenants.openTenants()).thenReturn(List.of(TenantContext.DEFAULT_TENANT));
+    }
+
+    @AfterEach
+    void teardown() {
+        writeQueue.shutdown();
+        dataSource.destroy();
+        readDataSource.destroy();
+    }
+
+    @Test
+    void enableIncrementalVacuum_shouldSwitchExistingDatabaseOnce() {
+        SqliteMaintenanceService maintenance = service(30);
+
+        assertThat(maintenance.enableIncrementalVacuum()).isTrue();
+        assertThat(jdbcTemplate.queryForObject("PRAGMA auto_vacuum", Integer.class)).isEqualTo(2);
+        assertThat(maintenance.enableIncrementalVacuum()).isFalse();
+    }
+
+    @Test
+    void maintainNow_shouldReclaimFreePagesAndAnalyze() {
+        SqliteMaintenanceService maintenance = service(30);
+        maintenance.enableIncrementalVacuum();
+        insertPlants(2000);
+        long pagesBefore = pageCount();
+        jdbcTemplate.update("DELETE FROM plant WHERE id % 2 = 0 OR id > 1000");
+
+        SqliteMaintenanceService.MaintenanceRun run = maintenance.maintainNow();
+
+        assertThat(run.pagesReclaimed()).isPositive();
+        assertThat(run.freePages()).isZero();
+        assertThat(run.analyzed()).isTrue();
+        assertThat(pageCount()).isLessThan(pagesBefore);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM sqlite_stat1 WHERE tbl = 'plant'", Integer.class)).isPositive();
+        assertThat(maintenance.lastRun()).isEqualTo(run);
+    }
+
+    @Test
+    void maintainWhenQuiet_shouldSkipWhenRequestRateIsAboveThreshold() {
+        SqliteMaintenanceService maintenance = service(2);
+        requestRate.record();
+        requestRate.record();
+
+        maintenance.maintainWhenQuiet();
+
+        assertThat(maintenance.lastRun()).isNull();
+    }
+
+    @Test
+    void maintainWhenQuiet_shouldRunWhenRequestRateIsBelowThreshold() {
+        SqliteMaintenanceService maintenance = service(2);
+        requestRate.record();
+
+        maintenance.maintainWhenQuiet();
+
+        assertThat(maintenance.lastRun()).isNotNull();
+    }
+
+    @Test
+    void metrics_shouldReportPagesPerTableAndIndex() {
+        SqliteMaintenanceService maintenance = service(30);
+        maintenance.enableIncrementalVacuum();
+        insertPlants(500);
+
+        SqliteMaintenanceService.StorageMetrics metrics = maintenance.metrics();
+
+        assertThat(metrics.incrementalVacuum()).isTrue();
+        assertThat(metrics.fileBytes()).isEqualTo(metrics.pageCount() * metrics.pageSize());
+        assertThat(metrics.objects())
+                .extracting(SqliteMaintenanceService.ObjectUsage::name, SqliteMaintenanceService.ObjectUsage::type,
+                        SqliteMaintenanceService.ObjectUsage::table)
+                .contains(tuple("plant", "table", "plant"), tuple("idx_plant_name", "index", "plant"));
+        assertThat(metrics.objects().get(0).name()).isEqualTo("plant");
+        assertThat(metrics.objects().stream().mapToLong(SqliteMaintenanceService.ObjectUsage::pages).sum())
+                .isEqualTo(metrics.pageCount() - metrics.freePages() - 1);
+    }
+
+    @Test
+    void requestRateMonitor_shouldCountRequestsOfTheLastMinute() {
+        requestRate.record();
+        requestRate.record();
+        requestRate.record();
+
+        assertThat(requestRate.requestsPerMinute()).isEqualTo(3);
+    }
+
+    private SqliteMaintenanceService service(long quietThreshold) {
+        return new SqliteMaintenanceService(dataSource, readDataSource, writeQueue, requestRate, tenants, true,
+                quietThreshold, 100, 0.0, Duration.ofDays(1));
+    }
+
+    private void insertPlants(int count) {
+        jdbcTemplate.update("WITH RECURSIVE n(i) AS (SELECT 1 UNION ALL SELECT i + 1 FROM n WHERE i < ?) "
+                + "INSERT INTO plant (id, name, notes) SELECT i, 'Plant' || i, randomblob(400) FROM n", count);
+    }
+
+    private long pageCount() {
+        return jdbcTemplate.queryForObject("PRAGMA page_count", Long.class);
+    }
+}
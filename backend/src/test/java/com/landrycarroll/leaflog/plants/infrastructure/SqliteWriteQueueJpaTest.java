@@ -0,0 +1,207 @@
+package com.landrycarroll.leaflog.plants.infrastructure;
+
+import com.landrycarroll.leaflog.infrastructure.SchemaMigrator;
+import com.landrycarroll.leaflog.infrastructure.SqliteWriteQueue;
+import com.landrycarroll.leaflog.infrastructure.TenantContext;
+import com.landrycarroll.leaflog.plantmanagement.domain.entities.Plant;
+import com.landrycarroll.leaflog.plantmanagement.domain.valueobjects.*;
+import com.landrycarroll.leaflog.plantmanagement.exceptions.PlantException;
+import com.landrycarroll.leaflog.plantmanagement.repositories.PlantRepository;
+import com.landrycarroll.leaflog.plantmanagement.repositories.SpeciesDictionary;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.community.dialect.SQLiteDialect;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.orm.hibernate5.SpringBeanContainer;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Runs the write queue against real entities in a migrated SQLite database, with the same transaction manager as the
+ * application, so that savepoints, flushes and the persistence context behave as they do in production.
+ */
+class SqliteWriteQueueJpaTest {
+
+    @TempDir
+    Path tempDir;
+
+    private SingleConnectionDataSource dataSource;
+    private EntityManagerFactory entityManagerFactory;
+    private EntityManager entityManager;
+    private PlantRepository repository;
+    private SqliteWriteQueue writeQueue;
+
+    private final CountDownLatch writerBusy = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setup() {
+        dataSource = new SingleConnectionDataSource("jdbc:sqlite:" + tempDir.resolve("plants.db"), true);
+        new SchemaMigrator(dataSource, "classpath:db/migration").migrate();
+
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("speciesDictionary", new SpeciesDictionary(dataSource, 16));
+
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan("com.landrycarroll.leaflog.plantmanagement.domain");
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setJpaPropertyMap(Map.of(
+                AvailableSettings.DIALECT, SQLiteDialect.class.getName(),
+                AvailableSettings.BEAN_CONTAINER, new SpringBeanContainer(beanFactory)));
+        factoryBean.afterPropertiesSet();
+        entityManagerFactory = factoryBean.getObject();
+
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory);
+        repository = new JpaRepositoryFactory(entityManager).getRepository(PlantRepository.class);
+        JpaTransactionManager transactionManager = new JpaTransactionManager(entityManagerFactory);
+        transactionManager.afterPropertiesSet();
+        writeQueue = new SqliteWriteQueue(transactionManager, 64);
+    }
+
+    @AfterEach
+    void teardown() {
+        release.countDown();
+        writeQueue.shutdown();
+        entityManagerFactory.close();
+        dataSource.destroy();
+    }
+
+    @Test
+    void submit_whenAWriteGroupedWithACreateFails_shouldStillCreateThePlant() throws Exception {
+        blockWriter();
+
+        Plant fern = newPlant("Fern");
+        CompletableFuture<Plant> create = writeQueue.submit(() -> repository.save(fern));
+        UUID unknown = UUID.randomUUID();
+        CompletableFuture<Integer> water = writeQueue.submit(() -> {
+            int updated = repository.markAsWatered(unknown, System.currentTimeMillis());
+            if (updated == 0) throw new PlantException.PlantNotFound(unknown);
+            return updated;
+        });
+        release.countDown();
+
+        assertThat(create.get(5, TimeUnit.SECONDS).getId()).isNotNull();
+        assertThatThrownBy(() -> water.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(PlantException.PlantNotFound.class);
+        assertThat(names()).containsExactly("Fern");
+    }
+
+    @Test
+    void submit_whenAWriteFailsAfterPersisting_shouldOnlyRollBackThatWrite() throws Exception {
+        blockWriter();
+
+        CompletableFuture<Plant> before = writeQueue.submit(() -> repository.save(newPlant("Fern")));
+        CompletableFuture<Plant> failed = writeQueue.submit(() -> {
+            repository.save(newPlant("Cactus"));
+            throw new IllegalStateException("failed after persisting");
+        });
+        CompletableFuture<Plant> after = writeQueue.submit(() -> repository.save(newPlant("Palm")));
+        release.countDown();
+
+        assertThat(before.get(5, TimeUnit.SECONDS).getId()).isNotNull();
+        assertThat(after.get(5, TimeUnit.SECONDS).getId()).isNotNull();
+        assertThatThrownBy(() -> failed.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(names()).containsExactlyInAnyOrder("Fern", "Palm");
+    }
+
+    @Test
+    void submit_whenAFailureLeavesTheGroupRollbackOnly_shouldCommitTheWritesThatHadNotRunYet() throws Exception {
+        blockWriter();
+
+        CompletableFuture<Plant> before = writeQueue.submit(() -> repository.save(newPlant("Fern")));
+        CompletableFuture<Integer> failed = writeQueue.submit(() ->
+                entityManager.createNativeQuery("INSERT INTO plant (id) VALUES (NULL)").executeUpdate());
+        CompletableFuture<Plant> after = writeQueue.submit(() -> repository.save(newPlant("Palm")));
+        release.countDown();
+
+        assertThat(after.get(5, TimeUnit.SECONDS).getId()).isNotNull();
+        assertThatThrownBy(() -> failed.get(5, TimeUnit.SECONDS)).isInstanceOf(Exception.class);
+        assertThatThrownBy(() -> before.get(5, TimeUnit.SECONDS)).isInstanceOf(Exception.class);
+        assertThat(names()).containsExactly("Palm");
+    }
+
+    @Test
+    void submit_whenAWriteThatAddedASpeciesIsRolledBack_shouldNotReuseTheSpeciesId() throws Exception {
+        Plant fern = writeQueue.execute(() -> repository.save(newPlant("Fern")));
+        blockWriter();
+
+        CompletableFuture<Integer> stale = writeQueue.submit(() -> {
+            int updated = repository.update(fern.getId(), newPlant("Fern", "Ghost"), 99);
+            if (updated == 0) throw new PlantException.VersionMismatch(fern.getId());
+            return updated;
+        });
+        CompletableFuture<Plant> orchid = writeQueue.submit(() -> repository.save(newPlant("Orchid", "Orchid")));
+        release.countDown();
+
+        assertThatThrownBy(() -> stale.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(PlantException.VersionMismatch.class);
+        assertThat(orchid.get(5, TimeUnit.SECONDS).getId()).isNotNull();
+
+        writeQueue.execute(() -> repository.save(newPlant("Ghost", "Ghost")));
+
+        assertThat(new JdbcTemplate(dataSource).queryForList(
+                "SELECT p.name || '=' || s.name FROM plant p JOIN species s ON s.id = p.species_id", String.class))
+                .containsExactlyInAnyOrder("Fern=Polypodiopsida", "Orchid=Orchid", "Ghost=Ghost");
+    }
+
+    @Test
+    void execute_shouldNotCountATransactionInWhichEveryWriteFailed() {
+        long before = writeQueue.commits(TenantContext.DEFAULT_TENANT);
+
+        assertThatThrownBy(() -> writeQueue.execute(() -> {
+            repository.save(newPlant("Fern"));
+            throw new IllegalStateException("rolled back");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(writeQueue.commits(TenantContext.DEFAULT_TENANT)).isEqualTo(before);
+        assertThat(names()).isEmpty();
+    }
+
+    private void blockWriter() throws InterruptedException {
+        writeQueue.submit(() -> {
+            writerBusy.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        });
+        assertThat(writerBusy.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private List<String> names() {
+        return new JdbcTemplate(dataSource).queryForList("SELECT name FROM plant", String.class);
+    }
+
+    private static Plant newPlant(String name) {
+        return newPlant(name, "Polypodiopsida");
+    }
+
+    private static Plant newPlant(String name, String species) {
+        return Plant.newPlant(new PlantName(name), new PlantSpecies(species),
+                new LastWateredDate(new Date()), new WateringFrequencyInDays(3), new Notes(null));
+    }
+}
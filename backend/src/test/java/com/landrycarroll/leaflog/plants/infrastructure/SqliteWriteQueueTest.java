@@ -0,0 +1,163 @@
+package com.landrycarroll.leaflog.plants.infrastructure;
+
+import com.landrycarroll.leaflog.infrastructure.SqliteWriteQueue;
+import com.landrycarroll.leaflog.infrastructure.TenantContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SqliteWriteQueueTest {
+
+    private PlatformTransactionManager transactionManager;
+    private SqliteWriteQueue writeQueue;
+
+    @BeforeEach
+    void setup() {
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> mock(TransactionStatus.class));
+        writeQueue = new SqliteWriteQueue(transactionManager, 64);
+    }
+
+    @AfterEach
+    void teardown() {
+        writeQueue.shutdown();
+    }
+
+    @Test
+    void execute_shouldReturnMutationResult() {
+        String result = writeQueue.execute(() -> "saved");
+
+        assertThat(result).isEqualTo("saved");
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void execute_shouldRethrowMutationException() {
+        assertThatThrownBy(() -> writeQueue.execute(() -> {
+            throw new IllegalStateException("boom");
+        }))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("boom");
+    }
+
+    @Test
+    void submit_shouldGroupQueuedWritesIntoOneTransaction() throws Exception {
+        CountDownLatch writerBusy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Integer> blocker = writeQueue.submit(() -> {
+            writerBusy.countDown();
+            await(release);
+            return 0;
+        });
+        assertThat(writerBusy.await(5, TimeUnit.SECONDS)).isTrue();
+
+        List<CompletableFuture<Integer>> queued = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            int value = i;
+            queued.add(writeQueue.submit(() -> value));
+        }
+        release.countDown();
+
+        assertThat(blocker.get(5, TimeUnit.SECONDS)).isZero();
+        for (int i = 0; i < queued.size(); i++) {
+            assertThat(queued.get(i).get(5, TimeUnit.SECONDS)).isEqualTo(i + 1);
+        }
+
+        // One transaction for the blocker, one for the ten writes that queued up behind it
+        verify(transactionManager, times(2)).getTransaction(any(TransactionDefinition.class));
+    }
+
+    @Test
+    void submit_whenOneWriteInGroupFails_shouldOnlyFailThatWrite() throws Exception {
+        CountDownLatch writerBusy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        writeQueue.submit(() -> {
+            writerBusy.countDown();
+            await(release);
+            return null;
+        });
+        assertThat(writerBusy.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<String> good = writeQueue.submit(() -> "ok");
+        CompletableFuture<String> bad = writeQueue.submit(() -> {
+            throw new IllegalArgumentException("bad write");
+        });
+        release.countDown();
+
+        assertThat(good.get(5, TimeUnit.SECONDS)).isEqualTo("ok");
+        assertThatThrownBy(() -> bad.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void submit_shouldRunEachWriteAsItsTenantAndNeverGroupTenantsTogether() throws Exception {
+        CountDownLatch writerBusy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        writeQueue.submit(() -> {
+            writerBusy.countDown();
+            await(release);
+            return null;
+        });
+        assertThat(writerBusy.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<String> first = TenantContext.callAs("a", () -> writeQueue.submit(TenantContext::current));
+        CompletableFuture<String> second = TenantContext.callAs("a", () -> writeQueue.submit(TenantContext::current));
+        CompletableFuture<String> third = TenantContext.callAs("b", () -> writeQueue.submit(TenantContext::current));
+        CompletableFuture<String> fourth = writeQueue.submit(TenantContext::current);
+        release.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("a");
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("a");
+        assertThat(third.get(5, TimeUnit.SECONDS)).isEqualTo("b");
+        assertThat(fourth.get(5, TimeUnit.SECONDS)).isEqualTo(TenantContext.DEFAULT_TENANT);
+
+        // One transaction for the blocker, then one each for tenant a, tenant b and the default tenant
+        verify(transactionManager, times(4)).getTransaction(any(TransactionDefinition.class));
+    }
+
+    @Test
+    void commits_shouldCountCommittedTransactionsPerTenantBeforeReleasingCallers() {
+        long before = writeQueue.commits("a");
+
+        TenantContext.runAs("a", () -> writeQueue.execute(() -> "first"));
+        assertThat(writeQueue.commits("a")).isEqualTo(before + 1);
+        TenantContext.runAs("a", () -> writeQueue.execute(() -> "second"));
+        assertThatThrownBy(() -> TenantContext.runAs("a", () -> writeQueue.execute(() -> {
+            throw new IllegalStateException("rolled back");
+        })));
+
+        assertThat(writeQueue.commits("a")).isEqualTo(before + 2);
+        assertThat(writeQueue.commits("never-written")).isZero();
+    }
+
+    @Test
+    void submit_afterShutdown_shouldBeRejected() {
+        writeQueue.shutdown();
+
+        assertThatThrownBy(() -> writeQueue.submit(() -> "late"))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.landrycarroll.leaflog.plants.infrastructure;
+
+import com.landrycarroll.leaflog.infrastructure.TenantClosedEvent;
+import com.landrycarroll.leaflog.infrastructure.TenantContext;
+import com.landrycarroll.leaflog.infrastructure.TenantDatabase;
+import com.landrycarroll.leaflog.infrastructure.TenantDatabases;
+import com.landrycarroll.leaflog.infrastructure.TenantRoutingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TenantDatabasesTest {
+
+    @TempDir
+    Path tempDir;
+
+    private HikariDataSource writeDataSource;
+    private HikariDataSource readDataSource;
+    private ApplicationEventPublisher eventPublisher;
+    private TenantDatabases tenants;
+
+    @BeforeEach
+    void setup() {
+        String url = "jdbc:sqlite:" + tempDir.resolve("leaflog.db") + "?journal_mode=WAL&busy_timeout=5000";
+        writeDataSource = pool(url);
+        readDataSource = pool(url);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        tenants = tenants(url, true, 2, Duration.ofMinutes(10));
+    }
+
+    @AfterEach
+    void teardown() {
+        tenants.shutdown();
+        readDataSource.close();
+        writeDataSource.close();
+    }
+
+    @Test
+    void get_shouldCreateAndMigrateTenantDatabaseOnFirstUse() {
+        TenantDatabase database = tenants.get("greenhouse-2");
+
+        assertThat(tempDir.resolve("tenants").resolve("greenhouse-2.db")).exists();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database.dataSource());
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM schema_version", Integer.class)).isPositive();
+        assertThat(jdbcTemplate.queryForObject("PRAGMA auto_vacuum", Integer.class)).isEqualTo(2);
+        assertThat(tenants.get("greenhouse-2")).isSameAs(database);
+        assertThat(tenants.openTenants()).containsExactly(TenantContext.DEFAULT_TENANT, "greenhouse-2");
+    }
+
+    @Test
+    void routingDataSource_shouldUseTheCurrentTenantsDatabase() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new TenantRoutingDataSource(tenants, TenantDatabase::dataSource));
+
+        TenantContext.runAs("a", () -> jdbcTemplate.update("INSERT INTO species (name) VALUES ('Fern')"));
+
+        assertThat(TenantContext.callAs("a", () -> jdbcTemplate.queryForList("SELECT name FROM species", String.class)))
+                .containsExactly("Fern");
+        assertThat(TenantContext.callAs("b", () -> jdbcTemplate.queryForList("SELECT name FROM species", String.class)))
+                .isEmpty();
+        assertThat(tenants.stats()).extracting(TenantDatabase.TenantStats::tenant)
+                .containsExactly(TenantContext.DEFAULT_TENANT, "a", "b");
+        assertThat(tenants.stats().get(1).connectionCheckouts()).isEqualTo(2);
+    }
+
+    @Test
+    void get_shouldCloseLeastRecentlyUsedTenantBeyondMaximum() throws Exception {
+        TenantDatabase first = tenants.get("a");
+        Thread.sleep(5);
+        tenants.get("b");
+        Thread.sleep(5);
+        tenants.get("c");
+
+        assertThat(tenants.openTenants()).containsExactly(TenantContext.DEFAULT_TENANT, "b", "c");
+        verify(eventPublisher).publishEvent(argThat((ApplicationEvent event) ->
+                event instanceof TenantClosedEvent closed && closed.getTenant().equals("a")));
+
+        TenantDatabase reopened = tenants.get("a");
+        assertThat(reopened).isNotSameAs(first);
+        assertThat(tenants.openTenants()).containsExactly(TenantContext.DEFAULT_TENANT, "a", "c");
+    }
+
+    @Test
+    void closeIdleTenants_shouldCloseTenantsWithoutRecentRequests() throws Exception {
+        tenants.shutdown();
+        tenants = tenants(writeDataSource.getJdbcUrl(), true, 2, Duration.ZERO);
+        tenants.get("a");
+        Thread.sleep(5);
+
+        tenants.closeIdleTenants();
+
+        assertThat(tenants.openTenants()).containsExactly(TenantContext.DEFAULT_TENANT);
+    }
+
+    @Test
+    void files_shouldListEveryTenantOnDiskWhetherOpenOrNot() throws Exception {
+        tenants.get("a");
+        tenants.get("b");
+        tenants.get("c");
+        Files.writeString(tempDir.resolve("tenants").resolve("notes.txt"), "not a tenant");
+
+        assertThat(tenants.openTenants()).doesNotContain("a");
+        assertThat(tenants.files()).containsExactly(
+                entry(TenantContext.DEFAULT_TENANT, tempDir.resolve("leaflog.db").toAbsolutePath()),
+                entry("a", tempDir.resolve("tenants").resolve("a.db").toAbsolutePath()),
+                entry("b", tempDir.resolve("tenants").resolve("b.db").toAbsolutePath()),
+                entry("c", tempDir.resolve("tenants").resolve("c.db").toAbsolutePath()));
+    }
+
+    @Test
+    void get_shouldRejectInvalidTenantIds() {
+        assertThatThrownBy(() -> tenants.get("../leaflog"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> tenants.get(""))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void get_whenDisabled_shouldOnlyServeTheDefaultTenant() {
+        tenants.shutdown();
+        tenants = tenants(writeDataSource.getJdbcUrl(), false, 2, Duration.ofMinutes(10));
+
+        assertThat(tenants.get(TenantContext.DEFAULT_TENANT)).isNotNull();
+        assertThatThrownBy(() -> tenants.get("a"))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(tenants.openTenants()).isEqualTo(List.of(TenantContext.DEFAULT_TENANT));
+    }
+
+    private TenantDatabases tenants(String url, boolean enabled, int maxOpen, Duration idleTimeout) {
+        DataSourceProperties properties = new DataSourceProperties();
+        properties.setUrl(url);
+        return new TenantDatabases(writeDataSource, readDataSource, properties, eventPublisher, enabled, "", 1,
+                maxOpen, idleTimeout, "classpath:db/migration");
+    }
+
+    private static HikariDataSource pool(String url) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(url);
+        config.setMaximumPoolSize(1);
+        return new HikariDataSource(config);
+    }
+}
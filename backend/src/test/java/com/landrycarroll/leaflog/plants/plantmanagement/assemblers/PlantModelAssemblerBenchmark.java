@@ -0,0 +1,86 @@
+package com.landrycarroll.leaflog.plants.plantmanagement.assemblers;
+
+import com.landrycarroll.leaflog.plantmanagement.assemblers.PlantModelAssembler;
+import com.landrycarroll.leaflog.plantmanagement.controllers.PlantController;
+import com.landrycarroll.leaflog.plantmanagement.domain.entities.Plant;
+import com.landrycarroll.leaflog.plantmanagement.domain.valueobjects.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Links;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
+
+/**
+ * Measures how long it takes to assemble the model of one plant in a page of plants, with links built by
+ * {@code methodOn} for every plant, as the assembler used to, and with the assembler's link templates.
+ * <p>
+ * Not run with the other tests, since its name doesn't end with {@code Test}; run it with
+ * {@code mvn test -Dtest=PlantModelAssemblerBenchmark}.
+ * </p>
+ */
+class PlantModelAssemblerBenchmark {
+
+    private static final int PAGE_SIZE = 200;
+    private static final int WARMUP_ROUNDS = 200;
+    private static final int MEASURED_ROUNDS = 500;
+
+    private final PlantModelAssembler assembler = new PlantModelAssembler();
+    private final List<Plant> page = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        RequestContextHolder.setRequestAttributes(
+                new ServletRequestAttributes(new MockHttpServletRequest("GET", "/api/plants")));
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            page.add(Plant.existingPlant(UUID.randomUUID(), new PlantName("Plant " + i), null,
+                    new LastWateredDate(null), new WateringFrequencyInDays(3), new Notes(null), 0));
+        }
+    }
+
+    @AfterEach
+    void teardown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void assemblePage() {
+        Function<List<Plant>, CollectionModel<EntityModel<Plant>>> methodOnLinks = plants -> CollectionModel.of(
+                plants.stream().map(plant -> EntityModel.of(plant,
+                        linkTo(methodOn(PlantController.class).plant(plant.getId(), null)).withSelfRel(),
+                        linkTo(PlantController.class).withRel("plants"))).toList());
+        Function<List<Plant>, CollectionModel<EntityModel<Plant>>> templateLinks = assembler::toCollectionModel;
+        assertThat(templateLinks.apply(page).getContent()).extracting(EntityModel::getLinks).map(Links::toString)
+                .isEqualTo(methodOnLinks.apply(page).getContent().stream().map(model -> model.getLinks().toString()).toList());
+
+        double before = nanosPerPlant(methodOnLinks);
+        double after = nanosPerPlant(templateLinks);
+
+        System.out.printf("Per plant: methodOn %.0f ns, templates %.0f ns (%.1fx)%n", before, after, before / after);
+    }
+
+    private double nanosPerPlant(Function<List<Plant>, CollectionModel<EntityModel<Plant>>> assemble) {
+        long sink = 0;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            sink += assemble.apply(page).getContent().size();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            sink += assemble.apply(page).getContent().size();
+        }
+        long elapsed = System.nanoTime() - start;
+        assertThat(sink).isEqualTo((long) (WARMUP_ROUNDS + MEASURED_ROUNDS) * PAGE_SIZE);
+        return (double) elapsed / MEASURED_ROUNDS / PAGE_SIZE;
+    }
+}
@@ -0,0 +1,91 @@
+package com.landrycarroll.leaflog.plants.plantmanagement.assemblers;
+
+import com.landrycarroll.leaflog.plantmanagement.assemblers.PlantModelAssembler;
+import com.landrycarroll.leaflog.plantmanagement.controllers.PlantController;
+import com.landrycarroll.leaflog.plantmanagement.domain.entities.Plant;
+import com.landrycarroll.leaflog.plantmanagement.domain.valueobjects.*;
+import com.landrycarroll.leaflog.plantmanagement.repositories.PlantListing;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
+
+class PlantModelAssemblerTest {
+
+    private final PlantModelAssembler assembler = new PlantModelAssembler();
+
+    @BeforeEach
+    void setup() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/plants");
+        request.setServerName("plants.example");
+        request.setServerPort(8443);
+        request.setScheme("https");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @AfterEach
+    void teardown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void toModel_shouldLinkLikeTheControllerMappings() {
+        Plant plant = plantWithId(new UUID(1, 2));
+
+        EntityModel<Plant> model = assembler.toModel(plant);
+
+        // Compared by relation and URI only, since methodOn also attaches affordances, which HAL doesn't render
+        assertThat(model.getContent()).isSameAs(plant);
+        assertThat(model.getLinks()).extracting(Link::getRel, Link::getHref).containsExactly(
+                tuple(IanaLinkRelations.SELF, linkTo(methodOn(PlantController.class).plant(plant.getId(), null)).toUri().toString()),
+                tuple(LinkRelation.of("plants"), linkTo(PlantController.class).toUri().toString()));
+        assertThat(model.getRequiredLink(IanaLinkRelations.SELF).getHref())
+                .isEqualTo("https://plants.example:8443/api/plants/00000000-0000-0001-0000-000000000002");
+    }
+
+    @Test
+    void toCollectionModel_shouldLinkEveryPlantToItself() {
+        List<Plant> plants = List.of(plantWithId(new UUID(1, 1)), plantWithId(new UUID(1, 2)));
+
+        CollectionModel<EntityModel<Plant>> models = assembler.toCollectionModel(plants);
+
+        assertThat(models.getContent()).extracting(model -> model.getRequiredLink(IanaLinkRelations.SELF).getHref())
+                .containsExactly(
+                        linkTo(methodOn(PlantController.class).plant(new UUID(1, 1), null)).toUri().toString(),
+                        linkTo(methodOn(PlantController.class).plant(new UUID(1, 2), null)).toUri().toString());
+        assertThat(models.getContent()).extracting(model -> model.getRequiredLink("plants"))
+                .containsOnly(Link.of("https://plants.example:8443/api/plants", "plants"));
+    }
+
+    @Test
+    void toModel_withFields_shouldOnlyLinkThePlantToItself() {
+        UUID id = new UUID(1, 3);
+        PlantListing.PlantFields fields = new PlantListing.PlantFields(new PlantListing.Position(id, null),
+                Map.of("id", id, "plantName", "Fern"));
+
+        EntityModel<Map<String, Object>> model = assembler.toModel(fields);
+
+        assertThat(model.getContent()).isSameAs(fields.fields());
+        assertThat(model.getLinks()).containsExactly(
+                Link.of("https://plants.example:8443/api/plants/00000000-0000-0001-0000-000000000003").withSelfRel());
+    }
+
+    private static Plant plantWithId(UUID id) {
+        return Plant.existingPlant(id, new PlantName("Fern"), null, new LastWateredDate(null),
+                new WateringFrequencyInDays(3), new Notes(null), 0);
+    }
+}
@@ -0,0 +1,104 @@
+package com.landrycarroll.leaflog.plants.plantmanagement.controllers;
+
+import com.landrycarroll.leaflog.plantmanagement.controllers.PlantController;
+import com.landrycarroll.leaflog.plantmanagement.domain.entities.Plant;
+import com.landrycarroll.leaflog.plantmanagement.domain.valueobjects.*;
+import com.landrycarroll.leaflog.plantmanagement.dtos.PlantDto;
+import com.landrycarroll.leaflog.plantmanagement.services.PlantService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class PlantControllerTest {
+
+    private static final UUID FERN = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+    private PlantService plantService;
+    private PlantController controller;
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    void setup() {
+        plantService = mock(PlantService.class);
+        controller = new PlantController(plantService, null, null);
+        response = new MockHttpServletResponse();
+    }
+
+    @Test
+    void plant_andPlantBinary_shouldCarryDifferentTags() {
+        Plant fern = fern();
+        when(plantService.findTag(FERN)).thenReturn(Optional.of("e-4"));
+        when(plantService.findById(FERN)).thenReturn(fern);
+        when(plantService.tagOf(fern)).thenReturn("e-4");
+
+        ResponseEntity<?> json = controller.plant(FERN, request(null));
+        ResponseEntity<byte[]> binary = controller.plantBinary(FERN, request(null));
+
+        assertThat(json.getHeaders().getETag()).isEqualTo("\"e-4\"");
+        assertThat(binary.getHeaders().getETag()).isNotEqualTo(json.getHeaders().getETag());
+    }
+
+    @Test
+    void plantBinary_whenIfNoneMatchNamesTheJsonTag_shouldNotBeNotModified() {
+        Plant fern = fern();
+        when(plantService.findTag(FERN)).thenReturn(Optional.of("e-4"));
+        when(plantService.findById(FERN)).thenReturn(fern);
+        when(plantService.tagOf(fern)).thenReturn("e-4");
+
+        ResponseEntity<byte[]> binary = controller.plantBinary(FERN, request("\"e-4\""));
+
+        assertThat(binary).isNotNull();
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(binary.getBody()).isNotEmpty();
+    }
+
+    @Test
+    void plantBinary_whenIfNoneMatchNamesTheBinaryTag_shouldBeNotModified() {
+        when(plantService.findTag(FERN)).thenReturn(Optional.of("e-4"));
+        when(plantService.findById(FERN)).thenReturn(fern());
+        when(plantService.tagOf(any())).thenReturn("e-4");
+        String tag = controller.plantBinary(FERN, request(null)).getHeaders().getETag();
+
+        response = new MockHttpServletResponse();
+        ResponseEntity<byte[]> binary = controller.plantBinary(FERN, request(tag));
+
+        assertThat(binary).isNull();
+        assertThat(response.getStatus()).isEqualTo(304);
+    }
+
+    @Test
+    void allBinary_whenIfNoneMatchNamesTheJsonTag_shouldNotBeNotModified() {
+        when(plantService.collectionTag()).thenReturn("e-9");
+        when(plantService.findPage(null, null, 20)).thenReturn(new PlantDto.PlantPage<>(List.of(fern()), null));
+
+        ResponseEntity<byte[]> binary = controller.allBinary(null, null, null, 20, request("\"e-9\""));
+
+        assertThat(binary).isNotNull();
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(binary.getHeaders().getETag()).isNotEqualTo("\"e-9\"");
+    }
+
+    private ServletWebRequest request(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/plants");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return new ServletWebRequest(request, response);
+    }
+
+    private static Plant fern() {
+        return Plant.existingPlant(FERN, new PlantName("Fern"), new PlantSpecies("Polypodiopsida"),
+                new LastWateredDate(null), new WateringFrequencyInDays(3), new Notes(null), 4);
+    }
+}
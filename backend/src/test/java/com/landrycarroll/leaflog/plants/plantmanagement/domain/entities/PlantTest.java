@@ -95,4 +95,45 @@ public class PlantTest {
         // Act & Assert
         assertThrows(Exception.class, () -> plant.setWateringFrequency(new WateringFrequencyInDays(400)));
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldCalculateNextDueFromLastWateredAndFrequency() {
+        // Arrange
+        Date date = new Date(1_700_000_000_000L);
+
+        // Act
+        Plant plant = Plant.newPlant(
+                new PlantName("Name"),
+                new PlantSpecies("Species"),
+                new LastWateredDate(date),
+                new WateringFrequencyInDays(7),
+                new Notes("Notes")
+        );
+
+        // Assert
+        assertEquals(date.getTime() + TimeUnit.DAYS.toMillis(7), plant.getNextDue().getTime());
+    }
+
+    @Test
+    void shouldRecalculateNextDueWhenFrequencyOrLastWateredChanges() {
+        // Arrange
+        Date date = new Date(1_700_000_000_000L);
+        Plant plant = Plant.newPlant(
+                new PlantName("Name"),
+                new PlantSpecies("Species"),
+                new LastWateredDate(date),
+                new WateringFrequencyInDays(7),
+                new Notes("Notes")
+        );
+
+        // Act & Assert
+        plant.setWateringFrequency(new WateringFrequencyInDays(14));
+        assertEquals(date.getTime() + TimeUnit.DAYS.toMillis(14), plant.getNextDue().getTime());
+
+        plant.markAsWatered();
+        assertEquals(plant.getLastWatered().value().getTime() + TimeUnit.DAYS.toMillis(14), plant.getNextDue().getTime());
+
+        plant.setLastWatered(new LastWateredDate(null));
+        assertNull(plant.getNextDue());
+    }
+}
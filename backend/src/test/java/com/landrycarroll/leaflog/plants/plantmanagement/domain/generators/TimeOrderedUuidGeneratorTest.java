@@ -0,0 +1,41 @@
+package com.landrycarroll.leaflog.plants.plantmanagement.domain.generators;
+
+import com.landrycarroll.leaflog.plantmanagement.domain.generators.TimeOrderedUuidGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimeOrderedUuidGeneratorTest {
+
+    @Test
+    public void shouldGenerateVersion7Uuids() {
+        UUID uuid = TimeOrderedUuidGenerator.nextUuid();
+
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+    }
+
+    @Test
+    public void shouldEmbedCurrentTimestamp() {
+        long before = System.currentTimeMillis();
+        UUID uuid = TimeOrderedUuidGenerator.nextUuid();
+
+        long embeddedMillis = uuid.getMostSignificantBits() >>> 16;
+
+        assertTrue(embeddedMillis >= before);
+        assertTrue(embeddedMillis <= System.currentTimeMillis() + 1);
+    }
+
+    @Test
+    public void shouldGenerateStrictlyIncreasingUuids() {
+        UUID previous = TimeOrderedUuidGenerator.nextUuid();
+
+        for (int i = 0; i < 10_000; i++) {
+            UUID next = TimeOrderedUuidGenerator.nextUuid();
+            assertTrue(Long.compareUnsigned(next.getMostSignificantBits(), previous.getMostSignificantBits()) > 0);
+            previous = next;
+        }
+    }
+}
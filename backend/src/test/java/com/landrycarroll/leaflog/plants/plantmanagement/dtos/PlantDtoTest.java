@@ -0,0 +1,40 @@
+package com.landrycarroll.leaflog.plants.plantmanagement.dtos;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.landrycarroll.leaflog.plantmanagement.domain.entities.Plant;
+import com.landrycarroll.leaflog.plantmanagement.dtos.PlantDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.*;
+
+class PlantDtoTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void patch_shouldOnlyContainMembersPresentInDocument() throws Exception {
+        Plant plant = PlantDto.createPlantFromDto(new PlantDto.Request("Fern", "Polypodiopsida", new Date(0), 3, "Shade"));
+
+        PlantDto.Patch patch = objectMapper.readValue("{\"notes\": null, \"wateringFrequencyInDays\": 4}", PlantDto.Patch.class);
+
+        assertThat(patch.applyTo(plant)).isTrue();
+        assertThat(plant.getNotes().value()).isNull();
+        assertThat(plant.getWateringFrequency().value()).isEqualTo(4);
+        assertThat(plant.getPlantName().value()).isEqualTo("Fern");
+        assertThat(plant.getLastWatered().value()).isEqualTo(new Date(0));
+        assertThat(plant.getNextDue()).isEqualTo(new Date(4 * 86_400_000L));
+    }
+
+    @Test
+    void patch_whenEmpty_shouldNotChangeAnything() throws Exception {
+        Plant plant = PlantDto.createPlantFromDto(new PlantDto.Request("Fern", "Polypodiopsida", new Date(0), 3, "Shade"));
+
+        PlantDto.Patch patch = objectMapper.readValue("{}", PlantDto.Patch.class);
+
+        assertThat(patch.isEmpty()).isTrue();
+        assertThat(patch.changes(plant)).isFalse();
+        assertThat(patch.applyTo(plant)).isFalse();
+    }
+}
@@ -0,0 +1,92 @@
+package com.landrycarroll.leaflog.plants.plantmanagement.repositories;
+
+import com.landrycarroll.leaflog.plantmanagement.repositories.PlantArchive;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+class PlantArchiveTest {
+
+    private static final long DAY = 86_400_000L;
+
+    @TempDir
+    Path tempDir;
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private PlantArchive archive;
+
+    @BeforeEach
+    void setup() {
+        dataSource = new SingleConnectionDataSource("jdbc:sqlite:" + tempDir.resolve("plants.db"), true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE plant (id blob not null, last_watered_date timestamp, notes varchar(255), "
+                + "name varchar(255), watering_frequency integer, next_due timestamp, species_id integer, "
+                + "version integer not null default 0, primary key (id))");
+        jdbcTemplate.execute("CREATE TABLE plant_archive (id blob not null, last_watered_date timestamp, notes varchar(255), "
+                + "name varchar(255), watering_frequency integer, next_due timestamp, species_id integer, "
+                + "version integer not null default 0, archived_at integer not null, primary key (id)) WITHOUT ROWID");
+        archive = new PlantArchive(dataSource);
+    }
+
+    @AfterEach
+    void teardown() {
+        dataSource.destroy();
+    }
+
+    @Test
+    void archiveDormant_shouldMoveLongestDormantPlantsFirst() {
+        long now = System.currentTimeMillis();
+        insertPlant(new UUID(0, 1), "Fern", now - 400 * DAY);
+        insertPlant(new UUID(0, 2), "Cactus", now - 300 * DAY);
+        insertPlant(new UUID(0, 3), "Palm", now - 200 * DAY);
+        insertPlant(new UUID(0, 4), "Aloe", now);
+
+        int archived = archive.archiveDormant(new Date(now - 100 * DAY), 2);
+
+        assertThat(archived).isEqualTo(2);
+        assertThat(names("plant_archive")).containsExactlyInAnyOrder("Fern", "Cactus");
+        assertThat(names("plant")).containsExactlyInAnyOrder("Palm", "Aloe");
+    }
+
+    @Test
+    void restore_shouldMoveArchivedPlantBackUnchanged() {
+        UUID id = new UUID(0, 1);
+        long lastWatered = System.currentTimeMillis() - 400 * DAY;
+        insertPlant(id, "Fern", lastWatered);
+        archive.archiveDormant(new Date(), 10);
+
+        assertThat(archive.contains(id)).isTrue();
+        assertThat(archive.restore(id)).isTrue();
+
+        assertThat(archive.contains(id)).isFalse();
+        assertThat(jdbcTemplate.queryForObject("SELECT last_watered_date FROM plant WHERE name = 'Fern'", Long.class))
+                .isEqualTo(lastWatered);
+    }
+
+    @Test
+    void restore_whenNotArchived_shouldReturnFalse() {
+        assertThat(archive.restore(new UUID(0, 1))).isFalse();
+    }
+
+    private void insertPlant(UUID id, String name, long lastWatered) {
+        byte[] key = ByteBuffer.allocate(16).putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).array();
+        jdbcTemplate.update("INSERT INTO plant (id, name, last_watered_date, watering_frequency) VALUES (?, ?, ?, 7)",
+                key, name, lastWatered);
+    }
+
+    private List<String> names(String table) {
+        return jdbcTemplate.queryForList("SELECT name FROM " + table, String.class);
+    }
+}
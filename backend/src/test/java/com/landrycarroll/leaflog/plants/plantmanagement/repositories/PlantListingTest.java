@@ -0,0 +1,313 @@
+package com.landrycarroll.leaflog.plants.plantmanagement.repositories;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.landrycarroll.leaflog.infrastructure.SchemaMigrator;
+import com.landrycarroll.leaflog.infrastructure.SlowQueryLog;
+import com.landrycarroll.leaflog.plantmanagement.domain.entities.Plant;
+import com.landrycarroll.leaflog.plantmanagement.domain.valueobjects.*;
+import com.landrycarroll.leaflog.plantmanagement.repositories.PlantListing;
+import com.landrycarroll.leaflog.plantmanagement.repositories.SpeciesDictionary;
+import com.landrycarroll.leaflog.plantmanagement.serialization.PlantBinary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.*;
+
+class PlantListingTest {
+
+    private static final UUID FERN = UUID.fromString("01a14dd2-379b-7000-92fe-a00e31c2a0d9");
+    private static final UUID CACTUS = UUID.fromString("01a14dd2-379c-7000-8000-000000000002");
+    private static final long MARCH_2 = 1_772_443_800_123L;
+
+    @TempDir
+    Path tempDir;
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private SpeciesDictionary dictionary;
+    private PlantListing listing;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    void setup() {
+        dataSource = new SingleConnectionDataSource("jdbc:sqlite:" + tempDir.resolve("plants.db"), true);
+        new SchemaMigrator(dataSource, "classpath:db/migration").migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        dictionary = new SpeciesDictionary(dataSource, 16);
+        listing = new PlantListing(dataSource, dictionary);
+    }
+
+    @AfterEach
+    void teardown() {
+        dataSource.destroy();
+    }
+
+    @Test
+    void writeAll_shouldWritePlantsInTheShapeOfTheSerializedEntity() throws Exception {
+        jdbcTemplate.update("""
+                INSERT INTO plant (id, name, species_id, last_watered_date, watering_frequency, notes, next_due, version)
+                VALUES (?, 'Fern "Frida"', ?, ?, 3, 'Shade, ü', ?, 4)""",
+                toBytes(FERN), dictionary.resolve("Polypodiopsida"), MARCH_2, MARCH_2 + 3 * 86_400_000L);
+        jdbcTemplate.update("INSERT INTO plant (id, name, watering_frequency) VALUES (?, 'Cactus', 0)", toBytes(CACTUS));
+
+        assertThat(writeAll(false)).isEqualTo("[" +
+                "{\"id\":\"01a14dd2-379b-7000-92fe-a00e31c2a0d9\",\"plantName\":\"Fern \\\"Frida\\\"\"," +
+                "\"species\":\"Polypodiopsida\",\"lastWatered\":1772443800123,\"wateringFrequency\":3," +
+                "\"notes\":\"Shade, ü\",\"nextDue\":1772703000123,\"version\":4}," +
+                "{\"id\":\"01a14dd2-379c-7000-8000-000000000002\",\"plantName\":\"Cactus\",\"species\":null," +
+                "\"lastWatered\":null,\"wateringFrequency\":0,\"notes\":null,\"nextDue\":null,\"version\":0}]");
+    }
+
+    @Test
+    void writeAll_shouldWriteWhatSerializingTheEntitiesWrites() throws Exception {
+        jdbcTemplate.update("""
+                INSERT INTO plant (id, name, species_id, last_watered_date, watering_frequency, notes, next_due, version)
+                VALUES (?, 'Fern', ?, -1, 3, 'Shade', ?, 4)""",
+                toBytes(FERN), dictionary.resolve("Polypodiopsida"), 3 * 86_400_000L - 1);
+        jdbcTemplate.update("INSERT INTO plant (id, name, watering_frequency) VALUES (?, 'Cactus', 0)", toBytes(CACTUS));
+
+        List<Plant> plants = listing.page(null, 10, false);
+
+        assertThat(writeAll(false)).isEqualTo(objectMapper.writeValueAsString(plants));
+    }
+
+    @Test
+    void writeAllBinary_shouldWriteWhatEncodingTheEntitiesWrites() throws Exception {
+        jdbcTemplate.update("""
+                INSERT INTO plant (id, name, species_id, last_watered_date, watering_frequency, notes, next_due, version)
+                VALUES (?, 'Fern', ?, ?, 3, 'Shade, ü', ?, 4)""",
+                toBytes(FERN), dictionary.resolve("Polypodiopsida"), MARCH_2, MARCH_2 + 3 * 86_400_000L);
+        jdbcTemplate.update("INSERT INTO plant (id, name, watering_frequency) VALUES (?, 'Cactus', 0)", toBytes(CACTUS));
+        jdbcTemplate.update("INSERT INTO plant_archive (id, name, species_id, watering_frequency, archived_at) VALUES (?, 'Ivy', ?, 1, 0)",
+                toBytes(new UUID(0, 7)), dictionary.resolve("Polypodiopsida"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        listing.writeAllBinary(true, out);
+
+        List<Plant> plants = new ArrayList<>(listing.page(null, 10, false));
+        plants.add(Plant.existingPlant(new UUID(0, 7), new PlantName("Ivy"), new PlantSpecies("Polypodiopsida"),
+                new LastWateredDate(null), new WateringFrequencyInDays(1), new Notes(null), 0));
+        assertThat(out.toByteArray()).isEqualTo(PlantBinary.encode(plants));
+    }
+
+    @Test
+    void writeAll_whenIncludingArchived_shouldWriteArchivedPlantsAfterActiveOnes() throws Exception {
+        jdbcTemplate.update("INSERT INTO plant (id, name, watering_frequency) VALUES (?, 'Fern', 1)", toBytes(CACTUS));
+        jdbcTemplate.update("INSERT INTO plant_archive (id, name, watering_frequency, archived_at) VALUES (?, 'Cactus', 1, 0)",
+                toBytes(FERN));
+
+        assertThat(objectMapper.readTree(writeAll(true)).findValuesAsText("id"))
+                .containsExactly(CACTUS.toString(), FERN.toString());
+        assertThat(objectMapper.readTree(writeAll(false))).hasSize(1);
+    }
+
+    @Test
+    void writeAll_withFields_shouldWriteAndReadOnlyThoseFields() throws Exception {
+        jdbcTemplate.update("""
+                INSERT INTO plant (id, name, species_id, last_watered_date, watering_frequency, notes, next_due, version)
+                VALUES (?, 'Fern', ?, ?, 3, 'Shade', ?, 4)""",
+                toBytes(FERN), dictionary.resolve("Polypodiopsida"), MARCH_2, MARCH_2 + 3 * 86_400_000L);
+        SlowQueryLog statements = new SlowQueryLog(true, Duration.ZERO, 200);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        new PlantListing(statements.timed(dataSource), dictionary).writeAll(false, PlantListing.Field.SUMMARY, out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("[" +
+                "{\"id\":\"01a14dd2-379b-7000-92fe-a00e31c2a0d9\",\"plantName\":\"Fern\"," +
+                "\"species\":\"Polypodiopsida\",\"nextDue\":1772703000123}]");
+        assertThat(statements.top(1)).singleElement().extracting(SlowQueryLog.SlowQuery::statement)
+                .isEqualTo("SELECT id, name, species_id, next_due FROM plant");
+    }
+
+    @Test
+    void page_withFields_shouldMapOnlyThoseFieldsAndStillTrackThePosition() {
+        insertPlants();
+        Set<PlantListing.Field> fields = EnumSet.of(PlantListing.Field.ID, PlantListing.Field.NOTES);
+
+        List<PlantListing.PlantFields> page = listing.page(PlantListing.Filter.NONE, PlantListing.Order.LAST_WATERED,
+                true, null, 2, fields);
+
+        assertThat(page).extracting(PlantListing.PlantFields::position).containsExactly(
+                new PlantListing.Position(new UUID(0, 5), MARCH_2 + 5), new PlantListing.Position(new UUID(0, 4), MARCH_2 + 1));
+        assertThat(page.get(0).fields()).containsOnlyKeys("id", "notes")
+                .containsEntry("id", new UUID(0, 5))
+                .containsEntry("notes", null);
+        assertThat(listing.page(new UUID(0, 4), 5, false, fields)).extracting(plant -> plant.fields().get("id"))
+                .containsExactly(new UUID(0, 5), new UUID(0, 6));
+    }
+
+    @Test
+    void page_shouldReadPlantsInIdOrderAfterTheGivenId() {
+        for (long i = 5; i >= 1; i--) {
+            jdbcTemplate.update("INSERT INTO plant (id, name, watering_frequency) VALUES (?, ?, 1)",
+                    toBytes(new UUID(0, i)), "Plant " + i);
+        }
+
+        assertThat(listing.page(null, 2, false)).extracting(Plant::getId).containsExactly(new UUID(0, 1), new UUID(0, 2));
+        assertThat(listing.page(new UUID(0, 2), 2, false)).extracting(Plant::getId)
+                .containsExactly(new UUID(0, 3), new UUID(0, 4));
+        assertThat(listing.page(new UUID(0, 4), 2, false)).singleElement()
+                .satisfies(plant -> assertThat(plant.getPlantName().value()).isEqualTo("Plant 5"));
+    }
+
+    @Test
+    void page_whenIncludingArchived_shouldMergeArchivedPlantsIntoIdOrder() {
+        jdbcTemplate.update("INSERT INTO plant (id, name, watering_frequency) VALUES (?, 'Fern', 1), (?, 'Palm', 1)",
+                toBytes(new UUID(0, 1)), toBytes(new UUID(0, 4)));
+        jdbcTemplate.update("INSERT INTO plant_archive (id, name, watering_frequency, archived_at) VALUES (?, 'Cactus', 1, 0), (?, 'Ivy', 1, 0)",
+                toBytes(new UUID(0, 2)), toBytes(new UUID(0, 3)));
+
+        assertThat(listing.page(null, 3, true)).extracting(plant -> plant.getPlantName().value())
+                .containsExactly("Fern", "Cactus", "Ivy");
+        assertThat(listing.page(new UUID(0, 3), 3, true)).extracting(plant -> plant.getPlantName().value())
+                .containsExactly("Palm");
+    }
+
+    @Test
+    void page_shouldSeekThroughThePrimaryKeyIndex() {
+        List<String> plan = jdbcTemplate.query("EXPLAIN QUERY PLAN SELECT id FROM plant WHERE id > ? ORDER BY id LIMIT ?",
+                (rs, row) -> rs.getString("detail"), toBytes(FERN), 20);
+
+        assertThat(plan).singleElement().asString().startsWith("SEARCH plant USING").contains("(id>?)");
+    }
+
+    @Test
+    void duePlants_shouldBePagedInNextDueAndIdOrderStraightFromTheIndex() {
+        // The order of PlantRepository.findDueBefore, which Hibernate pages with limit and offset
+        List<String> plan = jdbcTemplate.query(
+                "EXPLAIN QUERY PLAN SELECT id FROM plant WHERE next_due < ? ORDER BY next_due, id LIMIT ? OFFSET ?",
+                (rs, row) -> rs.getString("detail"), MARCH_2, 20, 40);
+
+        assertThat(plan).singleElement().asString().contains("USING COVERING INDEX idx_plant_next_due (next_due<?)");
+    }
+
+    @Test
+    void page_whenSortedByName_shouldIgnoreCaseAndBreakTiesById() {
+        insertPlants();
+
+        assertThat(walk(PlantListing.Filter.NONE, PlantListing.Order.NAME, false))
+                .extracting(plant -> plant.getPlantName().value())
+                .containsExactly("Aloe", "aloe", "basil", "Cactus", "fern", "Ivy");
+        assertThat(walk(PlantListing.Filter.NONE, PlantListing.Order.NAME, true))
+                .extracting(plant -> plant.getPlantName().value())
+                .containsExactly("Ivy", "fern", "Cactus", "basil", "aloe", "Aloe");
+    }
+
+    @Test
+    void page_whenSortedByNullableKey_shouldContinueAcrossNullAndNonNullKeys() {
+        insertPlants();
+
+        assertThat(walk(PlantListing.Filter.NONE, PlantListing.Order.LAST_WATERED, false)).extracting(Plant::getId)
+                .containsExactly(new UUID(0, 1), new UUID(0, 3), new UUID(0, 6), new UUID(0, 2), new UUID(0, 4), new UUID(0, 5));
+        assertThat(walk(PlantListing.Filter.NONE, PlantListing.Order.LAST_WATERED, true)).extracting(Plant::getId)
+                .containsExactly(new UUID(0, 5), new UUID(0, 4), new UUID(0, 2), new UUID(0, 6), new UUID(0, 3), new UUID(0, 1));
+    }
+
+    @Test
+    void page_whenFiltered_shouldOnlyListMatchingPlantsInTheFilteredOrder() {
+        insertPlants();
+        int ferns = dictionary.resolve("Polypodiopsida");
+
+        assertThat(walk(new PlantListing.Filter(null, "AL", null, null, null, null), PlantListing.Order.NAME, false))
+                .extracting(plant -> plant.getPlantName().value()).containsExactly("Aloe", "aloe");
+        assertThat(walk(new PlantListing.Filter(null, null, 2, 5, null, null), PlantListing.Order.WATERING_FREQUENCY, true))
+                .extracting(plant -> plant.getWateringFrequency().value()).containsExactly(5, 3, 2);
+        assertThat(walk(new PlantListing.Filter(null, null, null, null, new Date(MARCH_2), new Date(MARCH_2 + 2)),
+                PlantListing.Order.LAST_WATERED, false)).extracting(Plant::getId).containsExactly(new UUID(0, 2), new UUID(0, 4));
+        assertThat(walk(new PlantListing.Filter(ferns, null, null, null, null, null), PlantListing.Order.NAME, false))
+                .extracting(plant -> plant.getPlantName().value()).containsExactly("aloe", "fern", "Ivy");
+        assertThat(walk(new PlantListing.Filter(ferns, null, null, null, null, null), PlantListing.Order.ID, true))
+                .extracting(Plant::getId).containsExactly(new UUID(0, 6), new UUID(0, 5), new UUID(0, 1));
+    }
+
+    @Test
+    void page_shouldReadEveryFilterAndOrderThroughItsIndex() {
+        insertPlants();
+        SlowQueryLog plans = new SlowQueryLog(true, Duration.ZERO, 200);
+        PlantListing explainedListing = new PlantListing(plans.timed(dataSource), dictionary);
+        int ferns = dictionary.resolve("Polypodiopsida");
+        Map<PlantListing.Filter, List<PlantListing.Order>> supported = Map.of(
+                PlantListing.Filter.NONE, List.of(PlantListing.Order.values()),
+                new PlantListing.Filter(ferns, null, null, null, null, null), List.of(PlantListing.Order.ID, PlantListing.Order.NAME),
+                new PlantListing.Filter(null, "al", null, null, null, null), List.of(PlantListing.Order.NAME),
+                new PlantListing.Filter(ferns, "al", null, null, null, null), List.of(PlantListing.Order.NAME),
+                new PlantListing.Filter(null, null, 2, 5, null, null), List.of(PlantListing.Order.WATERING_FREQUENCY),
+                new PlantListing.Filter(null, null, null, 5, null, null), List.of(PlantListing.Order.WATERING_FREQUENCY),
+                new PlantListing.Filter(null, null, null, null, new Date(0), new Date(MARCH_2)), List.of(PlantListing.Order.LAST_WATERED));
+
+        supported.forEach((filter, orders) -> orders.forEach(order -> {
+            for (boolean descending : new boolean[]{false, true}) {
+                walk(explainedListing, filter, order, descending);
+            }
+        }));
+
+        assertThat(plans.top(200)).isNotEmpty().allSatisfy(query -> assertThat(query.plan())
+                .as(query.statement())
+                .isNotEmpty()
+                .allSatisfy(step -> assertThat(step).matches("SEARCH plant USING (COVERING )?INDEX \\S+ \\(.*\\)|SCAN plant USING (COVERING )?INDEX \\S+"))
+                .noneSatisfy(step -> assertThat(step).contains("TEMP B-TREE")));
+        assertThat(plans.top(200)).flatMap(SlowQueryLog.SlowQuery::plan).anySatisfy(step -> assertThat(step).contains("idx_plant_species_id"))
+                .anySatisfy(step -> assertThat(step).contains("idx_plant_name_key"))
+                .anySatisfy(step -> assertThat(step).contains("idx_plant_species_name_key"))
+                .anySatisfy(step -> assertThat(step).contains("idx_plant_watering_frequency"))
+                .anySatisfy(step -> assertThat(step).contains("idx_plant_last_watered"));
+    }
+
+    /**
+     * Inserts six plants, numbered in id order: names of mixed case, three ferns, and two plants never watered.
+     */
+    private void insertPlants() {
+        int ferns = dictionary.resolve("Polypodiopsida");
+        Object[][] plants = {
+                {1, "fern", ferns, null, 3},
+                {2, "Cactus", null, MARCH_2, 14},
+                {3, "Aloe", null, null, 7},
+                {4, "basil", null, MARCH_2 + 1, 2},
+                {5, "Ivy", ferns, MARCH_2 + 5, 5},
+                {6, "aloe", ferns, MARCH_2 - 1, 1},
+        };
+        for (Object[] plant : plants) {
+            jdbcTemplate.update("INSERT INTO plant (id, name, species_id, last_watered_date, watering_frequency) VALUES (?, ?, ?, ?, ?)",
+                    toBytes(new UUID(0, (int) plant[0])), plant[1], plant[2], plant[3], plant[4]);
+        }
+    }
+
+    private List<Plant> walk(PlantListing.Filter filter, PlantListing.Order order, boolean descending) {
+        return walk(listing, filter, order, descending);
+    }
+
+    /**
+     * Reads every page of a listing, two plants at a time, starting each page after the last plant of the previous one.
+     */
+    private static List<Plant> walk(PlantListing listing, PlantListing.Filter filter, PlantListing.Order order,
+                                    boolean descending) {
+        List<Plant> plants = new ArrayList<>();
+        List<Plant> page = listing.page(filter, order, descending, null, 2);
+        while (!page.isEmpty()) {
+            plants.addAll(page);
+            page = listing.page(filter, order, descending, PlantListing.positionOf(page.get(page.size() - 1), order), 2);
+        }
+        return plants;
+    }
+
+    private String writeAll(boolean includeArchived) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        listing.writeAll(includeArchived, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] toBytes(UUID id) {
+        return ByteBuffer.allocate(16).putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).array();
+    }
+}
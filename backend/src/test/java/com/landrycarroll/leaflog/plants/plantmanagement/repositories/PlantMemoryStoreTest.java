@@ -0,0 +1,208 @@
+package com.landrycarroll.leaflog.plants.plantmanagement.repositories;
+
+import com.landrycarroll.leaflog.infrastructure.SchemaMigrator;
+import com.landrycarroll.leaflog.infrastructure.SqliteWriteQueue;
+import com.landrycarroll.leaflog.infrastructure.TenantClosedEvent;
+import com.landrycarroll.leaflog.infrastructure.TenantContext;
+import com.landrycarroll.leaflog.plantmanagement.domain.entities.Plant;
+import com.landrycarroll.leaflog.plantmanagement.domain.valueobjects.*;
+import com.landrycarroll.leaflog.plantmanagement.repositories.PlantArchive;
+import com.landrycarroll.leaflog.plantmanagement.repositories.PlantMemoryStore;
+import com.landrycarroll.leaflog.plantmanagement.repositories.SpeciesDictionary;
+import com.landrycarroll.leaflog.plantmanagement.repositories.WateringLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+class PlantMemoryStoreTest {
+
+    private static final long DAY = 86_400_000L;
+
+    @TempDir
+    Path tempDir;
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private SqliteWriteQueue writeQueue;
+    private PlantMemoryStore store;
+
+    @BeforeEach
+    void setup() {
+        dataSource = new SingleConnectionDataSource("jdbc:sqlite:" + tempDir.resolve("plants.db"), true);
+        new SchemaMigrator(dataSource, "classpath:db/migration").migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        writeQueue = new SqliteWriteQueue(new DataSourceTransactionManager(dataSource), 16);
+        store = new PlantMemoryStore(dataSource, dataSource, new SpeciesDictionary(dataSource, 16),
+                new PlantArchive(dataSource), new WateringLog(dataSource), writeQueue, 4);
+    }
+
+    @AfterEach
+    void teardown() {
+        writeQueue.shutdown();
+        dataSource.destroy();
+    }
+
+    @Test
+    void findById_shouldServePlantsLoadedFromTheDatabase() {
+        UUID id = new UUID(0, 1);
+        jdbcTemplate.update("INSERT INTO species (name) VALUES ('Polypodiopsida')");
+        jdbcTemplate.update("INSERT INTO plant (id, name, species_id, last_watered_date, watering_frequency, notes, version) "
+                + "VALUES (?, 'Fern', 1, 0, 3, 'Shade', 7)", (Object) toBytes(id));
+
+        Plant plant = store.findById(id).orElseThrow();
+
+        assertThat(plant.getPlantName().value()).isEqualTo("Fern");
+        assertThat(plant.getSpecies().value()).isEqualTo("Polypodiopsida");
+        assertThat(plant.getLastWatered().value()).isEqualTo(new Date(0));
+        assertThat(plant.getNextDue()).isEqualTo(new Date(3 * DAY));
+        assertThat(plant.getVersion()).isEqualTo(7);
+        assertThat(store.findById(new UUID(0, 2))).isEmpty();
+    }
+
+    @Test
+    void writes_shouldBeWrittenBehindWithTheirVersions() {
+        UUID id = new UUID(0, 1);
+        store.insert(plant(id, "Fern", 0));
+        store.update(id, current -> plant(id, "Fern", current.getVersion() + 1));
+        store.update(id, current -> plant(id, "Boston fern", current.getVersion() + 1));
+
+        assertThat(store.flush()).isTrue();
+        assertThat(jdbcTemplate.queryForMap("SELECT name, version FROM plant WHERE id = ?", (Object) toBytes(id)))
+                .isEqualTo(Map.of("name", "Boston fern", "version", 2));
+
+        store.delete(id);
+
+        assertThat(store.flush()).isTrue();
+        assertThat(store.findById(id)).isEmpty();
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM plant", Integer.class)).isZero();
+    }
+
+    @Test
+    void update_whenChangeReturnsCurrentPlant_shouldNotWrite() {
+        UUID id = new UUID(0, 1);
+        jdbcTemplate.update("INSERT INTO plant (id, name, watering_frequency, version) VALUES (?, 'Fern', 3, 5)",
+                (Object) toBytes(id));
+        Plant loaded = store.findById(id).orElseThrow();
+        jdbcTemplate.update("UPDATE plant SET name = 'Changed elsewhere'");
+
+        assertThat(store.update(id, current -> current)).containsSame(loaded);
+        assertThat(store.flush()).isTrue();
+        assertThat(jdbcTemplate.queryForObject("SELECT name FROM plant", String.class)).isEqualTo("Changed elsewhere");
+    }
+
+    @Test
+    void update_whenPlantIsArchived_shouldRestoreIt() {
+        UUID id = new UUID(0, 1);
+        jdbcTemplate.update("INSERT INTO plant_archive (id, name, watering_frequency, version, archived_at) "
+                + "VALUES (?, 'Fern', 3, 5, 0)", (Object) toBytes(id));
+
+        Plant updated = store.update(id, current -> plant(id, "Palm", current.getVersion() + 1)).orElseThrow();
+
+        assertThat(updated.getVersion()).isEqualTo(6);
+        assertThat(store.flush()).isTrue();
+        assertThat(jdbcTemplate.queryForList("SELECT name FROM plant", String.class)).containsExactly("Palm");
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM plant_archive", Integer.class)).isZero();
+    }
+
+    @Test
+    void evictDormant_shouldOnlyForgetPlantsWrittenBeforeTheCutoff() {
+        long now = System.currentTimeMillis();
+        store.insert(plant(new UUID(0, 1), "Fern", 0, new Date(now - 200 * DAY)));
+        store.insert(plant(new UUID(0, 2), "Palm", 0, new Date(now)));
+        assertThat(store.flush()).isTrue();
+
+        int evicted = store.evictDormant(new Date(now - 100 * DAY));
+
+        assertThat(evicted).isEqualTo(1);
+        jdbcTemplate.update("UPDATE plant SET name = 'Reloaded' WHERE id = ?", (Object) toBytes(new UUID(0, 1)));
+        assertThat(store.findById(new UUID(0, 1)).orElseThrow().getPlantName().value()).isEqualTo("Reloaded");
+    }
+
+    @Test
+    void appendWatering_shouldLogTheWateringBehindTheRequest() {
+        UUID id = new UUID(0, 1);
+
+        store.appendWatering(id, new Date(DAY));
+
+        assertThat(store.flush()).isTrue();
+        List<Long> logged = jdbcTemplate.queryForList("SELECT watered_at FROM watering_event", Long.class);
+        assertThat(logged).containsExactly(DAY);
+    }
+
+    @Test
+    void writes_whenAWriteBehindFails_shouldKeepThePlantDirtyAndWriteItAgain() {
+        UUID id = new UUID(0, 1);
+        jdbcTemplate.execute("CREATE TABLE outage (id INTEGER)");
+        jdbcTemplate.execute("INSERT INTO outage VALUES (1)");
+        jdbcTemplate.execute("CREATE TRIGGER fail_during_outage BEFORE INSERT ON plant "
+                + "WHEN EXISTS (SELECT 1 FROM outage) BEGIN SELECT RAISE(ABORT, 'outage'); END");
+
+        store.insert(plant(id, "Fern", 0, new Date(0)));
+        // Runs after the first attempt of the write-behind, which has failed by then
+        writeQueue.execute(() -> null);
+        assertThat(store.evictDormant(new Date())).isZero();
+        jdbcTemplate.execute("DELETE FROM outage");
+
+        assertThat(store.flush()).isTrue();
+        assertThat(jdbcTemplate.queryForList("SELECT name FROM plant", String.class)).containsExactly("Fern");
+    }
+
+    @Test
+    void tenantClosed_shouldKeepPlantsUntilTheirWritesHaveCommitted() {
+        UUID id = new UUID(0, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        writeQueue.submit(() -> {
+            await(release);
+            return null;
+        });
+
+        store.insert(plant(id, "Fern", 0));
+        store.tenantClosed(new TenantClosedEvent(this, TenantContext.DEFAULT_TENANT));
+        store.update(id, current -> plant(id, "Boston fern", current.getVersion() + 1));
+
+        assertThat(store.findById(id).orElseThrow().getPlantName().value()).isEqualTo("Boston fern");
+        release.countDown();
+        assertThat(store.flush()).isTrue();
+        assertThat(jdbcTemplate.queryForObject("SELECT name FROM plant", String.class)).isEqualTo("Boston fern");
+
+        // Dropped once the writes have committed, so the plant is read from the database again
+        jdbcTemplate.update("UPDATE plant SET name = 'Changed elsewhere'");
+        assertThat(store.findById(id).orElseThrow().getPlantName().value()).isEqualTo("Changed elsewhere");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Plant plant(UUID id, String name, int version) {
+        return plant(id, name, version, new Date(0));
+    }
+
+    private static Plant plant(UUID id, String name, int version, Date lastWatered) {
+        return Plant.existingPlant(id, new PlantName(name), new PlantSpecies("Polypodiopsida"),
+                new LastWateredDate(lastWatered), new WateringFrequencyInDays(3), new Notes(null), version);
+    }
+
+    private static byte[] toBytes(UUID id) {
+        return ByteBuffer.allocate(16).putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).array();
+    }
+}
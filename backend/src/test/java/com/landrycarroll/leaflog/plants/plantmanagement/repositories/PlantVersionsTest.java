@@ -0,0 +1,121 @@
+package com.landrycarroll.leaflog.plants.plantmanagement.repositories;
+
+import com.landrycarroll.leaflog.infrastructure.DatabaseRestoredEvent;
+import com.landrycarroll.leaflog.infrastructure.SchemaMigrator;
+import com.landrycarroll.leaflog.infrastructure.SqliteWriteQueue;
+import com.landrycarroll.leaflog.infrastructure.TenantContext;
+import com.landrycarroll.leaflog.plantmanagement.repositories.PlantVersions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+class PlantVersionsTest {
+
+    private static final UUID FERN = new UUID(0, 1);
+
+    @TempDir
+    Path tempDir;
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private SqliteWriteQueue writeQueue;
+    private PlantVersions versions;
+
+    @BeforeEach
+    void setup() {
+        dataSource = new SingleConnectionDataSource("jdbc:sqlite:" + tempDir.resolve("plants.db"), true);
+        new SchemaMigrator(dataSource, "classpath:db/migration").migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        writeQueue = new SqliteWriteQueue(new DataSourceTransactionManager(dataSource), 16);
+        versions = new PlantVersions(dataSource, dataSource, writeQueue);
+    }
+
+    @AfterEach
+    void teardown() {
+        writeQueue.shutdown();
+        dataSource.destroy();
+    }
+
+    @Test
+    void collectionTag_shouldChangeWhenActiveOrArchivedPlantsChange() {
+        String empty = versions.collectionTag();
+        write("INSERT INTO plant (id, name) VALUES (?, 'Fern')", toBytes(FERN));
+        String inserted = versions.collectionTag();
+        write("UPDATE plant SET notes = 'Repotted' WHERE id = ?", toBytes(FERN));
+        String updated = versions.collectionTag();
+        write("INSERT INTO plant_archive (id, name, archived_at) VALUES (?, 'Cactus', 0)", toBytes(new UUID(0, 2)));
+        String archived = versions.collectionTag();
+
+        assertThat(List.of(empty, inserted, updated, archived)).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void collectionTag_shouldBeCachedUntilTheNextCommit() {
+        String before = versions.collectionTag();
+        jdbcTemplate.update("UPDATE plant_collection_version SET version = version + 100");
+
+        assertThat(versions.collectionTag()).isEqualTo(before);
+
+        writeQueue.execute(() -> null);
+
+        assertThat(versions.collectionTag()).isNotEqualTo(before).endsWith("-100");
+    }
+
+    @Test
+    void plantTag_shouldReadVersionOfActivePlantOnly() {
+        write("INSERT INTO plant (id, name, version) VALUES (?, 'Fern', 3)", toBytes(FERN));
+        String epoch = versions.collectionTag().split("-")[0];
+
+        assertThat(versions.plantTag(FERN)).contains(epoch + "-3");
+        assertThat(versions.plantTag(new UUID(0, 2))).isEmpty();
+    }
+
+    @Test
+    void versionOf_shouldOnlyAcceptStrongTagsOfCurrentEpoch() {
+        String epoch = versions.collectionTag().split("-")[0];
+
+        assertThat(versions.versionOf('"' + epoch + "-7\"")).hasValue(7);
+        assertThat(versions.versionOf(epoch + "-7")).hasValue(7);
+        assertThat(versions.versionOf("W/\"" + epoch + "-7\"")).isEmpty();
+        assertThat(versions.versionOf("\"0000000000000000-7\"")).isEmpty();
+        assertThat(versions.versionOf('"' + epoch + "-x\"")).isEmpty();
+    }
+
+    @Test
+    void versionOf_shouldAcceptBinaryTags() {
+        String epoch = versions.collectionTag().split("-")[0];
+
+        assertThat(versions.versionOf('"' + PlantVersions.binaryTag(epoch + "-7") + '"')).hasValue(7);
+    }
+
+    @Test
+    void databaseRestored_shouldReplaceEpochAndKeepVersion() {
+        write("INSERT INTO plant (id, name) VALUES (?, 'Fern')", toBytes(FERN));
+        String[] before = versions.collectionTag().split("-");
+
+        versions.databaseRestored(new DatabaseRestoredEvent(this, TenantContext.DEFAULT_TENANT, tempDir));
+        String[] after = versions.collectionTag().split("-");
+
+        assertThat(after[0]).isNotEqualTo(before[0]);
+        assertThat(after[1]).isEqualTo(before[1]);
+    }
+
+    private void write(String sql, Object... args) {
+        writeQueue.execute(() -> jdbcTemplate.update(sql, args));
+    }
+
+    private static byte[] toBytes(UUID id) {
+        return ByteBuffer.allocate(16).putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).array();
+    }
+}
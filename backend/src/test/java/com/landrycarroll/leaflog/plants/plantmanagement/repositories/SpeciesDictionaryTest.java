@@ -0,0 +1,99 @@
+package com.landrycarroll.leaflog.plants.plantmanagement.repositories;
+
+import com.landrycarroll.leaflog.infrastructure.TenantClosedEvent;
+import com.landrycarroll.leaflog.infrastructure.TenantContext;
+import com.landrycarroll.leaflog.plantmanagement.repositories.SpeciesDictionary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.*;
+
+class SpeciesDictionaryTest {
+
+    @TempDir
+    Path tempDir;
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private SpeciesDictionary dictionary;
+
+    @BeforeEach
+    void setup() {
+        dataSource = new SingleConnectionDataSource("jdbc:sqlite:" + tempDir.resolve("plants.db"), true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE species (id INTEGER PRIMARY KEY, name TEXT NOT NULL UNIQUE)");
+        dictionary = new SpeciesDictionary(dataSource, 2);
+    }
+
+    @AfterEach
+    void teardown() {
+        dataSource.destroy();
+    }
+
+    @Test
+    void resolve_shouldInsertUnknownSpeciesOnce() {
+        int first = dictionary.resolve("Succulent");
+        int second = dictionary.resolve("Succulent");
+
+        assertThat(second).isEqualTo(first);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM species", Integer.class)).isEqualTo(1);
+        assertThat(dictionary.nameOf(first)).isEqualTo("Succulent");
+    }
+
+    @Test
+    void find_shouldNotInsertUnknownSpecies() {
+        assertThat(dictionary.find("Orchid")).isEmpty();
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM species", Integer.class)).isZero();
+    }
+
+    @Test
+    void nameOf_shouldReloadEntriesEvictedFromTheCache() {
+        int fern = dictionary.resolve("Fern");
+        dictionary.resolve("Cactus");
+        dictionary.resolve("Palm");
+
+        assertThat(dictionary.nameOf(fern)).isEqualTo("Fern");
+        assertThat(dictionary.resolve("Fern")).isEqualTo(fern);
+    }
+
+    @Test
+    void resolve_whenTransactionRollsBack_shouldForgetInsertedSpecies() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            dictionary.resolve("Orchid");
+            status.setRollbackOnly();
+        });
+
+        assertThat(dictionary.find("Orchid")).isEmpty();
+    }
+
+    @Test
+    void nameOf_whenIdUnknown_shouldThrow() {
+        assertThatThrownBy(() -> dictionary.nameOf(42))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("42");
+    }
+
+    @Test
+    void find_shouldKeepSeparateCachesPerTenant() {
+        int cached = TenantContext.callAs("a", () -> dictionary.resolve("Fern"));
+        // Stands in for tenant b's database, where the same name has a different id
+        jdbcTemplate.update("UPDATE species SET id = 7 WHERE name = 'Fern'");
+
+        assertThat(TenantContext.callAs("b", () -> dictionary.find("Fern"))).contains(7);
+        assertThat(TenantContext.callAs("a", () -> dictionary.find("Fern"))).contains(cached);
+
+        dictionary.tenantClosed(new TenantClosedEvent(this, "a"));
+
+        assertThat(TenantContext.callAs("a", () -> dictionary.find("Fern"))).contains(7);
+    }
+}
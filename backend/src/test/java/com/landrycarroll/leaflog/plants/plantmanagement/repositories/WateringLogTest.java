@@ -0,0 +1,105 @@
+package com.landrycarroll.leaflog.plants.plantmanagement.repositories;
+
+import com.landrycarroll.leaflog.infrastructure.SchemaMigrator;
+import com.landrycarroll.leaflog.plantmanagement.repositories.WateringLog;
+import com.landrycarroll.leaflog.plantmanagement.repositories.WateringLog.DailyCount;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+class WateringLogTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2026, 3, 2);
+    private static final UUID FERN = new UUID(0, 1);
+    private static final UUID CACTUS = new UUID(0, 2);
+
+    @TempDir
+    Path tempDir;
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private WateringLog wateringLog;
+
+    @BeforeEach
+    void setup() {
+        dataSource = new SingleConnectionDataSource("jdbc:sqlite:" + tempDir.resolve("plants.db"), true);
+        new SchemaMigrator(dataSource, "classpath:db/migration").migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        wateringLog = new WateringLog(dataSource);
+    }
+
+    @AfterEach
+    void teardown() {
+        dataSource.destroy();
+    }
+
+    @Test
+    void plantHistory_shouldCountEventsNotRolledUpYet() {
+        water(FERN, MONDAY, 9);
+        water(FERN, MONDAY, 18);
+        water(FERN, MONDAY.plusDays(2), 9);
+        water(CACTUS, MONDAY, 9);
+
+        assertThat(wateringLog.plantHistory(FERN, MONDAY, MONDAY.plusDays(6))).containsExactly(
+                new DailyCount(MONDAY, 2), new DailyCount(MONDAY.plusDays(2), 1));
+    }
+
+    @Test
+    void rollUp_shouldFoldEventsIntoDailyRollupsInBatches() {
+        water(FERN, MONDAY, 9);
+        water(CACTUS, MONDAY, 10);
+        water(FERN, MONDAY, 18);
+        water(FERN, MONDAY.plusDays(1), 9);
+        water(CACTUS, MONDAY.plusDays(1), 9);
+
+        assertThat(wateringLog.rollUp(2)).isEqualTo(2);
+        assertThat(wateringLog.rollUp(2)).isEqualTo(2);
+        assertThat(wateringLog.rollUp(2)).isEqualTo(1);
+        assertThat(wateringLog.rollUp(2)).isZero();
+
+        assertThat(jdbcTemplate.queryForList("SELECT waterings FROM watering_day ORDER BY day", Long.class))
+                .containsExactly(3L, 2L);
+        assertThat(jdbcTemplate.queryForObject("SELECT sum(waterings) FROM watering_plant_day", Long.class))
+                .isEqualTo(5L);
+        assertThat(wateringLog.plantHistory(FERN, MONDAY, MONDAY.plusDays(1))).containsExactly(
+                new DailyCount(MONDAY, 2), new DailyCount(MONDAY.plusDays(1), 1));
+    }
+
+    @Test
+    void dailyTotals_shouldCombineRollupsWithNewEvents() {
+        water(FERN, MONDAY, 9);
+        water(CACTUS, MONDAY, 9);
+        wateringLog.rollUp(100);
+        water(FERN, MONDAY, 20);
+        water(FERN, MONDAY.plusDays(3), 9);
+
+        assertThat(wateringLog.dailyTotals(MONDAY, MONDAY.plusDays(3))).containsExactly(
+                new DailyCount(MONDAY, 3), new DailyCount(MONDAY.plusDays(3), 1));
+    }
+
+    @Test
+    void dailyTotals_shouldOnlyIncludeDaysInRange() {
+        water(FERN, MONDAY.minusDays(1), 23);
+        water(FERN, MONDAY, 0);
+        water(FERN, MONDAY.plusDays(1), 0);
+        wateringLog.rollUp(1);
+
+        assertThat(wateringLog.dailyTotals(MONDAY, MONDAY)).containsExactly(new DailyCount(MONDAY, 1));
+        assertThat(wateringLog.plantHistory(FERN, MONDAY, MONDAY)).containsExactly(new DailyCount(MONDAY, 1));
+    }
+
+    private void water(UUID plantId, LocalDate day, int hour) {
+        wateringLog.append(plantId, Date.from(day.atTime(hour, 0).toInstant(ZoneOffset.UTC)));
+    }
+}
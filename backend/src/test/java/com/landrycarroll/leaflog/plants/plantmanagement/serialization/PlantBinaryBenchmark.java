@@ -0,0 +1,81 @@
+package com.landrycarroll.leaflog.plants.plantmanagement.serialization;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.landrycarroll.leaflog.plantmanagement.domain.entities.Plant;
+import com.landrycarroll.leaflog.plantmanagement.domain.valueobjects.*;
+import com.landrycarroll.leaflog.plantmanagement.serialization.PlantBinary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Measures how large a list of plants is, and how fast a client decodes it, in the {@link PlantBinary} format and
+ * as the flat JSON the API writes by default.
+ * <p>
+ * Not run with the other tests, since its name doesn't end with {@code Test}; run it with
+ * {@code mvn test -Dtest=PlantBinaryBenchmark}.
+ * </p>
+ */
+class PlantBinaryBenchmark {
+
+    private static final int PLANTS = 100_000;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+    private static final String[] SPECIES = {"Polypodiopsida", "Cactaceae", "Araceae", "Asparagaceae"};
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Plant> plants = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < PLANTS; i++) {
+            plants.add(Plant.existingPlant(UUID.randomUUID(), new PlantName("Plant " + i),
+                    i % 5 == 0 ? null : new PlantSpecies(SPECIES[i % SPECIES.length]),
+                    new LastWateredDate(i % 7 == 0 ? null : new Date(now - i * 60_000L)),
+                    new WateringFrequencyInDays(1 + i % 30), new Notes(i % 3 == 0 ? "Bright, indirect light" : null),
+                    i % 4));
+        }
+    }
+
+    @Test
+    void decodeList() throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(plants);
+        byte[] binary = PlantBinary.encode(plants);
+        assertThat(PlantBinary.decode(new ByteArrayInputStream(binary))).hasSize(PLANTS);
+
+        double jsonNanos = nanosPerPlant(() -> objectMapper.readValue(json, Plant[].class).length);
+        double binaryNanos = nanosPerPlant(() -> PlantBinary.decode(new ByteArrayInputStream(binary)).size());
+
+        System.out.printf("JSON:   %.1f bytes/plant, %.0f ns/plant to decode%n", (double) json.length / PLANTS, jsonNanos);
+        System.out.printf("Binary: %.1f bytes/plant, %.0f ns/plant to decode (%.1fx smaller, %.1fx faster)%n",
+                (double) binary.length / PLANTS, binaryNanos, (double) json.length / binary.length,
+                jsonNanos / binaryNanos);
+    }
+
+    private double nanosPerPlant(Decode decode) throws IOException {
+        long sink = 0;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            sink += decode.plants();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            sink += decode.plants();
+        }
+        long elapsed = System.nanoTime() - start;
+        assertThat(sink).isEqualTo((long) (WARMUP_ROUNDS + MEASURED_ROUNDS) * PLANTS);
+        return (double) elapsed / MEASURED_ROUNDS / PLANTS;
+    }
+
+    private interface Decode {
+        int plants() throws IOException;
+    }
+}
@@ -0,0 +1,148 @@
+package com.landrycarroll.leaflog.plants.plantmanagement.serialization;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.landrycarroll.leaflog.plantmanagement.domain.entities.Plant;
+import com.landrycarroll.leaflog.plantmanagement.domain.valueobjects.*;
+import com.landrycarroll.leaflog.plantmanagement.serialization.PlantBinary;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+class PlantBinaryTest {
+
+    private static final UUID FERN = UUID.fromString("01a14dd2-379b-7000-92fe-a00e31c2a0d9");
+    private static final UUID CACTUS = UUID.fromString("01a14dd2-379c-7000-8000-000000000002");
+    private static final long MARCH_2 = 1_772_443_800_123L;
+
+    /**
+     * A stream of the fern and the cactus as written by the first version of the format. Streams already out there
+     * must keep decoding to the same plants, so this may only change along with the format's magic number.
+     */
+    private static final String FERN_AND_CACTUS_V1 = "4c4c5031"
+            + "41" + "01a14dd2379b700092fea00e31c2a0d9" + "04" + "1f" + "0c" + "4665726e2022467269646122"
+            + "0e" + "506f6c79706f64696f7073696461" + "0000019cade2123b" + "03" + "09" + "53686164652c20c3bc"
+            + "19" + "01a14dd2379c70008000000000000002" + "00" + "01" + "06" + "436163747573";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void encode_shouldRoundTripEveryValueObject() throws Exception {
+        List<Plant> plants = List.of(fern(), cactus());
+
+        List<Plant> decoded = PlantBinary.decode(new ByteArrayInputStream(PlantBinary.encode(plants)));
+
+        assertThat(decoded).hasSize(2);
+        for (int i = 0; i < plants.size(); i++) {
+            assertSamePlant(decoded.get(i), plants.get(i));
+        }
+    }
+
+    @Test
+    void encode_shouldRoundTripLongTextAndLargeValues() throws Exception {
+        Plant plant = Plant.existingPlant(new UUID(-1, -1), new PlantName("ü".repeat(63)),
+                new PlantSpecies("🌿".repeat(2_000)), new LastWateredDate(new Date(-MARCH_2)),
+                new WateringFrequencyInDays(365), new Notes("x".repeat(500)), Integer.MAX_VALUE);
+
+        List<Plant> decoded = PlantBinary.decode(new ByteArrayInputStream(PlantBinary.encode(List.of(plant))));
+
+        assertThat(decoded).singleElement().satisfies(read -> assertSamePlant(read, plant));
+    }
+
+    @Test
+    void encode_shouldWriteTheFirstVersionOfTheFormat() {
+        assertThat(HexFormat.of().formatHex(PlantBinary.encode(List.of(fern(), cactus()))))
+                .isEqualTo(FERN_AND_CACTUS_V1);
+    }
+
+    @Test
+    void decode_shouldReadTheFirstVersionOfTheFormat() throws Exception {
+        List<Plant> decoded = PlantBinary.decode(new ByteArrayInputStream(HexFormat.of().parseHex(FERN_AND_CACTUS_V1)));
+
+        assertThat(decoded).hasSize(2);
+        assertSamePlant(decoded.get(0), fern());
+        assertSamePlant(decoded.get(1), cactus());
+    }
+
+    @Test
+    void decode_shouldSkipFieldsAppendedToARecord() throws Exception {
+        byte[] stream = PlantBinary.encode(List.of(cactus(), fern()));
+        // The cactus's record is the first after the magic number; lengthen it by three bytes of unknown fields
+        int length = stream[4];
+        ByteArrayOutputStream extended = new ByteArrayOutputStream();
+        extended.write(stream, 0, 4);
+        extended.write(length + 3);
+        extended.write(stream, 5, length);
+        extended.write(new byte[]{7, 8, 9});
+        extended.write(stream, 5 + length, stream.length - 5 - length);
+
+        List<Plant> decoded = PlantBinary.decode(new ByteArrayInputStream(extended.toByteArray()));
+
+        assertThat(decoded).hasSize(2);
+        assertSamePlant(decoded.get(0), cactus());
+        assertSamePlant(decoded.get(1), fern());
+    }
+
+    @Test
+    void decode_shouldReadAStreamWithoutPlants() throws Exception {
+        assertThat(PlantBinary.decode(new ByteArrayInputStream(PlantBinary.encode(List.of())))).isEmpty();
+    }
+
+    @Test
+    void decode_whenTheStreamIsNotInTheFormat_shouldFail() {
+        byte[] json = "[{\"id\":1}]".getBytes();
+
+        assertThatThrownBy(() -> PlantBinary.decode(new ByteArrayInputStream(json)))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining(PlantBinary.MEDIA_TYPE_VALUE);
+    }
+
+    @Test
+    void decode_whenARecordIsTruncated_shouldFail() {
+        byte[] stream = PlantBinary.encode(List.of(fern()));
+
+        assertThatThrownBy(() -> PlantBinary.decode(new ByteArrayInputStream(Arrays.copyOf(stream, stream.length - 1))))
+                .isInstanceOf(EOFException.class);
+    }
+
+    @Test
+    void decode_whenARecordIsShorterThanItsFields_shouldFail() {
+        byte[] stream = PlantBinary.encode(List.of(fern()));
+        // Shorten the record's length by one, leaving the last byte to be read as the next record's length
+        stream[4]--;
+
+        assertThatThrownBy(() -> PlantBinary.decode(new ByteArrayInputStream(stream)))
+                .isInstanceOf(StreamCorruptedException.class);
+    }
+
+    @Test
+    void encode_shouldBeSmallerThanJson() throws Exception {
+        List<Plant> plants = List.of(fern(), cactus());
+
+        assertThat(PlantBinary.encode(plants).length).isLessThan(objectMapper.writeValueAsBytes(plants).length / 2);
+    }
+
+    private static Plant fern() {
+        return Plant.existingPlant(FERN, new PlantName("Fern \"Frida\""), new PlantSpecies("Polypodiopsida"),
+                new LastWateredDate(new Date(MARCH_2)), new WateringFrequencyInDays(3), new Notes("Shade, ü"), 4);
+    }
+
+    private static Plant cactus() {
+        return Plant.existingPlant(CACTUS, new PlantName("Cactus"), null, new LastWateredDate(null), null,
+                new Notes(null), 0);
+    }
+
+    private void assertSamePlant(Plant actual, Plant expected) throws Exception {
+        assertThat(objectMapper.writeValueAsString(actual)).isEqualTo(objectMapper.writeValueAsString(expected));
+    }
+}
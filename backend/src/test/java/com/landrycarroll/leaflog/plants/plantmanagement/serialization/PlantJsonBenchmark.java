@@ -0,0 +1,87 @@
+package com.landrycarroll.leaflog.plants.plantmanagement.serialization;
+
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.landrycarroll.leaflog.plantmanagement.domain.entities.Plant;
+import com.landrycarroll.leaflog.plantmanagement.domain.valueobjects.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Measures how fast a list of plants is serialized, and how large it is, with the hand-written flat serializer and
+ * with Jackson's reflective serialization of the entity and its value objects, as plants used to be written, with
+ * dates as ISO-8601 strings like Spring Boot's mapper writes them.
+ * <p>
+ * Not run with the other tests, since its name doesn't end with {@code Test}; run it with
+ * {@code mvn test -Dtest=PlantJsonBenchmark}.
+ * </p>
+ */
+class PlantJsonBenchmark {
+
+    private static final int PLANTS = 100_000;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+    private static final String[] SPECIES = {"Polypodiopsida", "Cactaceae", "Araceae", "Asparagaceae"};
+
+    private final ObjectMapper flat = new ObjectMapper();
+    private final ObjectMapper reflective = JsonMapper.builder()
+            .disable(MapperFeature.USE_ANNOTATIONS)
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    private final List<Plant> plants = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < PLANTS; i++) {
+            plants.add(Plant.existingPlant(UUID.randomUUID(), new PlantName("Plant " + i),
+                    i % 5 == 0 ? null : new PlantSpecies(SPECIES[i % SPECIES.length]),
+                    new LastWateredDate(i % 7 == 0 ? null : new Date(now - i * 60_000L)),
+                    new WateringFrequencyInDays(1 + i % 30), new Notes(i % 3 == 0 ? "Bright, indirect light" : null),
+                    i % 4));
+        }
+    }
+
+    @Test
+    void serializeList() throws IOException {
+        assertThat(reflective.writeValueAsString(plants.get(1))).contains("\"plantName\":{\"value\":\"Plant 1\"}");
+        assertThat(flat.writeValueAsString(plants.get(1))).contains("\"plantName\":\"Plant 1\"");
+
+        Result before = measure(reflective);
+        Result after = measure(flat);
+
+        System.out.printf("Reflective: %.0f plants/s, %.1f bytes/plant%n", before.plantsPerSecond, before.bytesPerPlant);
+        System.out.printf("Flat:       %.0f plants/s, %.1f bytes/plant (%.1fx throughput, %.0f%% of the bytes)%n",
+                after.plantsPerSecond, after.bytesPerPlant, after.plantsPerSecond / before.plantsPerSecond,
+                100 * after.bytesPerPlant / before.bytesPerPlant);
+    }
+
+    private Result measure(ObjectMapper mapper) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32 << 20);
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            out.reset();
+            mapper.writeValue(out, plants);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            out.reset();
+            mapper.writeValue(out, plants);
+        }
+        long elapsed = System.nanoTime() - start;
+        return new Result(1e9 * PLANTS * MEASURED_ROUNDS / elapsed, (double) out.size() / PLANTS);
+    }
+
+    private record Result(double plantsPerSecond, double bytesPerPlant) {
+    }
+}
@@ -0,0 +1,127 @@
+package com.landrycarroll.leaflog.plants.plantmanagement.serialization;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.landrycarroll.leaflog.plantmanagement.domain.entities.Plant;
+import com.landrycarroll.leaflog.plantmanagement.domain.valueobjects.*;
+import com.landrycarroll.leaflog.plantmanagement.dtos.PlantDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+class PlantJsonTest {
+
+    private static final UUID FERN = UUID.fromString("01a14dd2-379b-7000-92fe-a00e31c2a0d9");
+    private static final long MARCH_2 = 1_772_443_800_123L;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void serialize_shouldWriteValueObjectsFlatWithDatesAsEpochMillis() throws Exception {
+        Plant plant = Plant.existingPlant(FERN, new PlantName("Fern \"Frida\""), new PlantSpecies("Polypodiopsida"),
+                new LastWateredDate(new Date(MARCH_2)), new WateringFrequencyInDays(3), new Notes("Shade, ü"), 4);
+
+        assertThat(objectMapper.writeValueAsString(plant)).isEqualTo(
+                "{\"id\":\"01a14dd2-379b-7000-92fe-a00e31c2a0d9\",\"plantName\":\"Fern \\\"Frida\\\"\"," +
+                "\"species\":\"Polypodiopsida\",\"lastWatered\":1772443800123,\"wateringFrequency\":3," +
+                "\"notes\":\"Shade, ü\",\"nextDue\":1772703000123,\"version\":4}");
+    }
+
+    @Test
+    void serialize_shouldWriteMissingValuesAsNull() throws Exception {
+        Plant plant = Plant.existingPlant(FERN, new PlantName("Cactus"), null, new LastWateredDate(null), null,
+                new Notes(null), 0);
+
+        assertThat(objectMapper.writeValueAsString(plant)).isEqualTo(
+                "{\"id\":\"01a14dd2-379b-7000-92fe-a00e31c2a0d9\",\"plantName\":\"Cactus\",\"species\":null," +
+                "\"lastWatered\":null,\"wateringFrequency\":null,\"notes\":null,\"nextDue\":null,\"version\":0}");
+    }
+
+    @Test
+    void serialize_whenUnwrappedIntoAModel_shouldWriteTheFieldsNextToTheLinks() throws Exception {
+        Plant plant = Plant.existingPlant(FERN, new PlantName("Fern"), null, new LastWateredDate(null),
+                new WateringFrequencyInDays(3), new Notes(null), 1);
+
+        String json = objectMapper.writeValueAsString(EntityModel.of(plant, Link.of("/api/plants/" + FERN)));
+
+        assertThat(json).startsWith("{\"id\":\"" + FERN + "\",\"plantName\":\"Fern\",")
+                .contains("\"version\":1,\"links\":[");
+    }
+
+    @Test
+    void deserialize_shouldReadWhatWasWrittenAndSkipUnknownFields() throws Exception {
+        Plant plant = Plant.existingPlant(FERN, new PlantName("Fern"), new PlantSpecies("Polypodiopsida"),
+                new LastWateredDate(new Date(MARCH_2)), new WateringFrequencyInDays(3), new Notes("Shade"), 4);
+        String json = objectMapper.writeValueAsString(List.of(plant))
+                .replace("\"version\":4", "\"version\":4,\"_links\":{\"self\":{\"href\":\"/api/plants\"}}");
+
+        Plant read = objectMapper.readValue(json, Plant[].class)[0];
+
+        assertThat(read.getId()).isEqualTo(FERN);
+        assertThat(read.getPlantName()).isEqualTo(new PlantName("Fern"));
+        assertThat(read.getSpecies()).isEqualTo(new PlantSpecies("Polypodiopsida"));
+        assertThat(read.getLastWatered()).isEqualTo(new LastWateredDate(new Date(MARCH_2)));
+        assertThat(read.getWateringFrequency()).isEqualTo(new WateringFrequencyInDays(3));
+        assertThat(read.getNotes()).isEqualTo(new Notes("Shade"));
+        assertThat(read.getNextDue()).isEqualTo(plant.getNextDue());
+        assertThat(read.getVersion()).isEqualTo(4);
+        assertThat(objectMapper.writeValueAsString(read)).isEqualTo(objectMapper.writeValueAsString(plant));
+    }
+
+    @Test
+    void deserializeRequest_shouldReadDatesAsEpochMillisOrIsoStrings() throws Exception {
+        PlantDto.Request millis = objectMapper.readValue("""
+                {"name":"Fern","species":"Polypodiopsida","lastWatered":1772443800123,
+                 "wateringFrequencyInDays":3,"notes":"Shade","extra":{"ignored":[1,2]}}""", PlantDto.Request.class);
+        PlantDto.Request iso = objectMapper.readValue("""
+                {"name":"Fern","species":"Polypodiopsida","lastWatered":"2026-03-02T09:30:00.123Z",
+                 "wateringFrequencyInDays":3,"notes":"Shade"}""", PlantDto.Request.class);
+
+        assertThat(millis).isEqualTo(new PlantDto.Request("Fern", "Polypodiopsida", new Date(MARCH_2), 3, "Shade"));
+        assertThat(iso).isEqualTo(millis);
+    }
+
+    @Test
+    void deserializeRequest_shouldDefaultMissingFields() throws Exception {
+        assertThat(objectMapper.readValue("{\"name\":\"Fern\"}", PlantDto.Request.class))
+                .isEqualTo(new PlantDto.Request("Fern", null, null, 0, null));
+        assertThat(objectMapper.readValue("{}", PlantDto.Request.class))
+                .isEqualTo(new PlantDto.Request(null, null, null, 0, null));
+    }
+
+    @Test
+    void deserializeRequest_whenNotAnObject_shouldFail() {
+        assertThatThrownBy(() -> objectMapper.readValue("[\"Fern\"]", PlantDto.Request.class))
+                .isInstanceOf(MismatchedInputException.class);
+    }
+
+    @Test
+    void deserializeRequest_whenAFieldIsAnObject_shouldFail() {
+        assertThatThrownBy(() -> objectMapper.readValue("""
+                {"name":{"a":1},"species":"Fern","wateringFrequencyInDays":3}""", PlantDto.Request.class))
+                .isInstanceOf(MismatchedInputException.class);
+    }
+
+    @Test
+    void deserializeRequest_whenAFieldIsAnArray_shouldFail() {
+        assertThatThrownBy(() -> objectMapper.readValue("""
+                {"name":"Fern","wateringFrequencyInDays":[3],"notes":"Shade"}""", PlantDto.Request.class))
+                .isInstanceOf(MismatchedInputException.class);
+    }
+
+    @Test
+    void deserialize_whenAFieldIsAnObjectOrArray_shouldFail() {
+        assertThatThrownBy(() -> objectMapper.readValue("""
+                {"plantName":"Fern","species":{"name":"Polypodiopsida"},"version":1}""", Plant.class))
+                .isInstanceOf(MismatchedInputException.class);
+        assertThatThrownBy(() -> objectMapper.readValue("""
+                {"plantName":"Fern","notes":["Shade"],"version":1}""", Plant.class))
+                .isInstanceOf(MismatchedInputException.class);
+    }
+}
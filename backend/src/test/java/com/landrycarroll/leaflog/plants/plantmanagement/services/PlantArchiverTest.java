@@ -0,0 +1,78 @@
+package com.landrycarroll.leaflog.plants.plantmanagement.services;
+
+import com.landrycarroll.leaflog.infrastructure.SqliteWriteQueue;
+import com.landrycarroll.leaflog.infrastructure.TenantContext;
+import com.landrycarroll.leaflog.infrastructure.TenantDatabases;
+import com.landrycarroll.leaflog.plantmanagement.repositories.PlantArchive;
+import com.landrycarroll.leaflog.plantmanagement.services.PlantArchiver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PlantArchiverTest {
+
+    private PlantArchive archive;
+    private SqliteWriteQueue writeQueue;
+    private TenantDatabases tenants;
+    private PlantArchiver archiver;
+
+    @BeforeEach
+    void setup() {
+        archive = mock(PlantArchive.class);
+        writeQueue = new SqliteWriteQueue(mock(PlatformTransactionManager.class), 16);
+        tenants = mock(TenantDatabases.class);
+        when(tenants.openTenants()).thenReturn(List.of(TenantContext.DEFAULT_TENANT));
+        archiver = new PlantArchiver(archive, writeQueue, Optional.empty(), tenants, Duration.ofDays(180), 100);
+    }
+
+    @AfterEach
+    void teardown() {
+        writeQueue.shutdown();
+    }
+
+    @Test
+    void archiveDormantPlants_shouldMoveBatchesUntilOneIsNotFull() {
+        when(archive.archiveDormant(any(Date.class), eq(100))).thenReturn(100, 100, 42);
+
+        int archived = archiver.archiveDormantPlants();
+
+        assertThat(archived).isEqualTo(242);
+        verify(archive, times(3)).archiveDormant(any(Date.class), eq(100));
+    }
+
+    @Test
+    void archiveDormantPlants_shouldOnlyTakePlantsPastTheThreshold() {
+        long before = System.currentTimeMillis();
+
+        archiver.archiveDormantPlants();
+
+        verify(archive).archiveDormant(argThat(cutoff ->
+                cutoff.getTime() <= before - Duration.ofDays(179).toMillis()
+                        && cutoff.getTime() >= before - Duration.ofDays(181).toMillis()), eq(100));
+    }
+
+    @Test
+    void archiveDormantPlants_shouldArchiveEveryOpenTenant() {
+        when(tenants.openTenants()).thenReturn(List.of(TenantContext.DEFAULT_TENANT, "greenhouse-2"));
+        List<String> archivedTenants = new ArrayList<>();
+        when(archive.archiveDormant(any(Date.class), eq(100))).thenAnswer(invocation -> {
+            archivedTenants.add(TenantContext.current());
+            return 3;
+        });
+
+        int archived = archiver.archiveDormantPlants();
+
+        assertThat(archived).isEqualTo(6);
+        assertThat(archivedTenants).containsExactly(TenantContext.DEFAULT_TENANT, "greenhouse-2");
+    }
+}
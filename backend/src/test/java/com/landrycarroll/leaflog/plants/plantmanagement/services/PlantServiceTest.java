@@ -1,19 +1,35 @@
 package com.landrycarroll.leaflog.plants.plantmanagement.services;
 
+import com.landrycarroll.leaflog.infrastructure.SqliteWriteQueue;
 import com.landrycarroll.leaflog.plantmanagement.domain.entities.Plant;
 import com.landrycarroll.leaflog.plantmanagement.domain.valueobjects.*;
 import com.landrycarroll.leaflog.plantmanagement.dtos.PlantDto;
+import com.landrycarroll.leaflog.plantmanagement.exceptions.DomainValidationException;
 import com.landrycarroll.leaflog.plantmanagement.exceptions.PlantException;
+import com.landrycarroll.leaflog.plantmanagement.repositories.PlantArchive;
+import com.landrycarroll.leaflog.plantmanagement.repositories.PlantListing;
+import com.landrycarroll.leaflog.plantmanagement.repositories.PlantMemoryStore;
 import com.landrycarroll.leaflog.plantmanagement.repositories.PlantRepository;
+import com.landrycarroll.leaflog.plantmanagement.repositories.PlantVersions;
+import com.landrycarroll.leaflog.plantmanagement.repositories.SpeciesDictionary;
+import com.landrycarroll.leaflog.plantmanagement.repositories.WateringLog;
 import com.landrycarroll.leaflog.plantmanagement.services.PlantService;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.function.UnaryOperator;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -22,12 +38,29 @@ import static org.mockito.Mockito.*;
 class PlantServiceTest {
 
     private PlantRepository repository;
+    private PlantArchive archive;
+    private PlantListing listing;
+    private SpeciesDictionary speciesDictionary;
+    private WateringLog wateringLog;
+    private PlantVersions versions;
+    private SqliteWriteQueue writeQueue;
     private PlantService service;
 
     @BeforeEach
     void setup() {
         repository = mock(PlantRepository.class);
-        service = new PlantService(repository);
+        archive = mock(PlantArchive.class);
+        listing = mock(PlantListing.class);
+        speciesDictionary = mock(SpeciesDictionary.class);
+        wateringLog = mock(WateringLog.class);
+        versions = mock(PlantVersions.class);
+        writeQueue = new SqliteWriteQueue(mock(PlatformTransactionManager.class), 16);
+        service = new PlantService(repository, archive, listing, Optional.empty(), speciesDictionary, wateringLog, versions, writeQueue, 2);
+    }
+
+    @AfterEach
+    void teardown() {
+        writeQueue.shutdown();
     }
 
     @Test
@@ -61,6 +94,243 @@ class PlantServiceTest {
                 .hasMessageContaining(id.toString());
     }
 
+    @Test
+    void findAll_withArchived_shouldAppendArchivedPlants() {
+        Plant active = new Plant();
+        Plant archived = new Plant();
+        when(repository.findAll()).thenReturn(List.of(active));
+        when(repository.findAllArchived()).thenReturn(List.of(archived));
+
+        assertThat(service.findAll(true)).containsExactly(active, archived);
+        assertThat(service.findAll(false)).containsExactly(active);
+    }
+
+    @Test
+    void findById_whenArchived_shouldRestorePlant() {
+        UUID id = UUID.randomUUID();
+        Plant plant = new Plant();
+        when(repository.findById(id)).thenReturn(Optional.empty(), Optional.empty(), Optional.of(plant));
+        when(archive.contains(id)).thenReturn(true);
+        when(archive.restore(id)).thenReturn(true);
+
+        Plant result = service.findById(id);
+
+        assertThat(result).isSameAs(plant);
+        verify(archive).restore(id);
+    }
+
+    @Test
+    void findById_whenNeitherActiveNorArchived_shouldThrowWithoutWriting() {
+        UUID id = UUID.randomUUID();
+        when(repository.findById(id)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> service.findById(id))
+                .isInstanceOf(PlantException.PlantNotFound.class);
+        verify(archive, never()).restore(id);
+    }
+
+    @Test
+    void findDue_shouldQueryRequestedPage() {
+        Date before = new Date();
+        Slice<Plant> expected = new SliceImpl<>(List.of(new Plant()));
+        when(repository.findDueBefore(before, PageRequest.of(1, 10))).thenReturn(expected);
+
+        Slice<Plant> result = service.findDue(before, 1, 10);
+
+        assertThat(result).isSameAs(expected);
+    }
+
+    @Test
+    void findDue_whenPageSizeOutOfRange_shouldThrowInvalidInput() {
+        assertThatThrownBy(() -> service.findDue(new Date(), 0, 0))
+                .isInstanceOf(PlantException.InvalidInput.class);
+        assertThatThrownBy(() -> service.findDue(new Date(), 0, 10_000))
+                .isInstanceOf(PlantException.InvalidInput.class);
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void findPage_whenMorePlantsExist_shouldReturnCursorOfNextPage() {
+        Plant first = plantWithId(new UUID(1, 1));
+        Plant second = plantWithId(new UUID(1, 2));
+        Plant third = plantWithId(new UUID(1, 3));
+        when(listing.page(PlantListing.Filter.NONE, PlantListing.Order.ID, false, null, 3))
+                .thenReturn(List.of(first, second, third));
+        when(listing.page(PlantListing.Filter.NONE, PlantListing.Order.ID, false, new PlantListing.Position(second.getId(), null), 3))
+                .thenReturn(List.of(third));
+
+        PlantDto.PlantPage<Plant> page = service.findPage(PlantDto.PlantQuery.ALL, null, 2);
+
+        assertThat(page.plants()).containsExactly(first, second);
+        assertThat(page.nextCursor()).isNotNull();
+
+        PlantDto.PlantPage<Plant> next = service.findPage(PlantDto.PlantQuery.ALL, page.nextCursor(), 2);
+
+        assertThat(next.plants()).containsExactly(third);
+        assertThat(next.nextCursor()).isNull();
+    }
+
+    @Test
+    void findPage_whenNamePrefixGiven_shouldSortByNameAndResumeAfterLastName() {
+        PlantListing.Filter filter = new PlantListing.Filter(null, "Fe", null, null, null, null);
+        Plant first = plantWithId(new UUID(1, 1));
+        Plant second = plantWithId(new UUID(1, 2));
+        when(listing.page(filter, PlantListing.Order.NAME, true, null, 2)).thenReturn(List.of(first, second));
+
+        PlantDto.PlantPage<Plant> page = service.findPage(query("Fe", null, "-name"), null, 1);
+        service.findPage(query("Fe", null, "-name"), page.nextCursor(), 1);
+
+        verify(listing).page(filter, PlantListing.Order.NAME, true, new PlantListing.Position(first.getId(), "fern"), 2);
+    }
+
+    @Test
+    void findPage_whenArchivedIncluded_shouldPageThroughBothTables() {
+        service.findPage(new PlantDto.PlantQuery(null, null, null, null, null, null, null, true), null, 2);
+
+        verify(listing).page(null, 3, true);
+    }
+
+    @Test
+    void findPage_whenSpeciesUnknown_shouldReturnEmptyPageWithoutQuerying() {
+        when(speciesDictionary.find("Cactaceae")).thenReturn(Optional.empty());
+
+        PlantDto.PlantPage<Plant> page = service.findPage(
+                new PlantDto.PlantQuery("Cactaceae", null, null, null, null, null, "name", null), null, 2);
+
+        assertThat(page.plants()).isEmpty();
+        verifyNoInteractions(listing);
+    }
+
+    @Test
+    void findPage_whenNoIndexServesTheQuery_shouldThrowInvalidInput() {
+        List<PlantDto.PlantQuery> unsupported = List.of(
+                query("Fe", 3, null),
+                query(null, 3, "name"),
+                query("Fe", null, "id"),
+                query(null, null, "colour"),
+                new PlantDto.PlantQuery("Cactaceae", null, null, null, null, null, "wateringFrequency", null),
+                new PlantDto.PlantQuery(null, null, null, null, null, null, "-id", true),
+                new PlantDto.PlantQuery(null, null, 1, null, null, null, null, true));
+
+        for (PlantDto.PlantQuery query : unsupported) {
+            assertThatThrownBy(() -> service.findPage(query, null, 2))
+                    .as(query.toString())
+                    .isInstanceOf(PlantException.InvalidInput.class);
+        }
+        verifyNoInteractions(listing);
+    }
+
+    @Test
+    void findPage_whenCursorMalformedOrForAnotherOrder_shouldThrowInvalidInput() {
+        Plant first = plantWithId(new UUID(1, 1));
+        when(listing.page(PlantListing.Filter.NONE, PlantListing.Order.ID, false, null, 2))
+                .thenReturn(List.of(first, plantWithId(new UUID(1, 2))));
+        String idCursor = service.findPage(PlantDto.PlantQuery.ALL, null, 1).nextCursor();
+
+        assertThatThrownBy(() -> service.findPage(PlantDto.PlantQuery.ALL, "not a cursor", 2))
+                .isInstanceOf(PlantException.InvalidInput.class);
+        assertThatThrownBy(() -> service.findPage(PlantDto.PlantQuery.ALL, "AAAA", 2))
+                .isInstanceOf(PlantException.InvalidInput.class);
+        assertThatThrownBy(() -> service.findPage(query(null, null, "name"), idCursor, 2))
+                .isInstanceOf(PlantException.InvalidInput.class);
+        assertThatThrownBy(() -> service.findPage(query(null, null, "-id"), idCursor, 2))
+                .isInstanceOf(PlantException.InvalidInput.class);
+    }
+
+    @Test
+    void findPage_withFields_shouldReadOnlyThoseFieldsAndResumeFromTheirPosition() {
+        Set<PlantListing.Field> fields = EnumSet.of(PlantListing.Field.ID, PlantListing.Field.NEXT_DUE);
+        PlantListing.Position position = new PlantListing.Position(new UUID(1, 1), 7L);
+        PlantListing.PlantFields first = new PlantListing.PlantFields(position, Map.of("id", position.id()));
+        PlantListing.PlantFields second = new PlantListing.PlantFields(
+                new PlantListing.Position(new UUID(1, 2), 9L), Map.of("id", new UUID(1, 2)));
+        when(listing.page(PlantListing.Filter.NONE, PlantListing.Order.WATERING_FREQUENCY, false, null, 2, fields))
+                .thenReturn(List.of(first, second));
+
+        PlantDto.PlantPage<PlantListing.PlantFields> page =
+                service.findPage(query(null, null, "wateringFrequency"), fields, null, 1);
+        service.findPage(query(null, null, "wateringFrequency"), fields, page.nextCursor(), 1);
+
+        assertThat(page.plants()).containsExactly(first);
+        verify(listing).page(PlantListing.Filter.NONE, PlantListing.Order.WATERING_FREQUENCY, false, position, 2, fields);
+    }
+
+    @Test
+    void fieldsOf_shouldExpandSummaryAndAlwaysIncludeTheId() {
+        assertThat(service.fieldsOf("summary, version")).containsExactly(PlantListing.Field.ID,
+                PlantListing.Field.PLANT_NAME, PlantListing.Field.SPECIES, PlantListing.Field.NEXT_DUE,
+                PlantListing.Field.VERSION);
+        assertThat(service.fieldsOf("notes,plantName")).containsExactly(PlantListing.Field.ID,
+                PlantListing.Field.PLANT_NAME, PlantListing.Field.NOTES);
+        assertThat(service.fieldsOf("")).containsExactly(PlantListing.Field.ID);
+    }
+
+    @Test
+    void fieldsOf_whenFieldUnknown_shouldThrowInvalidInput() {
+        assertThatThrownBy(() -> service.fieldsOf("summary,colour"))
+                .isInstanceOf(PlantException.InvalidInput.class)
+                .hasMessageContaining("colour");
+        assertThatThrownBy(() -> service.fieldsOf("name"))
+                .isInstanceOf(PlantException.InvalidInput.class);
+    }
+
+    @Test
+    void findPage_whenPageSizeOutOfRange_shouldThrowInvalidInput() {
+        assertThatThrownBy(() -> service.findPage(PlantDto.PlantQuery.ALL, null, 0))
+                .isInstanceOf(PlantException.InvalidInput.class);
+        assertThatThrownBy(() -> service.findPage(PlantDto.PlantQuery.ALL, null, 201))
+                .isInstanceOf(PlantException.InvalidInput.class);
+    }
+
+    @Test
+    void findBySpecies_shouldQueryKnownSpecies() {
+        Slice<Plant> expected = new SliceImpl<>(List.of(new Plant()));
+        when(speciesDictionary.find("Succulent")).thenReturn(Optional.of(3));
+        when(repository.findBySpecies(new PlantSpecies("Succulent"), PageRequest.of(0, 20))).thenReturn(expected);
+
+        Slice<Plant> result = service.findBySpecies("Succulent", 0, 20);
+
+        assertThat(result).isSameAs(expected);
+    }
+
+    @Test
+    void findBySpecies_whenSpeciesUnknown_shouldReturnEmptySliceWithoutQuerying() {
+        when(speciesDictionary.find("Orchid")).thenReturn(Optional.empty());
+
+        Slice<Plant> result = service.findBySpecies("Orchid", 0, 20);
+
+        assertThat(result).isEmpty();
+        assertThat(result.hasNext()).isFalse();
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void search_shouldQuoteWordsAndMatchLastWordAsPrefix() {
+        Plant plant = mock(Plant.class);
+        when(plant.getId()).thenReturn(new UUID(0, 1));
+        PlantRepository.SearchHit hit = mock(PlantRepository.SearchHit.class);
+        when(hit.getId()).thenReturn("00000000000000000000000000000001");
+        when(hit.getSnippet()).thenReturn("<mark>Aloe</mark> vera");
+        when(repository.search("\"aloe\" \"ve\"\"ra\"*", PageRequest.of(0, 20)))
+                .thenReturn(new SliceImpl<>(List.of(hit), PageRequest.of(0, 20), true));
+        when(repository.findAllById(List.of(new UUID(0, 1)))).thenReturn(List.of(plant));
+
+        Slice<PlantDto.SearchResult> result = service.search("  aloe ve\"ra ", 0, 20);
+
+        assertThat(result.hasNext()).isTrue();
+        assertThat(result.getContent()).singleElement().satisfies(match -> {
+            assertThat(match.plant()).isSameAs(plant);
+            assertThat(match.snippet()).isEqualTo("<mark>Aloe</mark> vera");
+        });
+    }
+
+    @Test
+    void search_whenQueryBlank_shouldThrowInvalidInput() {
+        assertThatThrownBy(() -> service.search(" ", 0, 20))
+                .isInstanceOf(PlantException.InvalidInput.class);
+        verifyNoInteractions(repository);
+    }
+
     @Test
     void createPlant_shouldSaveAndReturnNewPlant() {
         Date now = new Date();
@@ -82,28 +352,187 @@ class PlantServiceTest {
 
         @Test
         void whenExists_shouldUpdateAndReturn() {
-            Plant existing = PlantDto.createPlantFromDto(
-                    new PlantDto.Request("Old", "OldSpecies", now, 3, "Old note"));
+            Plant existing = PlantDto.createPlantFromDto(request);
+            when(repository.update(eq(id), any(Plant.class), isNull())).thenReturn(1);
             when(repository.findById(id)).thenReturn(Optional.of(existing));
-            when(repository.save(any(Plant.class))).thenAnswer(inv -> inv.getArgument(0));
 
             Plant updated = service.updatePlant(id, request);
 
-            assertThat(updated.getPlantName().value()).isEqualTo("Updated");
-            assertThat(updated.getSpecies().value()).isEqualTo("NewSpecies");
-            assertThat(updated.getWateringFrequency().value()).isEqualTo(5);
-            assertThat(updated.getNotes().value()).isEqualTo("Updated note");
+            ArgumentCaptor<Plant> plant = ArgumentCaptor.forClass(Plant.class);
+            verify(repository).update(eq(id), plant.capture(), isNull());
+            assertThat(plant.getValue().getPlantName().value()).isEqualTo("Updated");
+            assertThat(plant.getValue().getSpecies().value()).isEqualTo("NewSpecies");
+            assertThat(plant.getValue().getWateringFrequency().value()).isEqualTo(5);
+            assertThat(plant.getValue().getNotes().value()).isEqualTo("Updated note");
+            assertThat(updated).isSameAs(existing);
+            verify(repository, never()).save(any(Plant.class));
+        }
+
+        @Test
+        void whenArchived_shouldRestoreAndUpdate() {
+            Plant restored = PlantDto.createPlantFromDto(request);
+            when(repository.update(eq(id), any(Plant.class), isNull())).thenReturn(0, 1);
+            when(archive.restore(id)).thenReturn(true);
+            when(repository.findById(id)).thenReturn(Optional.of(restored));
+
+            Plant updated = service.updatePlant(id, request);
+
+            assertThat(updated).isSameAs(restored);
+            verify(repository, times(2)).update(eq(id), any(Plant.class), isNull());
         }
 
         @Test
         void whenNotExists_shouldCreateNewPlant() {
-            when(repository.findById(id)).thenReturn(Optional.empty());
             when(repository.save(any(Plant.class))).thenAnswer(inv -> inv.getArgument(0));
 
             Plant created = service.updatePlant(id, request);
 
             assertThat(created.getPlantName().value()).isEqualTo("Updated");
         }
+
+        @Test
+        void whenTagMatches_shouldUpdateExpectedVersion() {
+            when(versions.versionOf("\"e-3\"")).thenReturn(OptionalInt.of(3));
+            when(repository.update(eq(id), any(Plant.class), eq(3))).thenReturn(1);
+            when(repository.findById(id)).thenReturn(Optional.of(PlantDto.createPlantFromDto(request)));
+
+            service.updatePlant(id, request, "\"e-3\"");
+
+            verify(repository).update(eq(id), any(Plant.class), eq(3));
+        }
+
+        @Test
+        void whenVersionChanged_shouldThrowVersionMismatch() {
+            when(versions.versionOf("\"e-3\"")).thenReturn(OptionalInt.of(3));
+
+            assertThatThrownBy(() -> service.updatePlant(id, request, "\"e-3\""))
+                    .isInstanceOf(PlantException.VersionMismatch.class)
+                    .hasMessageContaining(id.toString());
+            verify(repository, never()).save(any(Plant.class));
+        }
+
+        @Test
+        void whenTagUnknown_shouldThrowVersionMismatchWithoutWriting() {
+            when(versions.versionOf("\"other-3\"")).thenReturn(OptionalInt.empty());
+
+            assertThatThrownBy(() -> service.updatePlant(id, request, "\"other-3\""))
+                    .isInstanceOf(PlantException.VersionMismatch.class);
+            verifyNoInteractions(repository);
+        }
+
+        @Test
+        void whenAnyTagAndNotExists_shouldThrowVersionMismatch() {
+            assertThatThrownBy(() -> service.updatePlant(id, request, "*"))
+                    .isInstanceOf(PlantException.VersionMismatch.class);
+            verify(repository, never()).save(any(Plant.class));
+        }
+    }
+
+    @Nested
+    class PatchPlantTests {
+        UUID id = UUID.randomUUID();
+        Date now = new Date();
+        Plant existing = PlantDto.createPlantFromDto(new PlantDto.Request("Fern", "Polypodiopsida", now, 3, "Shade"));
+
+        @Test
+        void whenNotesChange_shouldOnlyChangeNotes() {
+            when(repository.findById(id)).thenReturn(Optional.of(existing));
+            when(repository.save(existing)).thenReturn(existing);
+            PlantDto.Patch patch = new PlantDto.Patch();
+            patch.setNotes("Repotted");
+
+            Plant patched = service.patchPlant(id, patch, null);
+
+            assertThat(patched.getNotes().value()).isEqualTo("Repotted");
+            assertThat(patched.getPlantName().value()).isEqualTo("Fern");
+            assertThat(patched.getWateringFrequency().value()).isEqualTo(3);
+            verify(repository).save(existing);
+        }
+
+        @Test
+        void whenNothingChanges_shouldNotWrite() {
+            when(repository.findById(id)).thenReturn(Optional.of(existing));
+            PlantDto.Patch patch = new PlantDto.Patch();
+            patch.setName("Fern");
+            patch.setLastWatered(new java.sql.Timestamp(now.getTime()));
+
+            Plant patched = service.patchPlant(id, patch, null);
+
+            assertThat(patched).isSameAs(existing);
+            verify(repository, never()).save(any(Plant.class));
+            verifyNoInteractions(archive);
+        }
+
+        @Test
+        void whenNullClearsNotes_shouldKeepOtherFields() {
+            when(repository.findById(id)).thenReturn(Optional.of(existing));
+            when(repository.save(existing)).thenReturn(existing);
+            PlantDto.Patch patch = new PlantDto.Patch();
+            patch.setNotes(null);
+
+            Plant patched = service.patchPlant(id, patch, null);
+
+            assertThat(patched.getNotes().value()).isNull();
+            assertThat(patched.getSpecies().value()).isEqualTo("Polypodiopsida");
+        }
+
+        @Test
+        void whenValueInvalid_shouldThrowWithoutChangingPlant() {
+            when(repository.findById(id)).thenReturn(Optional.of(existing));
+            PlantDto.Patch patch = new PlantDto.Patch();
+            patch.setNotes("Repotted");
+            patch.setWateringFrequencyInDays(400);
+
+            assertThatThrownBy(() -> service.patchPlant(id, patch, null))
+                    .isInstanceOf(DomainValidationException.class);
+            assertThat(existing.getNotes().value()).isEqualTo("Shade");
+            verify(repository, never()).save(any(Plant.class));
+        }
+
+        @Test
+        void whenFrequencyNull_shouldThrowInvalidFrequency() {
+            when(repository.findById(id)).thenReturn(Optional.of(existing));
+            PlantDto.Patch patch = new PlantDto.Patch();
+            patch.setWateringFrequencyInDays(null);
+
+            assertThatThrownBy(() -> service.patchPlant(id, patch, null))
+                    .isInstanceOf(PlantException.InvalidFrequency.class);
+        }
+
+        @Test
+        void whenVersionChanged_shouldThrowVersionMismatch() {
+            when(versions.versionOf("\"e-3\"")).thenReturn(OptionalInt.of(3));
+            when(repository.findById(id)).thenReturn(Optional.of(existing));
+            PlantDto.Patch patch = new PlantDto.Patch();
+            patch.setNotes("Repotted");
+
+            assertThatThrownBy(() -> service.patchPlant(id, patch, "\"e-3\""))
+                    .isInstanceOf(PlantException.VersionMismatch.class);
+            verify(repository, never()).save(any(Plant.class));
+        }
+
+        @Test
+        void whenArchived_shouldRestoreAndPatch() {
+            when(repository.findById(id)).thenReturn(Optional.empty(), Optional.empty(), Optional.of(existing));
+            when(archive.restore(id)).thenReturn(true);
+            when(repository.save(existing)).thenReturn(existing);
+            PlantDto.Patch patch = new PlantDto.Patch();
+            patch.setNotes("Repotted");
+
+            Plant patched = service.patchPlant(id, patch, null);
+
+            assertThat(patched.getNotes().value()).isEqualTo("Repotted");
+            verify(archive).restore(id);
+        }
+
+        @Test
+        void whenNotExists_shouldThrowPlantNotFound() {
+            when(repository.findById(id)).thenReturn(Optional.empty());
+
+            assertThatThrownBy(() -> service.patchPlant(id, new PlantDto.Patch(), null))
+                    .isInstanceOf(PlantException.PlantNotFound.class);
+            verify(repository, never()).save(any(Plant.class));
+        }
     }
 
     @Test
@@ -114,6 +543,7 @@ class PlantServiceTest {
 
         assertThat(result).isTrue();
         verify(repository).deleteById(id);
+        verify(archive).delete(id);
     }
 
     @Test
@@ -121,13 +551,77 @@ class PlantServiceTest {
         UUID id = UUID.randomUUID();
         Plant plant = new Plant();
         plant.setPlantName(new PlantName("Cactus"));
+        when(repository.markAsWatered(eq(id), anyLong())).thenReturn(1);
         when(repository.findById(id)).thenReturn(Optional.of(plant));
-        when(repository.save(any(Plant.class))).thenReturn(plant);
 
         Plant result = service.markAsWatered(id);
 
+        ArgumentCaptor<Long> wateredAt = ArgumentCaptor.forClass(Long.class);
         assertThat(result.getPlantName().value()).isEqualTo("Cactus");
-        verify(repository).save(plant);
+        verify(repository).markAsWatered(eq(id), wateredAt.capture());
+        verify(wateringLog).append(id, new Date(wateredAt.getValue()));
+        verify(repository, never()).save(any(Plant.class));
+    }
+
+    @Test
+    void markAsWatered_whenArchived_shouldRestoreAndWaterPlant() {
+        UUID id = UUID.randomUUID();
+        Plant plant = new Plant();
+        when(repository.markAsWatered(eq(id), anyLong())).thenReturn(0, 1);
+        when(archive.restore(id)).thenReturn(true);
+        when(repository.findById(id)).thenReturn(Optional.of(plant));
+
+        Plant result = service.markAsWatered(id);
+
+        assertThat(result).isSameAs(plant);
+        verify(archive).restore(id);
+        verify(repository, times(2)).markAsWatered(eq(id), anyLong());
+    }
+
+    @Test
+    void markAsWatered_whenNotFound_shouldThrowException() {
+        UUID id = UUID.randomUUID();
+
+        assertThatThrownBy(() -> service.markAsWatered(id))
+                .isInstanceOf(PlantException.PlantNotFound.class)
+                .hasMessageContaining(id.toString());
+        verify(wateringLog, never()).append(any(), any());
+    }
+
+    @Test
+    void findWaterings_shouldReadPlantHistoryAndTotalIt() {
+        UUID id = UUID.randomUUID();
+        LocalDate from = LocalDate.of(2026, 3, 1);
+        LocalDate to = LocalDate.of(2026, 3, 31);
+        when(repository.existsById(id)).thenReturn(true);
+        when(wateringLog.plantHistory(id, from, to)).thenReturn(List.of(
+                new WateringLog.DailyCount(from, 2), new WateringLog.DailyCount(to, 1)));
+
+        PlantDto.WateringHistory history = service.findWaterings(id, from, to);
+
+        assertThat(history.waterings()).isEqualTo(3);
+        assertThat(history.days()).hasSize(2);
+    }
+
+    @Test
+    void findWaterings_whenNeitherActiveNorArchived_shouldThrowPlantNotFound() {
+        UUID id = UUID.randomUUID();
+        LocalDate today = LocalDate.now();
+
+        assertThatThrownBy(() -> service.findWaterings(id, today, today))
+                .isInstanceOf(PlantException.PlantNotFound.class);
+        verify(wateringLog, never()).plantHistory(any(), any(), any());
+    }
+
+    @Test
+    void findDailyWaterings_whenRangeInvalid_shouldThrowInvalidInput() {
+        LocalDate today = LocalDate.now();
+
+        assertThatThrownBy(() -> service.findDailyWaterings(today, today.minusDays(1)))
+                .isInstanceOf(PlantException.InvalidInput.class);
+        assertThatThrownBy(() -> service.findDailyWaterings(today.minusDays(366), today))
+                .isInstanceOf(PlantException.InvalidInput.class);
+        verify(wateringLog, never()).dailyTotals(any(), any());
     }
 
     @Nested
@@ -144,7 +638,7 @@ class PlantServiceTest {
 
             MockMultipartFile file = new MockMultipartFile("plants.txt", "plants.txt", "text/plain", content.getBytes(StandardCharsets.UTF_8));
 
-            when(repository.save(any(Plant.class))).thenAnswer(inv -> inv.getArgument(0));
+            when(repository.saveAll(anyList())).thenAnswer(inv -> new ArrayList<>(inv.<List<Plant>>getArgument(0)));
 
             Map<String, Object> result = service.bulkCreate(file);
 
@@ -155,6 +649,31 @@ class PlantServiceTest {
             assertThat(errors).hasSize(2); // BadLine and NotANumber
             assertThat(errors.get(0).toString()).contains("BadLineWithoutEnoughFields");
             assertThat(errors.get(1).toString()).contains("For input string: \"NotANumber\"");
+            verify(repository, never()).save(any(Plant.class));
+        }
+
+        @Test
+        void bulkCreate_shouldWriteValidPlantsInChunks() {
+            String content = """
+                    Aloe - Succulent - 5 - Needs sun
+                    Bamboo - Grass - 14 - Grows fast
+                    Cactus - Desert - 30 - Barely water
+                    """;
+
+            MockMultipartFile file = new MockMultipartFile("plants.txt", "plants.txt", "text/plain", content.getBytes(StandardCharsets.UTF_8));
+
+            when(repository.saveAll(anyList())).thenAnswer(inv -> new ArrayList<>(inv.<List<Plant>>getArgument(0)));
+
+            Map<String, Object> result = service.bulkCreate(file);
+
+            List<?> plants = (List<?>) result.get("plants");
+            List<?> report = (List<?>) result.get("report");
+
+            assertThat(plants).hasSize(3);
+            assertThat(report).hasSize(2); // chunk size is 2
+            assertThat(((PlantDto.ChunkReport) report.get(0)).rows()).isEqualTo(2);
+            assertThat(((PlantDto.ChunkReport) report.get(1)).rows()).isEqualTo(1);
+            verify(repository, times(2)).saveAll(anyList());
         }
 
         @Test
@@ -170,4 +689,70 @@ class PlantServiceTest {
                     .hasMessageContaining("Failed to process bulk file");
         }
     }
+
+    @Nested
+    class MemoryStoreTests {
+        UUID id = UUID.randomUUID();
+        PlantMemoryStore memoryStore = mock(PlantMemoryStore.class);
+        Plant current = Plant.existingPlant(id, new PlantName("Fern"), new PlantSpecies("Polypodiopsida"),
+                new LastWateredDate(new Date(0)), new WateringFrequencyInDays(3), new Notes("Shade"), 4);
+
+        @BeforeEach
+        void setup() {
+            service = new PlantService(repository, archive, mock(PlantListing.class), Optional.of(memoryStore),
+                    speciesDictionary, wateringLog, versions, writeQueue, 2);
+            when(memoryStore.update(eq(id), any())).thenAnswer(invocation ->
+                    Optional.of(invocation.<UnaryOperator<Plant>>getArgument(1).apply(current)));
+        }
+
+        @Test
+        void markAsWatered_shouldWaterCopyAndLogWateringBehindTheRequest() {
+            Plant watered = service.markAsWatered(id);
+
+            assertThat(watered).isNotSameAs(current);
+            assertThat(watered.getVersion()).isEqualTo(5);
+            assertThat(watered.getLastWatered().value()).isCloseTo(new Date(), 1000);
+            assertThat(current.getLastWatered().value()).isEqualTo(new Date(0));
+            verify(memoryStore).appendWatering(eq(id), any(Date.class));
+            verifyNoInteractions(repository, wateringLog);
+        }
+
+        @Test
+        void updatePlant_whenVersionChanged_shouldThrowVersionMismatch() {
+            when(versions.versionOf("\"e-3\"")).thenReturn(OptionalInt.of(3));
+
+            assertThatThrownBy(() -> service.updatePlant(id, new PlantDto.Request("Palm", "Arecaceae", null, 3, null), "\"e-3\""))
+                    .isInstanceOf(PlantException.VersionMismatch.class);
+            verify(memoryStore, never()).insert(any(Plant.class));
+        }
+
+        @Test
+        void patchPlant_whenNothingChanges_shouldKeepCurrentPlant() {
+            PlantDto.Patch patch = new PlantDto.Patch();
+            patch.setName("Fern");
+
+            assertThat(service.patchPlant(id, patch, null)).isSameAs(current);
+            verifyNoInteractions(repository);
+        }
+
+        @Test
+        void createPlant_shouldAssignIdAndKeepPlantInMemory() {
+            when(memoryStore.insert(any(Plant.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            Plant created = service.createPlant(new PlantDto.Request("Palm", "Arecaceae", null, 3, null));
+
+            assertThat(created.getId()).isNotNull();
+            assertThat(created.getVersion()).isZero();
+            verifyNoInteractions(repository);
+        }
+    }
+
+    private static Plant plantWithId(UUID id) {
+        return Plant.existingPlant(id, new PlantName("Fern"), null, new LastWateredDate(null),
+                new WateringFrequencyInDays(3), new Notes(null), 0);
+    }
+
+    private static PlantDto.PlantQuery query(String namePrefix, Integer minFrequency, String sort) {
+        return new PlantDto.PlantQuery(null, namePrefix, minFrequency, null, null, null, sort, null);
+    }
 }
@@ -0,0 +1,64 @@
+package com.landrycarroll.leaflog.plants.plantmanagement.services;
+
+import com.landrycarroll.leaflog.infrastructure.SqliteWriteQueue;
+import com.landrycarroll.leaflog.infrastructure.TenantContext;
+import com.landrycarroll.leaflog.infrastructure.TenantDatabases;
+import com.landrycarroll.leaflog.plantmanagement.repositories.WateringLog;
+import com.landrycarroll.leaflog.plantmanagement.services.WateringRollup;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class WateringRollupTest {
+
+    private WateringLog wateringLog;
+    private SqliteWriteQueue writeQueue;
+    private TenantDatabases tenants;
+    private WateringRollup rollup;
+
+    @BeforeEach
+    void setup() {
+        wateringLog = mock(WateringLog.class);
+        writeQueue = new SqliteWriteQueue(mock(PlatformTransactionManager.class), 16);
+        tenants = mock(TenantDatabases.class);
+        when(tenants.openTenants()).thenReturn(List.of(TenantContext.DEFAULT_TENANT));
+        rollup = new WateringRollup(wateringLog, writeQueue, tenants, 1000);
+    }
+
+    @AfterEach
+    void teardown() {
+        writeQueue.shutdown();
+    }
+
+    @Test
+    void rollUpWaterings_shouldRollUpBatchesUntilOneIsNotFull() {
+        when(wateringLog.rollUp(1000)).thenReturn(1000, 1000, 17);
+
+        int rolledUp = rollup.rollUpWaterings();
+
+        assertThat(rolledUp).isEqualTo(2017);
+        verify(wateringLog, times(3)).rollUp(1000);
+    }
+
+    @Test
+    void rollUpWaterings_shouldRollUpEveryOpenTenant() {
+        when(tenants.openTenants()).thenReturn(List.of(TenantContext.DEFAULT_TENANT, "greenhouse-2"));
+        List<String> rolledUpTenants = new ArrayList<>();
+        when(wateringLog.rollUp(1000)).thenAnswer(invocation -> {
+            rolledUpTenants.add(TenantContext.current());
+            return 5;
+        });
+
+        int rolledUp = rollup.rollUpWaterings();
+
+        assertThat(rolledUp).isEqualTo(10);
+        assertThat(rolledUpTenants).containsExactly(TenantContext.DEFAULT_TENANT, "greenhouse-2");
+    }
+}
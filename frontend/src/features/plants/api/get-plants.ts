@@ -2,10 +2,23 @@ import { queryOptions, useQuery } from '@tanstack/react-query';
 
 import { api } from '@/lib/api-client';
 import { QueryConfig } from '@/lib/react-query';
-import { Plant } from '@/types/api';
+import { Plant, PlantPage } from '@/types/api';
 
-export const getPlants = (): Promise<Plant[]> => {
-  return api.get(`/plants`);
+const PAGE_SIZE = 200;
+
+// The collection is served a page at a time; each page links to the next one until the last
+export const getPlants = async (): Promise<Plant[]> => {
+  const plants: Plant[] = [];
+  let cursor: string | null = null;
+  do {
+    const page: PlantPage = await api.get(`/plants`, {
+      params: { size: PAGE_SIZE, cursor: cursor ?? undefined },
+    });
+    plants.push(...(page._embedded?.plantList ?? []));
+    const next = page._links.next?.href;
+    cursor = next ? new URL(next).searchParams.get('cursor') : null;
+  } while (cursor);
+  return plants;
 };
 
 export const getPlantsQueryOptions = () => {
@@ -43,7 +43,7 @@ export function DeletePlantModal({
       </Button>
       <Alert open={isOpen} onClose={setIsOpen} title="Delete Plant">
         <AlertTitle>
-          Are you sure you want to delete {plant.plantName.value}?
+          Are you sure you want to delete {plant.plantName}?
         </AlertTitle>
         <AlertDescription>
           This action cannot be undone. All data associated with this plant will
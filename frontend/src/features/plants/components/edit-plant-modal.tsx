@@ -61,14 +61,14 @@ export function EditPlantModal({
                     label="Name"
                     error={formState.errors['name']}
                     registration={register('name')}
-                    defaultValue={plant.plantName.value}
+                    defaultValue={plant.plantName}
                   />
 
                   <Input
                     label="Species"
                     error={formState.errors['species']}
                     registration={register('species')}
-                    defaultValue={plant.species.value}
+                    defaultValue={plant.species ?? ''}
                   />
                 </div>
 
@@ -77,7 +77,7 @@ export function EditPlantModal({
                   type="number"
                   error={formState.errors['wateringFrequencyInDays']}
                   registration={register('wateringFrequencyInDays')}
-                  defaultValue={plant.wateringFrequency.value.toString()}
+                  defaultValue={plant.wateringFrequency.toString()}
                 />
 
                 <Input
@@ -86,7 +86,7 @@ export function EditPlantModal({
                   error={formState.errors['lastWatered']}
                   registration={register('lastWatered')}
                   defaultValue={
-                    new Date(plant.lastWatered.value)
+                    new Date(plant.lastWatered ?? 0)
                       .toISOString()
                       .split('T')[0]
                   }
@@ -96,7 +96,7 @@ export function EditPlantModal({
                   label="Notes"
                   error={formState.errors['notes']}
                   registration={register('notes')}
-                  defaultValue={plant.notes?.value || ''}
+                  defaultValue={plant.notes ?? ''}
                 />
                 <DialogActions>
                   <Button outline onClick={() => setIsOpen(false)}>
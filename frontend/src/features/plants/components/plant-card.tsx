@@ -12,14 +12,14 @@ export function PlantCard({ plant }: { plant: Plant }) {
 
   const lastWateredDaysAgo = differenceInDays(
     now,
-    new Date(plant.lastWatered.value),
+    new Date(plant.lastWatered ?? 0),
   );
 
   const lastWatered = `Last watered ${lastWateredDaysAgo} day${lastWateredDaysAgo !== 1 ? 's' : ''} ago`;
   const isReadyForWatering =
-    lastWateredDaysAgo >= plant.wateringFrequency.value;
+    lastWateredDaysAgo >= plant.wateringFrequency;
 
-  const waterInDays = plant.wateringFrequency.value - lastWateredDaysAgo;
+  const waterInDays = plant.wateringFrequency - lastWateredDaysAgo;
 
   const { addNotification } = useNotifications();
   const waterPlantMutation = useWaterPlant({
@@ -37,7 +37,7 @@ export function PlantCard({ plant }: { plant: Plant }) {
     <div className="border p-4 rounded-xl shadow flex flex-col gap-2">
       <div className="flex items-center justify-between gap-4">
         <Heading level={2} className="!text-lg">
-          {plant.plantName.value}
+          {plant.plantName}
         </Heading>
         {isReadyForWatering && (
           <Button
@@ -54,11 +54,11 @@ export function PlantCard({ plant }: { plant: Plant }) {
       </div>
       <div>
         <Subheading className="!text-zinc-500">
-          Species: {plant.species.value}
+          Species: {plant.species}
         </Subheading>
         <Subheading className="!text-zinc-500">{lastWatered}</Subheading>
         <Subheading className="!text-zinc-500">
-          Watering Frequency: Every {plant.wateringFrequency.value} days
+          Watering Frequency: Every {plant.wateringFrequency} days
         </Subheading>
       </div>
       <div className="flex items-center gap-4">
@@ -81,7 +81,7 @@ export function PlantCard({ plant }: { plant: Plant }) {
               isReadyForWatering ? 'bg-emerald-600' : 'bg-yellow-500',
             )}
             style={{
-              width: `${(lastWateredDaysAgo / plant.wateringFrequency.value) * 100}%`,
+              width: `${(lastWateredDaysAgo / plant.wateringFrequency) * 100}%`,
             }}
           />
         </div>
@@ -51,19 +51,25 @@ export type Comment = Entity<{
 
 export type Plant = {
   id: string;
-  plantName: {
-    value: string;
-  };
-  species: {
-    value: string;
-  };
-  wateringFrequency: {
-    value: number; // in days
-  };
-  notes: {
-    value: string;
+  plantName: string;
+  species: string | null;
+  wateringFrequency: number; // in days
+  notes: string | null;
+  lastWatered: number | null; // epoch milliseconds
+  nextDue: number | null; // epoch milliseconds
+  version: number;
+};
+
+export type Link = {
+  href: string;
+};
+
+export type PlantPage = {
+  _embedded?: {
+    plantList: Plant[];
   };
-  lastWatered: {
-    value: string; // ISO date string
+  _links: {
+    self: Link;
+    next?: Link;
   };
 };